@@ -0,0 +1,81 @@
+package avrora.avrora.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avrora.avrora.sim.clock.BarrierSynchronizer;
+import avrora.avrora.sim.clock.RippleSynchronizer;
+import avrora.avrora.sim.clock.Synchronizer;
+import avrora.avrora.sim.types.SensorSimulation;
+
+/**
+ * Compares the cost of meeting at a global barrier with that of the ripple
+ * synchronizer. The barrier synchronizer does not model the timing of the
+ * radio, so the nodes run CntToLeds, which does not use the radio, and both
+ * synchronizers simulate the same network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BarrierSynchronizerBenchmark
+{
+
+    @Param({ "ripple", "barrier" })
+    public String synchronizer;
+
+    @Param({ "2", "8", "32" })
+    public int nodes;
+
+    String program;
+
+
+    /**
+     * A sensor network whose synchronizer is chosen by the benchmark instead
+     * of by an option.
+     */
+    static class Network extends SensorSimulation
+    {
+        void setSynchronizer(Synchronizer s)
+        {
+            synchronizer = s;
+        }
+    }
+
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        BenchUtil.silence();
+        program = BenchUtil.getProgramFile("CntToLeds.elf");
+    }
+
+
+    @Benchmark
+    public long simulateNetwork() throws Exception
+    {
+        Network sim = new Network();
+        sim.process(BenchUtil.options("platform", "mica2", "seconds", "0.5",
+                "monitors", "", "random-seed", "1", "nodecount",
+                String.valueOf(nodes)), new String[] { program });
+        if ("barrier".equals(synchronizer))
+            sim.setSynchronizer(new BarrierSynchronizer(100000, null));
+        else
+            sim.setSynchronizer(new RippleSynchronizer(100000, null));
+        return BenchUtil.run(sim);
+    }
+}
@@ -0,0 +1,95 @@
+package avrora.avrora.bench;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Iterator;
+
+import avrora.avrora.core.LoadableProgram;
+import avrora.avrora.sim.Simulation;
+import avrora.avrora.sim.Simulator;
+import avrora.cck.text.Terminal;
+import avrora.cck.util.Options;
+
+/**
+ * The <code>BenchUtil</code> class contains the code shared by the benchmarks
+ * that run complete simulations.
+ */
+public class BenchUtil
+{
+
+    /**
+     * The directory that contains the bundled AVR programs. It can be changed
+     * with the system property <code>avrora.programs</code>, e.g. with
+     * <code>-jvmArgsAppend -Davrora.programs=...</code>.
+     */
+    public static final String PROGRAMS = System.getProperty(
+            "avrora.programs", "../avrora/src/main/java/avrora/test/tinyos");
+
+
+    /**
+     * The <code>silence()</code> method discards everything the simulator
+     * prints, so that printing does not disturb the measurements.
+     */
+    public static void silence()
+    {
+        Terminal.setOutput(new PrintStream(new OutputStream()
+        {
+            @Override
+            public void write(int b)
+            {
+                // discard
+            }
+
+
+            @Override
+            public void write(byte[] b, int off, int len)
+            {
+                // discard
+            }
+        }));
+    }
+
+
+    public static String getProgramFile(String name)
+    {
+        return new File(PROGRAMS, name).getPath();
+    }
+
+
+    public static LoadableProgram load(String name) throws Exception
+    {
+        LoadableProgram p = new LoadableProgram(getProgramFile(name));
+        p.load();
+        return p;
+    }
+
+
+    public static Options options(String... pairs)
+    {
+        Options o = new Options();
+        for (int cntr = 0; cntr < pairs.length; cntr += 2)
+            o.setOption(pairs[cntr], pairs[cntr + 1]);
+        return o;
+    }
+
+
+    /**
+     * The <code>run()</code> method runs a simulation to the end and returns
+     * the number of cycles simulated by all of its nodes together.
+     */
+    public static long run(Simulation sim) throws InterruptedException
+    {
+        sim.start();
+        sim.join();
+        long cycles = 0;
+        Iterator<Simulation.Node> i = sim.getNodeIterator();
+        while (i.hasNext())
+        {
+            Simulator s = i.next().getSimulator();
+            if (s != null)
+                cycles += s.getClock().getCount();
+        }
+        return cycles;
+    }
+}
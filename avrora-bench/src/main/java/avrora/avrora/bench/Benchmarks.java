@@ -0,0 +1,31 @@
+package avrora.avrora.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The <code>Benchmarks</code> class is the entry point of the benchmark jar. It
+ * passes its arguments to JMH and, unless they specify otherwise, lets JMH
+ * write the results as JSON into <code>avrora-bench.json</code>, so that the
+ * results of different releases can be compared.
+ */
+public class Benchmarks
+{
+
+    public static void main(String[] args) throws Exception
+    {
+        List<String> list = new ArrayList<String>(Arrays.asList(args));
+        if (!list.contains("-rf"))
+        {
+            list.add("-rf");
+            list.add("json");
+        }
+        if (!list.contains("-rff"))
+        {
+            list.add("-rff");
+            list.add("avrora-bench.json");
+        }
+        org.openjdk.jmh.Main.main(list.toArray(new String[list.size()]));
+    }
+}
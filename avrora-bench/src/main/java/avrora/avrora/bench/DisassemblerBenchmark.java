@@ -0,0 +1,98 @@
+package avrora.avrora.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avrora.avrora.arch.avr.AVRDisassembler;
+import avrora.avrora.arch.legacy.LegacyDisassembler;
+import avrora.avrora.core.Program;
+
+/**
+ * Measures how fast the disassemblers decode a full 128KB flash image. The
+ * image repeats the code of a bundled program, and every word of it is decoded
+ * as if it were the start of an instruction. The jIntGen disassembler is
+ * measured both building instruction objects and filling an operand buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DisassemblerBenchmark
+{
+
+    static final int IMAGE = 128 * 1024;
+
+    @Param({ "Surge.elf", "RadioSenseToLeds_micaz.elf" })
+    public String program;
+
+    byte[] image;
+    final int[] operands = new int[4];
+    final AVRDisassembler avr = new AVRDisassembler();
+    final LegacyDisassembler legacy = new LegacyDisassembler();
+
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception
+    {
+        BenchUtil.silence();
+        Program p = BenchUtil.load(program).getProgram();
+        // leave room for the second word of the last instruction
+        image = new byte[IMAGE + 4];
+        for (int cntr = 0; cntr < IMAGE; cntr++)
+            image[cntr] = p.readProgramByte(
+                    p.program_start + cntr % p.program_length);
+    }
+
+
+    @Benchmark
+    public int legacy()
+    {
+        int valid = 0;
+        for (int index = 0; index < IMAGE; index += 2)
+        {
+            if (legacy.disassemble(0, index, image) != null)
+                valid++;
+        }
+        return valid;
+    }
+
+
+    @Benchmark
+    public int objects()
+    {
+        int valid = 0;
+        for (int index = 0; index < IMAGE; index += 2)
+        {
+            if (avr.decode(0, index, image) != null)
+                valid++;
+        }
+        return valid;
+    }
+
+
+    @Benchmark
+    public int operands()
+    {
+        int valid = 0;
+        for (int index = 0; index < IMAGE; index += 2)
+        {
+            if (avr.decode(index, image, operands) != 0)
+                valid++;
+        }
+        return valid;
+    }
+}
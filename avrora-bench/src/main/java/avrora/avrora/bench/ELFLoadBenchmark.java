@@ -0,0 +1,72 @@
+package avrora.avrora.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avrora.avrora.core.Program;
+import avrora.avrora.syntax.elf.ELFParser;
+
+/**
+ * Measures how long the ELF loader takes to load the bundled TinyOS programs.
+ * The cold load is the first load in a fresh JVM, which includes loading the
+ * classes of the loader and the disassembler; the warm load is measured after
+ * the JIT compiler has warmed up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ELFLoadBenchmark
+{
+
+    @Param({ "CntToRfm.elf", "Surge.elf", "RadioSenseToLeds_micaz.elf" })
+    public String program;
+
+    String file;
+
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        BenchUtil.silence();
+        file = BenchUtil.getProgramFile(program);
+    }
+
+
+    Program load() throws Exception
+    {
+        return new ELFParser().read(new String[] { file });
+    }
+
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public Program coldLoad() throws Exception
+    {
+        return load();
+    }
+
+
+    @Benchmark
+    public Program warmLoad() throws Exception
+    {
+        return load();
+    }
+}
@@ -0,0 +1,60 @@
+package avrora.avrora.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avrora.avrora.core.LoadableProgram;
+import avrora.avrora.sim.types.SingleSimulation;
+
+/**
+ * Measures how long the AVR interpreters take to simulate one second of the
+ * bundled TinyOS programs on a mica2 node. The interpreter is selected by its
+ * name in the interpreter registry of <code>Defaults</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InterpreterBenchmark
+{
+
+    @Param({ "legacy", "block", "generated" })
+    public String interpreter;
+
+    @Param({ "CntToRfm.elf", "Surge.elf", "SenseToRfm.elf" })
+    public String program;
+
+    LoadableProgram loaded;
+
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception
+    {
+        BenchUtil.silence();
+        loaded = BenchUtil.load(program);
+    }
+
+
+    @Benchmark
+    public long simulateOneSecond() throws Exception
+    {
+        SingleSimulation sim = new SingleSimulation();
+        sim.process(BenchUtil.options("platform", "mica2", "seconds", "1.0",
+                "monitors", "", "interpreter", interpreter), loaded);
+        return BenchUtil.run(sim);
+    }
+}
@@ -0,0 +1,94 @@
+package avrora.avrora.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avrora.avrora.arch.msp430.MSP430Architecture;
+import avrora.avrora.core.LoadableProgram;
+import avrora.avrora.core.Program;
+import avrora.avrora.sim.types.SingleSimulation;
+
+/**
+ * Measures the throughput of the MSP430 interpreter on a telos node. Since no
+ * MSP430 binaries are bundled, the program is a small loop of register
+ * arithmetic and a jump that is assembled in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MSP430Benchmark
+{
+
+    // the interpreter starts at the beginning of the code segment
+    static final int START = 0x4000;
+
+    // loop: add #1, r4; xor r4, r5; add r5, r6; jmp loop
+    static final int[] LOOP = { 0x5314, 0xE405, 0x5506, 0x3FFC };
+
+    LoadableProgram loaded;
+
+
+    /**
+     * A loadable program that is already in memory.
+     */
+    static class MemoryProgram extends LoadableProgram
+    {
+        MemoryProgram(Program p)
+        {
+            super("loop.msp430");
+            program = p;
+        }
+
+
+        @Override
+        public void load()
+        {
+            // already loaded
+        }
+    }
+
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        BenchUtil.silence();
+        Program p = new Program(MSP430Architecture.INSTANCE, START,
+                START + 2 * LOOP.length);
+        for (int cntr = 0; cntr < LOOP.length; cntr++)
+        {
+            int addr = START + 2 * cntr;
+            p.writeProgramBytes(new byte[] { (byte) LOOP[cntr],
+                    (byte) (LOOP[cntr] >> 8) }, addr);
+        }
+        for (int cntr = 0; cntr < LOOP.length; cntr++)
+        {
+            if (p.disassembleInstr(START + 2 * cntr) == null)
+                throw new IllegalStateException("cannot decode loop");
+        }
+        loaded = new MemoryProgram(p);
+    }
+
+
+    @Benchmark
+    public long simulateOneSecond() throws Exception
+    {
+        SingleSimulation sim = new SingleSimulation();
+        sim.process(BenchUtil.options("platform", "telos", "seconds", "1.0",
+                "monitors", ""), loaded);
+        return BenchUtil.run(sim);
+    }
+}
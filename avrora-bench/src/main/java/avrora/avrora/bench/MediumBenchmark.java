@@ -0,0 +1,145 @@
+package avrora.avrora.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.clock.Clock;
+import avrora.avrora.sim.clock.MainClock;
+import avrora.avrora.sim.radio.CC1000Radio;
+import avrora.avrora.sim.radio.Medium;
+
+/**
+ * Measures the delivery of bytes through a radio medium. All nodes share one
+ * clock and listen all the time; they take turns sending a packet of 32 bytes,
+ * which every other node receives. One operation simulates the time of one
+ * packet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediumBenchmark
+{
+
+    static final long HZ = 7372800;
+    static final int PACKET = 32;
+
+    @Param({ "2", "16", "256" })
+    public int nodes;
+
+    MainClock clock;
+    Sender[] senders;
+    long packetCycles;
+    int current;
+    long delivered;
+
+
+    class Sender extends Medium.Transmitter
+    {
+        int count;
+
+
+        Sender(Medium m, Clock c)
+        {
+            super(m, c);
+        }
+
+
+        @Override
+        public byte nextByte()
+        {
+            if (++count == PACKET)
+            {
+                count = 0;
+                endTransmit();
+                // the next node sends after a short gap
+                current = (current + 1) % senders.length;
+                clock.insertEvent(start, 100);
+            }
+            return (byte) count;
+        }
+    }
+
+
+    class Listener extends Medium.Receiver
+    {
+        Listener(Medium m, Clock c)
+        {
+            super(m, c);
+        }
+
+
+        @Override
+        public byte nextByte(boolean lock, byte b)
+        {
+            if (lock)
+                delivered++;
+            return b;
+        }
+
+
+        @Override
+        public void setRSSI(double rssi)
+        {
+            // not used
+        }
+
+
+        @Override
+        public void setBER(double ber)
+        {
+            // not used
+        }
+    }
+
+    final Simulator.Event start = new Simulator.Event()
+    {
+        public void fire()
+        {
+            senders[current].beginTransmit(0.0, 2.4);
+        }
+    };
+
+
+    @Setup(Level.Iteration)
+    public void setup()
+    {
+        Medium medium = CC1000Radio.createMedium(null, null);
+        clock = new MainClock("main", HZ);
+        senders = new Sender[nodes];
+        for (int cntr = 0; cntr < nodes; cntr++)
+        {
+            senders[cntr] = new Sender(medium, clock);
+            new Listener(medium, clock).beginReceive(2.4);
+        }
+        // lead time, the packet itself and the gap between packets
+        packetCycles = (medium.leadBits + 8 * PACKET) * HZ
+                / medium.bitsPerSecond + 100;
+        clock.insertEvent(start, 1);
+    }
+
+
+    @Benchmark
+    public long deliverPacket()
+    {
+        // advance the clock in steps of a few cycles like an interpreter
+        for (long t = 0; t < packetCycles; t += 8)
+            clock.advance(8);
+        return delivered;
+    }
+}
@@ -0,0 +1,63 @@
+package avrora.avrora.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avrora.avrora.sim.types.SensorSimulation;
+
+/**
+ * Measures how the synchronizers of the sensor network simulation scale with
+ * the number of nodes. Each operation simulates half a second of a network of
+ * mica2 nodes that all run CntToRfm and hear each other. All of these
+ * synchronizers give the same radio traffic; the barrier synchronizer does
+ * not, and is measured by <code>BarrierSynchronizerBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SynchronizerBenchmark
+{
+
+    @Param({ "ripple", "lookahead", "task" })
+    public String synchronizer;
+
+    @Param({ "2", "8", "32" })
+    public int nodes;
+
+    String program;
+
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        BenchUtil.silence();
+        program = BenchUtil.getProgramFile("CntToRfm.elf");
+    }
+
+
+    @Benchmark
+    public long simulateNetwork() throws Exception
+    {
+        SensorSimulation sim = new SensorSimulation();
+        sim.process(BenchUtil.options("platform", "mica2", "seconds", "0.5",
+                "monitors", "", "random-seed", "1", "nodecount",
+                String.valueOf(nodes), "synchronizer", synchronizer),
+                new String[] { program });
+        return BenchUtil.run(sim);
+    }
+}
@@ -0,0 +1,127 @@
+package avrora.avrora.sim.clock;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avrora.avrora.sim.Simulator;
+
+/**
+ * Compares the DeltaQueue and the TimingWheelQueue under an event mix that
+ * resembles a simulated node: periodic tickers (timers, radio byte clock),
+ * one-shot events that are often cancelled and rescheduled (USART, ADC,
+ * monitors), and an interpreter that advances the clock a few cycles at a
+ * time.
+ * <p/>
+ * Run with
+ * <code>java -cp target/test-classes:&lt;test classpath&gt; org.openjdk.jmh.Main EventQueueBenchmark</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventQueueBenchmark
+{
+
+    @Param({ "delta", "wheel" })
+    public String queue;
+
+    @Param({ "4", "16", "64" })
+    public int pending;
+
+    DeltaQueue q;
+    Simulator.Event[] oneShots;
+    Random random;
+    int fired;
+
+
+    private class Ticker implements Simulator.Event
+    {
+        final long period;
+
+
+        Ticker(long period)
+        {
+            this.period = period;
+        }
+
+
+        public void fire()
+        {
+            fired++;
+            q.insertEvent(this, period);
+        }
+    }
+
+
+    private class OneShot implements Simulator.Event
+    {
+        public void fire()
+        {
+            fired++;
+        }
+    }
+
+
+    @Setup(Level.Iteration)
+    public void setup()
+    {
+        q = "wheel".equals(queue) ? new TimingWheelQueue() : new DeltaQueue();
+        random = new Random(0);
+        int tickers = pending / 2;
+        for (int i = 0; i < tickers; i++)
+        {
+            long period = 32L << random.nextInt(10);
+            q.insertEvent(new Ticker(period), random.nextInt((int) period));
+        }
+        oneShots = new Simulator.Event[pending - tickers];
+        for (int i = 0; i < oneShots.length; i++)
+        {
+            oneShots[i] = new OneShot();
+            q.insertEvent(oneShots[i], random.nextInt(5000));
+        }
+    }
+
+
+    @Benchmark
+    public int simulateNode()
+    {
+        for (int i = 0; i < 1000; i++)
+        {
+            // instructions take one to four cycles
+            q.advance(1 + (i & 3));
+            if ((i & 31) == 0)
+            {
+                // a device cancels and reschedules an operation
+                Simulator.Event e = oneShots[random.nextInt(oneShots.length)];
+                q.removeEvent(e);
+                q.insertEvent(e, 100 + random.nextInt(5000));
+            }
+        }
+        return fired;
+    }
+
+
+    @Benchmark
+    public long insertRemove()
+    {
+        Simulator.Event e = oneShots[random.nextInt(oneShots.length)];
+        q.removeEvent(e);
+        q.insertEvent(e, random.nextInt(100000));
+        return q.getFirstEventTime();
+    }
+}
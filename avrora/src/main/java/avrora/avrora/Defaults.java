@@ -39,13 +39,18 @@ import java.util.List;
 
 import avrora.avrora.actions.Action;
 import avrora.avrora.actions.AnalyzeStackAction;
+import avrora.avrora.actions.BatchAction;
 import avrora.avrora.actions.CFGAction;
+import avrora.avrora.actions.DecodeTraceAction;
 import avrora.avrora.actions.DisassembleAction;
 import avrora.avrora.actions.ELFDumpAction;
 import avrora.avrora.actions.ISEAAction;
 import avrora.avrora.actions.SimAction;
 import avrora.avrora.actions.TestAction;
 import avrora.avrora.arch.ArchitectureRegistry;
+import avrora.avrora.arch.avr.AVRInterpreter;
+import avrora.avrora.arch.legacy.BlockInterpreter;
+import avrora.avrora.arch.legacy.LegacyInterpreter;
 import avrora.avrora.core.Program;
 import avrora.avrora.core.ProgramReader;
 import avrora.avrora.monitors.BreakMonitor;
@@ -67,6 +72,7 @@ import avrora.avrora.monitors.ProfileMonitor;
 import avrora.avrora.monitors.RealTimeMonitor;
 import avrora.avrora.monitors.RetAddrWatch;
 import avrora.avrora.monitors.SPIMonitor;
+import avrora.avrora.monitors.SamplingProfiler;
 import avrora.avrora.monitors.SerialMonitor;
 import avrora.avrora.monitors.SimPerfMonitor;
 import avrora.avrora.monitors.SleepMonitor;
@@ -76,9 +82,12 @@ import avrora.avrora.monitors.TimerMonitor;
 import avrora.avrora.monitors.TraceMonitor;
 import avrora.avrora.monitors.TripTimeMonitor;
 import avrora.avrora.monitors.VirgilMonitor;
+import avrora.avrora.sim.InterpreterFactory;
 import avrora.avrora.sim.Simulation;
 import avrora.avrora.sim.Simulator;
 import avrora.avrora.sim.clock.ClockDomain;
+import avrora.avrora.sim.clock.DeltaQueue;
+import avrora.avrora.sim.clock.TimingWheelQueue;
 import avrora.avrora.sim.mcu.ATMega128;
 import avrora.avrora.sim.mcu.ATMega16;
 import avrora.avrora.sim.mcu.ATMega32;
@@ -131,6 +140,8 @@ public class Defaults
     private static ClassMap monitorMap;
     private static ClassMap simMap;
     private static ClassMap topologies;
+    private static ClassMap interpreters;
+    private static ClassMap eventQueues;
 
 
     private static synchronized void addAll()
@@ -143,6 +154,8 @@ public class Defaults
         addMonitors();
         addSimulations();
         addTopologies();
+        addInterpreters();
+        addEventQueues();
         ArchitectureRegistry.addArchitectures();
     }
 
@@ -158,6 +171,7 @@ public class Defaults
             monitorMap.addClass("c-print", PrintMonitor.class);
             monitorMap.addClass("c-timer", TimerMonitor.class);
             monitorMap.addClass("profile", ProfileMonitor.class);
+            monitorMap.addClass("sampling-profile", SamplingProfiler.class);
             monitorMap.addClass("memory", MemoryMonitor.class);
             monitorMap.addClass("sleep", SleepMonitor.class);
             monitorMap.addClass("leds", LEDMonitor.class);
@@ -248,12 +262,14 @@ public class Defaults
             // -- DEFAULT ACTIONS
             actions.addClass("disassemble", DisassembleAction.class);
             actions.addClass("simulate", SimAction.class);
+            actions.addClass("batch", BatchAction.class);
             actions.addClass("analyze-stack", AnalyzeStackAction.class);
             actions.addClass("test", TestAction.class);
             actions.addClass("cfg", CFGAction.class);
             actions.addClass("isea", ISEAAction.class);
             actions.addClass("odpp", ODPPAction.class);
             actions.addClass("elf-dump", ELFDumpAction.class);
+            actions.addClass("decode-trace", DecodeTraceAction.class);
 
             // plug in a new help category for actions accesible with "-help
             // actions"
@@ -328,6 +344,32 @@ public class Defaults
     }
 
 
+    private static synchronized void addInterpreters()
+    {
+        if (interpreters == null)
+        {
+            interpreters = new ClassMap("Interpreter",
+                    InterpreterFactory.class);
+            // -- DEFAULT INTERPRETERS
+            interpreters.addInstance("legacy", LegacyInterpreter.FACTORY);
+            interpreters.addInstance("block", BlockInterpreter.FACTORY);
+            interpreters.addInstance("generated", AVRInterpreter.FACTORY);
+        }
+    }
+
+
+    private static synchronized void addEventQueues()
+    {
+        if (eventQueues == null)
+        {
+            eventQueues = new ClassMap("Event Queue", DeltaQueue.class);
+            // -- DEFAULT EVENT QUEUES
+            eventQueues.addClass("delta", DeltaQueue.class);
+            eventQueues.addClass("wheel", TimingWheelQueue.class);
+        }
+    }
+
+
     private static synchronized void addTopologies()
     {
         if (topologies == null)
@@ -458,6 +500,43 @@ public class Defaults
     }
 
 
+    /**
+     * The <code>getInterpreter()</code> method gets the interpreter factory
+     * corresponding to the given name represented as a string. This string can
+     * represent a short name for the interpreter (an alias), or a fully
+     * qualified Java class name.
+     *
+     * @param s
+     *            the name of the interpreter as a string; a class name or an
+     *            alias such as "block"
+     * @return an instance of the <code>InterpreterFactory</code> class that is
+     *         capable of creating interpreters for new nodes
+     */
+    public static InterpreterFactory getInterpreter(String s)
+    {
+        addInterpreters();
+        return (InterpreterFactory) interpreters.getObjectOfClass(s);
+    }
+
+
+    /**
+     * The <code>getEventQueue()</code> method creates a new event queue of the
+     * kind corresponding to the given name represented as a string. A new
+     * instance is returned for each call, since each node needs its own queue.
+     *
+     * @param s
+     *            the name of the event queue as a string; a class name or an
+     *            alias such as "wheel"
+     * @return a new instance of the <code>DeltaQueue</code> class or one of its
+     *         subclasses
+     */
+    public static DeltaQueue getEventQueue(String s)
+    {
+        addEventQueues();
+        return (DeltaQueue) eventQueues.getObjectOfClass(s);
+    }
+
+
     /**
      * The <code>getTestHarnessMap()</code> method gets the test harness class
      * map.
@@ -549,19 +628,31 @@ public class Defaults
 
     public static Simulator newSimulator(int id, Program p)
     {
-        return newSimulator(id, "atmega128", 8000000, 8000000, p);
+        return newSimulator(id, new SingleSimulation(), p);
+    }
+
+
+    public static Simulator newSimulator(int id, Simulation sim, Program p)
+    {
+        return newSimulator(id, sim, "atmega128", 8000000, 8000000, p);
     }
 
 
     public static Simulator newSimulator(int id, String mcu, long hz,
             long exthz, Program p)
+    {
+        return newSimulator(id, new SingleSimulation(), mcu, hz, exthz, p);
+    }
+
+
+    public static Simulator newSimulator(int id, Simulation sim, String mcu,
+            long hz, long exthz, Program p)
     {
         MicrocontrollerFactory f = getMicrocontroller(mcu);
         ClockDomain cd = new ClockDomain(hz);
         cd.newClock("external", exthz);
 
-        return f.newMicrocontroller(id, new SingleSimulation(), cd, p)
-                .getSimulator();
+        return f.newMicrocontroller(id, sim, cd, p).getSimulator();
     }
 
     public static class AutoProgramReader extends ProgramReader
@@ -61,6 +61,10 @@ public class AnalyzeStackAction extends Action
                     + "that may help in reducing the memory usage during state exploration, without affecting "
                     + "stack analysis precision. When this option is enabled, the stack analyzer will consult the "
                     + "ISEA analysis subsystem for each procedure call that it encounters in the program.");
+    public final Option.Str ISEA_SUMMARIES = newOption("isea-summaries", "",
+            "This option specifies a file in which the ISEA analysis keeps the summaries of the "
+                    + "procedures between runs. A procedure is only analyzed again when its code or the "
+                    + "summary of one of the procedures it calls has changed since the summary was stored.");
     public final Option.Bool TRACE_SUMMARY = newOption("trace-summary", true,
             "This option is used to reduce the amount of output by summarizing the error trace"
                     + "that yields the maximal stack depth. When true, the analysis will shorten the error "
@@ -78,6 +82,18 @@ public class AnalyzeStackAction extends Action
     public final Option.Bool SHOW_PATH = newOption("show-path", false,
             "This option causes the stack analyzer to print out the execution path corresponding "
                     + "to the maximal stack depth.");
+    public final Option.Long WORKERS = newOption("workers", 1,
+            "This option specifies the number of threads that explore the state space. With more "
+                    + "than one thread, the abstract interpretation of states is done in parallel, while "
+                    + "the edges are inserted in the same order as with a single thread, so the results, "
+                    + "including the maximal stack depth and its path, do not depend on the number of "
+                    + "threads. When it is zero, one thread is used for each available processor.");
+    public final Option.Bool COMPACT_STATES = newOption("compact-states", false,
+            "This option causes the stack analyzer to store the register values of the abstract "
+                    + "states outside of the Java heap, and to store sets of states as sets of state "
+                    + "numbers. This allows larger state spaces to be explored within the same heap. "
+                    + "The maximal stack depth is the same, but the path reported for it may differ "
+                    + "among paths of the same depth.");
     public final Option.Long RESERVE = newOption("reserve", 0,
             "This option is used for reserving a small portion of memory before the "
                     + "analysis begins, in case the Java heap space is exhausted. This can happen "
@@ -118,7 +134,12 @@ public class AnalyzeStackAction extends Action
         Analyzer.MONITOR_STATES = MONITOR_STATES.get();
         Analyzer.TRACE = TRACE.get();
         Analyzer.USE_ISEA = USE_ISEA.get();
+        Analyzer.ISEA_SUMMARIES = ISEA_SUMMARIES.get();
         Analyzer.SHOW_PATH = SHOW_PATH.get();
+        Analyzer.COMPACT_STATES = COMPACT_STATES.get();
+        Analyzer.WORKERS = (int) WORKERS.get();
+        if (Analyzer.WORKERS <= 0)
+            Analyzer.WORKERS = Runtime.getRuntime().availableProcessors();
         Analyzer.reserve = new byte[(int) (RESERVE.get() * MEGABYTES)];
         Analyzer a = new Analyzer(p);
 
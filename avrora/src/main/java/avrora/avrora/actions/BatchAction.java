@@ -0,0 +1,307 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.actions;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import avrora.avrora.Main;
+import avrora.avrora.core.LoadableProgram;
+import avrora.avrora.sim.Simulation;
+import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.types.SingleSimulation;
+import avrora.cck.text.StringUtil;
+import avrora.cck.text.TermUtil;
+import avrora.cck.text.Terminal;
+import avrora.cck.util.Option;
+import avrora.cck.util.Options;
+import avrora.cck.util.Util;
+
+/**
+ * The <code>BatchAction</code> class implements an action that runs many
+ * independent single node simulations in one process. The runs are read from
+ * one or more manifest files and executed on a fixed number of worker threads.
+ * Each program is loaded only once and shared by all the runs that simulate it.
+ * The monitor reports of each run are written to a separate file, and a summary
+ * of all runs is printed at the end.
+ */
+public class BatchAction extends Action
+{
+
+    public static final String HELP = "The \"batch\" action runs many independent single node simulations "
+            + "in the same process. Each line of the manifest file(s) given as arguments describes one "
+            + "run in the same syntax as the command line, i.e. a list of options followed by the name "
+            + "of the program, for example \"-platform=mica2 -seconds=5 -monitors=leds Blink.elf\". "
+            + "Empty lines and lines starting with '#' are ignored. Options given on the command line "
+            + "apply to all runs unless a run overrides them. Each program is loaded once and shared "
+            + "among all runs, and the runs are executed on a fixed number of worker threads.";
+
+    public final Option.Long WORKERS = newOption("workers", 0,
+            "This option specifies the number of worker threads that execute the runs of the batch. "
+                    + "When it is zero, one worker is used for each available processor.");
+    public final Option.Str OUTPUT_DIR = newOption("output-dir", ".",
+            "This option specifies the directory into which the report of each run is written. The "
+                    + "report of run N is written into a file named \"run-N.txt\".");
+
+    protected final List<Run> runs;
+    protected final HashMap<String, LoadableProgram> programs;
+
+
+    public BatchAction()
+    {
+        super(HELP);
+        runs = new ArrayList<Run>();
+        programs = new HashMap<String, LoadableProgram>();
+    }
+
+    /**
+     * The <code>Run</code> class represents one simulation of the batch. When
+     * executed, it simulates its program and writes the output of the
+     * simulation into its report file.
+     */
+    protected class Run implements Runnable
+    {
+        protected final int number;
+        protected final Options options;
+        protected final LoadableProgram program;
+        protected final File report;
+        protected long wallTime;
+        protected long cycles;
+        protected String result;
+
+
+        Run(int n, Options o, LoadableProgram p, File f)
+        {
+            number = n;
+            options = o;
+            program = p;
+            report = f;
+        }
+
+
+        @Override
+        public void run()
+        {
+            PrintStream out;
+            try
+            {
+                out = new PrintStream(new FileOutputStream(report));
+            }
+            catch (Exception e)
+            {
+                result = "cannot write report";
+                return;
+            }
+            Terminal.setThreadOutput(out);
+            SingleSimulation simulation = new SingleSimulation();
+            long start = System.currentTimeMillis();
+            try
+            {
+                simulation.process(options, program);
+                SimAction.printSimHeader();
+                start = System.currentTimeMillis();
+                simulation.start();
+                simulation.join();
+                result = "done";
+            }
+            catch (Util.Error e)
+            {
+                result = "error";
+                Terminal.printRed("Simulation terminated");
+                Terminal.print(": ");
+                e.report();
+            }
+            catch (Throwable t)
+            {
+                result = "exception";
+                Terminal.printRed(
+                        "Simulation terminated with unexpected exception");
+                Terminal.print(": ");
+                t.printStackTrace(out);
+            }
+            finally
+            {
+                wallTime = System.currentTimeMillis() - start;
+                cycles = getSimulatedCycles(simulation);
+                TermUtil.printSeparator();
+                SimAction.reportTime(simulation, wallTime, true);
+                SimAction.reportMonitors(simulation);
+                Terminal.setThreadOutput(null);
+                out.close();
+            }
+        }
+    }
+
+
+    /**
+     * The <code>run()</code> method reads the manifests, loads the programs,
+     * executes all runs on the worker pool and prints a summary.
+     *
+     * @param args
+     *            the names of the manifest files
+     * @throws Exception
+     *             if there is a problem reading a manifest or loading a
+     *             program
+     */
+    @Override
+    public void run(String[] args) throws Exception
+    {
+        if (args.length == 0)
+            Util.userError("Batch error", "No manifest specified");
+        Main.checkFilesExist(args);
+
+        File dir = new File(OUTPUT_DIR.get());
+        if (!dir.isDirectory() && !dir.mkdirs())
+            Util.userError("Cannot create output directory", dir.getPath());
+        for (String manifest : args)
+            readManifest(manifest, dir);
+
+        int workers = (int) WORKERS.get();
+        if (workers <= 0)
+            workers = Runtime.getRuntime().availableProcessors();
+        long start = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        for (Run r : runs)
+            pool.execute(r);
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        long batchTime = System.currentTimeMillis() - start;
+
+        printSummary(workers, batchTime);
+    }
+
+
+    private void readManifest(String fname, File dir) throws Exception
+    {
+        BufferedReader reader = new BufferedReader(new FileReader(fname));
+        try
+        {
+            int lineno = 0;
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                lineno++;
+                line = line.trim();
+                if (line.length() == 0 || line.charAt(0) == '#')
+                    continue;
+
+                Options o = new Options();
+                o.process(options);
+                o.parseCommandLine(line.split("\\s+"));
+                String[] rest = o.getArguments();
+                if (rest.length != 1)
+                    Util.userError("Batch error", fname + ':' + lineno
+                            + ": each run must specify exactly one program");
+                int n = runs.size();
+                File report = new File(dir, "run-" + n + ".txt");
+                runs.add(new Run(n, o, getProgram(rest[0]), report));
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+
+    private LoadableProgram getProgram(String fname) throws Exception
+    {
+        Main.checkFileExists(fname);
+        String key = new File(fname).getCanonicalPath();
+        LoadableProgram p = programs.get(key);
+        if (p == null)
+        {
+            p = new LoadableProgram(fname);
+            p.load();
+            programs.put(key, p);
+        }
+        return p;
+    }
+
+
+    private static long getSimulatedCycles(Simulation sim)
+    {
+        long max = 0;
+        Iterator<Simulation.Node> i = sim.getNodeIterator();
+        while (i.hasNext())
+        {
+            Simulator simulator = i.next().getSimulator();
+            if (simulator != null)
+                max = Math.max(max, simulator.getClock().getCount());
+        }
+        return max;
+    }
+
+
+    private void printSummary(int workers, long batchTime)
+    {
+        TermUtil.printSeparator(Terminal.MAXLINE, "Batch results");
+        Terminal.printGreen(
+                "Run  Program                  Wall time (ms)    Simulated cycles  Result");
+        Terminal.nextln();
+        TermUtil.printThinSeparator(Terminal.MAXLINE);
+        long totalTime = 0;
+        long totalCycles = 0;
+        for (Run r : runs)
+        {
+            totalTime += r.wallTime;
+            totalCycles += r.cycles;
+            StringBuffer buf = new StringBuffer(Terminal.MAXLINE);
+            buf.append(StringUtil.rightJustify(r.number, 3));
+            buf.append("  ");
+            buf.append(StringUtil.leftJustify(r.program.getName(), 24));
+            buf.append(StringUtil.rightJustify(r.wallTime, 15));
+            buf.append(StringUtil.rightJustify(r.cycles, 20));
+            buf.append("  ");
+            buf.append(r.result);
+            Terminal.println(buf.toString());
+        }
+        TermUtil.printSeparator();
+        TermUtil.reportQuantity("Runs", runs.size(), "");
+        TermUtil.reportQuantity("Programs loaded", programs.size(), "");
+        TermUtil.reportQuantity("Workers", workers, "");
+        TermUtil.reportQuantity("Total simulated time", totalCycles, "cycles");
+        TermUtil.reportQuantity("Total run time", totalTime, "ms");
+        TermUtil.reportQuantity("Batch time", batchTime, "ms");
+    }
+}
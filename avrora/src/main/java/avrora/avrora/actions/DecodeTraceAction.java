@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.actions;
+
+import java.io.File;
+
+import avrora.avrora.Main;
+import avrora.avrora.arch.AbstractInstr;
+import avrora.avrora.core.Program;
+import avrora.avrora.sim.output.TraceReader;
+import avrora.avrora.sim.util.SimUtil;
+import avrora.cck.text.StringUtil;
+import avrora.cck.text.Terminal;
+import avrora.cck.util.Option;
+import avrora.cck.util.Util;
+
+/**
+ * The <code>DecodeTraceAction</code> class implements an action that turns a
+ * binary instruction trace written by the trace monitor back into the textual
+ * trace that the monitor prints when no trace file is given.
+ */
+public class DecodeTraceAction extends Action
+{
+
+    public static final String HELP = "The \"decode-trace\" action reads binary instruction traces "
+            + "written by the \"trace\" monitor with the \"trace-file\" option and prints them in the "
+            + "same format as the trace monitor prints during simulation. The first argument is the "
+            + "program that was traced, the remaining arguments are the trace files.";
+
+    public final Option.Bool REPORT_SECONDS = newOption("report-seconds", false,
+            "This option causes all times to be reported in seconds rather than clock cycles.");
+    public final Option.Long SECONDS_PRECISION = newOption("seconds-precision",
+            6,
+            "This option sets the precision (number of decimal places) reported for "
+                    + "event times.");
+
+
+    public DecodeTraceAction()
+    {
+        super(HELP);
+    }
+
+
+    /**
+     * The <code>run()</code> method loads the program and decodes each of the
+     * specified trace files.
+     *
+     * @param args
+     *            the name of the program followed by the names of the trace
+     *            files
+     * @throws Exception
+     *             if there is a problem loading the program or reading a
+     *             trace file
+     */
+    @Override
+    public void run(String[] args) throws Exception
+    {
+        if (args.length < 2)
+            Util.userError("Usage: avrora -action=decode-trace <program> "
+                    + "<trace files>");
+        SimUtil.REPORT_SECONDS = REPORT_SECONDS.get();
+        SimUtil.SECONDS_PRECISION = (int) SECONDS_PRECISION.get();
+        Main.checkFilesExist(args);
+
+        Program program = Main.loadProgram(new String[] { args[0] });
+        for (int cntr = 1; cntr < args.length; cntr++)
+        {
+            TraceReader reader = new TraceReader(new File(args[cntr]),
+                    program);
+            reader.read(new Printer(reader.id, reader.hz));
+        }
+    }
+
+    /**
+     * The <code>Printer</code> class prints the records of a trace.
+     */
+    protected static class Printer implements TraceReader.Handler
+    {
+        final int id;
+        final long hz;
+        int nextpc;
+
+
+        Printer(int id, long hz)
+        {
+            this.id = id;
+            this.hz = hz;
+        }
+
+
+        @Override
+        public void instr(long time, int pc, AbstractInstr i)
+        {
+            StringBuffer buf = getBuffer(time);
+            int color = pc == nextpc ? Terminal.COLOR_BLUE
+                    : Terminal.COLOR_CYAN;
+            Terminal.append(color, buf, StringUtil.to0xHex(pc, 4));
+            buf.append(": ");
+            buf.append(i.toString());
+            Terminal.println(buf.toString());
+            nextpc = pc + i.getSize();
+        }
+
+
+        @Override
+        public void register(long time, int reg, int value)
+        {
+            StringBuffer buf = getBuffer(time);
+            buf.append("        r");
+            buf.append(reg);
+            buf.append(" = ");
+            buf.append(StringUtil.to0xHex(value, 2));
+            Terminal.println(buf.toString());
+        }
+
+
+        @Override
+        public void write(long time, int address, int value)
+        {
+            StringBuffer buf = getBuffer(time);
+            buf.append("        [");
+            buf.append(StringUtil.to0xHex(address, 4));
+            buf.append("] = ");
+            buf.append(StringUtil.to0xHex(value, 2));
+            Terminal.println(buf.toString());
+        }
+
+
+        @Override
+        public void text(long time, String s)
+        {
+            StringBuffer buf = getBuffer(time);
+            buf.append(s);
+            Terminal.println(buf.toString());
+        }
+
+
+        private StringBuffer getBuffer(long time)
+        {
+            StringBuffer buf = new StringBuffer(100);
+            SimUtil.toIDTimeString(buf, id, time, hz);
+            return buf;
+        }
+    }
+}
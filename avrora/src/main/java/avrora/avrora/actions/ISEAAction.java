@@ -36,6 +36,7 @@ import avrora.avrora.Main;
 import avrora.avrora.core.Program;
 import avrora.avrora.core.SourceMapping;
 import avrora.avrora.stack.isea.ISEAnalyzer;
+import avrora.cck.text.TermUtil;
 import avrora.cck.util.Option;
 import avrora.cck.util.Util;
 
@@ -52,6 +53,14 @@ public class ISEAAction extends Action
     protected final Option.Str START = newOption("procedure", "0x0000",
             "When this option is specified, the ISE analyzer will analyze only the specified procedure, rather "
                     + "than the entire program.");
+    protected final Option.Str SUMMARIES = newOption("summaries", "",
+            "This option specifies a file in which the ISE analyzer keeps the summaries of the procedures "
+                    + "of the entire program between runs. A procedure is only analyzed again when its code "
+                    + "or the summary of one of the procedures it calls has changed since the summary was stored.");
+    protected final Option.Long WORKERS = newOption("workers", 1,
+            "This option specifies the number of threads that analyze the procedures of the entire "
+                    + "program. Procedures that do not call each other are analyzed in parallel. When it is "
+                    + "zero, one thread is used for each available processor.");
 
 
     public ISEAAction()
@@ -64,7 +73,10 @@ public class ISEAAction extends Action
     public void run(String[] args) throws Exception
     {
         Program p = Main.loadProgram(args);
-        ISEAnalyzer a = new ISEAnalyzer(p);
+        int workers = (int) WORKERS.get();
+        if (workers <= 0)
+            workers = Runtime.getRuntime().availableProcessors();
+        ISEAnalyzer a = new ISEAnalyzer(p, workers, SUMMARIES.get());
         if (!START.isBlank())
         {
             SourceMapping.Location location = p.getSourceMapping()
@@ -78,6 +90,13 @@ public class ISEAAction extends Action
         } else
         {
             a.analyze();
+            if (!SUMMARIES.isBlank())
+            {
+                TermUtil.reportQuantity("Procedures analyzed", a
+                        .getAnalyzedCount(), "");
+                TermUtil.reportQuantity("Summaries reused", a
+                        .getReusedCount(), "");
+            }
         }
     }
 }
@@ -33,6 +33,7 @@
 package avrora.avrora.actions;
 
 import avrora.avrora.Defaults;
+import avrora.avrora.test.sim.legacy.LegacyTester;
 import avrora.cck.test.TestEngine;
 import avrora.cck.text.Status;
 import avrora.cck.util.Option;
@@ -52,6 +53,10 @@ public class TestAction extends Action
     public final Option.Bool DETAIL = newOption("detail", false,
             "This option selects whether "
                     + "the automated testing framework will report detailed information for failed test cases.");
+    public final Option.Str INTERPRETER = newOption("interpreter", "",
+            "This option selects the interpreter that runs the programs of simulator tests "
+                    + "for the AVR architecture. If this option is not set, the default interpreter "
+                    + "of the microcontroller is used.");
 
 
     public TestAction()
@@ -82,6 +87,7 @@ public class TestAction extends Action
     private void enableLongReport()
     {
         TestEngine.LONG_REPORT = DETAIL.get();
+        LegacyTester.INTERPRETER = INTERPRETER.get();
         Status.ENABLED = false;
     }
 }
@@ -61,6 +61,12 @@ public abstract class AVRInstr implements AbstractInstr
      */
     public final int size;
 
+    /**
+     * The <code>cycles</code> field stores the number of cycles the instruction
+     * takes when no branch is taken.
+     */
+    public final int cycles;
+
 
     /**
      * The <code>getSize()</code> method returns the size of this instruction in
@@ -96,17 +102,20 @@ public abstract class AVRInstr implements AbstractInstr
 
     /**
      * The default constructor for the <code>AVRInstr</code> class accepts a
-     * string name and a size for each instruction.
+     * string name, a size and a number of cycles for each instruction.
      *
      * @param name
      *            the string name of the instruction
      * @param size
      *            the size of the instruction in bytes
+     * @param cycles
+     *            the number of cycles the instruction takes
      */
-    protected AVRInstr(String name, int size)
+    protected AVRInstr(String name, int size, int cycles)
     {
         this.name = name;
         this.size = size;
+        this.cycles = cycles;
     }
 
     public abstract static class BRANCH_Instr extends AVRInstr
@@ -115,9 +124,10 @@ public abstract class AVRInstr implements AbstractInstr
         public final AVROperand.SREL target;
 
 
-        protected BRANCH_Instr(String name, int size, AVRAddrMode.BRANCH am)
+        protected BRANCH_Instr(String name, int size, int cycles,
+                AVRAddrMode.BRANCH am)
         {
-            super(name, size);
+            super(name, size, cycles);
             this.target = am.target;
         }
 
@@ -143,9 +153,10 @@ public abstract class AVRInstr implements AbstractInstr
         public final AVROperand.op_GPR rr;
 
 
-        protected GPRGPR_Instr(String name, int size, AVRAddrMode.GPRGPR am)
+        protected GPRGPR_Instr(String name, int size, int cycles,
+                AVRAddrMode.GPRGPR am)
         {
-            super(name, size);
+            super(name, size, cycles);
             this.rd = am.rd;
             this.rr = am.rr;
         }
@@ -171,9 +182,10 @@ public abstract class AVRInstr implements AbstractInstr
         public final AVROperand.op_GPR rd;
 
 
-        protected GPR_Instr(String name, int size, AVRAddrMode.GPR am)
+        protected GPR_Instr(String name, int size, int cycles,
+                AVRAddrMode.GPR am)
         {
-            super(name, size);
+            super(name, size, cycles);
             this.rd = am.rd;
         }
 
@@ -199,9 +211,10 @@ public abstract class AVRInstr implements AbstractInstr
         public final AVROperand.IMM8 imm;
 
 
-        protected HGPRIMM8_Instr(String name, int size, AVRAddrMode.HGPRIMM8 am)
+        protected HGPRIMM8_Instr(String name, int size, int cycles,
+                AVRAddrMode.HGPRIMM8 am)
         {
-            super(name, size);
+            super(name, size, cycles);
             this.rd = am.rd;
             this.imm = am.imm;
         }
@@ -229,9 +242,10 @@ public abstract class AVRInstr implements AbstractInstr
         public final AVROperand ar;
 
 
-        protected LD_ST_Instr(String name, int size, AVRAddrMode.LD_ST am)
+        protected LD_ST_Instr(String name, int size, int cycles,
+                AVRAddrMode.LD_ST am)
         {
-            super(name, size);
+            super(name, size, cycles);
             this.am = am;
             this.rd = am.get_rd();
             this.ar = am.get_ar();
@@ -260,9 +274,10 @@ public abstract class AVRInstr implements AbstractInstr
         public final AVROperand dest;
 
 
-        protected XLPM_Instr(String name, int size, AVRAddrMode.XLPM am)
+        protected XLPM_Instr(String name, int size, int cycles,
+                AVRAddrMode.XLPM am)
         {
-            super(name, size);
+            super(name, size, cycles);
             this.am = am;
             this.source = am.get_source();
             this.dest = am.get_dest();
@@ -288,7 +303,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         ADC(int size, AVRAddrMode.GPRGPR am)
         {
-            super("adc", size, am);
+            super("adc", size, 1, am);
         }
 
 
@@ -304,7 +319,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         ADD(int size, AVRAddrMode.GPRGPR am)
         {
-            super("add", size, am);
+            super("add", size, 1, am);
         }
 
 
@@ -324,7 +339,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         ADIW(int size, AVRAddrMode.$adiw$ am)
         {
-            super("adiw", size);
+            super("adiw", size, 2);
             this.rd = am.rd;
             this.imm = am.imm;
         }
@@ -356,7 +371,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         AND(int size, AVRAddrMode.GPRGPR am)
         {
-            super("and", size, am);
+            super("and", size, 1, am);
         }
 
 
@@ -372,7 +387,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         ANDI(int size, AVRAddrMode.HGPRIMM8 am)
         {
-            super("andi", size, am);
+            super("andi", size, 1, am);
         }
 
 
@@ -388,7 +403,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         ASR(int size, AVRAddrMode.GPR am)
         {
-            super("asr", size, am);
+            super("asr", size, 1, am);
         }
 
 
@@ -407,7 +422,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BCLR(int size, AVRAddrMode.$bclr$ am)
         {
-            super("bclr", size);
+            super("bclr", size, 1);
             this.bit = am.bit;
         }
 
@@ -442,7 +457,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BLD(int size, AVRAddrMode.$bld$ am)
         {
-            super("bld", size);
+            super("bld", size, 1);
             this.rr = am.rr;
             this.bit = am.bit;
         }
@@ -478,7 +493,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRBC(int size, AVRAddrMode.$brbc$ am)
         {
-            super("brbc", size);
+            super("brbc", size, 1);
             this.bit = am.bit;
             this.target = am.target;
         }
@@ -514,7 +529,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRBS(int size, AVRAddrMode.$brbs$ am)
         {
-            super("brbs", size);
+            super("brbs", size, 1);
             this.bit = am.bit;
             this.target = am.target;
         }
@@ -546,7 +561,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRCC(int size, AVRAddrMode.BRANCH am)
         {
-            super("brcc", size, am);
+            super("brcc", size, 1, am);
         }
 
 
@@ -562,7 +577,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRCS(int size, AVRAddrMode.BRANCH am)
         {
-            super("brcs", size, am);
+            super("brcs", size, 1, am);
         }
 
 
@@ -578,7 +593,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BREAK(int size)
         {
-            super("break", size);
+            super("break", size, 1);
         }
 
 
@@ -601,7 +616,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BREQ(int size, AVRAddrMode.BRANCH am)
         {
-            super("breq", size, am);
+            super("breq", size, 1, am);
         }
 
 
@@ -617,7 +632,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRGE(int size, AVRAddrMode.BRANCH am)
         {
-            super("brge", size, am);
+            super("brge", size, 1, am);
         }
 
 
@@ -633,7 +648,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRHC(int size, AVRAddrMode.BRANCH am)
         {
-            super("brhc", size, am);
+            super("brhc", size, 1, am);
         }
 
 
@@ -649,7 +664,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRHS(int size, AVRAddrMode.BRANCH am)
         {
-            super("brhs", size, am);
+            super("brhs", size, 1, am);
         }
 
 
@@ -665,7 +680,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRID(int size, AVRAddrMode.BRANCH am)
         {
-            super("brid", size, am);
+            super("brid", size, 1, am);
         }
 
 
@@ -681,7 +696,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRIE(int size, AVRAddrMode.BRANCH am)
         {
-            super("brie", size, am);
+            super("brie", size, 1, am);
         }
 
 
@@ -697,7 +712,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRLO(int size, AVRAddrMode.BRANCH am)
         {
-            super("brlo", size, am);
+            super("brlo", size, 1, am);
         }
 
 
@@ -713,7 +728,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRLT(int size, AVRAddrMode.BRANCH am)
         {
-            super("brlt", size, am);
+            super("brlt", size, 1, am);
         }
 
 
@@ -729,7 +744,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRMI(int size, AVRAddrMode.BRANCH am)
         {
-            super("brmi", size, am);
+            super("brmi", size, 1, am);
         }
 
 
@@ -745,7 +760,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRNE(int size, AVRAddrMode.BRANCH am)
         {
-            super("brne", size, am);
+            super("brne", size, 1, am);
         }
 
 
@@ -761,7 +776,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRPL(int size, AVRAddrMode.BRANCH am)
         {
-            super("brpl", size, am);
+            super("brpl", size, 1, am);
         }
 
 
@@ -777,7 +792,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRSH(int size, AVRAddrMode.BRANCH am)
         {
-            super("brsh", size, am);
+            super("brsh", size, 1, am);
         }
 
 
@@ -793,7 +808,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRTC(int size, AVRAddrMode.BRANCH am)
         {
-            super("brtc", size, am);
+            super("brtc", size, 1, am);
         }
 
 
@@ -809,7 +824,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRTS(int size, AVRAddrMode.BRANCH am)
         {
-            super("brts", size, am);
+            super("brts", size, 1, am);
         }
 
 
@@ -825,7 +840,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRVC(int size, AVRAddrMode.BRANCH am)
         {
-            super("brvc", size, am);
+            super("brvc", size, 1, am);
         }
 
 
@@ -841,7 +856,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BRVS(int size, AVRAddrMode.BRANCH am)
         {
-            super("brvs", size, am);
+            super("brvs", size, 1, am);
         }
 
 
@@ -860,7 +875,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BSET(int size, AVRAddrMode.$bset$ am)
         {
-            super("bset", size);
+            super("bset", size, 1);
             this.bit = am.bit;
         }
 
@@ -895,7 +910,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         BST(int size, AVRAddrMode.$bst$ am)
         {
-            super("bst", size);
+            super("bst", size, 1);
             this.rr = am.rr;
             this.bit = am.bit;
         }
@@ -930,7 +945,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CALL(int size, AVRAddrMode.$call$ am)
         {
-            super("call", size);
+            super("call", size, 4);
             this.target = am.target;
         }
 
@@ -965,7 +980,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CBI(int size, AVRAddrMode.$cbi$ am)
         {
-            super("cbi", size);
+            super("cbi", size, 2);
             this.ior = am.ior;
             this.bit = am.bit;
         }
@@ -997,7 +1012,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CBR(int size, AVRAddrMode.HGPRIMM8 am)
         {
-            super("cbr", size, am);
+            super("cbr", size, 1, am);
         }
 
 
@@ -1013,7 +1028,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CLC(int size)
         {
-            super("clc", size);
+            super("clc", size, 1);
         }
 
 
@@ -1036,7 +1051,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CLH(int size)
         {
-            super("clh", size);
+            super("clh", size, 1);
         }
 
 
@@ -1059,7 +1074,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CLI(int size)
         {
-            super("cli", size);
+            super("cli", size, 1);
         }
 
 
@@ -1082,7 +1097,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CLN(int size)
         {
-            super("cln", size);
+            super("cln", size, 1);
         }
 
 
@@ -1108,7 +1123,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CLR(int size, AVRAddrMode.$clr$ am)
         {
-            super("clr", size);
+            super("clr", size, 1);
             this.rd = am.rd;
         }
 
@@ -1139,7 +1154,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CLS(int size)
         {
-            super("cls", size);
+            super("cls", size, 1);
         }
 
 
@@ -1162,7 +1177,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CLT(int size)
         {
-            super("clt", size);
+            super("clt", size, 1);
         }
 
 
@@ -1185,7 +1200,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CLV(int size)
         {
-            super("clv", size);
+            super("clv", size, 1);
         }
 
 
@@ -1208,7 +1223,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CLZ(int size)
         {
-            super("clz", size);
+            super("clz", size, 1);
         }
 
 
@@ -1231,7 +1246,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         COM(int size, AVRAddrMode.GPR am)
         {
-            super("com", size, am);
+            super("com", size, 1, am);
         }
 
 
@@ -1247,7 +1262,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CP(int size, AVRAddrMode.GPRGPR am)
         {
-            super("cp", size, am);
+            super("cp", size, 1, am);
         }
 
 
@@ -1263,7 +1278,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CPC(int size, AVRAddrMode.GPRGPR am)
         {
-            super("cpc", size, am);
+            super("cpc", size, 1, am);
         }
 
 
@@ -1279,7 +1294,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CPI(int size, AVRAddrMode.HGPRIMM8 am)
         {
-            super("cpi", size, am);
+            super("cpi", size, 1, am);
         }
 
 
@@ -1295,7 +1310,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         CPSE(int size, AVRAddrMode.GPRGPR am)
         {
-            super("cpse", size, am);
+            super("cpse", size, 1, am);
         }
 
 
@@ -1311,7 +1326,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         DEC(int size, AVRAddrMode.GPR am)
         {
-            super("dec", size, am);
+            super("dec", size, 1, am);
         }
 
 
@@ -1327,7 +1342,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         EICALL(int size)
         {
-            super("eicall", size);
+            super("eicall", size, 4);
         }
 
 
@@ -1350,7 +1365,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         EIJMP(int size)
         {
-            super("eijmp", size);
+            super("eijmp", size, 2);
         }
 
 
@@ -1373,7 +1388,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         EOR(int size, AVRAddrMode.GPRGPR am)
         {
-            super("eor", size, am);
+            super("eor", size, 1, am);
         }
 
 
@@ -1393,7 +1408,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         FMUL(int size, AVRAddrMode.$fmul$ am)
         {
-            super("fmul", size);
+            super("fmul", size, 2);
             this.rd = am.rd;
             this.rr = am.rr;
         }
@@ -1429,7 +1444,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         FMULS(int size, AVRAddrMode.$fmuls$ am)
         {
-            super("fmuls", size);
+            super("fmuls", size, 2);
             this.rd = am.rd;
             this.rr = am.rr;
         }
@@ -1465,7 +1480,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         FMULSU(int size, AVRAddrMode.$fmulsu$ am)
         {
-            super("fmulsu", size);
+            super("fmulsu", size, 2);
             this.rd = am.rd;
             this.rr = am.rr;
         }
@@ -1497,7 +1512,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         ICALL(int size)
         {
-            super("icall", size);
+            super("icall", size, 3);
         }
 
 
@@ -1520,7 +1535,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         IJMP(int size)
         {
-            super("ijmp", size);
+            super("ijmp", size, 2);
         }
 
 
@@ -1547,7 +1562,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         IN(int size, AVRAddrMode.$in$ am)
         {
-            super("in", size);
+            super("in", size, 1);
             this.rd = am.rd;
             this.imm = am.imm;
         }
@@ -1579,7 +1594,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         INC(int size, AVRAddrMode.GPR am)
         {
-            super("inc", size, am);
+            super("inc", size, 1, am);
         }
 
 
@@ -1598,7 +1613,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         JMP(int size, AVRAddrMode.$jmp$ am)
         {
-            super("jmp", size);
+            super("jmp", size, 3);
             this.target = am.target;
         }
 
@@ -1634,7 +1649,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         LDD(int size, AVRAddrMode.$ldd$ am)
         {
-            super("ldd", size);
+            super("ldd", size, 2);
             this.rd = am.rd;
             this.ar = am.ar;
             this.imm = am.imm;
@@ -1667,7 +1682,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         LDI(int size, AVRAddrMode.HGPRIMM8 am)
         {
-            super("ldi", size, am);
+            super("ldi", size, 1, am);
         }
 
 
@@ -1687,7 +1702,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         LDS(int size, AVRAddrMode.$lds$ am)
         {
-            super("lds", size);
+            super("lds", size, 2);
             this.rd = am.rd;
             this.addr = am.addr;
         }
@@ -1722,7 +1737,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         LSL(int size, AVRAddrMode.$lsl$ am)
         {
-            super("lsl", size);
+            super("lsl", size, 1);
             this.rd = am.rd;
         }
 
@@ -1753,7 +1768,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         LSR(int size, AVRAddrMode.GPR am)
         {
-            super("lsr", size, am);
+            super("lsr", size, 1, am);
         }
 
 
@@ -1769,7 +1784,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         MOV(int size, AVRAddrMode.GPRGPR am)
         {
-            super("mov", size, am);
+            super("mov", size, 1, am);
         }
 
 
@@ -1789,7 +1804,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         MOVW(int size, AVRAddrMode.$movw$ am)
         {
-            super("movw", size);
+            super("movw", size, 1);
             this.rd = am.rd;
             this.rr = am.rr;
         }
@@ -1821,7 +1836,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         MUL(int size, AVRAddrMode.GPRGPR am)
         {
-            super("mul", size, am);
+            super("mul", size, 2, am);
         }
 
 
@@ -1841,7 +1856,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         MULS(int size, AVRAddrMode.$muls$ am)
         {
-            super("muls", size);
+            super("muls", size, 2);
             this.rd = am.rd;
             this.rr = am.rr;
         }
@@ -1877,7 +1892,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         MULSU(int size, AVRAddrMode.$mulsu$ am)
         {
-            super("mulsu", size);
+            super("mulsu", size, 2);
             this.rd = am.rd;
             this.rr = am.rr;
         }
@@ -1909,7 +1924,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         NEG(int size, AVRAddrMode.GPR am)
         {
-            super("neg", size, am);
+            super("neg", size, 1, am);
         }
 
 
@@ -1925,7 +1940,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         NOP(int size)
         {
-            super("nop", size);
+            super("nop", size, 1);
         }
 
 
@@ -1948,7 +1963,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         OR(int size, AVRAddrMode.GPRGPR am)
         {
-            super("or", size, am);
+            super("or", size, 1, am);
         }
 
 
@@ -1964,7 +1979,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         ORI(int size, AVRAddrMode.HGPRIMM8 am)
         {
-            super("ori", size, am);
+            super("ori", size, 1, am);
         }
 
 
@@ -1984,7 +1999,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         OUT(int size, AVRAddrMode.$out$ am)
         {
-            super("out", size);
+            super("out", size, 1);
             this.ior = am.ior;
             this.rr = am.rr;
         }
@@ -2016,7 +2031,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         POP(int size, AVRAddrMode.GPR am)
         {
-            super("pop", size, am);
+            super("pop", size, 2, am);
         }
 
 
@@ -2032,7 +2047,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         PUSH(int size, AVRAddrMode.GPR am)
         {
-            super("push", size, am);
+            super("push", size, 2, am);
         }
 
 
@@ -2051,7 +2066,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         RCALL(int size, AVRAddrMode.$rcall$ am)
         {
-            super("rcall", size);
+            super("rcall", size, 3);
             this.target = am.target;
         }
 
@@ -2082,7 +2097,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         RET(int size)
         {
-            super("ret", size);
+            super("ret", size, 4);
         }
 
 
@@ -2105,7 +2120,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         RETI(int size)
         {
-            super("reti", size);
+            super("reti", size, 4);
         }
 
 
@@ -2131,7 +2146,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         RJMP(int size, AVRAddrMode.$rjmp$ am)
         {
-            super("rjmp", size);
+            super("rjmp", size, 2);
             this.target = am.target;
         }
 
@@ -2165,7 +2180,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         ROL(int size, AVRAddrMode.$rol$ am)
         {
-            super("rol", size);
+            super("rol", size, 1);
             this.rd = am.rd;
         }
 
@@ -2196,7 +2211,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         ROR(int size, AVRAddrMode.GPR am)
         {
-            super("ror", size, am);
+            super("ror", size, 1, am);
         }
 
 
@@ -2212,7 +2227,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SBC(int size, AVRAddrMode.GPRGPR am)
         {
-            super("sbc", size, am);
+            super("sbc", size, 1, am);
         }
 
 
@@ -2228,7 +2243,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SBCI(int size, AVRAddrMode.HGPRIMM8 am)
         {
-            super("sbci", size, am);
+            super("sbci", size, 1, am);
         }
 
 
@@ -2248,7 +2263,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SBI(int size, AVRAddrMode.$sbi$ am)
         {
-            super("sbi", size);
+            super("sbi", size, 2);
             this.ior = am.ior;
             this.bit = am.bit;
         }
@@ -2284,7 +2299,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SBIC(int size, AVRAddrMode.$sbic$ am)
         {
-            super("sbic", size);
+            super("sbic", size, 1);
             this.ior = am.ior;
             this.bit = am.bit;
         }
@@ -2320,7 +2335,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SBIS(int size, AVRAddrMode.$sbis$ am)
         {
-            super("sbis", size);
+            super("sbis", size, 1);
             this.ior = am.ior;
             this.bit = am.bit;
         }
@@ -2356,7 +2371,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SBIW(int size, AVRAddrMode.$sbiw$ am)
         {
-            super("sbiw", size);
+            super("sbiw", size, 2);
             this.rd = am.rd;
             this.imm = am.imm;
         }
@@ -2388,7 +2403,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SBR(int size, AVRAddrMode.HGPRIMM8 am)
         {
-            super("sbr", size, am);
+            super("sbr", size, 1, am);
         }
 
 
@@ -2408,7 +2423,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SBRC(int size, AVRAddrMode.$sbrc$ am)
         {
-            super("sbrc", size);
+            super("sbrc", size, 1);
             this.rr = am.rr;
             this.bit = am.bit;
         }
@@ -2444,7 +2459,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SBRS(int size, AVRAddrMode.$sbrs$ am)
         {
-            super("sbrs", size);
+            super("sbrs", size, 1);
             this.rr = am.rr;
             this.bit = am.bit;
         }
@@ -2476,7 +2491,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SEC(int size)
         {
-            super("sec", size);
+            super("sec", size, 1);
         }
 
 
@@ -2499,7 +2514,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SEH(int size)
         {
-            super("seh", size);
+            super("seh", size, 1);
         }
 
 
@@ -2522,7 +2537,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SEI(int size)
         {
-            super("sei", size);
+            super("sei", size, 1);
         }
 
 
@@ -2545,7 +2560,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SEN(int size)
         {
-            super("sen", size);
+            super("sen", size, 1);
         }
 
 
@@ -2571,7 +2586,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SER(int size, AVRAddrMode.$ser$ am)
         {
-            super("ser", size);
+            super("ser", size, 1);
             this.rd = am.rd;
         }
 
@@ -2602,7 +2617,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SES(int size)
         {
-            super("ses", size);
+            super("ses", size, 1);
         }
 
 
@@ -2625,7 +2640,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SET(int size)
         {
-            super("set", size);
+            super("set", size, 1);
         }
 
 
@@ -2648,7 +2663,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SEV(int size)
         {
-            super("sev", size);
+            super("sev", size, 1);
         }
 
 
@@ -2671,7 +2686,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SEZ(int size)
         {
-            super("sez", size);
+            super("sez", size, 1);
         }
 
 
@@ -2694,7 +2709,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SLEEP(int size)
         {
-            super("sleep", size);
+            super("sleep", size, 1);
         }
 
 
@@ -2717,7 +2732,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SPM(int size)
         {
-            super("spm", size);
+            super("spm", size, 1);
         }
 
 
@@ -2745,7 +2760,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         STD(int size, AVRAddrMode.$std$ am)
         {
-            super("std", size);
+            super("std", size, 2);
             this.ar = am.ar;
             this.imm = am.imm;
             this.rr = am.rr;
@@ -2782,7 +2797,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         STS(int size, AVRAddrMode.$sts$ am)
         {
-            super("sts", size);
+            super("sts", size, 2);
             this.addr = am.addr;
             this.rr = am.rr;
         }
@@ -2814,7 +2829,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SUB(int size, AVRAddrMode.GPRGPR am)
         {
-            super("sub", size, am);
+            super("sub", size, 1, am);
         }
 
 
@@ -2830,7 +2845,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SUBI(int size, AVRAddrMode.HGPRIMM8 am)
         {
-            super("subi", size, am);
+            super("subi", size, 1, am);
         }
 
 
@@ -2846,7 +2861,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         SWAP(int size, AVRAddrMode.GPR am)
         {
-            super("swap", size, am);
+            super("swap", size, 1, am);
         }
 
 
@@ -2865,7 +2880,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         TST(int size, AVRAddrMode.$tst$ am)
         {
-            super("tst", size);
+            super("tst", size, 1);
             this.rd = am.rd;
         }
 
@@ -2896,7 +2911,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         WDR(int size)
         {
-            super("wdr", size);
+            super("wdr", size, 1);
         }
 
 
@@ -2919,7 +2934,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         ELPM(int size, AVRAddrMode.XLPM am)
         {
-            super("elpm", size, am);
+            super("elpm", size, 3, am);
         }
 
 
@@ -2935,7 +2950,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         LPM(int size, AVRAddrMode.XLPM am)
         {
-            super("lpm", size, am);
+            super("lpm", size, 3, am);
         }
 
 
@@ -2951,7 +2966,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         LD(int size, AVRAddrMode.LD_ST am)
         {
-            super("ld", size, am);
+            super("ld", size, 2, am);
         }
 
 
@@ -2967,7 +2982,7 @@ public abstract class AVRInstr implements AbstractInstr
 
         ST(int size, AVRAddrMode.LD_ST am)
         {
-            super("st", size, am);
+            super("st", size, 2, am);
         }
 
 
@@ -1,10 +1,24 @@
 package avrora.avrora.arch.avr;
 
+import avrora.avrora.core.Program;
+import avrora.avrora.sim.Simulator;
 import avrora.cck.util.Util;
 
+/**
+ * The <code>AVRInstrInterpreter</code> class contains the code for
+ * executing each of the instructions for the "avr" architecture. It
+ * extends the AVRState class, which is code written by the user that
+ * defines the state associated with the interpreter.
+ */
 public abstract class AVRInstrInterpreter extends AVRState
         implements AVRInstrVisitor
 {
+    public AVRInstrInterpreter(Simulator s, Program p, AVRProperties pr)
+    {
+        super(s, p, pr);
+    }
+
+
     boolean bit_get(int v, int bit)
     {
         return (v & (1 << bit)) != 0;
@@ -52,16 +66,16 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         switch (o.op_type)
         {
-        case AVROperand.AI_XYZ_val:
-            return $read_uint16((AVROperand.AI_XYZ) o);
+        case AVROperand.XYZ_val:
+            return $read_uint16((AVROperand.XYZ) o);
         case AVROperand.RZ_W_val:
             return $read_uint16((AVROperand.RZ_W) o);
+        case AVROperand.AI_XYZ_val:
+            return $read_uint16((AVROperand.AI_XYZ) o);
         case AVROperand.PD_XYZ_val:
             return $read_uint16((AVROperand.PD_XYZ) o);
         case AVROperand.AI_RZ_W_val:
             return $read_uint16((AVROperand.AI_RZ_W) o);
-        case AVROperand.XYZ_val:
-            return $read_uint16((AVROperand.XYZ) o);
         }
         throw Util.failure("invalid operand type in read");
     }
@@ -90,7 +104,10 @@ public abstract class AVRInstrInterpreter extends AVRState
 
     public int get_wreg(int r)
     {
-        return uword(map_get(regs, r), map_get(regs, r + 1));
+        int tmp_0 = map_get(regs, r);
+        int tmp_1 = map_get(regs, r + 1);
+        int tmp_2 = (tmp_1 << 8 | tmp_0 & 255) & 65535;
+        return tmp_2;
     }
 
 
@@ -102,44 +119,13 @@ public abstract class AVRInstrInterpreter extends AVRState
 
     public void set_wreg(int r, int v)
     {
-        map_set(regs, r, low(v));
-        map_set(regs, r + 1, high(v));
+        int tmp_1 = v << 24 >> 24;
+        map_set(regs, r, tmp_1);
+        int tmp_3 = v >> 8 << 24 >> 24;
+        map_set(regs, r + 1, tmp_3);
     }
 
 
-    protected abstract int popByte();
-
-
-    protected abstract void pushByte(int b);
-
-
-    protected abstract int extended(int addr);
-
-
-    protected abstract void enableInterrupts();
-
-
-    protected abstract void disableInterrupts();
-
-
-    protected abstract void enterSleepMode();
-
-
-    protected abstract void storeProgramMemory();
-
-
-    protected abstract void stop();
-
-
-    protected abstract void skip();
-
-
-    protected abstract boolean getIORbit(int ior, int bit);
-
-
-    protected abstract void setIORbit(int ior, int bit, boolean v);
-
-
     public int bit(boolean b)
     {
         if (b)
@@ -163,10 +149,12 @@ public abstract class AVRInstrInterpreter extends AVRState
         H = bit_get(ral + rbl + carry, 4);
         C = bit_get(result, 8);
         N = R7;
-        Z = low(result) == 0;
+        int tmp_1 = result << 24 >> 24;
+        Z = tmp_1 == 0;
         V = Rd7 && Rr7 && !R7 || !Rd7 && !Rr7 && R7;
         S = N != V;
-        return low(result);
+        int tmp_3 = result << 24 >> 24;
+        return tmp_3;
     }
 
 
@@ -182,10 +170,12 @@ public abstract class AVRInstrInterpreter extends AVRState
         H = !Rd3 && Rr3 || Rr3 && R3 || R3 && !Rd3;
         C = !Rd7 && Rr7 || Rr7 && R7 || R7 && !Rd7;
         N = R7;
-        Z = low(result) == 0;
+        int tmp_1 = result << 24 >> 24;
+        Z = tmp_1 == 0;
         V = Rd7 && !Rr7 && !R7 || !Rd7 && Rr7 && R7;
         S = N != V;
-        return low(result);
+        int tmp_3 = result << 24 >> 24;
+        return tmp_3;
     }
 
 
@@ -201,10 +191,12 @@ public abstract class AVRInstrInterpreter extends AVRState
         H = !Rd3 && Rr3 || Rr3 && R3 || R3 && !Rd3;
         C = !Rd7 && Rr7 || Rr7 && R7 || R7 && !Rd7;
         N = R7;
-        Z = low(result) == 0 && Z;
+        int tmp_1 = result << 24 >> 24;
+        Z = tmp_1 == 0 && Z;
         V = Rd7 && !Rr7 && !R7 || !Rd7 && Rr7 && R7;
         S = N != V;
-        return low(result);
+        int tmp_3 = result << 24 >> 24;
+        return tmp_3;
     }
 
 
@@ -215,10 +207,12 @@ public abstract class AVRInstrInterpreter extends AVRState
         H = bit_get(result, 4);
         C = bit_get(result, 8);
         N = bit_get(result, 7);
-        Z = low(result) == 0;
+        int tmp_1 = result << 24 >> 24;
+        Z = tmp_1 == 0;
         V = N != C;
         S = N != V;
-        return low(result);
+        int tmp_3 = result << 24 >> 24;
+        return tmp_3;
     }
 
 
@@ -228,10 +222,12 @@ public abstract class AVRInstrInterpreter extends AVRState
         result = bit_update(result, 128, b2i(highbit, 128));
         C = bit_get(r1, 0);
         N = highbit;
-        Z = low(result) == 0;
+        int tmp_1 = result << 24 >> 24;
+        Z = tmp_1 == 0;
         V = N != C;
         S = N != V;
-        return low(result);
+        int tmp_3 = result << 24 >> 24;
+        return tmp_3;
     }
 
 
@@ -239,10 +235,12 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         int result = r1 | r2;
         N = bit_get(result, 7);
-        Z = low(result) == 0;
+        int tmp_1 = result << 24 >> 24;
+        Z = tmp_1 == 0;
         V = false;
         S = N != V;
-        return low(result);
+        int tmp_3 = result << 24 >> 24;
+        return tmp_3;
     }
 
 
@@ -250,23 +248,27 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         int result = r1 & r2;
         N = bit_get(result, 7);
-        Z = low(result) == 0;
+        int tmp_1 = result << 24 >> 24;
+        Z = tmp_1 == 0;
         V = false;
         S = N != V;
-        return low(result);
+        int tmp_3 = result << 24 >> 24;
+        return tmp_3;
     }
 
 
     public void relativeBranch(AVROperand.SREL target)
     {
-        nextpc = relative(target.value);
-        cycles = cycles + 1;
+        int tmp_0 = target.value;
+        int tmp_1 = tmp_0 * 2 + nextPC;
+        nextPC = tmp_1;
+        cyclesConsumed = cyclesConsumed + 1;
     }
 
 
     public int relative(int target)
     {
-        return target * 2 + nextpc;
+        return target * 2 + nextPC;
     }
 
 
@@ -279,8 +281,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     public void pushPC(int npc)
     {
         npc = npc / 2;
-        pushByte(low(npc));
-        pushByte(high(npc));
+        int tmp_1 = npc << 24 >> 24;
+        pushByte(tmp_1);
+        int tmp_3 = npc >> 8 << 24 >> 24;
+        pushByte(tmp_3);
     }
 
 
@@ -288,7 +292,8 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         int high = popByte();
         int low = popByte();
-        return uword(low, high) * 2;
+        int tmp_2 = (high << 8 | low & 255) & 65535;
+        return tmp_2 * 2;
     }
 
 
@@ -306,126 +311,189 @@ public abstract class AVRInstrInterpreter extends AVRState
 
     public int uword(int low, int high)
     {
-        return (high << 8 | low) & 65535;
+        return (high << 8 | low & 255) & 65535;
     }
 
 
     public int $read_int8(AVROperand.op_GPR _this)
     {
-        return get_reg(_this.value.value);
+        int tmp_0 = _this.value.value;
+        int tmp_1 = map_get(regs, tmp_0);
+        return tmp_1;
     }
 
 
     public void $write_int8(AVROperand.op_GPR _this, int value)
     {
-        set_reg(_this.value.value, value);
+        int tmp_0 = _this.value.value;
+        map_set(regs, tmp_0, value);
     }
 
 
     public int $read_int8(AVROperand.op_HGPR _this)
     {
-        return get_reg(_this.value.value);
+        int tmp_0 = _this.value.value;
+        int tmp_1 = map_get(regs, tmp_0);
+        return tmp_1;
     }
 
 
     public void $write_int8(AVROperand.op_HGPR _this, int value)
     {
-        set_reg(_this.value.value, value);
+        int tmp_0 = _this.value.value;
+        map_set(regs, tmp_0, value);
     }
 
 
     public int $read_int8(AVROperand.op_MGPR _this)
     {
-        return get_reg(_this.value.value);
+        int tmp_0 = _this.value.value;
+        int tmp_1 = map_get(regs, tmp_0);
+        return tmp_1;
     }
 
 
     public void $write_int8(AVROperand.op_MGPR _this, int value)
     {
-        set_reg(_this.value.value, value);
+        int tmp_0 = _this.value.value;
+        map_set(regs, tmp_0, value);
     }
 
 
     public int $read_uint16(AVROperand.op_YZ _this)
     {
-        return get_wreg(_this.value.value);
+        int tmp_0 = _this.value.value;
+        int tmp_2 = map_get(regs, tmp_0);
+        int tmp_3 = map_get(regs, tmp_0 + 1);
+        int tmp_4 = (tmp_3 << 8 | tmp_2 & 255) & 65535;
+        return tmp_4;
     }
 
 
     public void $write_uint16(AVROperand.op_YZ _this, int value)
     {
-        set_wreg(_this.value.value, value);
+        int tmp_0 = _this.value.value;
+        int tmp_3 = value << 24 >> 24;
+        map_set(regs, tmp_0, tmp_3);
+        int tmp_5 = value >> 8 << 24 >> 24;
+        map_set(regs, tmp_0 + 1, tmp_5);
     }
 
 
     public int $read_uint16(AVROperand.op_EGPR _this)
     {
-        return get_wreg(_this.value.value);
+        int tmp_0 = _this.value.value;
+        int tmp_2 = map_get(regs, tmp_0);
+        int tmp_3 = map_get(regs, tmp_0 + 1);
+        int tmp_4 = (tmp_3 << 8 | tmp_2 & 255) & 65535;
+        return tmp_4;
     }
 
 
     public void $write_uint16(AVROperand.op_EGPR _this, int value)
     {
-        set_wreg(_this.value.value, value);
+        int tmp_0 = _this.value.value;
+        int tmp_3 = value << 24 >> 24;
+        map_set(regs, tmp_0, tmp_3);
+        int tmp_5 = value >> 8 << 24 >> 24;
+        map_set(regs, tmp_0 + 1, tmp_5);
     }
 
 
     public int $read_uint16(AVROperand.op_RDL _this)
     {
-        return get_wreg(_this.value.value);
+        int tmp_0 = _this.value.value;
+        int tmp_2 = map_get(regs, tmp_0);
+        int tmp_3 = map_get(regs, tmp_0 + 1);
+        int tmp_4 = (tmp_3 << 8 | tmp_2 & 255) & 65535;
+        return tmp_4;
     }
 
 
     public void $write_uint16(AVROperand.op_RDL _this, int value)
     {
-        set_wreg(_this.value.value, value);
+        int tmp_0 = _this.value.value;
+        int tmp_3 = value << 24 >> 24;
+        map_set(regs, tmp_0, tmp_3);
+        int tmp_5 = value >> 8 << 24 >> 24;
+        map_set(regs, tmp_0 + 1, tmp_5);
     }
 
 
     public int $read_int8(AVROperand.R0_B _this)
     {
-        return get_reg(0);
+        int tmp_1 = map_get(regs, 0);
+        return tmp_1;
     }
 
 
     public void $write_int8(AVROperand.R0_B _this, int value)
     {
-        set_reg(0, value);
+        map_set(regs, 0, value);
     }
 
 
     public int $read_uint16(AVROperand.RZ_W _this)
     {
-        return get_wreg(30);
+        int tmp_2 = map_get(regs, 30);
+        int tmp_3 = map_get(regs, 31);
+        int tmp_4 = (tmp_3 << 8 | tmp_2 & 255) & 65535;
+        return tmp_4;
     }
 
 
     public int $read_uint16(AVROperand.AI_RZ_W _this)
     {
-        int temp = get_wreg(30);
-        set_wreg(30, temp + 1);
-        return temp;
+        int tmp_2 = map_get(regs, 30);
+        int tmp_3 = map_get(regs, 31);
+        int tmp_4 = (tmp_3 << 8 | tmp_2 & 255) & 65535;
+        int tmp_6 = tmp_4 + 1;
+        int tmp_8 = tmp_6 << 24 >> 24;
+        map_set(regs, 30, tmp_8);
+        int tmp_10 = tmp_6 >> 8 << 24 >> 24;
+        map_set(regs, 31, tmp_10);
+        return tmp_4;
     }
 
 
     public int $read_uint16(AVROperand.XYZ _this)
     {
-        return get_wreg(_this.value.value);
+        int tmp_0 = _this.value.value;
+        int tmp_2 = map_get(regs, tmp_0);
+        int tmp_3 = map_get(regs, tmp_0 + 1);
+        int tmp_4 = (tmp_3 << 8 | tmp_2 & 255) & 65535;
+        return tmp_4;
     }
 
 
     public int $read_uint16(AVROperand.AI_XYZ _this)
     {
-        int tmp = get_wreg(_this.value.value);
-        set_wreg(_this.value.value, tmp + 1);
-        return tmp;
+        int tmp_0 = _this.value.value;
+        int tmp_2 = map_get(regs, tmp_0);
+        int tmp_3 = map_get(regs, tmp_0 + 1);
+        int tmp_4 = (tmp_3 << 8 | tmp_2 & 255) & 65535;
+        int tmp_5 = _this.value.value;
+        int tmp_6 = tmp_4 + 1;
+        int tmp_8 = tmp_6 << 24 >> 24;
+        map_set(regs, tmp_5, tmp_8);
+        int tmp_10 = tmp_6 >> 8 << 24 >> 24;
+        map_set(regs, tmp_5 + 1, tmp_10);
+        return tmp_4;
     }
 
 
     public int $read_uint16(AVROperand.PD_XYZ _this)
     {
-        int tmp = get_wreg(_this.value.value) - 1 & 65535;
-        set_wreg(_this.value.value, tmp);
+        int tmp_0 = _this.value.value;
+        int tmp_2 = map_get(regs, tmp_0);
+        int tmp_3 = map_get(regs, tmp_0 + 1);
+        int tmp_4 = (tmp_3 << 8 | tmp_2 & 255) & 65535;
+        int tmp = tmp_4 - 1 & 65535;
+        int tmp_5 = _this.value.value;
+        int tmp_8 = tmp << 24 >> 24;
+        map_set(regs, tmp_5, tmp_8);
+        int tmp_10 = tmp >> 8 << 24 >> 24;
+        map_set(regs, tmp_5 + 1, tmp_10);
         return tmp;
     }
 
@@ -433,54 +501,138 @@ public abstract class AVRInstrInterpreter extends AVRState
     @Override
     public void visit(AVRInstr.ADC i)
     {
-        $write_int8(i.rd, performAddition($read_int8(i.rd) & 255,
-                $read_int8(i.rr) & 255, bit(C)));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_2 = tmp_6 & 255;
+        int tmp_10 = i.rr.value.value;
+        int tmp_11 = map_get(regs, tmp_10);
+        int tmp_7 = tmp_11 & 255;
+        int tmp_12 = bit(C);
+        int tmp_13 = tmp_2 + tmp_7 + tmp_12;
+        int tmp_14 = tmp_2 & 15;
+        int tmp_15 = tmp_7 & 15;
+        boolean tmp_16 = bit_get(tmp_2, 7);
+        boolean tmp_17 = bit_get(tmp_7, 7);
+        boolean tmp_18 = bit_get(tmp_13, 7);
+        H = bit_get(tmp_14 + tmp_15 + tmp_12, 4);
+        C = bit_get(tmp_13, 8);
+        N = tmp_18;
+        int tmp_20 = tmp_13 << 24 >> 24;
+        Z = tmp_20 == 0;
+        V = tmp_16 && tmp_17 && !tmp_18 || !tmp_16 && !tmp_17 && tmp_18;
+        S = N != V;
+        int tmp_23 = tmp_13 << 24 >> 24;
+        int tmp_24 = i.rd.value.value;
+        map_set(regs, tmp_24, tmp_23);
     }
 
 
     @Override
     public void visit(AVRInstr.ADD i)
     {
-        $write_int8(i.rd, performAddition($read_int8(i.rd) & 255,
-                $read_int8(i.rr) & 255, 0));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_2 = tmp_6 & 255;
+        int tmp_10 = i.rr.value.value;
+        int tmp_11 = map_get(regs, tmp_10);
+        int tmp_7 = tmp_11 & 255;
+        int tmp_13 = tmp_2 + tmp_7 + 0;
+        int tmp_14 = tmp_2 & 15;
+        int tmp_15 = tmp_7 & 15;
+        boolean tmp_16 = bit_get(tmp_2, 7);
+        boolean tmp_17 = bit_get(tmp_7, 7);
+        boolean tmp_18 = bit_get(tmp_13, 7);
+        H = bit_get(tmp_14 + tmp_15 + 0, 4);
+        C = bit_get(tmp_13, 8);
+        N = tmp_18;
+        int tmp_20 = tmp_13 << 24 >> 24;
+        Z = tmp_20 == 0;
+        V = tmp_16 && tmp_17 && !tmp_18 || !tmp_16 && !tmp_17 && tmp_18;
+        S = N != V;
+        int tmp_23 = tmp_13 << 24 >> 24;
+        int tmp_24 = i.rd.value.value;
+        map_set(regs, tmp_24, tmp_23);
     }
 
 
     @Override
     public void visit(AVRInstr.ADIW i)
     {
-        int r1 = $read_uint16(i.rd);
-        int result = r1 + i.imm.value;
+        int tmp_2 = i.rd.value.value;
+        int tmp_4 = map_get(regs, tmp_2);
+        int tmp_5 = map_get(regs, tmp_2 + 1);
+        int tmp_6 = (tmp_5 << 8 | tmp_4 & 255) & 65535;
+        int result = tmp_6 + i.imm.value;
         boolean R15 = bit_get(result, 15);
-        boolean Rdh7 = bit_get(r1, 15);
+        boolean Rdh7 = bit_get(tmp_6, 15);
         C = !R15 && Rdh7;
         N = R15;
         V = !Rdh7 && R15;
         Z = (result & 65535) == 0;
         S = N != V;
-        $write_uint16(i.rd, result);
+        int tmp_8 = result & 65535;
+        int tmp_9 = i.rd.value.value;
+        int tmp_12 = tmp_8 << 24 >> 24;
+        map_set(regs, tmp_9, tmp_12);
+        int tmp_14 = tmp_8 >> 8 << 24 >> 24;
+        map_set(regs, tmp_9 + 1, tmp_14);
     }
 
 
     @Override
     public void visit(AVRInstr.AND i)
     {
-        $write_int8(i.rd, performAnd($read_int8(i.rd), $read_int8(i.rr)));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_10 = i.rr.value.value;
+        int tmp_11 = map_get(regs, tmp_10);
+        int tmp_12 = tmp_6 & tmp_11;
+        N = bit_get(tmp_12, 7);
+        int tmp_14 = tmp_12 << 24 >> 24;
+        Z = tmp_14 == 0;
+        V = false;
+        S = N != V;
+        int tmp_17 = tmp_12 << 24 >> 24;
+        int tmp_18 = i.rd.value.value;
+        map_set(regs, tmp_18, tmp_17);
     }
 
 
     @Override
     public void visit(AVRInstr.ANDI i)
     {
-        $write_int8(i.rd, performAnd($read_int8(i.rd), i.imm.value));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_7 = i.imm.value;
+        int tmp_8 = tmp_6 & tmp_7;
+        N = bit_get(tmp_8, 7);
+        int tmp_10 = tmp_8 << 24 >> 24;
+        Z = tmp_10 == 0;
+        V = false;
+        S = N != V;
+        int tmp_13 = tmp_8 << 24 >> 24;
+        int tmp_14 = i.rd.value.value;
+        map_set(regs, tmp_14, tmp_13);
     }
 
 
     @Override
     public void visit(AVRInstr.ASR i)
     {
-        int r1 = $read_int8(i.rd);
-        $write_int8(i.rd, performRightShift(r1, bit_get(r1, 7)));
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        boolean tmp_7 = bit_get(tmp_3, 7);
+        int tmp_8 = (tmp_3 & 255) >> 1;
+        tmp_8 = bit_update(tmp_8, 128, b2i(tmp_7, 128));
+        C = bit_get(tmp_3, 0);
+        N = tmp_7;
+        int tmp_10 = tmp_8 << 24 >> 24;
+        Z = tmp_10 == 0;
+        V = N != C;
+        S = N != V;
+        int tmp_13 = tmp_8 << 24 >> 24;
+        int tmp_14 = i.rd.value.value;
+        map_set(regs, tmp_14, tmp_13);
     }
 
 
@@ -494,9 +646,12 @@ public abstract class AVRInstrInterpreter extends AVRState
     @Override
     public void visit(AVRInstr.BLD i)
     {
-        int val = $read_int8(i.rr);
-        val = bit_set(val, i.bit.value, T);
-        $write_int8(i.rr, val);
+        int tmp_2 = i.rr.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        int val = tmp_3;
+        val = bit_set(tmp_3, i.bit.value, T);
+        int tmp_6 = i.rr.value.value;
+        map_set(regs, tmp_6, val);
     }
 
 
@@ -505,7 +660,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (!getIORbit(SREG, i.bit.value))
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -515,7 +673,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (getIORbit(SREG, i.bit.value))
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -525,7 +686,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (!C)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -535,7 +699,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (C)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -552,7 +719,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (Z)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -562,7 +732,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (!S)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -572,7 +745,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (!H)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -582,7 +758,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (H)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -592,7 +771,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (!I)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -602,7 +784,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (I)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -612,7 +797,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (C)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -622,7 +810,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (S)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -632,7 +823,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (N)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -642,7 +836,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (!Z)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -652,7 +849,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (!N)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -662,7 +862,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (!C)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -672,7 +875,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (!T)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -682,7 +888,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (T)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -692,7 +901,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (!V)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -702,7 +914,10 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         if (V)
         {
-            relativeBranch(i.target);
+            int tmp_1 = i.target.value;
+            int tmp_2 = tmp_1 * 2 + nextPC;
+            nextPC = tmp_2;
+            cyclesConsumed = cyclesConsumed + 1;
         }
     }
 
@@ -717,15 +932,24 @@ public abstract class AVRInstrInterpreter extends AVRState
     @Override
     public void visit(AVRInstr.BST i)
     {
-        T = bit_get($read_int8(i.rr), i.bit.value);
+        int tmp_2 = i.rr.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        T = bit_get(tmp_3, i.bit.value);
     }
 
 
     @Override
     public void visit(AVRInstr.CALL i)
     {
-        pushPC(nextpc);
-        nextpc = absolute(i.target.value);
+        int tmp_0 = nextPC;
+        tmp_0 = tmp_0 / 2;
+        int tmp_2 = tmp_0 << 24 >> 24;
+        pushByte(tmp_2);
+        int tmp_4 = tmp_0 >> 8 << 24 >> 24;
+        pushByte(tmp_4);
+        int tmp_5 = i.target.value;
+        int tmp_6 = tmp_5 * 2;
+        nextPC = tmp_6;
     }
 
 
@@ -739,7 +963,18 @@ public abstract class AVRInstrInterpreter extends AVRState
     @Override
     public void visit(AVRInstr.CBR i)
     {
-        $write_int8(i.rd, performAnd($read_int8(i.rd), ~i.imm.value));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_7 = ~i.imm.value;
+        int tmp_8 = tmp_6 & tmp_7;
+        N = bit_get(tmp_8, 7);
+        int tmp_10 = tmp_8 << 24 >> 24;
+        Z = tmp_10 == 0;
+        V = false;
+        S = N != V;
+        int tmp_13 = tmp_8 << 24 >> 24;
+        int tmp_14 = i.rd.value.value;
+        map_set(regs, tmp_14, tmp_13);
     }
 
 
@@ -778,7 +1013,8 @@ public abstract class AVRInstrInterpreter extends AVRState
         V = false;
         N = false;
         Z = true;
-        $write_int8(i.rd, low(0));
+        int tmp_4 = i.rd.value.value;
+        map_set(regs, tmp_4, 0);
     }
 
 
@@ -813,44 +1049,115 @@ public abstract class AVRInstrInterpreter extends AVRState
     @Override
     public void visit(AVRInstr.COM i)
     {
-        int result = 255 - $read_int8(i.rd);
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        int result = 255 - tmp_3;
         C = true;
         N = bit_get(result, 7);
-        Z = low(result) == 0;
+        int tmp_5 = result << 24 >> 24;
+        Z = tmp_5 == 0;
         V = false;
         S = N != V;
-        $write_int8(i.rd, low(result));
+        int tmp_9 = result << 24 >> 24;
+        int tmp_10 = i.rd.value.value;
+        map_set(regs, tmp_10, tmp_9);
     }
 
 
     @Override
     public void visit(AVRInstr.CP i)
     {
-        performSubtraction($read_int8(i.rd), $read_int8(i.rr), 0);
+        int tmp_3 = i.rd.value.value;
+        int tmp_4 = map_get(regs, tmp_3);
+        int tmp_8 = i.rr.value.value;
+        int tmp_9 = map_get(regs, tmp_8);
+        int tmp_11 = tmp_4 - tmp_9 - 0;
+        boolean tmp_12 = bit_get(tmp_4, 7);
+        boolean tmp_13 = bit_get(tmp_9, 7);
+        boolean tmp_14 = bit_get(tmp_11, 7);
+        boolean tmp_15 = bit_get(tmp_4, 3);
+        boolean tmp_16 = bit_get(tmp_9, 3);
+        boolean tmp_17 = bit_get(tmp_11, 3);
+        H = !tmp_15 && tmp_16 || tmp_16 && tmp_17 || tmp_17 && !tmp_15;
+        C = !tmp_12 && tmp_13 || tmp_13 && tmp_14 || tmp_14 && !tmp_12;
+        N = tmp_14;
+        int tmp_19 = tmp_11 << 24 >> 24;
+        Z = tmp_19 == 0;
+        V = tmp_12 && !tmp_13 && !tmp_14 || !tmp_12 && tmp_13 && tmp_14;
+        S = N != V;
     }
 
 
     @Override
     public void visit(AVRInstr.CPC i)
     {
-        performSubtractionPZ($read_int8(i.rd), $read_int8(i.rr), bit(C));
+        int tmp_3 = i.rd.value.value;
+        int tmp_4 = map_get(regs, tmp_3);
+        int tmp_8 = i.rr.value.value;
+        int tmp_9 = map_get(regs, tmp_8);
+        int tmp_10 = bit(C);
+        int tmp_11 = tmp_4 - tmp_9 - tmp_10;
+        boolean tmp_12 = bit_get(tmp_4, 7);
+        boolean tmp_13 = bit_get(tmp_9, 7);
+        boolean tmp_14 = bit_get(tmp_11, 7);
+        boolean tmp_15 = bit_get(tmp_4, 3);
+        boolean tmp_16 = bit_get(tmp_9, 3);
+        boolean tmp_17 = bit_get(tmp_11, 3);
+        H = !tmp_15 && tmp_16 || tmp_16 && tmp_17 || tmp_17 && !tmp_15;
+        C = !tmp_12 && tmp_13 || tmp_13 && tmp_14 || tmp_14 && !tmp_12;
+        N = tmp_14;
+        int tmp_19 = tmp_11 << 24 >> 24;
+        Z = tmp_19 == 0 && Z;
+        V = tmp_12 && !tmp_13 && !tmp_14 || !tmp_12 && tmp_13 && tmp_14;
+        S = N != V;
     }
 
 
     @Override
     public void visit(AVRInstr.CPI i)
     {
-        performSubtraction($read_int8(i.rd), i.imm.value, 0);
+        int tmp_3 = i.rd.value.value;
+        int tmp_4 = map_get(regs, tmp_3);
+        int tmp_5 = i.imm.value;
+        int tmp_7 = tmp_4 - tmp_5 - 0;
+        boolean tmp_8 = bit_get(tmp_4, 7);
+        boolean tmp_9 = bit_get(tmp_5, 7);
+        boolean tmp_10 = bit_get(tmp_7, 7);
+        boolean tmp_11 = bit_get(tmp_4, 3);
+        boolean tmp_12 = bit_get(tmp_5, 3);
+        boolean tmp_13 = bit_get(tmp_7, 3);
+        H = !tmp_11 && tmp_12 || tmp_12 && tmp_13 || tmp_13 && !tmp_11;
+        C = !tmp_8 && tmp_9 || tmp_9 && tmp_10 || tmp_10 && !tmp_8;
+        N = tmp_10;
+        int tmp_15 = tmp_7 << 24 >> 24;
+        Z = tmp_15 == 0;
+        V = tmp_8 && !tmp_9 && !tmp_10 || !tmp_8 && tmp_9 && tmp_10;
+        S = N != V;
     }
 
 
     @Override
     public void visit(AVRInstr.CPSE i)
     {
-        int r1 = $read_int8(i.rd);
-        int r2 = $read_int8(i.rr);
-        performSubtraction(r1, r2, 0);
-        if (r1 == r2)
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        int tmp_6 = i.rr.value.value;
+        int tmp_7 = map_get(regs, tmp_6);
+        int tmp_11 = tmp_3 - tmp_7 - 0;
+        boolean tmp_12 = bit_get(tmp_3, 7);
+        boolean tmp_13 = bit_get(tmp_7, 7);
+        boolean tmp_14 = bit_get(tmp_11, 7);
+        boolean tmp_15 = bit_get(tmp_3, 3);
+        boolean tmp_16 = bit_get(tmp_7, 3);
+        boolean tmp_17 = bit_get(tmp_11, 3);
+        H = !tmp_15 && tmp_16 || tmp_16 && tmp_17 || tmp_17 && !tmp_15;
+        C = !tmp_12 && tmp_13 || tmp_13 && tmp_14 || tmp_14 && !tmp_12;
+        N = tmp_14;
+        int tmp_19 = tmp_11 << 24 >> 24;
+        Z = tmp_19 == 0;
+        V = tmp_12 && !tmp_13 && !tmp_14 || !tmp_12 && tmp_13 && tmp_14;
+        S = N != V;
+        if (tmp_3 == tmp_7)
         {
             skip();
         }
@@ -860,13 +1167,17 @@ public abstract class AVRInstrInterpreter extends AVRState
     @Override
     public void visit(AVRInstr.DEC i)
     {
-        int r1 = $read_int8(i.rd) & 255;
-        int result = low(r1 - 1);
-        N = bit_get(result, 7);
-        Z = result == 0;
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        int r1 = tmp_3 & 255;
+        int tmp_4 = r1 - 1;
+        int tmp_5 = tmp_4 << 24 >> 24;
+        N = bit_get(tmp_5, 7);
+        Z = tmp_5 == 0;
         V = r1 == 128;
         S = N != V;
-        $write_int8(i.rd, result);
+        int tmp_8 = i.rd.value.value;
+        map_set(regs, tmp_8, tmp_5);
     }
 
 
@@ -885,170 +1196,302 @@ public abstract class AVRInstrInterpreter extends AVRState
     @Override
     public void visit(AVRInstr.EOR i)
     {
-        int result = $read_int8(i.rd) ^ $read_int8(i.rr);
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        int tmp_6 = i.rr.value.value;
+        int tmp_7 = map_get(regs, tmp_6);
+        int result = tmp_3 ^ tmp_7;
         N = bit_get(result, 7);
         Z = result == 0;
         V = false;
         S = N != V;
-        $write_int8(i.rd, result);
+        int tmp_10 = i.rd.value.value;
+        map_set(regs, tmp_10, result);
     }
 
 
     @Override
     public void visit(AVRInstr.FMUL i)
     {
-        int result = ($read_int8(i.rd) & 255) * ($read_int8(i.rr) & 255) << 1;
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        int tmp_6 = i.rr.value.value;
+        int tmp_7 = map_get(regs, tmp_6);
+        int result = (tmp_3 & 255) * (tmp_7 & 255) << 1;
         Z = (result & 65535) == 0;
         C = bit_get(result, 16);
-        set_wreg(0, result);
+        int tmp_11 = result << 24 >> 24;
+        map_set(regs, 0, tmp_11);
+        int tmp_13 = result >> 8 << 24 >> 24;
+        map_set(regs, 1, tmp_13);
     }
 
 
     @Override
     public void visit(AVRInstr.FMULS i)
     {
-        int result = $read_int8(i.rd) * $read_int8(i.rr) << 1;
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        int tmp_6 = i.rr.value.value;
+        int tmp_7 = map_get(regs, tmp_6);
+        int result = tmp_3 * tmp_7 << 1;
         Z = (result & 65535) == 0;
         C = bit_get(result, 16);
-        set_wreg(0, result);
+        int tmp_11 = result << 24 >> 24;
+        map_set(regs, 0, tmp_11);
+        int tmp_13 = result >> 8 << 24 >> 24;
+        map_set(regs, 1, tmp_13);
     }
 
 
     @Override
     public void visit(AVRInstr.FMULSU i)
     {
-        int result = $read_int8(i.rd) * ($read_int8(i.rr) & 255) << 1;
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        int tmp_6 = i.rr.value.value;
+        int tmp_7 = map_get(regs, tmp_6);
+        int result = tmp_3 * (tmp_7 & 255) << 1;
         Z = (result & 65535) == 0;
         C = bit_get(result, 16);
-        set_wreg(0, result);
+        int tmp_11 = result << 24 >> 24;
+        map_set(regs, 0, tmp_11);
+        int tmp_13 = result >> 8 << 24 >> 24;
+        map_set(regs, 1, tmp_13);
     }
 
 
     @Override
     public void visit(AVRInstr.ICALL i)
     {
-        pushPC(nextpc);
-        nextpc = absolute(get_wreg(30));
+        int tmp_0 = nextPC;
+        tmp_0 = tmp_0 / 2;
+        int tmp_2 = tmp_0 << 24 >> 24;
+        pushByte(tmp_2);
+        int tmp_4 = tmp_0 >> 8 << 24 >> 24;
+        pushByte(tmp_4);
+        int tmp_8 = map_get(regs, 30);
+        int tmp_9 = map_get(regs, 31);
+        int tmp_10 = (tmp_9 << 8 | tmp_8 & 255) & 65535;
+        int tmp_11 = tmp_10 * 2;
+        nextPC = tmp_11;
     }
 
 
     @Override
     public void visit(AVRInstr.IJMP i)
     {
-        nextpc = absolute(get_wreg(30));
+        int tmp_3 = map_get(regs, 30);
+        int tmp_4 = map_get(regs, 31);
+        int tmp_5 = (tmp_4 << 8 | tmp_3 & 255) & 65535;
+        int tmp_6 = tmp_5 * 2;
+        nextPC = tmp_6;
     }
 
 
     @Override
     public void visit(AVRInstr.IN i)
     {
-        $write_int8(i.rd, map_get(ioregs, i.imm.value));
+        int tmp_1 = getIORegisterByte(i.imm.value);
+        int tmp_2 = i.rd.value.value;
+        map_set(regs, tmp_2, tmp_1);
     }
 
 
     @Override
     public void visit(AVRInstr.INC i)
     {
-        int r1 = $read_int8(i.rd) & 255;
-        int result = low(r1 + 1);
-        N = bit_get(result, 7);
-        Z = result == 0;
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        int r1 = tmp_3 & 255;
+        int tmp_4 = r1 + 1;
+        int tmp_5 = tmp_4 << 24 >> 24;
+        N = bit_get(tmp_5, 7);
+        Z = tmp_5 == 0;
         V = r1 == 127;
         S = N != V;
-        $write_int8(i.rd, result);
+        int tmp_8 = i.rd.value.value;
+        map_set(regs, tmp_8, tmp_5);
     }
 
 
     @Override
     public void visit(AVRInstr.JMP i)
     {
-        nextpc = absolute(i.target.value);
+        int tmp_0 = i.target.value;
+        int tmp_1 = tmp_0 * 2;
+        nextPC = tmp_1;
     }
 
 
     @Override
     public void visit(AVRInstr.LDD i)
     {
-        $write_int8(i.rd, map_get(sram, $read_uint16(i.ar) + i.imm.value));
+        int tmp_4 = i.ar.value.value;
+        int tmp_6 = map_get(regs, tmp_4);
+        int tmp_7 = map_get(regs, tmp_4 + 1);
+        int tmp_8 = (tmp_7 << 8 | tmp_6 & 255) & 65535;
+        int tmp_1 = getDataByte(tmp_8 + i.imm.value);
+        int tmp_9 = i.rd.value.value;
+        map_set(regs, tmp_9, tmp_1);
     }
 
 
     @Override
     public void visit(AVRInstr.LDI i)
     {
-        $write_int8(i.rd, i.imm.value);
+        int tmp_1 = i.imm.value;
+        int tmp_2 = i.rd.value.value;
+        map_set(regs, tmp_2, tmp_1);
     }
 
 
     @Override
     public void visit(AVRInstr.LDS i)
     {
-        $write_int8(i.rd, map_get(sram, i.addr.value));
+        int tmp_1 = getDataByte(i.addr.value);
+        int tmp_2 = i.rd.value.value;
+        map_set(regs, tmp_2, tmp_1);
     }
 
 
     @Override
     public void visit(AVRInstr.LSL i)
     {
-        $write_int8(i.rd, performLeftShift($read_int8(i.rd), false));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_8 = tmp_6 << 1;
+        tmp_8 = bit_update(tmp_8, 1, b2i(false, 1));
+        H = bit_get(tmp_8, 4);
+        C = bit_get(tmp_8, 8);
+        N = bit_get(tmp_8, 7);
+        int tmp_10 = tmp_8 << 24 >> 24;
+        Z = tmp_10 == 0;
+        V = N != C;
+        S = N != V;
+        int tmp_13 = tmp_8 << 24 >> 24;
+        int tmp_14 = i.rd.value.value;
+        map_set(regs, tmp_14, tmp_13);
     }
 
 
     @Override
     public void visit(AVRInstr.LSR i)
     {
-        $write_int8(i.rd, performRightShift($read_int8(i.rd), false));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_8 = (tmp_6 & 255) >> 1;
+        tmp_8 = bit_update(tmp_8, 128, b2i(false, 128));
+        C = bit_get(tmp_6, 0);
+        N = false;
+        int tmp_10 = tmp_8 << 24 >> 24;
+        Z = tmp_10 == 0;
+        V = N != C;
+        S = N != V;
+        int tmp_13 = tmp_8 << 24 >> 24;
+        int tmp_14 = i.rd.value.value;
+        map_set(regs, tmp_14, tmp_13);
     }
 
 
     @Override
     public void visit(AVRInstr.MOV i)
     {
-        $write_int8(i.rd, $read_int8(i.rr));
+        int tmp_4 = i.rr.value.value;
+        int tmp_5 = map_get(regs, tmp_4);
+        int tmp_6 = i.rd.value.value;
+        map_set(regs, tmp_6, tmp_5);
     }
 
 
     @Override
     public void visit(AVRInstr.MOVW i)
     {
-        $write_uint16(i.rd, $read_uint16(i.rr));
+        int tmp_4 = i.rr.value.value;
+        int tmp_6 = map_get(regs, tmp_4);
+        int tmp_7 = map_get(regs, tmp_4 + 1);
+        int tmp_8 = (tmp_7 << 8 | tmp_6 & 255) & 65535;
+        int tmp_9 = i.rd.value.value;
+        int tmp_12 = tmp_8 << 24 >> 24;
+        map_set(regs, tmp_9, tmp_12);
+        int tmp_14 = tmp_8 >> 8 << 24 >> 24;
+        map_set(regs, tmp_9 + 1, tmp_14);
     }
 
 
     @Override
     public void visit(AVRInstr.MUL i)
     {
-        int result = ($read_int8(i.rd) & 255) * ($read_int8(i.rr) & 255);
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        int tmp_6 = i.rr.value.value;
+        int tmp_7 = map_get(regs, tmp_6);
+        int result = (tmp_3 & 255) * (tmp_7 & 255);
         C = bit_get(result, 15);
         Z = (result & 65535) == 0;
-        set_wreg(0, result);
+        int tmp_11 = result << 24 >> 24;
+        map_set(regs, 0, tmp_11);
+        int tmp_13 = result >> 8 << 24 >> 24;
+        map_set(regs, 1, tmp_13);
     }
 
 
     @Override
     public void visit(AVRInstr.MULS i)
     {
-        int result = $read_int8(i.rd) * $read_int8(i.rr);
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        int tmp_6 = i.rr.value.value;
+        int tmp_7 = map_get(regs, tmp_6);
+        int result = tmp_3 * tmp_7;
         C = bit_get(result, 15);
         Z = (result & 65535) == 0;
-        set_wreg(0, result);
+        int tmp_11 = result << 24 >> 24;
+        map_set(regs, 0, tmp_11);
+        int tmp_13 = result >> 8 << 24 >> 24;
+        map_set(regs, 1, tmp_13);
     }
 
 
     @Override
     public void visit(AVRInstr.MULSU i)
     {
-        int result = $read_int8(i.rd) * ($read_int8(i.rr) & 255);
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        int tmp_6 = i.rr.value.value;
+        int tmp_7 = map_get(regs, tmp_6);
+        int result = tmp_3 * (tmp_7 & 255);
         C = bit_get(result, 15);
         Z = (result & 65535) == 0;
-        set_wreg(0, result);
+        int tmp_11 = result << 24 >> 24;
+        map_set(regs, 0, tmp_11);
+        int tmp_13 = result >> 8 << 24 >> 24;
+        map_set(regs, 1, tmp_13);
     }
 
 
     @Override
     public void visit(AVRInstr.NEG i)
     {
-        $write_int8(i.rd, performSubtraction(0, $read_int8(i.rd), 0));
+        int tmp_6 = i.rd.value.value;
+        int tmp_7 = map_get(regs, tmp_6);
+        int tmp_9 = 0 - tmp_7 - 0;
+        boolean tmp_10 = bit_get(0, 7);
+        boolean tmp_11 = bit_get(tmp_7, 7);
+        boolean tmp_12 = bit_get(tmp_9, 7);
+        boolean tmp_13 = bit_get(0, 3);
+        boolean tmp_14 = bit_get(tmp_7, 3);
+        boolean tmp_15 = bit_get(tmp_9, 3);
+        H = !tmp_13 && tmp_14 || tmp_14 && tmp_15 || tmp_15 && !tmp_13;
+        C = !tmp_10 && tmp_11 || tmp_11 && tmp_12 || tmp_12 && !tmp_10;
+        N = tmp_12;
+        int tmp_17 = tmp_9 << 24 >> 24;
+        Z = tmp_17 == 0;
+        V = tmp_10 && !tmp_11 && !tmp_12 || !tmp_10 && tmp_11 && tmp_12;
+        S = N != V;
+        int tmp_20 = tmp_9 << 24 >> 24;
+        int tmp_21 = i.rd.value.value;
+        map_set(regs, tmp_21, tmp_20);
     }
 
 
@@ -1061,57 +1504,101 @@ public abstract class AVRInstrInterpreter extends AVRState
     @Override
     public void visit(AVRInstr.OR i)
     {
-        $write_int8(i.rd, performOr($read_int8(i.rd), $read_int8(i.rr)));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_10 = i.rr.value.value;
+        int tmp_11 = map_get(regs, tmp_10);
+        int tmp_12 = tmp_6 | tmp_11;
+        N = bit_get(tmp_12, 7);
+        int tmp_14 = tmp_12 << 24 >> 24;
+        Z = tmp_14 == 0;
+        V = false;
+        S = N != V;
+        int tmp_17 = tmp_12 << 24 >> 24;
+        int tmp_18 = i.rd.value.value;
+        map_set(regs, tmp_18, tmp_17);
     }
 
 
     @Override
     public void visit(AVRInstr.ORI i)
     {
-        $write_int8(i.rd, performOr($read_int8(i.rd), i.imm.value));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_7 = i.imm.value;
+        int tmp_8 = tmp_6 | tmp_7;
+        N = bit_get(tmp_8, 7);
+        int tmp_10 = tmp_8 << 24 >> 24;
+        Z = tmp_10 == 0;
+        V = false;
+        S = N != V;
+        int tmp_13 = tmp_8 << 24 >> 24;
+        int tmp_14 = i.rd.value.value;
+        map_set(regs, tmp_14, tmp_13);
     }
 
 
     @Override
     public void visit(AVRInstr.OUT i)
     {
-        map_set(ioregs, i.ior.value, $read_int8(i.rr));
+        int tmp_2 = i.rr.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        setIORegisterByte(i.ior.value, tmp_3);
     }
 
 
     @Override
     public void visit(AVRInstr.POP i)
     {
-        $write_int8(i.rd, popByte());
+        int tmp_1 = popByte();
+        int tmp_2 = i.rd.value.value;
+        map_set(regs, tmp_2, tmp_1);
     }
 
 
     @Override
     public void visit(AVRInstr.PUSH i)
     {
-        pushByte($read_int8(i.rd));
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        pushByte(tmp_3);
     }
 
 
     @Override
     public void visit(AVRInstr.RCALL i)
     {
-        pushPC(nextpc);
-        nextpc = relative(i.target.value);
+        int tmp_0 = nextPC;
+        tmp_0 = tmp_0 / 2;
+        int tmp_2 = tmp_0 << 24 >> 24;
+        pushByte(tmp_2);
+        int tmp_4 = tmp_0 >> 8 << 24 >> 24;
+        pushByte(tmp_4);
+        int tmp_5 = i.target.value;
+        int tmp_6 = tmp_5 * 2 + nextPC;
+        nextPC = tmp_6;
     }
 
 
     @Override
     public void visit(AVRInstr.RET i)
     {
-        nextpc = popPC();
+        int tmp_0 = popByte();
+        int tmp_1 = popByte();
+        int tmp_5 = (tmp_0 << 8 | tmp_1 & 255) & 65535;
+        int tmp_2 = tmp_5 * 2;
+        nextPC = tmp_2;
     }
 
 
     @Override
     public void visit(AVRInstr.RETI i)
     {
-        nextpc = popPC();
+        int tmp_0 = popByte();
+        int tmp_1 = popByte();
+        int tmp_5 = (tmp_0 << 8 | tmp_1 & 255) & 65535;
+        int tmp_2 = tmp_5 * 2;
+        nextPC = tmp_2;
         enableInterrupts();
         justReturnedFromInterrupt = true;
     }
@@ -1120,37 +1607,105 @@ public abstract class AVRInstrInterpreter extends AVRState
     @Override
     public void visit(AVRInstr.RJMP i)
     {
-        nextpc = relative(i.target.value);
+        int tmp_0 = i.target.value;
+        int tmp_1 = tmp_0 * 2 + nextPC;
+        nextPC = tmp_1;
     }
 
 
     @Override
     public void visit(AVRInstr.ROL i)
     {
-        $write_int8(i.rd, performLeftShift($read_int8(i.rd) & 255, C));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        boolean tmp_7 = C;
+        int tmp_8 = tmp_6 << 1;
+        tmp_8 = bit_update(tmp_8, 1, b2i(tmp_7, 1));
+        H = bit_get(tmp_8, 4);
+        C = bit_get(tmp_8, 8);
+        N = bit_get(tmp_8, 7);
+        int tmp_10 = tmp_8 << 24 >> 24;
+        Z = tmp_10 == 0;
+        V = N != C;
+        S = N != V;
+        int tmp_13 = tmp_8 << 24 >> 24;
+        int tmp_14 = i.rd.value.value;
+        map_set(regs, tmp_14, tmp_13);
     }
 
 
     @Override
     public void visit(AVRInstr.ROR i)
     {
-        $write_int8(i.rd, performRightShift($read_int8(i.rd), C));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        boolean tmp_7 = C;
+        int tmp_8 = (tmp_6 & 255) >> 1;
+        tmp_8 = bit_update(tmp_8, 128, b2i(tmp_7, 128));
+        C = bit_get(tmp_6, 0);
+        N = tmp_7;
+        int tmp_10 = tmp_8 << 24 >> 24;
+        Z = tmp_10 == 0;
+        V = N != C;
+        S = N != V;
+        int tmp_13 = tmp_8 << 24 >> 24;
+        int tmp_14 = i.rd.value.value;
+        map_set(regs, tmp_14, tmp_13);
     }
 
 
     @Override
     public void visit(AVRInstr.SBC i)
     {
-        $write_int8(i.rd, performSubtractionPZ($read_int8(i.rd),
-                $read_int8(i.rr), bit(C)));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_10 = i.rr.value.value;
+        int tmp_11 = map_get(regs, tmp_10);
+        int tmp_12 = bit(C);
+        int tmp_13 = tmp_6 - tmp_11 - tmp_12;
+        boolean tmp_14 = bit_get(tmp_6, 7);
+        boolean tmp_15 = bit_get(tmp_11, 7);
+        boolean tmp_16 = bit_get(tmp_13, 7);
+        boolean tmp_17 = bit_get(tmp_6, 3);
+        boolean tmp_18 = bit_get(tmp_11, 3);
+        boolean tmp_19 = bit_get(tmp_13, 3);
+        H = !tmp_17 && tmp_18 || tmp_18 && tmp_19 || tmp_19 && !tmp_17;
+        C = !tmp_14 && tmp_15 || tmp_15 && tmp_16 || tmp_16 && !tmp_14;
+        N = tmp_16;
+        int tmp_21 = tmp_13 << 24 >> 24;
+        Z = tmp_21 == 0 && Z;
+        V = tmp_14 && !tmp_15 && !tmp_16 || !tmp_14 && tmp_15 && tmp_16;
+        S = N != V;
+        int tmp_24 = tmp_13 << 24 >> 24;
+        int tmp_25 = i.rd.value.value;
+        map_set(regs, tmp_25, tmp_24);
     }
 
 
     @Override
     public void visit(AVRInstr.SBCI i)
     {
-        $write_int8(i.rd,
-                performSubtractionPZ($read_int8(i.rd), i.imm.value, bit(C)));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_7 = i.imm.value;
+        int tmp_8 = bit(C);
+        int tmp_9 = tmp_6 - tmp_7 - tmp_8;
+        boolean tmp_10 = bit_get(tmp_6, 7);
+        boolean tmp_11 = bit_get(tmp_7, 7);
+        boolean tmp_12 = bit_get(tmp_9, 7);
+        boolean tmp_13 = bit_get(tmp_6, 3);
+        boolean tmp_14 = bit_get(tmp_7, 3);
+        boolean tmp_15 = bit_get(tmp_9, 3);
+        H = !tmp_13 && tmp_14 || tmp_14 && tmp_15 || tmp_15 && !tmp_13;
+        C = !tmp_10 && tmp_11 || tmp_11 && tmp_12 || tmp_12 && !tmp_10;
+        N = tmp_12;
+        int tmp_17 = tmp_9 << 24 >> 24;
+        Z = tmp_17 == 0 && Z;
+        V = tmp_10 && !tmp_11 && !tmp_12 || !tmp_10 && tmp_11 && tmp_12;
+        S = N != V;
+        int tmp_20 = tmp_9 << 24 >> 24;
+        int tmp_21 = i.rd.value.value;
+        map_set(regs, tmp_21, tmp_20);
     }
 
 
@@ -1184,30 +1739,51 @@ public abstract class AVRInstrInterpreter extends AVRState
     @Override
     public void visit(AVRInstr.SBIW i)
     {
-        int val = $read_uint16(i.rd);
-        int result = val - i.imm.value;
-        boolean Rdh7 = bit_get(val, 15);
+        int tmp_2 = i.rd.value.value;
+        int tmp_4 = map_get(regs, tmp_2);
+        int tmp_5 = map_get(regs, tmp_2 + 1);
+        int tmp_6 = (tmp_5 << 8 | tmp_4 & 255) & 65535;
+        int result = tmp_6 - i.imm.value;
+        boolean Rdh7 = bit_get(tmp_6, 15);
         boolean R15 = bit_get(result, 15);
         V = Rdh7 && !R15;
         N = R15;
         Z = (result & 65535) == 0;
         C = R15 && !Rdh7;
         S = N != V;
-        $write_uint16(i.rd, result);
+        int tmp_8 = result & 65535;
+        int tmp_9 = i.rd.value.value;
+        int tmp_12 = tmp_8 << 24 >> 24;
+        map_set(regs, tmp_9, tmp_12);
+        int tmp_14 = tmp_8 >> 8 << 24 >> 24;
+        map_set(regs, tmp_9 + 1, tmp_14);
     }
 
 
     @Override
     public void visit(AVRInstr.SBR i)
     {
-        $write_int8(i.rd, performOr($read_int8(i.rd), i.imm.value));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_7 = i.imm.value;
+        int tmp_8 = tmp_6 | tmp_7;
+        N = bit_get(tmp_8, 7);
+        int tmp_10 = tmp_8 << 24 >> 24;
+        Z = tmp_10 == 0;
+        V = false;
+        S = N != V;
+        int tmp_13 = tmp_8 << 24 >> 24;
+        int tmp_14 = i.rd.value.value;
+        map_set(regs, tmp_14, tmp_13);
     }
 
 
     @Override
     public void visit(AVRInstr.SBRC i)
     {
-        if (!bit_get($read_int8(i.rr), i.bit.value))
+        int tmp_2 = i.rr.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        if (!bit_get(tmp_3, i.bit.value))
         {
             skip();
         }
@@ -1217,7 +1793,9 @@ public abstract class AVRInstrInterpreter extends AVRState
     @Override
     public void visit(AVRInstr.SBRS i)
     {
-        if (bit_get($read_int8(i.rr), i.bit.value))
+        int tmp_2 = i.rr.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        if (bit_get(tmp_3, i.bit.value))
         {
             skip();
         }
@@ -1255,7 +1833,8 @@ public abstract class AVRInstrInterpreter extends AVRState
     @Override
     public void visit(AVRInstr.SER i)
     {
-        $write_int8(i.rd, low(255));
+        int tmp_4 = i.rd.value.value;
+        map_set(regs, tmp_4, -1);
     }
 
 
@@ -1304,50 +1883,102 @@ public abstract class AVRInstrInterpreter extends AVRState
     @Override
     public void visit(AVRInstr.STD i)
     {
-        map_set(sram, $read_uint16(i.ar) + i.imm.value, $read_int8(i.rr));
+        int tmp_2 = i.ar.value.value;
+        int tmp_4 = map_get(regs, tmp_2);
+        int tmp_5 = map_get(regs, tmp_2 + 1);
+        int tmp_6 = (tmp_5 << 8 | tmp_4 & 255) & 65535;
+        int tmp_9 = i.rr.value.value;
+        int tmp_10 = map_get(regs, tmp_9);
+        setDataByte(tmp_6 + i.imm.value, tmp_10);
     }
 
 
     @Override
     public void visit(AVRInstr.STS i)
     {
-        map_set(sram, i.addr.value, $read_int8(i.rr));
+        int tmp_2 = i.rr.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        setDataByte(i.addr.value, tmp_3);
     }
 
 
     @Override
     public void visit(AVRInstr.SUB i)
     {
-        $write_int8(i.rd,
-                performSubtraction($read_int8(i.rd), $read_int8(i.rr), 0));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_10 = i.rr.value.value;
+        int tmp_11 = map_get(regs, tmp_10);
+        int tmp_13 = tmp_6 - tmp_11 - 0;
+        boolean tmp_14 = bit_get(tmp_6, 7);
+        boolean tmp_15 = bit_get(tmp_11, 7);
+        boolean tmp_16 = bit_get(tmp_13, 7);
+        boolean tmp_17 = bit_get(tmp_6, 3);
+        boolean tmp_18 = bit_get(tmp_11, 3);
+        boolean tmp_19 = bit_get(tmp_13, 3);
+        H = !tmp_17 && tmp_18 || tmp_18 && tmp_19 || tmp_19 && !tmp_17;
+        C = !tmp_14 && tmp_15 || tmp_15 && tmp_16 || tmp_16 && !tmp_14;
+        N = tmp_16;
+        int tmp_21 = tmp_13 << 24 >> 24;
+        Z = tmp_21 == 0;
+        V = tmp_14 && !tmp_15 && !tmp_16 || !tmp_14 && tmp_15 && tmp_16;
+        S = N != V;
+        int tmp_24 = tmp_13 << 24 >> 24;
+        int tmp_25 = i.rd.value.value;
+        map_set(regs, tmp_25, tmp_24);
     }
 
 
     @Override
     public void visit(AVRInstr.SUBI i)
     {
-        $write_int8(i.rd, performSubtraction($read_int8(i.rd), i.imm.value, 0));
+        int tmp_5 = i.rd.value.value;
+        int tmp_6 = map_get(regs, tmp_5);
+        int tmp_7 = i.imm.value;
+        int tmp_9 = tmp_6 - tmp_7 - 0;
+        boolean tmp_10 = bit_get(tmp_6, 7);
+        boolean tmp_11 = bit_get(tmp_7, 7);
+        boolean tmp_12 = bit_get(tmp_9, 7);
+        boolean tmp_13 = bit_get(tmp_6, 3);
+        boolean tmp_14 = bit_get(tmp_7, 3);
+        boolean tmp_15 = bit_get(tmp_9, 3);
+        H = !tmp_13 && tmp_14 || tmp_14 && tmp_15 || tmp_15 && !tmp_13;
+        C = !tmp_10 && tmp_11 || tmp_11 && tmp_12 || tmp_12 && !tmp_10;
+        N = tmp_12;
+        int tmp_17 = tmp_9 << 24 >> 24;
+        Z = tmp_17 == 0;
+        V = tmp_10 && !tmp_11 && !tmp_12 || !tmp_10 && tmp_11 && tmp_12;
+        S = N != V;
+        int tmp_20 = tmp_9 << 24 >> 24;
+        int tmp_21 = i.rd.value.value;
+        map_set(regs, tmp_21, tmp_20);
     }
 
 
     @Override
     public void visit(AVRInstr.SWAP i)
     {
-        int val = $read_int8(i.rd) & 255;
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
+        int val = tmp_3 & 255;
         int result = 0;
-        result = bit_update(result, 15, val << 4 & 15);
-        result = bit_update(result, 240, val >> 4 & 240);
-        $write_int8(i.rd, low(result));
+        result = bit_update(0, 15, val >> 4 & 15);
+        result = bit_update(result, 240, val << 4 & 240);
+        int tmp_7 = result << 24 >> 24;
+        int tmp_8 = i.rd.value.value;
+        map_set(regs, tmp_8, tmp_7);
     }
 
 
     @Override
     public void visit(AVRInstr.TST i)
     {
-        int r1 = $read_int8(i.rd);
+        int tmp_2 = i.rd.value.value;
+        int tmp_3 = map_get(regs, tmp_2);
         V = false;
-        Z = low(r1) == 0;
-        N = bit_get(r1, 7);
+        int tmp_5 = tmp_3 << 24 >> 24;
+        Z = tmp_5 == 0;
+        N = bit_get(tmp_3, 7);
         S = N != V;
     }
 
@@ -1362,7 +1993,7 @@ public abstract class AVRInstrInterpreter extends AVRState
     public void visit(AVRInstr.ELPM i)
     {
         int addr = extended($read_poly_uint16(i.source));
-        $write_poly_int8(i.dest, map_get(flash, addr));
+        $write_poly_int8(i.dest, getFlashByte(addr));
     }
 
 
@@ -1370,7 +2001,7 @@ public abstract class AVRInstrInterpreter extends AVRState
     public void visit(AVRInstr.LPM i)
     {
         int addr = $read_poly_uint16(i.source);
-        $write_poly_int8(i.dest, map_get(flash, addr));
+        $write_poly_int8(i.dest, getFlashByte(addr));
     }
 
 
@@ -1378,7 +2009,7 @@ public abstract class AVRInstrInterpreter extends AVRState
     public void visit(AVRInstr.LD i)
     {
         int addr = $read_poly_uint16(i.ar);
-        $write_poly_int8(i.rd, map_get(sram, addr));
+        $write_poly_int8(i.rd, getDataByte(addr));
     }
 
 
@@ -1387,6 +2018,6 @@ public abstract class AVRInstrInterpreter extends AVRState
     {
         int addr = $read_poly_uint16(i.ar);
         int val = $read_poly_int8(i.rd);
-        map_set(sram, addr, val);
+        setDataByte(addr, val);
     }
 }
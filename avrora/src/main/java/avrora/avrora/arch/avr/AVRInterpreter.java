@@ -34,303 +34,1449 @@
 
 package avrora.avrora.arch.avr;
 
-import avrora.avrora.arch.AbstractInstr;
+import java.util.Arrays;
+
+import avrora.avrora.arch.legacy.LegacyEncoder;
+import avrora.avrora.arch.legacy.LegacyInstr;
 import avrora.avrora.core.Program;
-import avrora.avrora.sim.ActiveRegister;
-import avrora.avrora.sim.RWRegister;
+import avrora.avrora.sim.Interpreter;
+import avrora.avrora.sim.InterpreterError;
+import avrora.avrora.sim.InterpreterFactory;
 import avrora.avrora.sim.Simulator;
-import avrora.avrora.sim.clock.MainClock;
-import avrora.avrora.sim.mcu.RegisterSet;
+import avrora.avrora.sim.State;
+import avrora.avrora.sim.mcu.MCUProperties;
 import avrora.cck.util.Arithmetic;
-import avrora.cck.util.Util;
 
 /**
+ * The <code>AVRInterpreter</code> class executes programs with the code that
+ * jIntGen generated from the architecture description in
+ * <code>AVRInstrInterpreter</code>. It keeps the state of the machine in the
+ * <code>AtmelInterpreter</code> base class, so that it runs on the same
+ * microcontrollers and devices as the legacy interpreter.
+ * <p>
+ * The program is executed from a table of <code>AVRInstr</code> objects that
+ * parallels the flash memory. An entry of the table is built on the first
+ * execution of its address by encoding the legacy instruction stored in the
+ * flash into machine code and decoding it with the
+ * <code>AVRDisassembler</code>. Entries are discarded when the code segment
+ * changes the instruction at their address, and when probes are inserted or
+ * removed there, in which case the instruction is wrapped so that it fires its
+ * probes.
+ * <p>
+ * Like the legacy interpreter, this interpreter is a
+ * <code>LegacyInstrVisitor</code>: a legacy instruction that it visits is
+ * translated in the same way and executed at the current program counter.
+ *
  * @author Ben L. Titzer
  */
 public class AVRInterpreter extends AVRInstrInterpreter
 {
 
-    // =============================================================
-    // C O N S T A N T S F O R S T A T U S R E G I S T E R
-    // =============================================================
-    public static final int SREG_I = 7;
-    public static final int SREG_T = 6;
-    public static final int SREG_H = 5;
-    public static final int SREG_S = 4;
-    public static final int SREG_V = 3;
-    public static final int SREG_N = 2;
-    public static final int SREG_Z = 1;
-    public static final int SREG_C = 0;
-
-    private static final int SREG_I_MASK = 1 << SREG_I;
-    private static final int SREG_T_MASK = 1 << SREG_T;
-    private static final int SREG_H_MASK = 1 << SREG_H;
-    private static final int SREG_S_MASK = 1 << SREG_S;
-    private static final int SREG_V_MASK = 1 << SREG_V;
-    private static final int SREG_N_MASK = 1 << SREG_N;
-    private static final int SREG_Z_MASK = 1 << SREG_Z;
-    private static final int SREG_C_MASK = 1;
-
-    private class SREG_reg implements ActiveRegister
-    {
-
-        /**
-         * The <code>read()</code> method reads the 8-bit value of the IO
-         * register as a byte. For simple <code>RWIOReg</code> instances, this
-         * simply returns the internally stored value.
-         *
-         * @return the value of the register as a byte
-         */
+    public static final Factory FACTORY = new Factory();
+
+    public static class Factory extends InterpreterFactory
+    {
         @Override
-        public byte read()
+        public Interpreter newInterpreter(Simulator s, Program p,
+                MCUProperties pr)
         {
-            int value = 0;
-            if (I)
-                value |= SREG_I_MASK;
-            if (T)
-                value |= SREG_T_MASK;
-            if (H)
-                value |= SREG_H_MASK;
-            if (S)
-                value |= SREG_S_MASK;
-            if (V)
-                value |= SREG_V_MASK;
-            if (N)
-                value |= SREG_N_MASK;
-            if (Z)
-                value |= SREG_Z_MASK;
-            if (C)
-                value |= SREG_C_MASK;
-            return (byte) value;
+            return new AVRInterpreter(s, p, (AVRProperties) pr);
         }
+    }
 
+    protected final transient AVRInstr[] avr_instr;
+    protected final transient Simulator.Probe[][] avr_probes;
 
-        /**
-         * The <code>write()</code> method writes an 8-bit value to the IO
-         * register as a byte. For simple <code>RWIOReg</code> instances, this
-         * simply writes the internally stored value.
-         *
-         * @param val
-         *            the value to write
-         */
-        @Override
-        public void write(byte val)
+    private final transient LegacyEncoder encoder;
+    private final transient AVRDisassembler disassembler;
+    private final transient byte[] buffer;
+
+
+    /**
+     * The constructor for the <code>AVRInterpreter</code> class builds the
+     * internal data structures needed to store the complete state of the
+     * machine and creates an empty instruction table for the flash.
+     *
+     * @param s
+     *            The simulator attached to this interpreter
+     * @param p
+     *            the program to construct the state for
+     * @param pr
+     *            the properties of the microcontroller being simulated
+     */
+    protected AVRInterpreter(Simulator s, Program p, AVRProperties pr)
+    {
+        super(s, p, pr);
+        int size = shared_instr.length;
+        avr_instr = new AVRInstr[size];
+        avr_probes = new Simulator.Probe[size][];
+        encoder = new LegacyEncoder();
+        disassembler = new AVRDisassembler();
+        buffer = new byte[4];
+    }
+
+
+    @Override
+    protected void runLoop()
+    {
+
+        pc = bootPC;
+        nextPC = pc;
+        cyclesConsumed = 0;
+
+        while (shouldRun)
         {
-            if ((val & SREG_I_MASK) != 0)
-                enableInterrupts();
+            if (delayCycles > 0)
+                delayLoop();
+
+            if (justActivatedInterrupts)
+            {
+                // If interrupts were just activated, we need to suppress
+                // processing any pending interrupts by one instruction.
+                step();
+                continue;
+            }
+
+            if (I)
+            {
+                // check if there are any pending (posted) interrupts
+                long pendingInterrupts = interrupts.getPendingInterrupts();
+                if (pendingInterrupts != 0)
+                {
+                    invokeInterrupt(pendingInterrupts);
+                }
+            }
+
+            // an event may have stopped the node during the delay or interrupt
+            if (!shouldRun)
+                break;
+
+            if (sleeping)
+                sleepLoop();
             else
-                disableInterrupts();
-            T = (val & SREG_T_MASK) != 0;
-            H = (val & SREG_H_MASK) != 0;
-            S = (val & SREG_S_MASK) != 0;
-            V = (val & SREG_V_MASK) != 0;
-            N = (val & SREG_N_MASK) != 0;
-            Z = (val & SREG_Z_MASK) != 0;
-            C = (val & SREG_C_MASK) != 0;
+            {
+                if (globalProbe.isEmpty())
+                    fastLoop();
+                else
+                    instrumentedLoop();
+            }
+        }
+    }
+
+
+    @Override
+    public int step()
+    {
+        nextPC = pc;
+
+        // process any delays
+        if (delayCycles > 0)
+        {
+            advanceClock(1);
+            delayCycles--;
+            return 1;
+        }
+
+        // handle any interrupts
+        if (justActivatedInterrupts)
+        {
+            // don't process interrupts if we just activated them, because
+            // the hardware manual says that at least one instruction is
+            // executed after activating interrupts.
+            justActivatedInterrupts = false;
+        } else if (I)
+        {
+
+            // check if there are any pending (posted) interrupts
+            long pendingInterrupts = interrupts.getPendingInterrupts();
+            if (pendingInterrupts != 0)
+            {
+                return stepInterrupt(pendingInterrupts);
+            }
+        }
+
+        // are we sleeping?
+        if (sleeping)
+        {
+            advanceClock(1);
+            return 1;
+        }
+
+        return stepInstruction();
+    }
+
+
+    private int stepInstruction()
+    {
+        int curPC = nextPC; // at this point pc == nextPC
+        AVRInstr i = avr_instr[curPC];
+        if (i == null)
+            i = decode(curPC);
+        nextPC = curPC + i.size;
+        cyclesConsumed += i.cycles;
+
+        int cycles;
+        // global probes?
+        if (globalProbe.isEmpty())
+        {
+            i.accept(this);
+            cycles = cyclesConsumed;
+            commit();
+        } else
+        {
+            globalProbe.fireBefore(state, curPC);
+            i.accept(this);
+            cycles = cyclesConsumed;
+            commit();
+            globalProbe.fireAfter(state, curPC);
+        }
+        return cycles;
+    }
+
+
+    private int stepInterrupt(long pendingInterrupts)
+    {
+        // the lowest set bit is the highest priority posted interrupt
+        int inum = Arithmetic.lowestBit(pendingInterrupts);
+
+        // fire the interrupt (update flag register(s) state)
+        interrupts.beforeInvoke(inum);
+
+        // store the return address
+        pushPC(nextPC);
+
+        // set PC to interrupt handler
+        nextPC = getInterruptVectorAddress(inum);
+        pc = nextPC;
+
+        // disable interrupts
+        I = false;
+
+        // advance by just one cycle
+        advanceClock(1);
+
+        int cycles = 3; // there are some cycles left-over to delay by
+        // time to wake up
+        if (sleeping)
+        {
+            cycles += simulator.getMicrocontroller().wakeup();
+            sleeping = false;
+            innerLoop = false;
+        }
+
+        delay(cycles);
+
+        return 1;
+    }
+
+
+    private void invokeInterrupt(long pendingInterrupts)
+    {
+        // the lowest set bit is the highest priority posted interrupt
+        int lowestbit = Arithmetic.lowestBit(pendingInterrupts);
+
+        // fire the interrupt (update flag register(s) state)
+        interrupts.beforeInvoke(lowestbit);
+
+        // time to wake up
+        if (sleeping)
+            leaveSleepMode();
+
+        // store the return address
+        pushPC(nextPC);
+
+        // set PC to interrupt handler
+        nextPC = getInterruptVectorAddress(lowestbit);
+        pc = nextPC;
+
+        // disable interrupts
+        I = false;
+
+        // process any timed events
+        advanceClock(4);
+
+        interrupts.afterInvoke(lowestbit);
+    }
+
+
+    private void delayLoop()
+    {
+        // advance one event at a time, so that stopping the node does not
+        // have to wait for the end of a long delay
+        while (delayCycles > 0 && shouldRun)
+        {
+            long delta = clock.getFirstEventDelta();
+            long cycles = delta < 0 || delta > delayCycles ? delayCycles
+                    : Math.max(delta, 1);
+            delayCycles -= cycles;
+            advanceClock(cycles);
         }
+    }
+
+
+    private void sleepLoop()
+    {
+        innerLoop = true;
+        while (innerLoop)
+        {
+            clock.skipAhead();
+        }
+    }
+
 
+    protected void fastLoop()
+    {
+        AVRInstr[] code = avr_instr;
+        innerLoop = true;
+        while (innerLoop)
+        {
+            int curPC = nextPC; // at this point pc == nextPC
+            AVRInstr i = code[curPC];
+            if (i == null)
+                i = decode(curPC);
+            nextPC = curPC + i.size;
+            cyclesConsumed += i.cycles;
+
+            // visit the actual instruction (or probe)
+            i.accept(this);
+            // NOTE: commit() might be called twice, but this is ok
+            commit();
+        }
     }
 
-    protected int RAMPZ; // location of the RAMPZ IO register
-    protected final MainClock clock;
-    protected final RegisterSet registers;
-    protected final AVRInstr[] shared_instr;
-    protected final RWRegister SPL_reg;
-    protected final RWRegister SPH_reg;
-    protected boolean innerLoop;
-    protected boolean shouldRun;
-    protected boolean sleeping;
+
+    private void instrumentedLoop()
+    {
+        innerLoop = true;
+        while (innerLoop)
+        {
+            int curPC = nextPC; // at this point pc == nextPC
+            AVRInstr i = avr_instr[curPC];
+            if (i == null)
+                i = decode(curPC);
+            nextPC = curPC + i.size;
+            cyclesConsumed += i.cycles;
+
+            // visit the actual instruction (or probe)
+            globalProbe.fireBefore(state, curPC);
+            i.accept(this);
+            commit();
+            globalProbe.fireAfter(state, curPC);
+        }
+    }
 
 
     /**
-     * The constructor for the <code>AVRInterpreter</code> class creates a new
-     * interpreter and initializes all of the state. This includes allocating
-     * memory and segments to represent the SRAM, flash, interrupt table, IO
-     * registers, etc.
+     * The <code>decode()</code> method builds the entry of the instruction
+     * table for the specified address. It encodes the instruction in the flash
+     * into machine code and decodes the machine code into an
+     * <code>AVRInstr</code>, which carries its size and its number of cycles.
+     *
+     * @param address
+     *            the byte address of the instruction
+     * @return the instruction to execute at the specified address
      */
-    public AVRInterpreter(Simulator simulator, Program p, AVRProperties pr)
+    protected AVRInstr decode(int address)
     {
-        // this class and its methods are performance critical
-        // observed speedup with this call on Hotspot
-        Compiler.compileClass(this.getClass());
+        LegacyInstr li = getInstr(address);
+        AVRInstr i = null;
+        if (li != null)
+        {
+            encoder.encode(li, buffer, 0);
+            i = disassembler.decode(address, 0, buffer);
+        }
+        if (i == null)
+            throw new InterpreterError.NoSuchInstructionException(address);
+
+        Simulator.Probe[] probes = avr_probes[address];
+        if (probes != null)
+            i = new ProbedAVRInstr(i, address, probes);
+        avr_instr[address] = i;
+        return i;
+    }
 
-        // set up the reference to the simulator
-        this.simulator = simulator;
 
-        // set up reference to the main clock
-        this.clock = simulator.getClock();
+    /**
+     * The <code>execute()</code> method executes a legacy instruction at the
+     * current program counter, as the visit methods of the legacy interpreter
+     * do. The instruction is encoded into machine code and decoded into an
+     * <code>AVRInstr</code>, which is then executed by the generated code.
+     *
+     * @param li
+     *            the legacy instruction to execute
+     */
+    protected void execute(LegacyInstr li)
+    {
+        encoder.encode(li, buffer, 0);
+        AVRInstr i = disassembler.decode(pc, 0, buffer);
+        if (i == null)
+            throw new InterpreterError.NoSuchInstructionException(pc);
+        nextPC = pc + i.size;
+        cyclesConsumed += i.cycles;
+        i.accept(this);
+    }
 
-        // get the number of the status register
-        SREG = pr.getIOReg("SREG");
+    // the methods of LegacyInstrVisitor execute the visited instruction
 
-        // look for the RAMPZ register
-        if (pr.hasIOReg("RAMPZ"))
-            RAMPZ = pr.getIOReg("RAMPZ");
-        else
-            RAMPZ = -1;
 
-        // if program will not fit onto hardware, error
-        if (p.program_end > pr.flash_size)
-            throw Util.failure(
-                    "program will not fit into " + pr.flash_size + " bytes");
+    @Override
+    public void visit(LegacyInstr.ADC i)
+    {
+        execute(i);
+    }
 
-        // initialize IO register set to default values
-        registers = simulator.getMicrocontroller().getRegisterSet();
 
-        // get a reference to the ioregs array
-        ioregs = registers.share();
+    @Override
+    public void visit(LegacyInstr.ADD i)
+    {
+        execute(i);
+    }
 
-        // compute the total size of SRAM
-        int sram_total = NUM_REGS + pr.ioreg_size + pr.sram_size;
 
-        // allocate SRAM
-        sram = new AVRDataSegment(sram_total, ioregs, this);
+    @Override
+    public void visit(LegacyInstr.ADIW i)
+    {
+        execute(i);
+    }
 
-        // set reference to registers
-        regs = sram.exposeRegisters();
 
-        // allocate the status register
-        SREG_reg = ioregs[SREG] = new SREG_reg();
+    @Override
+    public void visit(LegacyInstr.AND i)
+    {
+        execute(i);
+    }
 
-        // get references to stack pointer registers
-        SPL_reg = (RWRegister) ioregs[pr.getIOReg("SPL")];
-        SPH_reg = (RWRegister) ioregs[pr.getIOReg("SPH")];
 
-        // TODO: 1. allocate code space (flash)
-        // TODO: 2. set up correct error reporter for SRAM, flash
-        // TODO: 3. share instr array correctly (for performance)
-        // TODO: 4. allocate interrupt table
-        // allocate FLASH
-        // Segment.ErrorReporter reporter = new Segment.ErrorReporter();
-        // flash = props.codeSegmentFactory.newCodeSegment("flash", this,
-        // reporter, p);
-        // reporter.segment = flash;
-        // for performance, we share a reference to the LegacyInstr[] array
-        // representing flash
-        // shared_instr = flash.shareCode(null);
-        // initialize the interrupt table
-        // interrupts = new InterruptTable(this, props.num_interrupts);
-        shared_instr = null;
+    @Override
+    public void visit(LegacyInstr.ANDI i)
+    {
+        execute(i);
     }
 
 
     @Override
-    public int getSP()
+    public void visit(LegacyInstr.ASR i)
     {
-        byte low = SPL_reg.value;
-        byte high = SPH_reg.value;
-        return Arithmetic.uword(low, high);
+        execute(i);
     }
 
 
     @Override
-    public AbstractInstr getInstr(int address)
+    public void visit(LegacyInstr.BCLR i)
     {
-        throw Util.unimplemented();
+        execute(i);
     }
 
 
-    protected void setSP(int val)
+    @Override
+    public void visit(LegacyInstr.BLD i)
     {
-        SPL_reg.value = (Arithmetic.low(val));
-        SPH_reg.value = (Arithmetic.high(val));
+        execute(i);
     }
 
 
     @Override
-    protected int popByte()
+    public void visit(LegacyInstr.BRBC i)
     {
-        int address = getSP() + 1;
-        setSP(address);
-        return sram.read(address);
+        execute(i);
     }
 
 
     @Override
-    protected void pushByte(int val)
+    public void visit(LegacyInstr.BRBS i)
     {
-        int address = getSP();
-        setSP(address - 1);
-        sram.write(address, (byte) val);
+        execute(i);
     }
 
 
     @Override
-    protected int extended(int addr)
+    public void visit(LegacyInstr.BRCC i)
     {
-        if (RAMPZ > 0)
-            return (ioregs[RAMPZ].read() & 1) << 16 | addr;
-        else
-            return addr;
+        execute(i);
     }
 
 
     @Override
-    protected void enableInterrupts()
+    public void visit(LegacyInstr.BRCS i)
     {
-        I = true;
-        interrupts.enableAll();
+        execute(i);
     }
 
 
     @Override
-    protected void disableInterrupts()
+    public void visit(LegacyInstr.BREAK i)
     {
-        I = true;
-        interrupts.disableAll();
+        execute(i);
     }
 
 
     @Override
-    protected void enterSleepMode()
+    public void visit(LegacyInstr.BREQ i)
     {
-        sleeping = true;
-        innerLoop = false;
-        simulator.getMicrocontroller().sleep();
+        execute(i);
     }
 
 
     @Override
-    protected void storeProgramMemory()
+    public void visit(LegacyInstr.BRGE i)
     {
-        flash.update();
+        execute(i);
     }
 
 
     @Override
-    protected void stop()
+    public void visit(LegacyInstr.BRHC i)
     {
-        shouldRun = false;
-        innerLoop = false;
+        execute(i);
     }
 
 
     @Override
-    protected void skip()
+    public void visit(LegacyInstr.BRHS i)
     {
-        AVRInstr i = null;
-        int size = i.getSize(); // yeah .. this will most definitely fail.
-                                // probably dead code?
-        if (size == 2)
-            cycles += 1;
-        else
-            cycles += 2;
-        nextpc += size;
+        execute(i);
     }
 
 
     @Override
-    protected boolean getIORbit(int ior, int bit)
+    public void visit(LegacyInstr.BRID i)
     {
-        return Arithmetic.getBit(ioregs[ior].read(), bit);
+        execute(i);
     }
 
 
     @Override
-    protected void setIORbit(int ior, int bit, boolean v)
+    public void visit(LegacyInstr.BRIE i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRLO i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRLT i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRMI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRNE i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRPL i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRSH i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRTC i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRTS i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRVC i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRVS i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BSET i)
     {
-        byte val = ioregs[ior].read();
-        ioregs[ior].write(Arithmetic.setBit(val, bit, v));
+        execute(i);
     }
 
+
+    @Override
+    public void visit(LegacyInstr.BST i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CALL i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CBI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CBR i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLC i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLH i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLN i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLR i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLS i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLT i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLV i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLZ i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.COM i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CP i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CPC i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CPI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CPSE i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.DEC i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.EICALL i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.EIJMP i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ELPM i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ELPMD i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ELPMPI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.EOR i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.FMUL i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.FMULS i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.FMULSU i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ICALL i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.IJMP i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.IN i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.INC i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.JMP i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LD i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LDD i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LDI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LDPD i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LDPI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LDS i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LPM i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LPMD i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LPMPI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LSL i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LSR i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.MOV i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.MOVW i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.MUL i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.MULS i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.MULSU i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.NEG i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.NOP i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.OR i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ORI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.OUT i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.POP i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.PUSH i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.RCALL i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.RET i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.RETI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.RJMP i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ROL i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ROR i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBC i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBCI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBIC i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBIS i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBIW i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBR i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBRC i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBRS i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SEC i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SEH i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SEI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SEN i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SER i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SES i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SET i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SEV i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SEZ i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SLEEP i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SPM i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ST i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.STD i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.STPD i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.STPI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.STS i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SUB i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SUBI i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SWAP i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.TST i)
+    {
+        execute(i);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.WDR i)
+    {
+        execute(i);
+    }
+
+
+    /**
+     * The <code>update()</code> method is called by the code segment when the
+     * array of instructions is replaced. All entries of the instruction table
+     * are built again from the new array.
+     *
+     * @param segment
+     *            the new array of instructions
+     */
+    @Override
+    public void update(LegacyInstr[] segment)
+    {
+        super.update(segment);
+        Arrays.fill(avr_instr, null);
+    }
+
+
+    /**
+     * The <code>invalidate()</code> method is called by the code segment when
+     * the instruction at the given address is replaced. The entry of the
+     * instruction table is built again when it is next executed.
+     *
+     * @param address
+     *            the address of the instruction that changed
+     */
+    @Override
+    public void invalidate(int address)
+    {
+        avr_instr[address] = null;
+    }
+
+
+    /**
+     * The <code>insertProbe()</code> method is used internally to insert a
+     * probe on a particular instruction. The probe is recorded in this
+     * interpreter rather than in the code segment, which stays shared.
+     *
+     * @param p
+     *            the probe to insert on an instruction
+     * @param addr
+     *            the address of the instruction on which to insert the probe
+     */
+    @Override
+    protected void insertProbe(Simulator.Probe p, int addr)
+    {
+        Simulator.Probe[] probes = avr_probes[addr];
+        if (probes == null)
+            probes = new Simulator.Probe[] { p };
+        else
+        {
+            probes = Arrays.copyOf(probes, probes.length + 1);
+            probes[probes.length - 1] = p;
+        }
+        avr_probes[addr] = probes;
+        avr_instr[addr] = null;
+    }
+
+
+    @Override
+    protected void insertProbe(Simulator.Probe p, int[] addrs)
+    {
+        for (int addr : addrs)
+            insertProbe(p, addr);
+    }
+
+
+    /**
+     * The <code>removeProbe()</code> method is used internally to remove a
+     * probe from a particular instruction.
+     *
+     * @param p
+     *            the probe to remove from an instruction
+     * @param addr
+     *            the address of the instruction from which to remove the probe
+     */
+    @Override
+    protected void removeProbe(Simulator.Probe p, int addr)
+    {
+        Simulator.Probe[] probes = avr_probes[addr];
+        if (probes == null)
+            return;
+        Simulator.Probe[] n = new Simulator.Probe[probes.length];
+        int size = 0;
+        for (Simulator.Probe q : probes)
+        {
+            if (q != p)
+                n[size++] = q;
+        }
+        if (size == probes.length)
+            return;
+        avr_probes[addr] = size == 0 ? null : Arrays.copyOf(n, size);
+        avr_instr[addr] = null;
+    }
+
+
+    @Override
+    protected void removeProbe(Simulator.Probe p, int[] addrs)
+    {
+        for (int addr : addrs)
+            removeProbe(p, addr);
+    }
+
+
+    /**
+     * The <code>ProbedAVRInstr</code> class wraps an instruction of the
+     * instruction table that has probes attached to it. The array of probes is
+     * replaced, rather than changed, when a probe is inserted or removed, so
+     * that probes can remove themselves while they fire.
+     */
+    protected class ProbedAVRInstr extends AVRInstr
+    {
+
+        protected final AVRInstr instr;
+        protected final int address;
+        protected final Simulator.Probe[] probes;
+
+
+        protected ProbedAVRInstr(AVRInstr i, int a, Simulator.Probe[] p)
+        {
+            super(i.name, i.size, i.cycles);
+            instr = i;
+            address = a;
+            probes = p;
+        }
+
+
+        @Override
+        public void accept(AVRInstrVisitor v)
+        {
+            State s = state;
+            Simulator.Probe[] ps = probes;
+            for (Simulator.Probe p : ps)
+                p.fireBefore(s, address);
+            instr.accept(v);
+            commit();
+            for (Simulator.Probe p : ps)
+                p.fireAfter(s, address);
+        }
+
+
+        @Override
+        public String toString()
+        {
+            return instr.toString();
+        }
+    }
+
+
+    @Override
+    protected void pushByte(int b)
+    {
+        pushByte((byte) b);
+    }
+
+
+    @Override
+    protected int extended(int addr)
+    {
+        if (RAMPZ > 0)
+            return (getIORegisterByte(RAMPZ) & 1) << 16 | addr;
+        else
+            return addr;
+    }
+
+
+    @Override
+    protected void enterSleepMode()
+    {
+        sleeping = true;
+        innerLoop = false;
+        simulator.getMicrocontroller().sleep();
+    }
+
+
+    protected void leaveSleepMode()
+    {
+        sleeping = false;
+        innerLoop = false;
+        advanceClock(simulator.getMicrocontroller().wakeup());
+    }
+
+
+    @Override
+    protected void skip()
+    {
+        AVRInstr next = avr_instr[nextPC];
+        int size = next != null ? next.size : getInstrSize(nextPC);
+        nextPC = nextPC + size;
+        if (size == 4)
+            cyclesConsumed = cyclesConsumed + 2;
+        else
+            cyclesConsumed = cyclesConsumed + 1;
+    }
+
+
+    @Override
+    protected boolean getIORbit(int ior, int bit)
+    {
+        return getIORegBit(ior, bit);
+    }
+
+
+    @Override
+    protected void setIORbit(int ior, int bit, boolean v)
+    {
+        setIORegBit(ior, bit, v);
+    }
 }
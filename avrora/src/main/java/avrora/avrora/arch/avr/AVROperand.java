@@ -424,8 +424,8 @@ public abstract class AVROperand
     public static class LREL extends Int
     {
 
-        public static final int low = -1024;
-        public static final int high = 1023;
+        public static final int low = -2048;
+        public static final int high = 2047;
 
 
         LREL(int val)
@@ -445,7 +445,7 @@ public abstract class AVROperand
     {
 
         public static final int low = 0;
-        public static final int high = 65536;
+        public static final int high = 4194303;
 
 
         PADDR(int val)
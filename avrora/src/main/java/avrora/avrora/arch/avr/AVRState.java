@@ -34,136 +34,36 @@
 
 package avrora.avrora.arch.avr;
 
-import avrora.avrora.sim.ActiveRegister;
-import avrora.avrora.sim.CodeSegment;
-import avrora.avrora.sim.InterruptTable;
-import avrora.avrora.sim.Segment;
+import avrora.avrora.core.Program;
+import avrora.avrora.sim.AtmelInterpreter;
 import avrora.avrora.sim.Simulator;
-import avrora.avrora.sim.State;
-import avrora.avrora.sim.clock.DeltaQueue;
 
 /**
  * The <code>AVRState</code> class represents an instance of the internal state
- * of an <code>AVRInstrInterpreter</code> instance. This class allows access to
- * the state of the interpreter without exposing the details of the
- * implementation or jeopardizing the soundness of the simulation.
+ * of an <code>AVRInstrInterpreter</code> instance. The state of the registers,
+ * memory, the code segment and the IO registers is kept by the
+ * <code>AtmelInterpreter</code> base class, so that devices and monitors can
+ * access the generated interpreter in the same way as the legacy interpreter.
  * <p/>
  * </p>
- * An <code>AVRState</code> instance contains the state of registers, memory,
- * the code segment, and the IO registers, as well as the interrupt table and
- * <code>MainClock</code> instance. It provides a public interface through the
- * <code>get_XXX()</code> methods and a protected interface used in
+ * This class adds the protected interface used in
  * <code>AVRInstrInterpreter</code> that allows direct access to the fields
- * representing the actual state.
+ * representing the actual state, such as the register file.
  *
  * @author Ben L. Titzer
  */
-public abstract class AVRState implements State
+public abstract class AVRState extends AtmelInterpreter
 {
 
-    public static int NUM_REGS = 32;
-
-    protected Simulator simulator;
-
-    protected InterruptTable interrupts;
-
-    protected int pc;
-    protected int nextpc;
-    protected boolean I, T, H, V, S, N, Z, C;
-    protected AVRDataSegment sram;
-    protected byte[] regs;
-    protected CodeSegment flash;
-    protected ActiveRegister[] ioregs;
-    protected DeltaQueue queue;
-    protected ActiveRegister SREG_reg;
-    protected int SREG;
-    protected int cycles;
+    protected final byte[] regs;
     protected boolean justReturnedFromInterrupt;
 
 
-    /**
-     * The <code>getPC()</code> retrieves the current program counter.
-     *
-     * @return the program counter as a byte address
-     */
-    @Override
-    public int getPC()
-    {
-        return pc;
-    }
-
-
-    /**
-     * The <code>getSP()</code> method reads the current value of the stack
-     * pointer. Since the stack pointer is stored in two IO registers, this
-     * method will cause the invocation of the <code>.read()</code> method on
-     * each of the <code>IOReg</code> objects that store these values.
-     *
-     * @return the value of the stack pointer as a byte address
-     */
-    @Override
-    public abstract int getSP();
-
-
-    /**
-     * The <code>getSRAM()</code> method reads a byte value from the data memory
-     * (SRAM) at the specified address. This method is intended for use by
-     * probes and watches; thus, it does not trigger any watches that may be
-     * installed at the memory address specified, since doing so could lead to
-     * infinite recursion (if a watch attempts to get the value of the byte at
-     * the location where it itself is installed) or alter the metrics being
-     * measured by the instrumentation at that address.
-     *
-     * @param address
-     *            the byte address to read
-     * @return the value of the data memory at the specified address
-     * @throws ArrayIndexOutOfBoundsException
-     *             if the specified address is not the valid memory range
-     */
-    public byte getSRAM(int address)
-    {
-        return sram.get(address);
-    }
-
-
-    /**
-     * The <code>getFlash()</code> method reads a byte value from the program
-     * (Flash) memory. The flash memory generally stores read-only values and
-     * the instructions of the program. This method is intended for use by
-     * probes and watches; thus, it does not trigger any watches or probes that
-     * may be installed at the memory address specified, since doing so could
-     * lead to infinite recursion (if a watch attempts to get the value of the
-     * byte at the location where it itself is installed) or alter the metrics
-     * being measured by the instrumentation at that address.
-     *
-     * @param address
-     *            the byte address at which to read
-     * @return the byte value of the program memory at the specified address
-     * @throws ArrayIndexOutOfBoundsException
-     *             if the specified address is not the valid program memory
-     *             range
-     */
-    public byte getFlash(int address)
-    {
-        return flash.get(address);
-    }
-
-
-    /**
-     * The <code>getIOReg()</code> method reads the value of an IO register as a
-     * byte. Invocation of this method causes an invocation of the
-     * <code>.read()</code> method on the corresponding internal
-     * <code>IOReg</code> object, and its value returned. Very few devices have
-     * behavior that is triggered by a read from an IO register, but care should
-     * be taken when calling this method for one of those IO registers.
-     *
-     * @param ior
-     *            the IO register number
-     * @return the value of the IO register
-     */
-    public byte getIOReg(int ior)
+    protected AVRState(Simulator s, Program p, AVRProperties pr)
     {
-        return ioregs[ior].read();
+        super(s, p, pr);
+        // the general purpose registers are the first bytes of the SRAM
+        regs = sram;
     }
 
 
@@ -181,32 +81,6 @@ public abstract class AVRState implements State
     }
 
 
-    /**
-     * The <code>getCycles()</code> method returns the clock cycle count
-     * recorded so far in the simulation.
-     *
-     * @return the number of clock cycles elapsed in the simulation
-     */
-    @Override
-    public long getCycles()
-    {
-        return queue.getCount();
-    }
-
-
-    /**
-     * The <code>getSREG()</code> method reads the value of the status register.
-     * The status register contains the I, T, H, S, V, N, Z, and C flags, in
-     * order from highest-order to lowest-order.
-     *
-     * @return the value of the status register as a byte.
-     */
-    public byte getSREG()
-    {
-        return SREG_reg.read();
-    }
-
-
     /**
      * The <code>isEnabled()</code> method checks whether the specified
      * interrupt is currently enabled.
@@ -253,50 +127,62 @@ public abstract class AVRState implements State
 
 
     /**
-     * The <code>getSimulator()</code> method returns the simulator associated
-     * with this state instance.
+     * The <code>setDataByte()</code> method writes a value to the data memory
+     * of the microcontroller. The generated interpreter computes bytes as
+     * integers, so this method truncates the value before it is written.
      *
-     * @return a reference to the simulator associated with this state instance.
+     * @param address
+     *            the address to write
+     * @param val
+     *            the value to write to the address
      */
-    @Override
-    public Simulator getSimulator()
+    protected void setDataByte(int address, int val)
     {
-        return simulator;
+        writeDataByte(address, (byte) val);
     }
 
 
-    protected static int map_get(byte[] a, int indx)
+    /**
+     * The <code>setIORegisterByte()</code> method writes a value to the
+     * specified IO register, truncating the value to a byte.
+     *
+     * @param ioreg
+     *            the IO register number to write
+     * @param val
+     *            the value to write to the IO register
+     */
+    protected void setIORegisterByte(int ioreg, int val)
     {
-        return a[indx];
+        writeIORegisterByte(ioreg, (byte) val);
     }
 
 
-    protected static void map_set(byte[] a, int indx, int val)
-    {
-        a[indx] = (byte) val;
-    }
+    protected abstract void pushByte(int b);
 
 
-    protected static int map_get(Segment s, int addr)
-    {
-        return s.read(addr);
-    }
+    protected abstract int extended(int addr);
 
 
-    protected static void map_set(Segment s, int addr, int val)
-    {
-        s.write(addr, (byte) val);
-    }
+    protected abstract void enterSleepMode();
+
 
+    protected abstract void skip();
 
-    protected static int map_get(ActiveRegister[] s, int addr)
+
+    protected abstract boolean getIORbit(int ior, int bit);
+
+
+    protected abstract void setIORbit(int ior, int bit, boolean v);
+
+
+    protected static int map_get(byte[] a, int indx)
     {
-        return s[addr].read();
+        return a[indx];
     }
 
 
-    protected static void map_set(ActiveRegister[] s, int addr, int val)
+    protected static void map_set(byte[] a, int indx, int val)
     {
-        s[addr].write((byte) val);
+        a[indx] = (byte) val;
     }
 }
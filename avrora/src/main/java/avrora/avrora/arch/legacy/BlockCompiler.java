@@ -0,0 +1,390 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.arch.legacy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+import avrora.cck.util.Util;
+
+/**
+ * The <code>BlockCompiler</code> class translates a straight-line block of AVR
+ * instructions into a small JVM class that calls the interpreter's
+ * <code>visit()</code> method for each instruction directly. This replaces the
+ * megamorphic <code>accept()</code> dispatch of the interpreter loop with a
+ * sequence of monomorphic calls that the Java virtual machine can inline into
+ * one method per block.
+ * <p/>
+ * The generated code depends only on the sequence of instruction classes in
+ * the block, not on the operands, which are read from the instruction array
+ * passed at execution time. Therefore compiled blocks are cached by their shape
+ * and shared among all interpreters (and all nodes) in the same virtual
+ * machine.
+ *
+ * @see BlockInterpreter
+ */
+public class BlockCompiler
+{
+
+    /**
+     * The <code>CompiledBlock</code> interface is implemented by each class
+     * generated by the compiler.
+     */
+    public interface CompiledBlock
+    {
+        /**
+         * The <code>execute()</code> method executes the instructions of the
+         * block in order. After each instruction but the last, the program
+         * counter is committed; the cycles consumed are left for the caller to
+         * commit to the clock in one step.
+         *
+         * @param interp
+         *            the interpreter on which to execute the instructions
+         * @param instrs
+         *            the instructions of the block
+         */
+        public void execute(BlockInterpreter interp, LegacyInstr[] instrs);
+    }
+
+    private static final String PACKAGE = "avrora/avrora/arch/legacy/";
+    private static final String INTERP = PACKAGE + "BlockInterpreter";
+    private static final String INTERFACE = PACKAGE
+            + "BlockCompiler$CompiledBlock";
+    private static final String EXECUTE_DESC = "(L" + INTERP + ";[L" + PACKAGE
+            + "LegacyInstr;)V";
+
+    private static final HashMap<String, CompiledBlock> cache = new HashMap<String, CompiledBlock>();
+    private static final Loader loader = new Loader();
+    private static int classCount;
+
+
+    /**
+     * The <code>compile()</code> method returns a compiled block for the given
+     * sequence of instructions, generating and loading a new class if no block
+     * with the same shape has been compiled before.
+     *
+     * @param instrs
+     *            the instructions of the block
+     * @return an instance of the compiled block
+     */
+    public static synchronized CompiledBlock compile(LegacyInstr[] instrs)
+    {
+        StringBuffer buf = new StringBuffer();
+        for (LegacyInstr i : instrs)
+            buf.append(i.getClass().getName()).append(';');
+        String shape = buf.toString();
+
+        CompiledBlock block = cache.get(shape);
+        if (block == null)
+        {
+            String name = PACKAGE + "CompiledBlock" + (classCount++);
+            byte[] code = generate(name, instrs);
+            try
+            {
+                Class<?> cz = loader.define(name.replace('/', '.'), code);
+                block = (CompiledBlock) cz.newInstance();
+            }
+            catch (Exception e)
+            {
+                throw Util.unexpected(e);
+            }
+            cache.put(shape, block);
+        }
+        return block;
+    }
+
+
+    /**
+     * The <code>getCompiledCount()</code> method returns the number of distinct
+     * block shapes compiled so far in this virtual machine.
+     *
+     * @return the number of classes generated
+     */
+    public static synchronized int getCompiledCount()
+    {
+        return classCount;
+    }
+
+
+    private static byte[] generate(String name, LegacyInstr[] instrs)
+    {
+        ClassWriter cw = new ClassWriter();
+        int thisClass = cw.classRef(name);
+        int superClass = cw.classRef("java/lang/Object");
+        int iface = cw.classRef(INTERFACE);
+
+        // constructor: call Object.<init>()
+        Code init = new Code();
+        init.op(0x2a); // aload_0
+        init.op(0xb7); // invokespecial
+        init.u2(cw.methodRef("java/lang/Object", "<init>", "()V"));
+        init.op(0xb1); // return
+
+        // execute(): one direct visit() call per instruction
+        Code exec = new Code();
+        int commitPC = cw.methodRef(INTERP, "commitPC", "()V");
+        for (int cntr = 0; cntr < instrs.length; cntr++)
+        {
+            String iname = instrs[cntr].getClass().getName().replace('.', '/');
+            exec.op(0x2b); // aload_1
+            exec.op(0x2c); // aload_2
+            exec.pushInt(cntr);
+            exec.op(0x32); // aaload
+            exec.op(0xc0); // checkcast
+            exec.u2(cw.classRef(iname));
+            exec.op(0xb6); // invokevirtual
+            exec.u2(cw.methodRef(INTERP, "visit", "(L" + iname + ";)V"));
+            if (cntr < instrs.length - 1)
+            {
+                exec.op(0x2b); // aload_1
+                exec.op(0xb6); // invokevirtual
+                exec.u2(commitPC);
+            }
+        }
+        exec.op(0xb1); // return
+
+        cw.addMethod(0x0001, "<init>", "()V", init, 1, 1);
+        cw.addMethod(0x0001, "execute", EXECUTE_DESC, exec, 3, 3);
+        return cw.toByteArray(thisClass, superClass, iface);
+    }
+
+    /**
+     * The <code>Code</code> class accumulates the bytecode of a single method.
+     */
+    private static class Code extends ByteArrayOutputStream
+    {
+        void op(int op)
+        {
+            write(op);
+        }
+
+
+        void u2(int val)
+        {
+            write(val >> 8);
+            write(val);
+        }
+
+
+        void pushInt(int val)
+        {
+            if (val <= 5)
+                op(0x03 + val); // iconst_<n>
+            else if (val <= 127)
+            {
+                op(0x10); // bipush
+                op(val);
+            } else
+            {
+                op(0x11); // sipush
+                u2(val);
+            }
+        }
+    }
+
+    /**
+     * The <code>ClassWriter</code> class builds the constant pool and methods
+     * of a class file. Only the small subset of the class file format needed
+     * for straight-line code is supported; since the generated methods contain
+     * no branches, no stack map frames are required.
+     */
+    private static class ClassWriter
+    {
+        final HashMap<String, Integer> constants = new HashMap<String, Integer>();
+        final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        final DataOutputStream poolOut = new DataOutputStream(pool);
+        final LinkedList<byte[]> methods = new LinkedList<byte[]>();
+        int poolCount = 1;
+
+
+        int utf8(String s)
+        {
+            Integer i = constants.get("U" + s);
+            if (i != null)
+                return i;
+            try
+            {
+                poolOut.writeByte(1);
+                poolOut.writeUTF(s);
+            }
+            catch (IOException e)
+            {
+                throw Util.unexpected(e);
+            }
+            return newConstant("U" + s);
+        }
+
+
+        int classRef(String name)
+        {
+            Integer i = constants.get("C" + name);
+            if (i != null)
+                return i;
+            int n = utf8(name);
+            write(7, n);
+            return newConstant("C" + name);
+        }
+
+
+        int methodRef(String owner, String name, String desc)
+        {
+            String key = "M" + owner + '.' + name + desc;
+            Integer i = constants.get(key);
+            if (i != null)
+                return i;
+            int c = classRef(owner);
+            int nt = nameAndType(name, desc);
+            write(10, c, nt);
+            return newConstant(key);
+        }
+
+
+        int nameAndType(String name, String desc)
+        {
+            String key = "N" + name + desc;
+            Integer i = constants.get(key);
+            if (i != null)
+                return i;
+            int n = utf8(name);
+            int d = utf8(desc);
+            write(12, n, d);
+            return newConstant(key);
+        }
+
+
+        void addMethod(int access, String name, String desc, Code code,
+                int maxStack, int maxLocals)
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            int nameIndex = utf8(name);
+            int descIndex = utf8(desc);
+            int codeIndex = utf8("Code");
+            try
+            {
+                out.writeShort(access);
+                out.writeShort(nameIndex);
+                out.writeShort(descIndex);
+                out.writeShort(1); // one attribute: Code
+                out.writeShort(codeIndex);
+                out.writeInt(12 + code.size());
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(code.size());
+                code.writeTo(out);
+                out.writeShort(0); // no exception table
+                out.writeShort(0); // no attributes
+            }
+            catch (IOException e)
+            {
+                throw Util.unexpected(e);
+            }
+            methods.add(bytes.toByteArray());
+        }
+
+
+        byte[] toByteArray(int thisClass, int superClass, int iface)
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            try
+            {
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0); // minor version
+                out.writeShort(49); // major version: Java 5
+                out.writeShort(poolCount);
+                pool.writeTo(out);
+                out.writeShort(0x0031); // public final super
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(1);
+                out.writeShort(iface);
+                out.writeShort(0); // no fields
+                out.writeShort(methods.size());
+                for (byte[] m : methods)
+                    out.write(m);
+                out.writeShort(0); // no attributes
+            }
+            catch (IOException e)
+            {
+                throw Util.unexpected(e);
+            }
+            return bytes.toByteArray();
+        }
+
+
+        private void write(int tag, int... refs)
+        {
+            try
+            {
+                poolOut.writeByte(tag);
+                for (int r : refs)
+                    poolOut.writeShort(r);
+            }
+            catch (IOException e)
+            {
+                throw Util.unexpected(e);
+            }
+        }
+
+
+        private int newConstant(String key)
+        {
+            int index = poolCount++;
+            constants.put(key, index);
+            return index;
+        }
+    }
+
+    /**
+     * The <code>Loader</code> class defines the generated classes. A single
+     * loader is used for all blocks so that the classes are unloaded only with
+     * the compiler itself.
+     */
+    private static class Loader extends ClassLoader
+    {
+        Loader()
+        {
+            super(BlockCompiler.class.getClassLoader());
+        }
+
+
+        Class<?> define(String name, byte[] code)
+        {
+            return defineClass(name, code, 0, code.length);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.arch.legacy;
+
+import java.util.HashSet;
+
+import avrora.avrora.arch.avr.AVRProperties;
+import avrora.avrora.core.Program;
+import avrora.avrora.sim.Interpreter;
+import avrora.avrora.sim.InterpreterFactory;
+import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.mcu.MCUProperties;
+import avrora.cck.util.Util;
+
+/**
+ * The <code>BlockInterpreter</code> class is an extension of the legacy
+ * interpreter that executes straight-line code a basic block at a time. The
+ * code in flash is divided lazily into blocks of instructions that only
+ * operate on the register file and the status flags; such instructions cannot
+ * be observed by devices and never break out of the interpreter loop. When no
+ * event in the queue can fire within a block, the whole block is executed with
+ * a single update of the program counter and a single advance of the clock.
+ * Blocks that are executed often are translated into JVM bytecode by the
+ * <code>BlockCompiler</code>, which removes the virtual dispatch through
+ * <code>accept()</code>.
+ * <p/>
+ * Every other instruction, including probed instructions and instructions
+ * that are being disassembled after a reprogramming of the flash, is executed
+ * exactly as in the legacy interpreter. The code segment notifies this
+ * interpreter whenever an instruction is replaced, which discards any block
+ * that contains it. When global probes are installed, the instrumented loop of
+ * the legacy interpreter is used.
+ */
+public class BlockInterpreter extends LegacyInterpreter
+{
+
+    public static final Factory FACTORY = new Factory();
+
+    public static class Factory extends InterpreterFactory
+    {
+        @Override
+        public Interpreter newInterpreter(Simulator s, Program p,
+                MCUProperties pr)
+        {
+            if (!(pr instanceof AVRProperties))
+                Util.userError("Block interpreter only supports AVR microcontrollers");
+            return new BlockInterpreter(s, p, (AVRProperties) pr);
+        }
+    }
+
+    /**
+     * The <code>MAX_BLOCK</code> field stores the maximum number of
+     * instructions in a block.
+     */
+    public static final int MAX_BLOCK = 64;
+
+    /**
+     * The <code>HOT_THRESHOLD</code> field stores the number of times a block
+     * is executed before it is compiled to bytecode.
+     */
+    public static final int HOT_THRESHOLD = 50;
+
+    private static final HashSet<Class<?>> straightLine = new HashSet<Class<?>>();
+
+    static
+    {
+        // instructions that only touch registers and flags, advance the pc by
+        // one word, and always consume the same number of cycles
+        Class<?>[] classes = { LegacyInstr.ADC.class, LegacyInstr.ADD.class,
+                LegacyInstr.ADIW.class, LegacyInstr.AND.class,
+                LegacyInstr.ANDI.class, LegacyInstr.ASR.class,
+                LegacyInstr.BLD.class, LegacyInstr.BST.class,
+                LegacyInstr.CBR.class, LegacyInstr.CLC.class,
+                LegacyInstr.CLH.class, LegacyInstr.CLN.class,
+                LegacyInstr.CLR.class, LegacyInstr.CLS.class,
+                LegacyInstr.CLT.class, LegacyInstr.CLV.class,
+                LegacyInstr.CLZ.class, LegacyInstr.COM.class,
+                LegacyInstr.CP.class, LegacyInstr.CPC.class,
+                LegacyInstr.CPI.class, LegacyInstr.DEC.class,
+                LegacyInstr.EOR.class, LegacyInstr.FMUL.class,
+                LegacyInstr.FMULS.class, LegacyInstr.FMULSU.class,
+                LegacyInstr.INC.class, LegacyInstr.LDI.class,
+                LegacyInstr.LSL.class, LegacyInstr.LSR.class,
+                LegacyInstr.MOV.class, LegacyInstr.MOVW.class,
+                LegacyInstr.MUL.class, LegacyInstr.MULS.class,
+                LegacyInstr.MULSU.class, LegacyInstr.NEG.class,
+                LegacyInstr.NOP.class, LegacyInstr.OR.class,
+                LegacyInstr.ORI.class, LegacyInstr.ROL.class,
+                LegacyInstr.ROR.class, LegacyInstr.SBC.class,
+                LegacyInstr.SBCI.class, LegacyInstr.SBIW.class,
+                LegacyInstr.SBR.class, LegacyInstr.SEC.class,
+                LegacyInstr.SEH.class, LegacyInstr.SEN.class,
+                LegacyInstr.SER.class, LegacyInstr.SES.class,
+                LegacyInstr.SET.class, LegacyInstr.SEV.class,
+                LegacyInstr.SEZ.class, LegacyInstr.SUB.class,
+                LegacyInstr.SUBI.class, LegacyInstr.SWAP.class,
+                LegacyInstr.TST.class };
+        for (Class<?> c : classes)
+            straightLine.add(c);
+    }
+
+    /**
+     * The <code>Block</code> class represents a run of straight-line
+     * instructions beginning at a particular address.
+     */
+    protected static class Block
+    {
+        final LegacyInstr[] instrs;
+        final int cycles;
+        int count;
+        BlockCompiler.CompiledBlock code;
+
+
+        Block(LegacyInstr[] instrs, int cycles)
+        {
+            this.instrs = instrs;
+            this.cycles = cycles;
+        }
+    }
+
+    private static final Block NO_BLOCK = new Block(new LegacyInstr[0], 0);
+
+    /**
+     * The <code>blocks</code> field stores the block beginning at each word
+     * address in the flash, <code>NO_BLOCK</code> if no block begins there, or
+     * null if the address has not been examined yet.
+     */
+    protected Block[] blocks;
+
+
+    protected BlockInterpreter(Simulator s, Program p, AVRProperties pr)
+    {
+        super(s, p, pr);
+        blocks = new Block[(shared_instr.length + 1) >> 1];
+    }
+
+
+    @Override
+    protected void fastLoop()
+    {
+        innerLoop = true;
+        while (innerLoop)
+        {
+            // misaligned addresses are left to the legacy error handling
+            Block b = NO_BLOCK;
+            if ((nextPC & 1) == 0)
+            {
+                b = blocks[nextPC >> 1];
+                if (b == null)
+                    b = buildBlock(nextPC);
+            }
+
+            if (b != NO_BLOCK)
+            {
+                // only run the block if no event can fire inside of it
+                long delta = clock.getFirstEventDelta();
+                if (delta < 0 || delta >= b.cycles)
+                {
+                    executeBlock(b);
+                    commit();
+                    // the next instruction may begin another block
+                    continue;
+                }
+            }
+
+            LegacyInstr i = shared_instr[nextPC];
+
+            // visit the actual instruction (or probe)
+            i.accept(this);
+            commit();
+        }
+    }
+
+
+    private void executeBlock(Block b)
+    {
+        if (b.code != null)
+        {
+            b.code.execute(this, b.instrs);
+            return;
+        }
+
+        LegacyInstr[] instrs = b.instrs;
+        int last = instrs.length - 1;
+        for (int cntr = 0; cntr < last; cntr++)
+        {
+            instrs[cntr].accept(this);
+            pc = nextPC;
+        }
+        instrs[last].accept(this);
+
+        if (++b.count == HOT_THRESHOLD)
+            b.code = BlockCompiler.compile(instrs);
+    }
+
+
+    private Block buildBlock(int address)
+    {
+        int max = shared_instr.length;
+        int end = address;
+        int cycles = 0;
+        int count = 0;
+        while (count < MAX_BLOCK && end < max
+                && straightLine.contains(shared_instr[end].getClass()))
+        {
+            LegacyInstr i = shared_instr[end];
+            cycles += i.getCycles();
+            end += i.getSize();
+            count++;
+        }
+
+        Block b = NO_BLOCK;
+        if (count > 1)
+        {
+            LegacyInstr[] instrs = new LegacyInstr[count];
+            for (int cntr = 0, pos = address; cntr < count; cntr++)
+            {
+                instrs[cntr] = shared_instr[pos];
+                pos += instrs[cntr].getSize();
+            }
+            b = new Block(instrs, cycles);
+        }
+        blocks[address >> 1] = b;
+        return b;
+    }
+
+
+    /**
+     * The <code>commitPC()</code> method is used by compiled blocks to move to
+     * the next instruction within a block. It should not be used otherwise.
+     */
+    public final void commitPC()
+    {
+        pc = nextPC;
+    }
+
+
+    /**
+     * The <code>update()</code> method is called by the code segment when the
+     * array of instructions is replaced. All blocks are discarded.
+     *
+     * @param segment
+     *            the new array of instructions
+     */
+    @Override
+    public void update(LegacyInstr[] segment)
+    {
+        shared_instr = segment;
+        blocks = new Block[(segment.length + 1) >> 1];
+    }
+
+
+    /**
+     * The <code>invalidate()</code> method is called by the code segment when
+     * the instruction at the given address is replaced, e.g. because a probe
+     * was inserted or removed or the flash was reprogrammed. Every block that
+     * could contain the address is discarded.
+     *
+     * @param address
+     *            the address of the instruction that changed
+     */
+    @Override
+    public void invalidate(int address)
+    {
+        int low = Math.max(0, address - 2 * MAX_BLOCK) >> 1;
+        int high = Math.min(address >> 1, blocks.length - 1);
+        for (int cntr = low; cntr <= high; cntr++)
+            blocks[cntr] = null;
+    }
+}
@@ -0,0 +1,1054 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.arch.legacy;
+
+/**
+ * The <code>LegacyEncoder</code> class encodes instances of
+ * <code>LegacyInstr</code> into the machine code of the AVR instruction set.
+ * This allows a program that was loaded from an assembly file, and therefore
+ * has no binary representation of its instructions, to be handed to tools
+ * that work on the machine code, such as the <code>AVRDisassembler</code>.
+ * Instructions that are aliases of others, such as <code>CLR</code> or
+ * <code>LSL</code>, are encoded as the instruction they stand for.
+ */
+public class LegacyEncoder implements LegacyInstrVisitor
+{
+
+    protected int word0;
+    protected int word1;
+    protected int size;
+
+
+    /**
+     * The <code>encode()</code> method encodes a single instruction into the
+     * specified array, in the little endian order of the program memory.
+     *
+     * @param i
+     *            the instruction to encode
+     * @param code
+     *            the array into which to write the machine code
+     * @param index
+     *            the index into the array at which to write the first byte
+     * @return the size of the encoded instruction in bytes
+     */
+    public int encode(LegacyInstr i, byte[] code, int index)
+    {
+        i.accept(this);
+        code[index] = (byte) word0;
+        code[index + 1] = (byte) (word0 >> 8);
+        if (size == 4)
+        {
+            code[index + 2] = (byte) word1;
+            code[index + 3] = (byte) (word1 >> 8);
+        }
+        return size;
+    }
+
+
+    private void word(int op)
+    {
+        word0 = op;
+        size = 2;
+    }
+
+
+    private void reg(int op, LegacyRegister rd)
+    {
+        word(op | rd.getNumber() << 4);
+    }
+
+
+    private void rr(int op, LegacyRegister rd, LegacyRegister rs)
+    {
+        int r = rs.getNumber();
+        word(op | (r & 0x10) << 5 | rd.getNumber() << 4 | r & 0x0F);
+    }
+
+
+    private void imm8(int op, LegacyRegister rd, int k)
+    {
+        word(op | (k & 0xF0) << 4 | (rd.getNumber() - 16) << 4 | k & 0x0F);
+    }
+
+
+    private void pair(int op, LegacyRegister rd, int k)
+    {
+        word(op | (k & 0x30) << 2 | (rd.getNumber() - 24) / 2 << 4 | k & 0x0F);
+    }
+
+
+    private void regbit(int op, LegacyRegister rd, int bit)
+    {
+        word(op | rd.getNumber() << 4 | bit & 0x07);
+    }
+
+
+    private void flag(int op, int bit)
+    {
+        word(op | (bit & 0x07) << 4);
+    }
+
+
+    private void branch(int op, int bit, int offset)
+    {
+        word(op | (offset & 0x7F) << 3 | bit & 0x07);
+    }
+
+
+    private void relative(int op, int offset)
+    {
+        word(op | offset & 0x0FFF);
+    }
+
+
+    private void absolute(int op, int target)
+    {
+        word0 = op | (target >> 17 & 0x1F) << 4 | target >> 16 & 0x01;
+        word1 = target & 0xFFFF;
+        size = 4;
+    }
+
+
+    private void direct(int op, LegacyRegister rd, int addr)
+    {
+        word0 = op | rd.getNumber() << 4;
+        word1 = addr & 0xFFFF;
+        size = 4;
+    }
+
+
+    private void iobit(int op, int ior, int bit)
+    {
+        word(op | (ior & 0x1F) << 3 | bit & 0x07);
+    }
+
+
+    private void io(int op, LegacyRegister rd, int ior)
+    {
+        word(op | (ior & 0x30) << 5 | rd.getNumber() << 4 | ior & 0x0F);
+    }
+
+
+    private void pointer(int x, int y, int z, LegacyRegister rd,
+            LegacyRegister ptr)
+    {
+        if (ptr == LegacyRegister.X)
+            reg(x, rd);
+        else if (ptr == LegacyRegister.Y)
+            reg(y, rd);
+        else
+            reg(z, rd);
+    }
+
+
+    private void displacement(int op, LegacyRegister rd, LegacyRegister ptr,
+            int q)
+    {
+        if (ptr == LegacyRegister.Y)
+            op |= 0x08;
+        word(op | (q & 0x20) << 8 | (q & 0x18) << 7 | rd.getNumber() << 4
+                | q & 0x07);
+    }
+
+
+    private void movw(LegacyRegister rd, LegacyRegister rs)
+    {
+        word(0x0100 | rd.getNumber() / 2 << 4 | rs.getNumber() / 2);
+    }
+
+
+    private void muls(LegacyRegister rd, LegacyRegister rs)
+    {
+        word(0x0200 | (rd.getNumber() - 16) << 4 | rs.getNumber() - 16);
+    }
+
+
+    private void mul(int op, LegacyRegister rd, LegacyRegister rs)
+    {
+        word(op | (rd.getNumber() - 16) << 4 | rs.getNumber() - 16);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ADC i)
+    {
+        rr(0x1C00, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ADD i)
+    {
+        rr(0x0C00, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ADIW i)
+    {
+        pair(0x9600, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.AND i)
+    {
+        rr(0x2000, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ANDI i)
+    {
+        imm8(0x7000, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ASR i)
+    {
+        reg(0x9405, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BCLR i)
+    {
+        flag(0x9488, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BLD i)
+    {
+        regbit(0xF800, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRBC i)
+    {
+        branch(0xF400, i.imm1, i.imm2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRBS i)
+    {
+        branch(0xF000, i.imm1, i.imm2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRCC i)
+    {
+        branch(0xF400, 0, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRCS i)
+    {
+        branch(0xF000, 0, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BREAK i)
+    {
+        word(0x9598);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BREQ i)
+    {
+        branch(0xF000, 1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRGE i)
+    {
+        branch(0xF400, 4, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRHC i)
+    {
+        branch(0xF400, 5, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRHS i)
+    {
+        branch(0xF000, 5, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRID i)
+    {
+        branch(0xF400, 7, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRIE i)
+    {
+        branch(0xF000, 7, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRLO i)
+    {
+        branch(0xF000, 0, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRLT i)
+    {
+        branch(0xF000, 4, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRMI i)
+    {
+        branch(0xF000, 2, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRNE i)
+    {
+        branch(0xF400, 1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRPL i)
+    {
+        branch(0xF400, 2, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRSH i)
+    {
+        branch(0xF400, 0, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRTC i)
+    {
+        branch(0xF400, 6, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRTS i)
+    {
+        branch(0xF000, 6, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRVC i)
+    {
+        branch(0xF400, 3, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BRVS i)
+    {
+        branch(0xF000, 3, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BSET i)
+    {
+        flag(0x9408, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.BST i)
+    {
+        regbit(0xFA00, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CALL i)
+    {
+        absolute(0x940E, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CBI i)
+    {
+        iobit(0x9800, i.imm1, i.imm2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CBR i)
+    {
+        imm8(0x7000, i.r1, ~i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLC i)
+    {
+        flag(0x9488, 0);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLH i)
+    {
+        flag(0x9488, 5);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLI i)
+    {
+        flag(0x9488, 7);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLN i)
+    {
+        flag(0x9488, 2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLR i)
+    {
+        rr(0x2400, i.r1, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLS i)
+    {
+        flag(0x9488, 4);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLT i)
+    {
+        flag(0x9488, 6);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLV i)
+    {
+        flag(0x9488, 3);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CLZ i)
+    {
+        flag(0x9488, 1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.COM i)
+    {
+        reg(0x9400, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CP i)
+    {
+        rr(0x1400, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CPC i)
+    {
+        rr(0x0400, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CPI i)
+    {
+        imm8(0x3000, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.CPSE i)
+    {
+        rr(0x1000, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.DEC i)
+    {
+        reg(0x940A, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.EICALL i)
+    {
+        word(0x9519);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.EIJMP i)
+    {
+        word(0x9419);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ELPM i)
+    {
+        word(0x95D8);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ELPMD i)
+    {
+        reg(0x9006, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ELPMPI i)
+    {
+        reg(0x9007, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.EOR i)
+    {
+        rr(0x2400, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.FMUL i)
+    {
+        mul(0x0308, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.FMULS i)
+    {
+        mul(0x0380, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.FMULSU i)
+    {
+        mul(0x0388, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ICALL i)
+    {
+        word(0x9509);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.IJMP i)
+    {
+        word(0x9409);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.IN i)
+    {
+        io(0xB000, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.INC i)
+    {
+        reg(0x9403, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.JMP i)
+    {
+        absolute(0x940C, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LD i)
+    {
+        pointer(0x900C, 0x8008, 0x8000, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LDD i)
+    {
+        displacement(0x8000, i.r1, i.r2, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LDI i)
+    {
+        imm8(0xE000, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LDPD i)
+    {
+        pointer(0x900E, 0x900A, 0x9002, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LDPI i)
+    {
+        pointer(0x900D, 0x9009, 0x9001, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LDS i)
+    {
+        direct(0x9000, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LPM i)
+    {
+        word(0x95C8);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LPMD i)
+    {
+        reg(0x9004, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LPMPI i)
+    {
+        reg(0x9005, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LSL i)
+    {
+        rr(0x0C00, i.r1, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.LSR i)
+    {
+        reg(0x9406, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.MOV i)
+    {
+        rr(0x2C00, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.MOVW i)
+    {
+        movw(i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.MUL i)
+    {
+        rr(0x9C00, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.MULS i)
+    {
+        muls(i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.MULSU i)
+    {
+        mul(0x0300, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.NEG i)
+    {
+        reg(0x9401, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.NOP i)
+    {
+        word(0x0000);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.OR i)
+    {
+        rr(0x2800, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ORI i)
+    {
+        imm8(0x6000, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.OUT i)
+    {
+        io(0xB800, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.POP i)
+    {
+        reg(0x900F, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.PUSH i)
+    {
+        reg(0x920F, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.RCALL i)
+    {
+        relative(0xD000, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.RET i)
+    {
+        word(0x9508);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.RETI i)
+    {
+        word(0x9518);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.RJMP i)
+    {
+        relative(0xC000, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ROL i)
+    {
+        rr(0x1C00, i.r1, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ROR i)
+    {
+        reg(0x9407, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBC i)
+    {
+        rr(0x0800, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBCI i)
+    {
+        imm8(0x4000, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBI i)
+    {
+        iobit(0x9A00, i.imm1, i.imm2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBIC i)
+    {
+        iobit(0x9900, i.imm1, i.imm2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBIS i)
+    {
+        iobit(0x9B00, i.imm1, i.imm2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBIW i)
+    {
+        pair(0x9700, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBR i)
+    {
+        imm8(0x6000, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBRC i)
+    {
+        regbit(0xFC00, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SBRS i)
+    {
+        regbit(0xFE00, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SEC i)
+    {
+        flag(0x9408, 0);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SEH i)
+    {
+        flag(0x9408, 5);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SEI i)
+    {
+        flag(0x9408, 7);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SEN i)
+    {
+        flag(0x9408, 2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SER i)
+    {
+        imm8(0xE000, i.r1, 0xFF);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SES i)
+    {
+        flag(0x9408, 4);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SET i)
+    {
+        flag(0x9408, 6);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SEV i)
+    {
+        flag(0x9408, 3);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SEZ i)
+    {
+        flag(0x9408, 1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SLEEP i)
+    {
+        word(0x9588);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SPM i)
+    {
+        word(0x95E8);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.ST i)
+    {
+        pointer(0x920C, 0x8208, 0x8200, i.r2, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.STD i)
+    {
+        displacement(0x8200, i.r2, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.STPD i)
+    {
+        pointer(0x920E, 0x920A, 0x9202, i.r2, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.STPI i)
+    {
+        pointer(0x920D, 0x9209, 0x9201, i.r2, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.STS i)
+    {
+        direct(0x9200, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SUB i)
+    {
+        rr(0x1800, i.r1, i.r2);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SUBI i)
+    {
+        imm8(0x5000, i.r1, i.imm1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.SWAP i)
+    {
+        reg(0x9402, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.TST i)
+    {
+        rr(0x2000, i.r1, i.r1);
+    }
+
+
+    @Override
+    public void visit(LegacyInstr.WDR i)
+    {
+        word(0x95A8);
+    }
+}
@@ -108,10 +108,7 @@ public class LegacyInterpreter extends AtmelInterpreter
         {
             // TODO: would a "mode" and switch be faster than several branches?
             if (delayCycles > 0)
-            {
-                advanceClock(delayCycles);
-                delayCycles = 0;
-            }
+                delayLoop();
 
             if (justActivatedInterrupts)
             {
@@ -131,6 +128,10 @@ public class LegacyInterpreter extends AtmelInterpreter
                 }
             }
 
+            // an event may have stopped the node during the delay or interrupt
+            if (!shouldRun)
+                break;
+
             if (sleeping)
                 sleepLoop();
             else
@@ -282,6 +283,21 @@ public class LegacyInterpreter extends AtmelInterpreter
     }
 
 
+    private void delayLoop()
+    {
+        // advance one event at a time, so that stopping the node does not
+        // have to wait for the end of a long delay
+        while (delayCycles > 0 && shouldRun)
+        {
+            long delta = clock.getFirstEventDelta();
+            long cycles = delta < 0 || delta > delayCycles ? delayCycles
+                    : Math.max(delta, 1);
+            delayCycles -= cycles;
+            advanceClock(cycles);
+        }
+    }
+
+
     private void sleepLoop()
     {
         innerLoop = true;
@@ -292,7 +308,7 @@ public class LegacyInterpreter extends AtmelInterpreter
     }
 
 
-    private void fastLoop()
+    protected void fastLoop()
     {
         innerLoop = true;
         while (innerLoop)
@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.arch.msp430;
+
+/**
+ * The <code>MSP430Cycles</code> class computes the number of clock cycles that
+ * an MSP430 instruction takes to execute. The count depends only on the
+ * format of the instruction and the addressing modes of its operands, as
+ * listed in the instruction timing tables of the MSP430x1xx family user's
+ * guide. Immediates produced by the constant generator are register operands
+ * and do not take an extra cycle.
+ */
+public class MSP430Cycles
+{
+
+    /**
+     * The number of cycles between the acceptance of an interrupt and the
+     * start of the first instruction of its handler.
+     */
+    public static final int INTERRUPT = 6;
+
+    /**
+     * The number of cycles taken by a conditional or unconditional jump,
+     * whether it is taken or not.
+     */
+    public static final int JUMP = 2;
+
+    /**
+     * The number of cycles taken by a return from an interrupt.
+     */
+    public static final int RETI = 5;
+
+    // classes of operands, used to index the timing tables
+    protected static final int REG = 0;
+    protected static final int IND = 1;
+    protected static final int AUTO = 2;
+    protected static final int IMM = 3;
+    protected static final int MEM = 4;
+
+    // columns of the timing table of double operand instructions
+    protected static final int TO_REG = 0;
+    protected static final int TO_PC = 1;
+    protected static final int TO_MEM = 2;
+
+    // columns of the timing table of single operand instructions
+    protected static final int OP = 0;
+    protected static final int PUSH = 1;
+    protected static final int CALL = 2;
+
+    // cycles of double operand instructions: [source][destination]
+    protected static final int[][] DOUBLE = { { 1, 2, 4 }, // Rn
+            { 2, 2, 5 }, // @Rn
+            { 2, 3, 5 }, // @Rn+
+            { 2, 3, 5 }, // #N
+            { 3, 3, 6 } // x(Rn), EDE, &EDE
+    };
+
+    // cycles of single operand instructions: [operand][instruction]
+    protected static final int[][] SINGLE = { { 1, 3, 4 }, // Rn
+            { 3, 4, 4 }, // @Rn
+            { 3, 5, 5 }, // @Rn+
+            { 3, 4, 5 }, // #N
+            { 4, 5, 5 } // x(Rn), EDE, &EDE
+    };
+
+
+    /**
+     * The <code>getCycles()</code> method returns the number of clock cycles
+     * that the specified instruction takes to execute.
+     *
+     * @param i
+     *            the instruction for which to compute the cycle count
+     * @return the number of clock cycles it takes to execute the instruction
+     */
+    public static int getCycles(MSP430Instr i)
+    {
+        if (i instanceof MSP430Instr.JMP_Instr)
+            return JUMP;
+        if (i instanceof MSP430Instr.RETI)
+            return RETI;
+        if (i instanceof MSP430Instr.DOUBLE_W_Instr)
+            return getCycles(((MSP430Instr.DOUBLE_W_Instr) i).am);
+        if (i instanceof MSP430Instr.DOUBLE_B_Instr)
+            return getCycles(((MSP430Instr.DOUBLE_B_Instr) i).am);
+        if (i instanceof MSP430Instr.SINGLE_W_Instr)
+            return getCycles(i, ((MSP430Instr.SINGLE_W_Instr) i).am
+                    .get_source());
+        if (i instanceof MSP430Instr.SINGLE_B_Instr)
+            return getCycles(i, ((MSP430Instr.SINGLE_B_Instr) i).am
+                    .get_source());
+        return 1;
+    }
+
+
+    protected static int getCycles(MSP430AddrMode.DOUBLE_W am)
+    {
+        return DOUBLE[classOf(am.get_source())][columnOf(am.get_dest())];
+    }
+
+
+    protected static int getCycles(MSP430AddrMode.DOUBLE_B am)
+    {
+        return DOUBLE[classOf(am.get_source())][columnOf(am.get_dest())];
+    }
+
+
+    protected static int getCycles(MSP430Instr i, MSP430Operand op)
+    {
+        // TST is an alias of a compare of the constant 0 with its operand
+        if (i instanceof MSP430Instr.TST || i instanceof MSP430Instr.TST_B)
+            return DOUBLE[REG][columnOf(op)];
+        if (i instanceof MSP430Instr.PUSH || i instanceof MSP430Instr.PUSH_B)
+            return SINGLE[classOf(op)][PUSH];
+        if (i instanceof MSP430Instr.CALL)
+            return SINGLE[classOf(op)][CALL];
+        return SINGLE[classOf(op)][OP];
+    }
+
+
+    protected static int classOf(MSP430Operand op)
+    {
+        if (op instanceof MSP430Operand.SREG)
+            return REG;
+        if (op instanceof MSP430Operand.IMM)
+            return REG;
+        if (op instanceof MSP430Operand.IREG)
+            return IND;
+        if (op instanceof MSP430Operand.AIREG_W)
+            return AUTO;
+        if (op instanceof MSP430Operand.AIREG_B)
+            return AUTO;
+        if (op instanceof MSP430Operand.IMML)
+            return IMM;
+        return MEM;
+    }
+
+
+    protected static int columnOf(MSP430Operand op)
+    {
+        if (op instanceof MSP430Operand.SREG)
+        {
+            MSP430Operand.SREG reg = (MSP430Operand.SREG) op;
+            return reg.value.value == MSP430State.PC_REG ? TO_PC : TO_REG;
+        }
+        return TO_MEM;
+    }
+}
@@ -53,6 +53,7 @@ public class MSP430DataSegment extends Segment
     private final int flash_start;
     private final ActiveRegister[] ioregs;
     private final MSP430Instr[] code;
+    private final MSP430State interpreter;
     public static final int _1kb = 1024;
     public static final int DATA_SIZE = 64 * _1kb;
 
@@ -66,6 +67,7 @@ public class MSP430DataSegment extends Segment
         ioregs = ior;
         ioreg_end = ior.length;
         code = new MSP430Instr[DATA_SIZE];
+        interpreter = st;
     }
 
 
@@ -86,7 +88,10 @@ public class MSP430DataSegment extends Segment
     protected byte direct_read(int address)
     {
         if (address < ioreg_end)
+        {
+            interpreter.commitCycles();
             return ioregs[address].read();
+        }
         if (address < sram_end)
             return segment_data[address];
         if (address < flash_start) // reading from RAM hole
@@ -113,7 +118,10 @@ public class MSP430DataSegment extends Segment
     protected void direct_write(int address, byte val)
     {
         if (address < ioreg_end)
+        {
+            interpreter.commitCycles();
             ioregs[address].write(val);
+        }
         else if (address < sram_end)
             segment_data[address] = val;
         else // attempt to write beyond RAM
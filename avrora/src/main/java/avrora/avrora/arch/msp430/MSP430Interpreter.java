@@ -81,12 +81,17 @@ public class MSP430Interpreter extends MSP430InstrInterpreter
 
     protected final RegisterSet registers;
     protected final MSP430Instr[] shared_instr;
+    protected final MSP430Instr[] instr;
+    protected final int[] cycles;
     protected final STOP_instr STOP;
     protected boolean shouldRun;
     protected boolean sleeping;
 
     protected MulticastProbe globalProbe;
 
+    // the number of pending cycles at which the next event fires
+    protected long nextEvent;
+
 
     /**
      * The constructor for the <code>AVRInterpreter</code> class creates a new
@@ -132,6 +137,22 @@ public class MSP430Interpreter extends MSP430InstrInterpreter
         globalProbe = new MulticastProbe();
 
         STOP = new STOP_instr();
+
+        // build the tables of instructions and their cycle counts; invalid
+        // instructions stop the simulation
+        instr = new MSP430Instr[shared_instr.length];
+        cycles = new int[shared_instr.length];
+        for (int cntr = 0; cntr < instr.length; cntr++)
+        {
+            MSP430Instr i = shared_instr[cntr];
+            if (i == null)
+                instr[cntr] = STOP;
+            else
+            {
+                instr[cntr] = i;
+                cycles[cntr] = MSP430Cycles.getCycles(i);
+            }
+        }
     }
 
 
@@ -139,7 +160,10 @@ public class MSP430Interpreter extends MSP430InstrInterpreter
     {
         while (shouldRun)
         {
-            if (globalProbe.isEmpty())
+            sleeping = (regs[SREG_REG] & CPUOFF) != 0;
+            if (sleeping)
+                sleepLoop();
+            else if (globalProbe.isEmpty())
                 fastLoop();
             else
                 instrumentedLoop();
@@ -147,14 +171,28 @@ public class MSP430Interpreter extends MSP430InstrInterpreter
     }
 
 
+    private void sleepLoop()
+    {
+        innerLoop = true;
+        while (innerLoop)
+        {
+            clock.skipAhead();
+        }
+    }
+
+
     private void fastLoop()
     {
+        nextEvent = 0;
         innerLoop = true;
         while (innerLoop)
         {
-            int curpc = pc;
-            execute(fetch(curpc));
+            execute(pc);
+            // advance the clock only when the next event is due
+            if (pendingCycles >= nextEvent)
+                advanceClock();
         }
+        commitCycles();
     }
 
 
@@ -165,32 +203,58 @@ public class MSP430Interpreter extends MSP430InstrInterpreter
         {
             int curpc = pc;
             globalProbe.fireBefore(this, curpc);
-            execute(fetch(curpc));
+            execute(curpc);
+            advanceClock();
             globalProbe.fireAfter(this, curpc);
         }
     }
 
 
-    private MSP430Instr fetch(int curpc)
+    private void execute(int curpc)
     {
-        MSP430Instr i = shared_instr[curpc];
-        if (i == null)
+        MSP430Instr i = instr[curpc];
+        regs[PC_REG] = (char) (curpc + 2);
+        nextpc = curpc + i.size;
+        i.accept(this);
+        pc = regs[PC_REG] = (char) nextpc;
+        pendingCycles += cycles[curpc];
+    }
+
+
+    private void advanceClock()
+    {
+        long c = pendingCycles;
+        pendingCycles = 0;
+        clock.advance(c);
+        long delta = clock.getFirstEventDelta();
+        nextEvent = delta < 0 ? Long.MAX_VALUE : delta;
+    }
+
+
+    @Override
+    protected void commitCycles()
+    {
+        long c = pendingCycles;
+        if (c > 0)
         {
-            SimUtil.warning(simulator, StringUtil.to0xHex(curpc, 4),
-                    "invalid instruction");
-            i = STOP;
+            pendingCycles = 0;
+            clock.advance(c);
         }
-        regs[PC_REG] = (char) (curpc + 2);
-        nextpc = curpc + i.getSize();
-        return i;
+        // the access may insert an event; check the queue after the instruction
+        nextEvent = 0;
     }
 
 
-    private void execute(MSP430Instr i)
+    /**
+     * The <code>isIdle()</code> method checks whether the CPU is turned off in
+     * a low power mode. Only an event can change the state of the node then.
+     *
+     * @return true if the node sleeps until its next event fires
+     */
+    @Override
+    public boolean isIdle()
     {
-        i.accept(this);
-        pc = regs[PC_REG] = (char) nextpc;
-        clock.advance(1);
+        return sleeping;
     }
 
 
@@ -470,6 +534,8 @@ public class MSP430Interpreter extends MSP430InstrInterpreter
         @Override
         public void accept(MSP430InstrVisitor v)
         {
+            SimUtil.warning(simulator, StringUtil.to0xHex(pc, 4),
+                    "invalid instruction");
             stop();
         }
 
@@ -66,9 +66,13 @@ public abstract class MSP430State extends Interpreter implements State
     public static final int SP_REG = 1;
     public static final int SREG_REG = 2;
 
+    // the bit of the status register that turns off the CPU (LPM0 and up)
+    public static final int CPUOFF = 0x0010;
+
     protected int pc;
     protected int nextpc;
     protected int sreg;
+    protected long pendingCycles;
 
     protected char[] regs;
     protected ActiveRegister[] ioregs;
@@ -187,7 +191,7 @@ public abstract class MSP430State extends Interpreter implements State
     @Override
     public long getCycles()
     {
-        return clock.getCount();
+        return clock.getCount() + pendingCycles;
     }
 
 
@@ -279,10 +283,21 @@ public abstract class MSP430State extends Interpreter implements State
     {
         if (ind == PC_REG)
             nextpc = val;
+        else if (ind == SREG_REG && (val & CPUOFF) != 0)
+            innerLoop = false; // entering a low power mode
         array[ind] = (char) val;
     }
 
 
+    /**
+     * The <code>commitCycles()</code> method advances the main clock by the
+     * cycles of the instructions that have been executed but not yet accounted
+     * for. The data segment calls this method before it accesses an IO
+     * register, so that the devices behind the register see the current time.
+     */
+    protected abstract void commitCycles();
+
+
     protected int map_get(Segment s, int addr)
     {
         return s.read(addr);
@@ -305,6 +305,42 @@ public class Program
     }
 
 
+    /**
+     * The <code>findInstrs()</code> method collects the addresses of all the
+     * instructions in the program that are instances of one of the specified
+     * classes. It is useful for inserting a probe on every instruction of a
+     * certain kind, e.g. all calls and returns, with a single call to
+     * <code>Simulator.insertProbe()</code>.
+     *
+     * @param types
+     *            the classes of the instructions to find
+     * @return an array of the addresses of the matching instructions, in
+     *         program order
+     */
+    public int[] findInstrs(Class<?>... types)
+    {
+        int[] addrs = new int[16];
+        int size = 0;
+        for (int pc = program_start; pc < program_end; pc = getNextPC(pc))
+        {
+            AbstractInstr i = readInstr(pc);
+            if (i == null)
+                continue;
+            for (Class<?> type : types)
+            {
+                if (type.isInstance(i))
+                {
+                    if (size == addrs.length)
+                        addrs = Arrays.copyOf(addrs, size * 2);
+                    addrs[size++] = pc;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(addrs, size);
+    }
+
+
     /**
      * The <code>getIndirectEdges</code> returns a list of integers representing
      * the possible target program locations for a given callsite. This is
@@ -118,6 +118,13 @@ public class SourceMapping
          */
         public final int size;
 
+        /**
+         * The <code>object</code> field records whether this label refers to a
+         * data object, such as a table in flash, rather than to code. It can
+         * only be true if the information can be read from the ELF file.
+         */
+        public final boolean object;
+
 
         /**
          * The constructor for the <code>Location</code> class creates a new
@@ -134,8 +141,11 @@ public class SourceMapping
          *            the linear memory address (physical)
          * @param size
          *            the size of the variable
+         * @param object
+         *            true if the label refers to a data object
          */
-        Location(String s, String n, int vma_addr, int lma_addr, int size)
+        Location(String s, String n, int vma_addr, int lma_addr, int size,
+                boolean object)
         {
             section = s;
             if (n == null)
@@ -145,6 +155,7 @@ public class SourceMapping
             this.vma_addr = vma_addr;
             this.lma_addr = lma_addr;
             this.size = size < 1 ? 1 : size;
+            this.object = object;
         }
 
 
@@ -264,7 +275,7 @@ public class SourceMapping
         if (StringUtil.isHex(name))
         {
             int val = StringUtil.evaluateIntegerLiteral(name);
-            return new Location(null, null, val, val, 1);
+            return new Location(null, null, val, val, 1, false);
         }
         return labels.get(name);
     }
@@ -289,7 +300,34 @@ public class SourceMapping
     public void newLocation(String section, String name, int vma_addr,
             int lma_addr, int size)
     {
-        Location l = new Location(section, name, vma_addr, lma_addr, size);
+        newLocation(section, name, vma_addr, lma_addr, size, false);
+    }
+
+
+    /**
+     * The <code>newLocation()</code> method creates a new program location with
+     * the specified label name that is stored internally, recording whether
+     * the label refers to a data object rather than to code.
+     * 
+     * @param section
+     *            the name of the section which contains this label
+     * @param name
+     *            the name of the label
+     * @param vma_addr
+     *            the virtual address in the program
+     * @param lma_addr
+     *            the address in the program for which to create and store a new
+     *            location
+     * @param size
+     *            the size of the symbol if it is a variable
+     * @param object
+     *            true if the label refers to a data object
+     */
+    public void newLocation(String section, String name, int vma_addr,
+            int lma_addr, int size, boolean object)
+    {
+        Location l = new Location(section, name, vma_addr, lma_addr, size,
+                object);
         labels.put(name, l);
         reverseMap.put(new Integer(lma_addr), name);
     }
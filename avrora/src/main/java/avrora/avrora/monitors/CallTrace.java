@@ -179,23 +179,20 @@ public class CallTrace
     private void attachInstructionProbes(Simulator sim)
     {
         Program p = sim.getProgram();
-        for (int pc = 0; pc < p.program_end; pc = p.getNextPC(pc))
+        // direct calls need a probe per call site that knows the target
+        for (int pc : p.findInstrs(LegacyInstr.CALL.class,
+                LegacyInstr.RCALL.class))
         {
             LegacyInstr i = (LegacyInstr) p.readInstr(pc);
-            if (i != null)
-            {
-                if (i instanceof LegacyInstr.CALL)
-                    sim.insertProbe(new Probe_call(targetOfCall(i)), pc);
-                else if (i instanceof LegacyInstr.RCALL)
-                    sim.insertProbe(new Probe_call(targetOfRCall(i, pc)), pc);
-                else if (i instanceof LegacyInstr.ICALL)
-                    sim.insertProbe(new Probe_icall(), pc);
-                else if (i instanceof LegacyInstr.RET)
-                    sim.insertProbe(new Probe_ret(), pc);
-                else if (i instanceof LegacyInstr.RETI)
-                    sim.insertProbe(new Probe_iret(), pc);
-            }
+            if (i instanceof LegacyInstr.CALL)
+                sim.insertProbe(new Probe_call(targetOfCall(i)), pc);
+            else
+                sim.insertProbe(new Probe_call(targetOfRCall(i, pc)), pc);
         }
+        sim.insertProbe(new Probe_icall(),
+                p.findInstrs(LegacyInstr.ICALL.class));
+        sim.insertProbe(new Probe_ret(), p.findInstrs(LegacyInstr.RET.class));
+        sim.insertProbe(new Probe_iret(), p.findInstrs(LegacyInstr.RETI.class));
     }
 
 
@@ -66,15 +66,8 @@ public class IcallMonitor extends MonitorFactory
 
             Program p = s.getProgram();
             sourceMap = p.getSourceMapping();
-            for (int pc = 0; pc < p.program_end; pc = p.getNextPC(pc))
-            {
-                LegacyInstr i = (LegacyInstr) p.readInstr(pc);
-                if (i != null)
-                {
-                    if (i instanceof LegacyInstr.ICALL)
-                        s.insertProbe(new IcallProbe(), pc);
-                }
-            }
+            s.insertProbe(new IcallProbe(),
+                    p.findInstrs(LegacyInstr.ICALL.class));
         }
 
         public class IcallProbe extends Simulator.Probe.Empty
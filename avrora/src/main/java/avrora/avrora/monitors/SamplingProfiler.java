@@ -0,0 +1,488 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package avrora.avrora.monitors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import avrora.avrora.core.Program;
+import avrora.avrora.core.SourceMapping;
+import avrora.avrora.sim.FiniteStateMachine;
+import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.clock.Clock;
+import avrora.avrora.sim.mcu.DefaultMCU;
+import avrora.avrora.sim.mcu.MCUProperties;
+import avrora.cck.text.StringUtil;
+import avrora.cck.text.TermUtil;
+import avrora.cck.text.Terminal;
+import avrora.cck.util.Option;
+
+/**
+ * The <code>SamplingProfiler</code> class implements a monitor that profiles
+ * the program statistically. Instead of a probe on every instruction, which
+ * forces the interpreter into its slower instrumented loop, it samples the
+ * program counter, the call stack and the sleep state from a periodic event.
+ * The call stack is maintained by a <code>CallStack</code> that only probes
+ * the call and return instructions. While the microcontroller sleeps, the
+ * sampling event is removed and the samples that fall into the sleep are
+ * counted at once when it wakes up, so that sleeping stays as fast as without
+ * the monitor.
+ */
+public class SamplingProfiler extends MonitorFactory
+{
+
+    /**
+     * The z-value of the two-sided 95% confidence interval of a normal
+     * distribution.
+     */
+    static final double Z_95 = 1.96;
+
+    public final Option.Long INTERVAL = newOption("interval", 1000,
+            "This option specifies the average number of clock cycles between two samples.");
+    public final Option.Bool JITTER = newOption("jitter", true,
+            "This option selects whether the time between samples varies randomly around "
+                    + "the interval, which avoids aliasing with periodic behavior of the program.");
+    public final Option.Bool CALL_GRAPH = newOption("call-graph", true,
+            "This option selects whether the profiler reports the calls between functions "
+                    + "in addition to the flat profile.");
+
+    /**
+     * The <code>Node</code> class records the samples of a function or an
+     * interrupt handler.
+     */
+    static class Node implements Comparable<Node>
+    {
+        final int index;
+        final String name;
+        long self;
+        long total;
+        long lastSample = -1;
+
+
+        Node(int index, String name)
+        {
+            this.index = index;
+            this.name = name;
+        }
+
+
+        @Override
+        public int compareTo(Node n)
+        {
+            if (self != n.self)
+                return self > n.self ? -1 : 1;
+            if (total != n.total)
+                return total > n.total ? -1 : 1;
+            return name.compareTo(n.name);
+        }
+    }
+
+    /**
+     * The <code>Edge</code> class records the samples in which a function was
+     * on the call stack while it was calling another function.
+     */
+    static class Edge implements Comparable<Edge>
+    {
+        final Node caller;
+        final Node callee;
+        long count;
+        long lastSample = -1;
+
+
+        Edge(Node caller, Node callee)
+        {
+            this.caller = caller;
+            this.callee = callee;
+        }
+
+
+        @Override
+        public int compareTo(Edge e)
+        {
+            if (count != e.count)
+                return count > e.count ? -1 : 1;
+            int c = caller.name.compareTo(e.caller.name);
+            return c != 0 ? c : callee.name.compareTo(e.callee.name);
+        }
+    }
+
+    public class Mon
+            implements Monitor, Simulator.Event, FiniteStateMachine.Probe
+    {
+        final Simulator simulator;
+        final Program program;
+        final CallStack stack;
+        final FiniteStateMachine fsm;
+        final Clock clock;
+        final long interval;
+        final boolean callGraph;
+        final Random random;
+
+        // the start addresses of the functions, sorted, and their nodes
+        final int[] starts;
+        final Node[] functions;
+        final Node[] interrupts;
+        final HashMap<Long, Edge> edges;
+        final long[] sleeping;
+        long samples;
+        long nextSample;
+
+
+        Mon(Simulator s)
+        {
+            simulator = s;
+            program = s.getProgram();
+            stack = new CallStack();
+            new CallTrace(s).attachMonitor(stack);
+            fsm = ((DefaultMCU) s.getMicrocontroller()).getFSM();
+            clock = fsm.getClock();
+            sleeping = new long[fsm.getNumberOfStates()];
+            interval = Math.max(1, INTERVAL.get());
+            callGraph = CALL_GRAPH.get();
+            random = JITTER.get() ? new Random(s.getID()) : null;
+            edges = new HashMap<Long, Edge>();
+
+            SourceMapping map = program.getSourceMapping();
+            starts = getFunctionStarts(map);
+            functions = new Node[starts.length];
+            for (int cntr = 0; cntr < starts.length; cntr++)
+                functions[cntr] = new Node(cntr, map.getName(starts[cntr]));
+            MCUProperties props = s.getMicrocontroller().getProperties();
+            interrupts = new Node[s.getInterpreter().getInterruptTable()
+                    .getNumberOfInterrupts()];
+            for (int cntr = 0; cntr < interrupts.length; cntr++)
+                interrupts[cntr] = new Node(starts.length + cntr,
+                        "#" + cntr + " " + props.getInterruptName(cntr));
+
+            nextSample = clock.getCount() + nextInterval();
+            s.insertEvent(this, nextSample - clock.getCount());
+            fsm.insertProbe(this);
+        }
+
+
+        /**
+         * The <code>getFunctionStarts()</code> method collects the sorted
+         * addresses of the code labels of the program. Data objects in the
+         * code section, such as tables in flash, are not functions. The first
+         * address of the program is always included so that every instruction
+         * belongs to some function.
+         */
+        private int[] getFunctionStarts(SourceMapping map)
+        {
+            List<Integer> list = new ArrayList<Integer>();
+            list.add(program.program_start);
+            Iterator<SourceMapping.Location> i = map.getIterator();
+            while (i.hasNext())
+            {
+                SourceMapping.Location l = i.next();
+                if (!isCode(l))
+                    continue;
+                if (l.lma_addr > program.program_start
+                        && l.lma_addr < program.program_end)
+                    list.add(l.lma_addr);
+            }
+            Collections.sort(list);
+            int[] result = new int[list.size()];
+            int size = 0;
+            for (int addr : list)
+            {
+                if (size == 0 || result[size - 1] != addr)
+                    result[size++] = addr;
+            }
+            return Arrays.copyOf(result, size);
+        }
+
+
+        private boolean isCode(SourceMapping.Location l)
+        {
+            // ELF symbols carry their section; labels of assembly programs
+            // carry the name of their module instead
+            if (l.object)
+                return false;
+            return l.section == null || ".text".equals(l.section)
+                    || !l.section.startsWith(".");
+        }
+
+
+        private long nextInterval()
+        {
+            if (random == null)
+                return interval;
+            // uniformly distributed between half and one and a half intervals
+            return interval / 2 + (long) (random.nextDouble() * interval) + 1;
+        }
+
+
+        Node getFunction(int pc)
+        {
+            int ind = Arrays.binarySearch(starts, pc);
+            if (ind < 0)
+                ind = Math.max(0, -ind - 2);
+            return functions[ind];
+        }
+
+
+        @Override
+        public void fire()
+        {
+            sample();
+            nextSample = clock.getCount() + nextInterval();
+            simulator.insertEvent(this, nextSample - clock.getCount());
+        }
+
+
+        @Override
+        public void fireBeforeTransition(int bs, int as)
+        {
+            // do nothing.
+        }
+
+
+        @Override
+        public void fireAfterTransition(int bs, int as)
+        {
+            if (bs != 0)
+                countSleep(bs);
+            if (bs == 0 && as != 0)
+                simulator.removeEvent(this);
+            else if (bs != 0 && as == 0)
+                simulator.insertEvent(this, nextSample - clock.getCount());
+        }
+
+
+        /**
+         * The <code>countSleep()</code> method counts the samples that would
+         * have been taken in the specified sleep state up to now.
+         */
+        private void countSleep(int state)
+        {
+            long now = clock.getCount();
+            while (nextSample <= now)
+            {
+                samples++;
+                sleeping[state]++;
+                nextSample += nextInterval();
+            }
+        }
+
+
+        private void sample()
+        {
+            long id = samples++;
+            sleeping[0]++;
+
+            Node current = getFunction(simulator.getState().getPC());
+            current.self++;
+            count(current, id);
+            int depth = stack.getDepth();
+            for (int cntr = 0; cntr < depth; cntr++)
+            {
+                Node callee = getFrame(cntr);
+                count(callee, id);
+                if (callGraph)
+                    countEdge(getFunction(stack.getSite(cntr)), callee, id);
+            }
+        }
+
+
+        private Node getFrame(int indx)
+        {
+            int inum = stack.getInterrupt(indx);
+            if (inum >= 0 && inum < interrupts.length)
+                return interrupts[inum];
+            return getFunction(stack.getTarget(indx));
+        }
+
+
+        private void count(Node n, long id)
+        {
+            // recursive functions are counted only once per sample
+            if (n.lastSample != id)
+            {
+                n.lastSample = id;
+                n.total++;
+            }
+        }
+
+
+        private void countEdge(Node caller, Node callee, long id)
+        {
+            Long key = ((long) caller.index << 32) | callee.index;
+            Edge e = edges.get(key);
+            if (e == null)
+            {
+                e = new Edge(caller, callee);
+                edges.put(key, e);
+            }
+            if (e.lastSample != id)
+            {
+                e.lastSample = id;
+                e.count++;
+            }
+        }
+
+
+        @Override
+        public void report()
+        {
+            int state = fsm.getCurrentState();
+            if (state != 0)
+                countSleep(state);
+            TermUtil.printSeparator(
+                    "Sampling profile for node " + simulator.getID());
+            TermUtil.reportQuantity("Samples", samples, "");
+            TermUtil.reportQuantity("Interval", interval, "cycles");
+            if (samples > 0)
+            {
+                reportSleep();
+                reportFlat();
+                if (callGraph)
+                    reportCallGraph();
+            }
+            Terminal.nextln();
+        }
+
+
+        private void reportSleep()
+        {
+            Terminal.nextln();
+            Terminal.printGreen(
+                    "State                         Samples   Percent     +/-");
+            Terminal.nextln();
+            TermUtil.printThinSeparator(Terminal.MAXLINE);
+            for (int cntr = 0; cntr < sleeping.length; cntr++)
+            {
+                if (sleeping[cntr] > 0)
+                {
+                    printRow(fsm.getStateName(cntr), sleeping[cntr]);
+                    Terminal.nextln();
+                }
+            }
+        }
+
+
+        private void reportFlat()
+        {
+            List<Node> list = new ArrayList<Node>();
+            for (Node n : functions)
+            {
+                if (n.total > 0)
+                    list.add(n);
+            }
+            for (Node n : interrupts)
+            {
+                if (n.total > 0)
+                    list.add(n);
+            }
+            Collections.sort(list);
+
+            Terminal.nextln();
+            Terminal.printGreen(
+                    "Function                         Self   Percent     +/-     Total   Percent");
+            Terminal.nextln();
+            TermUtil.printThinSeparator(Terminal.MAXLINE);
+            for (Node n : list)
+            {
+                printRow(n.name, n.self);
+                Terminal.print(StringUtil.rightJustify(n.total, 10));
+                Terminal.print(StringUtil.rightJustify(
+                        StringUtil.toFixedFloat(percent(n.total), 4), 10));
+                Terminal.nextln();
+            }
+        }
+
+
+        private void reportCallGraph()
+        {
+            List<Edge> list = new ArrayList<Edge>(edges.values());
+            Collections.sort(list);
+
+            Terminal.nextln();
+            Terminal.printGreen(
+                    "Call                          Samples   Percent     +/-");
+            Terminal.nextln();
+            TermUtil.printThinSeparator(Terminal.MAXLINE);
+            for (Edge e : list)
+            {
+                printRow(e.caller.name + " -> " + e.callee.name, e.count);
+                Terminal.nextln();
+            }
+        }
+
+
+        /**
+         * The <code>printRow()</code> method prints a count of samples with
+         * its share of all samples and the half width of the 95% confidence
+         * interval of that share, both in percent.
+         */
+        private void printRow(String name, long count)
+        {
+            double p = (double) count / samples;
+            double error = 100 * Z_95 * Math.sqrt(p * (1 - p) / samples);
+            Terminal.printGreen(StringUtil.leftJustify(name, 28));
+            Terminal.printBrightCyan(StringUtil.rightJustify(count, 10));
+            Terminal.print(StringUtil.rightJustify(
+                    StringUtil.toFixedFloat(percent(count), 4), 10));
+            Terminal.print(StringUtil.rightJustify(
+                    StringUtil.toFixedFloat((float) error, 4), 8));
+        }
+
+
+        private float percent(long count)
+        {
+            return (float) (100.0 * count / samples);
+        }
+    }
+
+
+    public SamplingProfiler()
+    {
+        super("The \"sampling-profile\" monitor profiles the program statistically by "
+                + "sampling the program counter, the call stack, and the sleep state at a "
+                + "regular interval of clock cycles. Unlike the \"profile\" monitor, it does not "
+                + "probe every instruction and therefore hardly slows down the simulation. It "
+                + "reports the samples per function, both inside the function and including its "
+                + "callees, and per call between functions, with 95% confidence intervals.");
+    }
+
+
+    @Override
+    public Monitor newMonitor(Simulator s)
+    {
+        return new Mon(s);
+    }
+}
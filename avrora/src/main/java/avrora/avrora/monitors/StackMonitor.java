@@ -85,28 +85,11 @@ public class StackMonitor extends MonitorFactory
             // insert probes to catch "implicit" updates to SP for certain
             // instructions
             Program program = sim.getProgram();
-            for (int pc = 0; pc < program.program_end; pc = program
-                    .getNextPC(pc))
-            {
-                LegacyInstr i = (LegacyInstr) program.readInstr(pc);
-                if (i != null)
-                {
-                    if (i instanceof LegacyInstr.CALL)
-                        sim.insertProbe(probe, pc);
-                    else if (i instanceof LegacyInstr.ICALL)
-                        sim.insertProbe(probe, pc);
-                    else if (i instanceof LegacyInstr.RCALL)
-                        sim.insertProbe(probe, pc);
-                    else if (i instanceof LegacyInstr.RET)
-                        sim.insertProbe(probe, pc);
-                    else if (i instanceof LegacyInstr.RETI)
-                        sim.insertProbe(probe, pc);
-                    else if (i instanceof LegacyInstr.PUSH)
-                        sim.insertProbe(probe, pc);
-                    else if (i instanceof LegacyInstr.POP)
-                        sim.insertProbe(probe, pc);
-                }
-            }
+            sim.insertProbe(probe,
+                    program.findInstrs(LegacyInstr.CALL.class,
+                            LegacyInstr.ICALL.class, LegacyInstr.RCALL.class,
+                            LegacyInstr.RET.class, LegacyInstr.RETI.class,
+                            LegacyInstr.PUSH.class, LegacyInstr.POP.class));
         }
 
 
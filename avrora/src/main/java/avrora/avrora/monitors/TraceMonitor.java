@@ -32,12 +32,20 @@
 
 package avrora.avrora.monitors;
 
+import java.io.File;
+import java.io.IOException;
+
 import avrora.avrora.arch.AbstractInstr;
+import avrora.avrora.arch.legacy.LegacyRegister;
+import avrora.avrora.arch.legacy.LegacyState;
+import avrora.avrora.arch.avr.AVRProperties;
 import avrora.avrora.core.Program;
 import avrora.avrora.core.SourceMapping;
 import avrora.avrora.sim.Simulator;
 import avrora.avrora.sim.State;
+import avrora.avrora.sim.mcu.Microcontroller;
 import avrora.avrora.sim.output.SimPrinter;
+import avrora.avrora.sim.output.TraceWriter;
 import avrora.cck.text.StringUtil;
 import avrora.cck.text.TermUtil;
 import avrora.cck.text.Terminal;
@@ -63,6 +71,16 @@ public class TraceMonitor extends MonitorFactory
             "The \"trace-start\" option specifies the time to start the instruction trace, in "
                     + "clock cycles. This option can be useful for diagnosing problems in long simulations "
                     + "that happens after a given time is reached.");
+    final Option.Str FILE = newOption("trace-file", "",
+            "The \"trace-file\" option causes the trace to be written to a compressed binary "
+                    + "file instead of being printed. The trace of each node is written to a file with the "
+                    + "given name followed by the ID of the node, e.g. \"trace.bin.0\". Such a file can be "
+                    + "turned back into the textual trace with the \"decode-trace\" action.");
+    final Option.Bool REGISTERS = newOption("trace-registers", false,
+            "When this option is set, the binary trace also records each new value of the "
+                    + "general purpose registers.");
+    final Option.Bool SRAM = newOption("trace-sram", false,
+            "When this option is set, the binary trace also records every write to the SRAM.");
 
     /**
      * The <code>Monitor</code> class implements the monitor for the profiler.
@@ -92,6 +110,19 @@ public class TraceMonitor extends MonitorFactory
             public void fireAfter(State s, int addr)
             {
                 count++;
+                if (registers != null)
+                    recordRegisters((LegacyState) s);
+            }
+        }
+
+        public class SRAMWatch extends Simulator.Watch.Empty
+        {
+            @Override
+            public void fireAfterWrite(State s, int data_addr, byte value)
+            {
+                if (tracing)
+                    writer.write(simulator.getClock().getCount(), data_addr,
+                            value);
             }
         }
 
@@ -120,7 +151,7 @@ public class TraceMonitor extends MonitorFactory
                     print("trace (" + pair + ") begin: " + traceNum
                             + " --------------------------");
                     print(s, s.getInstr(addr));
-                    simulator.insertProbe(PROBE);
+                    startTrace();
                 } else
                 {
                     print("nested (" + pair + ") begin: " + traceNum
@@ -135,7 +166,7 @@ public class TraceMonitor extends MonitorFactory
             @Override
             public void fire()
             {
-                simulator.insertProbe(PROBE);
+                startTrace();
             }
         }
 
@@ -162,7 +193,7 @@ public class TraceMonitor extends MonitorFactory
                 {
                     print("trace (" + pair
                             + ") end --------------------------");
-                    simulator.removeProbe(PROBE);
+                    stopTrace();
                 } else
                 {
                     print("nested (" + pair
@@ -173,10 +204,33 @@ public class TraceMonitor extends MonitorFactory
         }
 
         int nextpc;
+        boolean tracing;
+        TraceWriter writer;
+        byte[] registers;
+
+
+        private void startTrace()
+        {
+            tracing = true;
+            simulator.insertProbe(PROBE);
+        }
+
+
+        private void stopTrace()
+        {
+            tracing = false;
+            simulator.removeProbe(PROBE);
+        }
 
 
         private void print(State s, AbstractInstr i)
         {
+            if (writer != null)
+            {
+                writer.instr(simulator.getClock().getCount(), s.getPC(),
+                        i.getSize());
+                return;
+            }
             // "#k{%x}: #k{%s} %s", color, pc, color, i.getVariant(),
             // i.getOperands()
 
@@ -194,7 +248,53 @@ public class TraceMonitor extends MonitorFactory
 
         private void print(String s)
         {
-            printer.println(s);
+            if (writer != null)
+                writer.text(simulator.getClock().getCount(), s);
+            else
+                printer.println(s);
+        }
+
+
+        private void recordRegisters(LegacyState s)
+        {
+            for (int cntr = 0; cntr < registers.length; cntr++)
+            {
+                byte v = s.getRegisterByte(
+                        LegacyRegister.getRegisterByNumber(cntr));
+                if (v != registers[cntr])
+                {
+                    registers[cntr] = v;
+                    writer.register(simulator.getClock().getCount(), cntr, v);
+                }
+            }
+        }
+
+
+        private void openTraceFile()
+        {
+            File f = new File(FILE.get() + "." + simulator.getID());
+            try
+            {
+                writer = new TraceWriter(f, simulator.getID(),
+                        simulator.getClock().getHZ());
+            }
+            catch (IOException e)
+            {
+                Util.userError("Cannot create trace file", f.getPath());
+            }
+            if (!(simulator.getState() instanceof LegacyState))
+                return;
+            if (REGISTERS.get())
+                registers = new byte[LegacyState.NUM_REGS];
+            if (SRAM.get())
+            {
+                Microcontroller m = simulator.getMicrocontroller();
+                AVRProperties p = (AVRProperties) m.getProperties();
+                int start = LegacyState.NUM_REGS + p.ioreg_size;
+                SRAMWatch watch = new SRAMWatch();
+                for (int cntr = 0; cntr < p.sram_size; cntr++)
+                    simulator.insertWatch(watch, start + cntr);
+            }
         }
 
 
@@ -204,6 +304,8 @@ public class TraceMonitor extends MonitorFactory
             printer = s.getPrinter();
             program = s.getProgram();
             PROBE = new GlobalProbe();
+            if (!FILE.isBlank())
+                openTraceFile();
             long time = TIME.get();
             if (time > 0)
             {
@@ -213,7 +315,7 @@ public class TraceMonitor extends MonitorFactory
             } else if (FROMTO.get().isEmpty())
             {
                 // if there are no fromt/to pairs, insert the global probe
-                s.insertProbe(PROBE);
+                startTrace();
             } else
             {
                 // if there are from/to pairs, insert the start and end probes
@@ -277,6 +379,8 @@ public class TraceMonitor extends MonitorFactory
         @Override
         public void report()
         {
+            if (writer != null)
+                writer.close();
             TermUtil.printSeparator(
                     "Trace results for node " + simulator.getID());
             long cycles = simulator.getClock().getCount();
@@ -285,6 +389,15 @@ public class TraceMonitor extends MonitorFactory
             TermUtil.reportQuantity("Program throughput", ipc, "instrs/cycle");
             TermUtil.reportQuantity("Program throughput",
                     ipc * simulator.getClock().getHZ() / 1000000, "mips");
+            if (writer != null)
+            {
+                TermUtil.reportQuantity("Trace records",
+                        writer.getRecordCount(), "");
+                TermUtil.reportQuantity("Trace size", writer.getRawBytes(),
+                        "bytes");
+                TermUtil.reportQuantity("Trace file size",
+                        writer.getFileBytes(), "bytes");
+            }
             Terminal.nextln();
         }
     }
@@ -32,6 +32,8 @@
 
 package avrora.avrora.sim;
 
+import java.io.IOException;
+
 import avrora.avrora.arch.AbstractInstr;
 import avrora.avrora.arch.avr.AVRProperties;
 import avrora.avrora.arch.legacy.LegacyInstr;
@@ -54,7 +56,8 @@ import avrora.cck.util.Util;
  * @author Ben L. Titzer
  */
 public abstract class AtmelInterpreter extends Interpreter
-        implements LegacyInstrVisitor
+        implements LegacyInstrVisitor, CodeSegment.CodeSharer,
+        Checkpoint.Stateful
 {
 
     public static final boolean INSTRUMENTED = true;
@@ -470,8 +473,7 @@ public abstract class AtmelInterpreter extends Interpreter
         flash = pr.codeSegmentFactory.newCodeSegment("flash", this, p);
         // for performance, we share a reference to the LegacyInstr[] array
         // representing flash
-        // TODO: implement share() method
-        shared_instr = flash.shareCode(null);
+        shared_instr = flash.shareCode(this);
 
         // initialize the interrupt table
         interrupts = new InterruptTable(this, pr.num_interrupts);
@@ -489,6 +491,19 @@ public abstract class AtmelInterpreter extends Interpreter
     }
 
 
+    /**
+     * The <code>resume()</code> method continues the execution at the current
+     * PC instead of the reset vector, in the same way as after restoring a
+     * checkpoint.
+     */
+    @Override
+    public void resume()
+    {
+        bootPC = pc;
+        start();
+    }
+
+
     @Override
     public void stop()
     {
@@ -497,6 +512,20 @@ public abstract class AtmelInterpreter extends Interpreter
     }
 
 
+    /**
+     * The <code>isIdle()</code> method checks whether this node is asleep
+     * without a pending interrupt that will wake it. Only an event can wake the
+     * node then.
+     *
+     * @return true if the node sleeps until its next event fires
+     */
+    @Override
+    public boolean isIdle()
+    {
+        return sleeping && (!I || interrupts.getPendingInterrupts() == 0);
+    }
+
+
     @Override
     public State getState()
     {
@@ -1383,6 +1412,36 @@ public abstract class AtmelInterpreter extends Interpreter
     }
 
 
+    /**
+     * The <code>saveState()</code> method is called after the fields of this
+     * interpreter are saved to a checkpoint. The registers, status flags and
+     * PC are all kept in fields, so there is nothing more to save.
+     *
+     * @param out
+     *            the checkpoint stream to write to
+     */
+    @Override
+    public void saveState(Checkpoint.Output out) throws IOException
+    {
+        // nothing to do
+    }
+
+
+    /**
+     * The <code>restoreState()</code> method is called after the fields of this
+     * interpreter are restored from a checkpoint. Execution resumes at the
+     * saved PC instead of the reset vector.
+     *
+     * @param in
+     *            the checkpoint stream to read from
+     */
+    @Override
+    public void restoreState(Checkpoint.Input in) throws IOException
+    {
+        bootPC = pc;
+    }
+
+
     /**
      * This method sets the booting address of the interpreter. It should only
      * be used before execution begins.
@@ -1442,6 +1501,37 @@ public abstract class AtmelInterpreter extends Interpreter
     }
 
 
+    /**
+     * The <code>update()</code> method is called by the code segment when the
+     * array of instructions is replaced, e.g. when this node gets its own copy
+     * of an array that was shared with other nodes.
+     *
+     * @param segment
+     *            the new array of instructions
+     */
+    @Override
+    public void update(LegacyInstr[] segment)
+    {
+        shared_instr = segment;
+    }
+
+
+    /**
+     * The <code>invalidate()</code> method is called by the code segment when
+     * the instruction at the given address is replaced. The interpreter reads
+     * the instruction from the array on every execution, so there is nothing
+     * to discard.
+     *
+     * @param address
+     *            the address of the instruction that changed
+     */
+    @Override
+    public void invalidate(int address)
+    {
+        // nothing derived from the instructions
+    }
+
+
     /**
      * The <code>getSP()</code> method reads the current value of the stack
      * pointer. Since the stack pointer is stored in two IO registers, this
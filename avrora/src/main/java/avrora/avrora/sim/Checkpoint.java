@@ -0,0 +1,1089 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.sim;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import avrora.avrora.sim.clock.DeltaQueue;
+import avrora.avrora.sim.clock.Synchronizer;
+import avrora.cck.util.Util;
+
+/**
+ * The <code>Checkpoint</code> class saves the state of a set of simulator
+ * objects to a compact binary stream and restores it into a newly constructed
+ * simulation of the same configuration, possibly in another virtual machine.
+ *
+ * <p>
+ * The state consists of all interpreters and objects of the simulator packages
+ * that are reachable from the roots added to the checkpoint, along with the
+ * events in their event queues. For each object, the values of its fields are
+ * saved; references to other objects are saved as the index of the referenced
+ * object.
+ * When a checkpoint is restored, the saved objects are matched with the objects
+ * of the new simulation by following the same fields from the roots, with final
+ * fields taking precedence. The state of the saved objects is then written into
+ * the matching objects, so that monitors and other parts of the new run that
+ * refer to them see the restored state. Saved objects without a match, such as
+ * objects created while the simulation was running, are allocated anew.
+ *
+ * <p>
+ * Since the saved state follows the fields of the classes, the checkpoint
+ * records the names and types of the fields of each class it contains. A
+ * checkpoint is rejected when a class has gained, lost or renamed a field since
+ * it was written, rather than restored into the wrong fields.
+ *
+ * <p>
+ * Programs, options, monitors, probes, watches, synchronizers and output are
+ * part of the configuration of a run and are not saved. Fields declared
+ * <code>transient</code> are also not part of the saved state; objects that
+ * keep such fields implement the <code>Stateful</code> interface to save
+ * whatever additional state they require.
+ *
+ * @see Simulation#saveCheckpoint(String)
+ * @see Simulation#restoreCheckpoint(String)
+ */
+public class Checkpoint
+{
+
+    private static final int MAGIC = 0x41564350; // "AVCP"
+    private static final int VERSION = 2;
+
+    private static final byte NULL = 0;
+    private static final byte OBJECT = 1;
+    private static final byte STRING = 2;
+    private static final byte ENUM = 3;
+    private static final byte OTHER = 4;
+
+    private static final Object UNKNOWN = new Object();
+
+    private static final String SCOPE = "avrora.avrora.sim.";
+    private static final String[] EXCLUDED_PACKAGES = {
+            "avrora.avrora.sim.output.", "avrora.avrora.sim.types.",
+            "avrora.avrora.sim.util." };
+    private static final Class<?>[] EXCLUDED_CLASSES = { Simulation.class,
+            Simulation.Node.class, Synchronizer.class, SimulatorThread.class };
+
+    /**
+     * The <code>Stateful</code> interface is implemented by objects that save
+     * state beyond the values of their non-transient fields, which are saved
+     * and restored before these methods are called.
+     */
+    public interface Stateful
+    {
+        public void saveState(Output out) throws IOException;
+
+
+        public void restoreState(Input in) throws IOException;
+    }
+
+    /**
+     * The <code>Output</code> class is the stream to which the state of an
+     * object in a checkpoint is written.
+     */
+    public class Output extends DataOutputStream
+    {
+
+        Output(OutputStream os)
+        {
+            super(os);
+        }
+
+
+        /**
+         * The <code>contains()</code> method checks whether the specified
+         * object is part of the state saved in this checkpoint.
+         *
+         * @param o
+         *            the object to check
+         * @return true if the object is saved in the checkpoint; false
+         *         otherwise
+         */
+        public boolean contains(Object o)
+        {
+            return index.containsKey(o);
+        }
+
+
+        /**
+         * The <code>writeReference()</code> method writes a reference to an
+         * object. References to objects that are not part of the checkpoint are
+         * restored as the current value of the field or variable.
+         *
+         * @param o
+         *            the object to write a reference to
+         */
+        public void writeReference(Object o) throws IOException
+        {
+            if (o == null)
+            {
+                writeByte(NULL);
+                return;
+            }
+            Integer num = index.get(o);
+            if (num != null)
+            {
+                writeByte(OBJECT);
+                writeInt(num.intValue());
+            } else if (o instanceof String)
+            {
+                writeByte(STRING);
+                writeUTF((String) o);
+            } else if (o instanceof Enum)
+            {
+                writeByte(ENUM);
+                writeUTF(((Enum<?>) o).getDeclaringClass().getName());
+                writeUTF(((Enum<?>) o).name());
+            } else
+            {
+                writeByte(OTHER);
+            }
+        }
+
+
+        /**
+         * The <code>writeFields()</code> method writes the values of the
+         * non-transient fields of the specified object.
+         *
+         * @param o
+         *            the object to write the fields of
+         */
+        public void writeFields(Object o) throws IOException
+        {
+            try
+            {
+                for (Field f : getFields(o.getClass()))
+                {
+                    Class<?> t = f.getType();
+                    if (t == boolean.class)
+                        writeBoolean(f.getBoolean(o));
+                    else if (t == byte.class)
+                        writeByte(f.getByte(o));
+                    else if (t == char.class)
+                        writeChar(f.getChar(o));
+                    else if (t == short.class)
+                        writeShort(f.getShort(o));
+                    else if (t == int.class)
+                        writeInt(f.getInt(o));
+                    else if (t == long.class)
+                        writeLong(f.getLong(o));
+                    else if (t == float.class)
+                        writeFloat(f.getFloat(o));
+                    else if (t == double.class)
+                        writeDouble(f.getDouble(o));
+                    else
+                        writeReference(f.get(o));
+                }
+            }
+            catch (IllegalAccessException e)
+            {
+                throw Util.unexpected(e);
+            }
+        }
+    }
+
+    /**
+     * The <code>Input</code> class is the stream from which the state of an
+     * object in a checkpoint is read.
+     */
+    public class Input extends DataInputStream
+    {
+
+        final boolean allocated;
+
+
+        Input(byte[] block, boolean allocated)
+        {
+            super(new ByteArrayInputStream(block));
+            this.allocated = allocated;
+        }
+
+
+        /**
+         * The <code>contains()</code> method checks whether the specified
+         * object is restored from this checkpoint.
+         *
+         * @param o
+         *            the object to check
+         * @return true if the state of the object is restored from the
+         *         checkpoint; false otherwise
+         */
+        public boolean contains(Object o)
+        {
+            return index.containsKey(o);
+        }
+
+
+        /**
+         * The <code>readReference()</code> method reads a reference to an
+         * object written by <code>writeReference()</code>.
+         *
+         * @param current
+         *            the value to return if the reference was to an object
+         *            that is not part of the checkpoint
+         * @return the object referred to
+         */
+        public Object readReference(Object current) throws IOException
+        {
+            byte tag = readByte();
+            switch (tag)
+            {
+                case NULL:
+                    return null;
+                case OBJECT:
+                    return restored[readInt()];
+                case STRING:
+                    return readUTF();
+                case ENUM:
+                    return readEnum(readUTF(), readUTF());
+                case OTHER:
+                    return current;
+            }
+            throw Util.failure("corrupt checkpoint: reference tag " + tag);
+        }
+
+
+        /**
+         * The <code>readFields()</code> method reads the values of the
+         * non-transient fields of the specified object. The values of final
+         * fields are only restored in objects that have been allocated by the
+         * checkpoint, or where they refer to objects that have been.
+         *
+         * @param o
+         *            the object to read the fields of
+         */
+        public void readFields(Object o) throws IOException
+        {
+            try
+            {
+                for (Field f : getFields(o.getClass()))
+                {
+                    Class<?> t = f.getType();
+                    boolean set = allocated
+                            || !Modifier.isFinal(f.getModifiers());
+                    if (t == boolean.class)
+                    {
+                        boolean v = readBoolean();
+                        if (set)
+                            f.setBoolean(o, v);
+                    } else if (t == byte.class)
+                    {
+                        byte v = readByte();
+                        if (set)
+                            f.setByte(o, v);
+                    } else if (t == char.class)
+                    {
+                        char v = readChar();
+                        if (set)
+                            f.setChar(o, v);
+                    } else if (t == short.class)
+                    {
+                        short v = readShort();
+                        if (set)
+                            f.setShort(o, v);
+                    } else if (t == int.class)
+                    {
+                        int v = readInt();
+                        if (set)
+                            f.setInt(o, v);
+                    } else if (t == long.class)
+                    {
+                        long v = readLong();
+                        if (set)
+                            f.setLong(o, v);
+                    } else if (t == float.class)
+                    {
+                        float v = readFloat();
+                        if (set)
+                            f.setFloat(o, v);
+                    } else if (t == double.class)
+                    {
+                        double v = readDouble();
+                        if (set)
+                            f.setDouble(o, v);
+                    } else
+                    {
+                        Object current = f.get(o);
+                        Object v = readReference(current);
+                        if (v != current)
+                            f.set(o, v);
+                    }
+                }
+            }
+            catch (IllegalAccessException e)
+            {
+                throw Util.unexpected(e);
+            }
+        }
+
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private Object readEnum(String cname, String name)
+        {
+            return Enum.valueOf((Class<? extends Enum>) loadClass(cname), name);
+        }
+    }
+
+    protected final LinkedHashMap<String, Object> roots;
+    protected final ArrayList<Object> objects;
+    protected final IdentityHashMap<Object, Integer> index;
+    protected final HashMap<Class<?>, Field[]> fieldCache;
+
+    protected Object[] restored;
+
+
+    /**
+     * The constructor for the <code>Checkpoint</code> class creates a new,
+     * empty checkpoint. Roots must be added with the <code>addRoot()</code>
+     * method before the checkpoint is written or read.
+     */
+    public Checkpoint()
+    {
+        roots = new LinkedHashMap<String, Object>();
+        objects = new ArrayList<Object>();
+        index = new IdentityHashMap<Object, Integer>();
+        fieldCache = new HashMap<Class<?>, Field[]>();
+    }
+
+
+    /**
+     * The <code>addRoot()</code> method adds an object whose state, and the
+     * state of all objects reachable from it, is part of this checkpoint.
+     *
+     * @param name
+     *            the name of the root, which must be the same when the
+     *            checkpoint is written and when it is read
+     * @param o
+     *            the root object
+     */
+    public void addRoot(String name, Object o)
+    {
+        roots.put(name, o);
+    }
+
+
+    /**
+     * The <code>write()</code> method writes the state of all the objects
+     * reachable from the roots to the specified stream.
+     *
+     * @param os
+     *            the stream to write the checkpoint to
+     * @throws IOException
+     *             if the stream cannot be written
+     */
+    public void write(OutputStream os) throws IOException
+    {
+        walk();
+        Output out = new Output(os);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(roots.size());
+        for (Map.Entry<String, Object> e : roots.entrySet())
+        {
+            out.writeUTF(e.getKey());
+            out.writeInt(index.get(e.getValue()));
+        }
+
+        Map<Class<?>, Integer> classes = new LinkedHashMap<Class<?>, Integer>();
+        for (Object o : objects)
+        {
+            if (!classes.containsKey(o.getClass()))
+                classes.put(o.getClass(), classes.size());
+        }
+        out.writeInt(classes.size());
+        for (Class<?> c : classes.keySet())
+        {
+            out.writeUTF(c.getName());
+            out.writeInt(getLayout(c));
+        }
+
+        out.writeInt(objects.size());
+        for (Object o : objects)
+        {
+            out.writeInt(classes.get(o.getClass()));
+            if (o.getClass().isArray())
+                out.writeInt(Array.getLength(o));
+            else if (o instanceof Random)
+                writeRandom(out, (Random) o);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Output block = new Output(bytes);
+        for (Object o : objects)
+        {
+            bytes.reset();
+            writeState(block, o);
+            block.flush();
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        }
+        out.flush();
+    }
+
+
+    /**
+     * The <code>read()</code> method reads a checkpoint from the specified
+     * stream and restores the state of all the objects reachable from the
+     * roots. The roots must have been constructed with the same configuration
+     * as the roots of the checkpoint when it was written.
+     *
+     * @param is
+     *            the stream to read the checkpoint from
+     * @throws IOException
+     *             if the stream cannot be read
+     */
+    public void read(InputStream is) throws IOException
+    {
+        DataInputStream in = new DataInputStream(is);
+        if (in.readInt() != MAGIC)
+            Util.userError("Not a checkpoint file");
+        int version = in.readShort();
+        if (version != VERSION)
+            Util.userError("Unsupported checkpoint version", "" + version);
+
+        int numRoots = in.readInt();
+        String[] rootNames = new String[numRoots];
+        int[] rootIndex = new int[numRoots];
+        for (int cntr = 0; cntr < numRoots; cntr++)
+        {
+            rootNames[cntr] = in.readUTF();
+            rootIndex[cntr] = in.readInt();
+        }
+
+        int numClasses = in.readInt();
+        Class<?>[] table = new Class<?>[numClasses];
+        for (int cntr = 0; cntr < numClasses; cntr++)
+        {
+            String name = in.readUTF();
+            table[cntr] = loadClass(name);
+            if (in.readInt() != getLayout(table[cntr]))
+                Util.userError("Checkpoint does not match the fields of class",
+                        name);
+        }
+
+        int count = in.readInt();
+        Class<?>[] classes = new Class<?>[count];
+        int[] lengths = new int[count];
+        restored = new Object[count];
+        boolean[] allocated = new boolean[count];
+        for (int cntr = 0; cntr < count; cntr++)
+        {
+            int num = in.readInt();
+            if (num < 0 || num >= numClasses)
+                throw Util.failure("corrupt checkpoint: class " + num);
+            classes[cntr] = table[num];
+            if (classes[cntr].isArray())
+                lengths[cntr] = in.readInt();
+            else if (classes[cntr] == Random.class)
+            {
+                restored[cntr] = readRandom(in);
+                allocated[cntr] = true;
+            }
+        }
+
+        byte[][] blocks = new byte[count][];
+        for (int cntr = 0; cntr < count; cntr++)
+        {
+            blocks[cntr] = new byte[in.readInt()];
+            in.readFully(blocks[cntr]);
+        }
+
+        // match the saved objects with the objects of this simulation
+        if (numRoots != roots.size())
+            Util.userError("Checkpoint does not match simulation", numRoots
+                    + " nodes");
+        ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+        index.clear();
+        for (int cntr = 0; cntr < numRoots; cntr++)
+        {
+            Object root = roots.get(rootNames[cntr]);
+            int num = rootIndex[cntr];
+            if (root == null || root.getClass() != classes[num])
+                Util.userError("Checkpoint does not match simulation",
+                        rootNames[cntr]);
+            restored[num] = root;
+            index.put(root, num);
+            queue.add(num);
+        }
+        while (!queue.isEmpty())
+        {
+            int num = queue.poll();
+            match(num, blocks[num], classes, lengths, queue);
+        }
+
+        // allocate the saved objects that have no match in this simulation
+        for (int cntr = 0; cntr < count; cntr++)
+        {
+            if (restored[cntr] != null)
+                continue;
+            Class<?> c = classes[cntr];
+            if (c.isArray())
+                restored[cntr] = Array.newInstance(c.getComponentType(),
+                        lengths[cntr]);
+            else
+                restored[cntr] = allocate(c);
+            allocated[cntr] = true;
+        }
+
+        index.clear();
+        for (int cntr = 0; cntr < count; cntr++)
+            index.put(restored[cntr], cntr);
+        for (int cntr = 0; cntr < count; cntr++)
+            readState(new Input(blocks[cntr], allocated[cntr]),
+                    restored[cntr]);
+    }
+
+
+    private void walk()
+    {
+        objects.clear();
+        index.clear();
+        for (Object root : roots.values())
+            add(root);
+        for (int cntr = 0; cntr < objects.size(); cntr++)
+        {
+            Object o = objects.get(cntr);
+            Class<?> c = o.getClass();
+            if (c.isArray())
+            {
+                if (!c.getComponentType().isPrimitive())
+                {
+                    for (Object e : (Object[]) o)
+                        add(e);
+                }
+            } else if (o instanceof List)
+            {
+                for (Object e : (List<?>) o)
+                    add(e);
+            } else if (o instanceof Map)
+            {
+                for (Map.Entry<?, ?> e : ((Map<?, ?>) o).entrySet())
+                {
+                    add(e.getKey());
+                    add(e.getValue());
+                }
+            } else if (!(o instanceof Random))
+            {
+                try
+                {
+                    for (Field f : getFields(c))
+                    {
+                        if (!f.getType().isPrimitive())
+                            add(f.get(o));
+                    }
+                }
+                catch (IllegalAccessException e)
+                {
+                    throw Util.unexpected(e);
+                }
+                if (o instanceof DeltaQueue)
+                    addEvents((DeltaQueue) o);
+            }
+        }
+    }
+
+
+    private void addEvents(DeltaQueue q)
+    {
+        // events that are only referenced by the queue are part of the state
+        q.visitEvents(new DeltaQueue.EventVisitor() {
+            @Override
+            public void visit(Simulator.Event e, long cycles)
+            {
+                add(e);
+            }
+        });
+    }
+
+
+    private void add(Object o)
+    {
+        if (o == null || index.containsKey(o) || !isPart(o))
+            return;
+        index.put(o, objects.size());
+        objects.add(o);
+    }
+
+
+    private boolean isPart(Object o)
+    {
+        Class<?> c = o.getClass();
+        if (c.isArray())
+            return isPart(c.getComponentType());
+        if (o instanceof Collection)
+            return o instanceof List;
+        if (o instanceof Map)
+            return c == HashMap.class || c == LinkedHashMap.class;
+        return c == Random.class || isPart(c);
+    }
+
+
+    private static boolean isPart(Class<?> c)
+    {
+        while (c.isArray())
+            c = c.getComponentType();
+        if (c.isPrimitive())
+            return true;
+        if (Interpreter.class.isAssignableFrom(c))
+            return true;
+        if (!c.getName().startsWith(SCOPE))
+            return false;
+        for (String p : EXCLUDED_PACKAGES)
+        {
+            if (c.getName().startsWith(p))
+                return false;
+        }
+        for (Class<?> x : EXCLUDED_CLASSES)
+        {
+            if (x.isAssignableFrom(c))
+                return false;
+        }
+        // events of a synchronizer belong to the synchronizer
+        Class<?> outer = c.getEnclosingClass();
+        return outer == null || isPart(outer);
+    }
+
+
+    private void match(int num, byte[] block, Class<?>[] classes,
+            int[] lengths, ArrayDeque<Integer> queue) throws IOException
+    {
+        Object o = restored[num];
+        Class<?> c = o.getClass();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                block));
+
+        if (c.isArray())
+        {
+            if (c.getComponentType().isPrimitive())
+                return;
+            Object[] array = (Object[]) o;
+            for (int cntr = 0; cntr < array.length; cntr++)
+                match(skipReference(in), array[cntr], classes, lengths, queue,
+                        true);
+        } else if (o instanceof List)
+        {
+            List<?> list = (List<?>) o;
+            int size = in.readInt();
+            for (int cntr = 0; cntr < size; cntr++)
+            {
+                int ref = skipReference(in);
+                if (cntr < list.size())
+                    match(ref, list.get(cntr), classes, lengths, queue, true);
+            }
+        } else if (o instanceof Map)
+        {
+            Map<?, ?> map = (Map<?, ?>) o;
+            int size = in.readInt();
+            for (int cntr = 0; cntr < size; cntr++)
+            {
+                // entries are matched by their keys, if those are strings
+                byte tag = in.readByte();
+                String key = tag == STRING ? in.readUTF() : null;
+                if (key == null)
+                    skipReference(in, tag);
+                int ref = skipReference(in);
+                if (key != null)
+                    match(ref, map.get(key), classes, lengths, queue, true);
+            }
+        } else if (!(o instanceof Random))
+        {
+            try
+            {
+                for (Field f : getFields(c))
+                {
+                    Class<?> t = f.getType();
+                    if (t == boolean.class || t == byte.class)
+                        in.skipBytes(1);
+                    else if (t == char.class || t == short.class)
+                        in.skipBytes(2);
+                    else if (t == int.class || t == float.class)
+                        in.skipBytes(4);
+                    else if (t == long.class || t == double.class)
+                        in.skipBytes(8);
+                    else
+                        match(skipReference(in), f.get(o), classes, lengths,
+                                queue, Modifier.isFinal(f.getModifiers()));
+                }
+            }
+            catch (IllegalAccessException e)
+            {
+                throw Util.unexpected(e);
+            }
+        }
+    }
+
+
+    private void match(int num, Object o, Class<?>[] classes, int[] lengths,
+            ArrayDeque<Integer> queue, boolean structural)
+    {
+        if (num < 0 || o == null || restored[num] != null
+                || index.containsKey(o) || o.getClass() != classes[num])
+            return;
+        if (o.getClass().isArray() && Array.getLength(o) != lengths[num])
+            return;
+        restored[num] = o;
+        index.put(o, num);
+        // objects reached through final fields are matched first, since
+        // they are part of the structure of the simulation
+        if (structural)
+            queue.addFirst(num);
+        else
+            queue.addLast(num);
+    }
+
+
+    private static int skipReference(DataInputStream in) throws IOException
+    {
+        return skipReference(in, in.readByte());
+    }
+
+
+    private static int skipReference(DataInputStream in, byte tag)
+            throws IOException
+    {
+        switch (tag)
+        {
+            case OBJECT:
+                return in.readInt();
+            case STRING:
+                in.readUTF();
+                break;
+            case ENUM:
+                in.readUTF();
+                in.readUTF();
+                break;
+        }
+        return -1;
+    }
+
+
+    private Field[] getFields(Class<?> c)
+    {
+        Field[] fields = fieldCache.get(c);
+        if (fields == null)
+        {
+            ArrayList<Field> list = new ArrayList<Field>();
+            for (Class<?> k = c; k != Object.class; k = k.getSuperclass())
+            {
+                ArrayList<Field> declared = new ArrayList<Field>();
+                for (Field f : k.getDeclaredFields())
+                {
+                    int m = f.getModifiers();
+                    if (Modifier.isStatic(m) || Modifier.isTransient(m))
+                        continue;
+                    f.setAccessible(true);
+                    declared.add(f);
+                }
+                // the order of declared fields is not specified
+                Collections.sort(declared, new Comparator<Field>() {
+                    @Override
+                    public int compare(Field a, Field b)
+                    {
+                        return a.getName().compareTo(b.getName());
+                    }
+                });
+                list.addAll(0, declared);
+            }
+            fields = list.toArray(new Field[list.size()]);
+            fieldCache.put(c, fields);
+        }
+        return fields;
+    }
+
+
+    private void writeState(Output out, Object o) throws IOException
+    {
+        Class<?> c = o.getClass();
+        if (c == byte[].class)
+            out.write((byte[]) o);
+        else if (c.isArray())
+        {
+            int length = Array.getLength(o);
+            Class<?> t = c.getComponentType();
+            for (int cntr = 0; cntr < length; cntr++)
+            {
+                if (t == boolean.class)
+                    out.writeBoolean(Array.getBoolean(o, cntr));
+                else if (t == char.class)
+                    out.writeChar(Array.getChar(o, cntr));
+                else if (t == short.class)
+                    out.writeShort(Array.getShort(o, cntr));
+                else if (t == int.class)
+                    out.writeInt(Array.getInt(o, cntr));
+                else if (t == long.class)
+                    out.writeLong(Array.getLong(o, cntr));
+                else if (t == float.class)
+                    out.writeFloat(Array.getFloat(o, cntr));
+                else if (t == double.class)
+                    out.writeDouble(Array.getDouble(o, cntr));
+                else
+                    out.writeReference(Array.get(o, cntr));
+            }
+        } else if (o instanceof List)
+        {
+            List<?> list = (List<?>) o;
+            out.writeInt(list.size());
+            for (Object e : list)
+                out.writeReference(e);
+        } else if (o instanceof Map)
+        {
+            Map<?, ?> map = (Map<?, ?>) o;
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> e : map.entrySet())
+            {
+                out.writeReference(e.getKey());
+                out.writeReference(e.getValue());
+            }
+        } else if (!(o instanceof Random))
+        {
+            out.writeFields(o);
+            if (o instanceof Stateful)
+                ((Stateful) o).saveState(out);
+        }
+    }
+
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void readState(Input in, Object o) throws IOException
+    {
+        Class<?> c = o.getClass();
+        if (c == byte[].class)
+            in.readFully((byte[]) o);
+        else if (c.isArray())
+        {
+            int length = Array.getLength(o);
+            Class<?> t = c.getComponentType();
+            for (int cntr = 0; cntr < length; cntr++)
+            {
+                if (t == boolean.class)
+                    Array.setBoolean(o, cntr, in.readBoolean());
+                else if (t == char.class)
+                    Array.setChar(o, cntr, in.readChar());
+                else if (t == short.class)
+                    Array.setShort(o, cntr, in.readShort());
+                else if (t == int.class)
+                    Array.setInt(o, cntr, in.readInt());
+                else if (t == long.class)
+                    Array.setLong(o, cntr, in.readLong());
+                else if (t == float.class)
+                    Array.setFloat(o, cntr, in.readFloat());
+                else if (t == double.class)
+                    Array.setDouble(o, cntr, in.readDouble());
+                else
+                    Array.set(o, cntr, in.readReference(Array.get(o, cntr)));
+            }
+        } else if (o instanceof List)
+        {
+            // the list is only restored if all of its elements can be
+            int size = in.readInt();
+            List list = (List) o;
+            ArrayList<Object> saved = new ArrayList<Object>(size);
+            for (int cntr = 0; cntr < size; cntr++)
+                saved.add(in.readReference(UNKNOWN));
+            if (!saved.contains(UNKNOWN) && !saved.equals(list))
+            {
+                list.clear();
+                list.addAll(saved);
+            }
+        } else if (o instanceof Map)
+        {
+            int size = in.readInt();
+            Map map = (Map) o;
+            Map<Object, Object> saved = new LinkedHashMap<Object, Object>();
+            boolean complete = true;
+            for (int cntr = 0; cntr < size; cntr++)
+            {
+                Object key = in.readReference(UNKNOWN);
+                Object value = in.readReference(UNKNOWN);
+                complete &= key != UNKNOWN && value != UNKNOWN;
+                saved.put(key, value);
+            }
+            if (complete && !saved.equals(map))
+            {
+                map.clear();
+                map.putAll(saved);
+            }
+        } else if (!(o instanceof Random))
+        {
+            in.readFields(o);
+            if (o instanceof Stateful)
+                ((Stateful) o).restoreState(in);
+        }
+    }
+
+
+    private static Object allocate(Class<?> c)
+    {
+        // objects created while the simulation was running are allocated with
+        // their simplest constructor; all of their fields, including final
+        // ones and the reference to an enclosing object, are then restored
+        Constructor<?> init = null;
+        for (Constructor<?> k : c.getDeclaredConstructors())
+        {
+            if (init == null
+                    || k.getParameterTypes().length < init
+                            .getParameterTypes().length)
+                init = k;
+        }
+        if (init == null || Modifier.isAbstract(c.getModifiers()))
+            Util.userError("Checkpoint contains an object that cannot be "
+                    + "allocated", c.getName());
+        Class<?>[] types = init.getParameterTypes();
+        Object[] args = new Object[types.length];
+        for (int cntr = 0; cntr < types.length; cntr++)
+            args[cntr] = getDefault(types[cntr]);
+        try
+        {
+            init.setAccessible(true);
+            return init.newInstance(args);
+        }
+        catch (Exception e)
+        {
+            Util.userError("Checkpoint contains an object that cannot be "
+                    + "allocated", c.getName());
+            throw Util.unreachable();
+        }
+    }
+
+
+    private static Object getDefault(Class<?> t)
+    {
+        if (!t.isPrimitive())
+            return null;
+        return Array.get(Array.newInstance(t, 1), 0);
+    }
+
+
+    /**
+     * The <code>getLayout()</code> method computes a fingerprint of the names
+     * and types of the fields that are saved for objects of the specified
+     * class, in the order in which they are saved.
+     *
+     * @param c
+     *            the class of saved objects
+     * @return the fingerprint of the fields of the class
+     */
+    private int getLayout(Class<?> c)
+    {
+        if (c.isArray() || List.class.isAssignableFrom(c)
+                || Map.class.isAssignableFrom(c) || c == Random.class)
+            return 0;
+        StringBuffer buf = new StringBuffer();
+        for (Field f : getFields(c))
+        {
+            buf.append(f.getDeclaringClass().getName());
+            buf.append('.');
+            buf.append(f.getName());
+            buf.append(':');
+            buf.append(f.getType().getName());
+            buf.append(';');
+        }
+        CRC32 crc = new CRC32();
+        try
+        {
+            crc.update(buf.toString().getBytes("UTF-8"));
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw Util.unexpected(e);
+        }
+        return (int) crc.getValue();
+    }
+
+
+    private static void writeRandom(DataOutputStream out, Random r)
+            throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bytes);
+        oos.writeObject(r);
+        oos.close();
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+
+    private static Random readRandom(DataInputStream in) throws IOException
+    {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        try
+        {
+            ObjectInputStream ois = new ObjectInputStream(
+                    new ByteArrayInputStream(bytes));
+            return (Random) ois.readObject();
+        }
+        catch (ClassNotFoundException e)
+        {
+            throw Util.unexpected(e);
+        }
+    }
+
+
+    private static Class<?> loadClass(String name)
+    {
+        try
+        {
+            return Class.forName(name);
+        }
+        catch (ClassNotFoundException e)
+        {
+            Util.userError("Checkpoint contains unknown class", name);
+            throw Util.unreachable();
+        }
+    }
+}
@@ -33,13 +33,14 @@
 package avrora.avrora.sim;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import avrora.avrora.arch.legacy.LegacyInstr;
 import avrora.avrora.arch.legacy.LegacyInstrProperties;
 import avrora.avrora.arch.legacy.LegacyInstrVisitor;
 import avrora.avrora.arch.legacy.LegacyOperand;
 import avrora.avrora.core.Program;
-import avrora.avrora.sim.util.MulticastProbe;
 import avrora.cck.util.Util;
 
 /**
@@ -125,7 +126,20 @@ public class CodeSegment extends Segment
      */
     protected LegacyInstr[] segment_instr;
 
-    protected final NoLegacyInstr NO_INSTR = new NoLegacyInstr();
+    /**
+     * The <code>shared</code> field is true while <code>segment_instr</code>
+     * refers to an array of decoded instructions that is shared with the code
+     * segments of other nodes running the same program. The segment gets its
+     * own copy of the array before an instruction is replaced, i.e. when a
+     * probe is inserted or the flash is reprogrammed.
+     */
+    protected transient boolean shared;
+
+    /**
+     * The <code>sharedCode</code> field maps each loaded program to the array
+     * of decoded instructions that code segments loading the program share.
+     */
+    private static final Map<Program, LegacyInstr[]> sharedCode = new WeakHashMap<Program, LegacyInstr[]>();
 
     protected CodeSharer codeSharer;
 
@@ -133,11 +147,17 @@ public class CodeSegment extends Segment
      * The <code>CodeSharer</code> interface is used to allow sharing of the
      * underlying array representing the code. Only the interpreter should share
      * this representation. If there is an update to this array (e.g. it must be
-     * grown), the sharer will be notified to update its reference.
+     * grown), the sharer will be notified to update its reference. If a single
+     * entry of the array is replaced (e.g. a probe is inserted or the flash is
+     * reprogrammed), the sharer is notified so that it can discard anything it
+     * has derived from the old instruction.
      */
     public interface CodeSharer
     {
         public void update(LegacyInstr[] segment);
+
+
+        public void invalidate(int address);
     }
 
 
@@ -189,6 +209,27 @@ public class CodeSegment extends Segment
      *            the program to be loaded into the flash memory
      */
     public void load(Program p)
+    {
+        LegacyInstr[] code = getSharedCode(p, segment_instr.length);
+        if (code != null)
+        {
+            segment_instr = code;
+            shared = true;
+            if (codeSharer != null)
+                codeSharer.update(code);
+        } else
+        {
+            decode(p);
+            shared = setSharedCode(p, segment_instr);
+        }
+
+        // now initialize the flash data
+        for (int cntr = p.program_start; cntr < p.program_end; cntr++)
+            segment_data[cntr] = p.readProgramByte(cntr);
+    }
+
+
+    private void decode(Program p)
     {
         Arrays.fill(segment_instr, NO_INSTR);
         for (int cntr = p.program_start; cntr < p.program_end;)
@@ -203,10 +244,24 @@ public class CodeSegment extends Segment
                 cntr += 2;
             }
         }
+    }
 
-        // now initialize the flash data
-        for (int cntr = p.program_start; cntr < p.program_end; cntr++)
-            segment_data[cntr] = p.readProgramByte(cntr);
+
+    private static synchronized LegacyInstr[] getSharedCode(Program p,
+            int size)
+    {
+        LegacyInstr[] code = sharedCode.get(p);
+        return code != null && code.length == size ? code : null;
+    }
+
+
+    private static synchronized boolean setSharedCode(Program p,
+            LegacyInstr[] code)
+    {
+        if (sharedCode.containsKey(p))
+            return false;
+        sharedCode.put(p, code);
+        return true;
     }
 
 
@@ -319,20 +374,34 @@ public class CodeSegment extends Segment
 
     protected void writeInstr(int address, LegacyInstr i)
     {
+        if (shared)
+        {
+            // copy on write: the other nodes keep the original instructions
+            segment_instr = segment_instr.clone();
+            shared = false;
+            if (codeSharer != null)
+                codeSharer.update(segment_instr);
+        }
         segment_instr[address] = i;
+        if (codeSharer != null)
+            codeSharer.invalidate(address);
     }
 
     /**
      * The ProbedLegacyInstr class represents a wrapper around an instruction in
      * the program that executes the probes before executing the instruction and
      * after the instruction. For most methods on the <code>LegacyInstr</code>
-     * class, it simply forwards the call to the original instruction.
+     * class, it simply forwards the call to the original instruction. The
+     * probes are kept in an array that is replaced, never modified, when a
+     * probe is inserted or removed. Firing them therefore needs neither a
+     * multicast list nor a transaction, and probes can still be inserted or
+     * removed while they fire.
      */
     protected class ProbedLegacyInstr extends LegacyInstr
     {
         protected final int address;
         protected final LegacyInstr instr;
-        protected final MulticastProbe probe;
+        protected Simulator.Probe[] probes;
 
 
         public ProbedLegacyInstr(LegacyInstr i, int a)
@@ -341,7 +410,7 @@ public class CodeSegment extends Segment
                     i.properties.variant, i.properties.size, 0));
             instr = i;
             address = a;
-            probe = new MulticastProbe();
+            probes = NO_PROBES;
         }
 
 
@@ -351,37 +420,53 @@ public class CodeSegment extends Segment
                     i.properties.variant, i.properties.size, 0));
             instr = i;
             address = prev.address;
-            probe = prev.probe;
+            probes = prev.probes;
         }
 
 
         void add(Simulator.Probe p)
         {
-            probe.add(p);
+            Simulator.Probe[] n = Arrays.copyOf(probes, probes.length + 1);
+            n[probes.length] = p;
+            probes = n;
         }
 
 
         void remove(Simulator.Probe p)
         {
-            probe.remove(p);
+            Simulator.Probe[] n = new Simulator.Probe[probes.length];
+            int size = 0;
+            for (Simulator.Probe q : probes)
+            {
+                if (q != p)
+                    n[size++] = q;
+            }
+            if (size < probes.length)
+                probes = Arrays.copyOf(n, size);
         }
 
 
         boolean isEmpty()
         {
-            return probe.isEmpty();
+            return probes.length == 0;
         }
 
 
         @Override
         public void accept(LegacyInstrVisitor v)
         {
-            probe.fireBefore(interpreter.state, address);
-            instr.accept(interpreter);
+            State state = interpreter.state;
+            // probes may be added or removed while they fire; the same set
+            // gets both callbacks
+            Simulator.Probe[] ps = probes;
+            for (Simulator.Probe p : ps)
+                p.fireBefore(state, address);
+            instr.accept(v);
             interpreter.commit();
-            probe.fireAfter(interpreter.state, address);
+            for (Simulator.Probe p : ps)
+                p.fireAfter(state, address);
 
-            if (probe.isEmpty())
+            if (probes.length == 0)
             {
                 // if the probed instruction has no more probes, remove it
                 // altogether
@@ -415,7 +500,11 @@ public class CodeSegment extends Segment
     static LegacyInstrProperties NO_INSTR_PROPS = new LegacyInstrProperties(
             "<none>", "<none>", 2, 1);
 
-    private class NoLegacyInstr extends LegacyInstr
+    protected static final LegacyInstr NO_INSTR = new NoLegacyInstr();
+
+    static final Simulator.Probe[] NO_PROBES = {};
+
+    private static class NoLegacyInstr extends LegacyInstr
     {
 
         NoLegacyInstr()
@@ -450,8 +539,12 @@ public class CodeSegment extends Segment
         @Override
         public void accept(LegacyInstrVisitor v)
         {
-            throw new InterpreterError.NoSuchInstructionException(
-                    interpreter.getState().getPC());
+            // this instruction is shared by all code segments, so the
+            // interpreter that executes it is the visitor
+            if (v instanceof AtmelInterpreter)
+                throw new InterpreterError.NoSuchInstructionException(
+                        ((AtmelInterpreter) v).getState().getPC());
+            throw Util.failure("no instruction here");
         }
 
 
@@ -94,6 +94,20 @@ public abstract class Interpreter
     public abstract void start();
 
 
+    /**
+     * The <code>resume()</code> method continues the execution of the
+     * interpreter where it was left by the last call to <code>stop()</code>,
+     * after a previous call to <code>start()</code> has returned. Like
+     * <code>start()</code>, it does not return until the interpreter is stopped
+     * again. This allows a node to be executed in slices, e.g. by a scheduler
+     * that runs many nodes on a few threads.
+     */
+    public void resume()
+    {
+        start();
+    }
+
+
     /**
      * The <code>step()</code> method steps this node forward one instruction or
      * one clock cycle. The node may execute an instruction, execute events,
@@ -156,6 +170,20 @@ public abstract class Interpreter
     public abstract State getState();
 
 
+    /**
+     * The <code>isIdle()</code> method checks whether this node is asleep and
+     * will not do anything before the first event in the queue of its main
+     * clock fires. Synchronizers use this to let a network of sleeping nodes
+     * skip ahead to the earliest wakeup.
+     *
+     * @return true if the node sleeps until its next event fires
+     */
+    public boolean isIdle()
+    {
+        return false;
+    }
+
+
     protected Interpreter(Simulator sim)
     {
         // set up the reference to the simulator
@@ -190,6 +218,22 @@ public abstract class Interpreter
     protected abstract void insertProbe(Simulator.Probe p, int addr);
 
 
+    /**
+     * The <code>insertProbe()</code> method is used internally to insert a
+     * probe on a set of instructions.
+     *
+     * @param p
+     *            the probe to insert on the instructions
+     * @param addrs
+     *            the addresses of the instructions on which to insert the probe
+     */
+    protected void insertProbe(Simulator.Probe p, int[] addrs)
+    {
+        for (int addr : addrs)
+            insertProbe(p, addr);
+    }
+
+
     /**
      * The <code>insertExceptionWatch()</code> method registers an </code>
      * ExceptionWatch</code> to listen for exceptional conditions in the
@@ -224,6 +268,23 @@ public abstract class Interpreter
     protected abstract void removeProbe(Simulator.Probe p, int addr);
 
 
+    /**
+     * The <code>removeProbe()</code> method is used internally to remove a
+     * probe from a set of instructions.
+     *
+     * @param p
+     *            the probe to remove from the instructions
+     * @param addrs
+     *            the addresses of the instructions from which to remove the
+     *            probe
+     */
+    protected void removeProbe(Simulator.Probe p, int[] addrs)
+    {
+        for (int addr : addrs)
+            removeProbe(p, addr);
+    }
+
+
     /**
      * The <code>removeProbe()</code> method removes a probe from the global
      * probe table (the probes executed before and after every instruction). The
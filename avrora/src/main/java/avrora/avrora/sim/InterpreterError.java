@@ -57,7 +57,7 @@ public class InterpreterError
         public final int badPc;
 
 
-        protected NoSuchInstructionException(int pc)
+        public NoSuchInstructionException(int pc)
         {
             super("Program error",
                     "attempt to execute non-existant instruction at "
@@ -32,19 +32,27 @@
 
 package avrora.avrora.sim;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import avrora.avrora.Defaults;
 import avrora.avrora.core.LoadableProgram;
 import avrora.avrora.core.Program;
 import avrora.avrora.monitors.Monitor;
 import avrora.avrora.monitors.MonitorFactory;
+import avrora.avrora.sim.clock.ClockDomain;
 import avrora.avrora.sim.clock.Synchronizer;
 import avrora.avrora.sim.mcu.AtmelMicrocontroller;
 import avrora.avrora.sim.mcu.EEPROM;
@@ -108,6 +116,39 @@ public abstract class Simulation extends HelpCategory
                     + "schedule that describes when to post interrupts (especially external interrupts) to the "
                     + "program. This is useful for testing programs under different interrupt loads. For "
                     + "multi-node simulations, the interrupt schedule is only applied to node 0.");
+    public final Option.Str INTERPRETER = newOption("interpreter", "",
+            "This option selects the interpreter used to execute the program on AVR "
+                    + "microcontrollers. The \"legacy\" interpreter executes one instruction at a "
+                    + "time. The \"block\" interpreter executes straight-line code in basic blocks "
+                    + "and compiles frequently executed blocks to Java bytecode. The \"generated\" "
+                    + "interpreter executes the code generated by jIntGen from the architecture "
+                    + "description. If this option is not set, the default interpreter of the "
+                    + "microcontroller is used.");
+    public final Option.Str EVENTQUEUE = newOption("event-queue", "delta",
+            "This option selects the implementation of the event queue of each node. The "
+                    + "\"delta\" queue keeps events in a linked list sorted by time, which is fast "
+                    + "when few events are pending. The \"wheel\" queue is a hierarchical timing "
+                    + "wheel whose insertion and removal cost does not depend on the number of "
+                    + "pending events. Both queues fire events in the same order.");
+    public final Option.Bool TICKLESS = newOption("tickless-timers", true,
+            "This option selects whether the timers of AVR microcontrollers skip the ticks "
+                    + "that only count. When enabled, a running timer computes its counter from "
+                    + "the time and only wakes up for compare matches, overflows, TOP and BOTTOM. "
+                    + "When disabled, each timer executes every tick of its clock. Both models "
+                    + "produce the same results; disabling tickless timers is useful only to "
+                    + "compare them.");
+    public final Option.Str CHECKPOINT = newOption("checkpoint", "",
+            "This option specifies the name of a file to which the state of all nodes "
+                    + "is saved when the simulation ends, including the memory, registers, "
+                    + "pending events and the state of the devices and radios. The simulation "
+                    + "can later be resumed from this state with the \"restore\" option.");
+    public final Option.Str RESTORE = newOption("restore", "",
+            "This option specifies the name of a checkpoint file written with the "
+                    + "\"checkpoint\" option. The state of all nodes is restored from the file "
+                    + "before the simulation begins. The simulation must be given the same "
+                    + "programs, platform and topology as the simulation that wrote the "
+                    + "checkpoint. Monitors and the \"seconds\" option apply to the resumed "
+                    + "part of the simulation only.");
     public final Option.Str EELOADIMAGE = newOption("eeprom-load-image", "",
             "This option specifies a (binary) image file to load into EEPROM before starting "
                     + "the simulation.");
@@ -460,10 +501,27 @@ public abstract class Simulation extends HelpCategory
     public Simulator createSimulator(int id, InterpreterFactory f,
             Microcontroller mcu, Program p)
     {
+        if (!INTERPRETER.isBlank() && mcu instanceof AtmelMicrocontroller)
+            f = Defaults.getInterpreter(INTERPRETER.get());
         return new Simulator(id, this, f, mcu, p);
     }
 
 
+    /**
+     * The <code>newClockDomain()</code> method creates a new clock domain for a
+     * node in this simulation. The main clock of the clock domain uses the
+     * event queue implementation selected by the user.
+     * 
+     * @param mainHz
+     *            the speed of the main clock in cycles per second
+     * @return a new clock domain for a node
+     */
+    public ClockDomain newClockDomain(long mainHz)
+    {
+        return new ClockDomain(mainHz, Defaults.getEventQueue(EVENTQUEUE.get()));
+    }
+
+
     public SimPrinter getPrinter(Simulator s, String category)
     {
         if (Verbose.isVerbose(category))
@@ -619,6 +677,8 @@ public abstract class Simulation extends HelpCategory
             return;
 
         instantiateNodes();
+        if (!RESTORE.isBlank())
+            restoreCheckpoint(RESTORE.get());
         synchronizer.start();
         running = true;
     }
@@ -692,6 +752,82 @@ public abstract class Simulation extends HelpCategory
     public synchronized void join() throws InterruptedException
     {
         synchronizer.join();
+        if (!CHECKPOINT.isBlank())
+            saveCheckpoint(CHECKPOINT.get());
+    }
+
+
+    /**
+     * The <code>saveCheckpoint()</code> method writes the state of all nodes in
+     * this simulation to the specified file. This method can only be called
+     * when the nodes have been instantiated and are not executing, for example
+     * after the simulation has terminated.
+     *
+     * @param fname
+     *            the name of the file to write the checkpoint to
+     */
+    public void saveCheckpoint(String fname)
+    {
+        try
+        {
+            OutputStream os = new BufferedOutputStream(new GZIPOutputStream(
+                    new FileOutputStream(fname)));
+            try
+            {
+                newCheckpoint().write(os);
+            }
+            finally
+            {
+                os.close();
+            }
+        }
+        catch (IOException e)
+        {
+            Util.userError("Cannot write checkpoint", fname);
+        }
+    }
+
+
+    /**
+     * The <code>restoreCheckpoint()</code> method restores the state of all
+     * nodes in this simulation from the specified file. This method can only
+     * be called when the nodes have been instantiated and have not started
+     * executing.
+     *
+     * @param fname
+     *            the name of the file to read the checkpoint from
+     */
+    public void restoreCheckpoint(String fname)
+    {
+        try
+        {
+            InputStream is = new BufferedInputStream(new GZIPInputStream(
+                    new FileInputStream(fname)));
+            try
+            {
+                newCheckpoint().read(is);
+            }
+            finally
+            {
+                is.close();
+            }
+        }
+        catch (IOException e)
+        {
+            Util.userError("Cannot read checkpoint", fname);
+        }
+    }
+
+
+    private Checkpoint newCheckpoint()
+    {
+        Checkpoint c = new Checkpoint();
+        for (Node n : nodes)
+        {
+            if (n != null && n.simulator != null)
+                c.addRoot("node" + n.id, n.simulator);
+        }
+        return c;
     }
 
 
@@ -32,6 +32,10 @@
 
 package avrora.avrora.sim;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import avrora.avrora.arch.legacy.LegacyInstr;
 import avrora.avrora.core.Program;
 import avrora.avrora.sim.clock.MainClock;
@@ -716,6 +720,45 @@ public class Simulator
     }
 
 
+    /**
+     * The <code>saveState()</code> method writes a checkpoint of the state of
+     * this simulator, including the SRAM, registers, interrupts, pending events
+     * and the state of the on-chip and external devices, to the specified
+     * stream. The simulator must not be running.
+     *
+     * @param os
+     *            the stream to write the checkpoint to
+     * @throws IOException
+     *             if the stream cannot be written
+     */
+    public void saveState(OutputStream os) throws IOException
+    {
+        Checkpoint c = new Checkpoint();
+        c.addRoot("node" + id, this);
+        c.write(os);
+    }
+
+
+    /**
+     * The <code>restoreState()</code> method restores the state of this
+     * simulator from a checkpoint written by <code>saveState()</code>. The
+     * simulator must have been created with the same program, platform and
+     * options as the simulator that saved the checkpoint, and must not have
+     * been started yet.
+     *
+     * @param is
+     *            the stream to read the checkpoint from
+     * @throws IOException
+     *             if the stream cannot be read
+     */
+    public void restoreState(InputStream is) throws IOException
+    {
+        Checkpoint c = new Checkpoint();
+        c.addRoot("node" + id, this);
+        c.read(is);
+    }
+
+
     /**
      * The <code>start()</code> method begins the simulation. It causes the
      * simulator to invoke a runLoop that executes instructions, firing probes
@@ -731,6 +774,18 @@ public class Simulator
     }
 
 
+    /**
+     * The <code>resume()</code> method continues a simulation that was started
+     * and then stopped with the <code>stop()</code> method. The simulation
+     * continues at the same time and instruction where it was stopped, and the
+     * method returns under the same conditions as <code>start()</code>.
+     */
+    public void resume()
+    {
+        interpreter.resume();
+    }
+
+
     /**
      * The <code>step()</code> method steps the simulation one instruction or
      * cycle.
@@ -788,6 +843,24 @@ public class Simulator
     }
 
 
+    /**
+     * The <code>insertProbe()</code> method allows a probe to be inserted on a
+     * set of instructions, for example all the instructions of a certain kind
+     * found with <code>Program.findInstrs()</code>. Only those instructions are
+     * instrumented; unlike a global probe, this does not force the interpreter
+     * to check for probes before and after every instruction.
+     *
+     * @param p
+     *            the probe to insert
+     * @param addrs
+     *            the addresses of the instructions on which to insert the probe
+     */
+    public void insertProbe(Probe p, int[] addrs)
+    {
+        interpreter.insertProbe(p, addrs);
+    }
+
+
     /**
      * The <code>removeProbe()</code> method removes a probe from the global
      * probe table (the probes executed before and after every instruction). The
@@ -818,6 +891,22 @@ public class Simulator
     }
 
 
+    /**
+     * The <code>removeProbe()</code> method removes a probe from the
+     * instructions at the specified addresses. The comparison used is
+     * reference equality, not <code>.equals()</code>.
+     *
+     * @param p
+     *            the probe to remove
+     * @param addrs
+     *            the addresses from which to remove the probe
+     */
+    public void removeProbe(Probe p, int[] addrs)
+    {
+        interpreter.removeProbe(p, addrs);
+    }
+
+
     /**
      * The <code>insertWatch()</code> method allows a watch to be inserted at a
      * memory location. The probe will be executed before every read or write to
@@ -43,7 +43,9 @@ import avrora.cck.util.Util;
  * <code>Simulator</code> in a multiple-node simulation. The mapping is
  * one-to-one: each simulator is expected to be run in its own thread. Multiple
  * simulators are then synchronized by being inserted into a group using the
- * <code>GlobalClock</code> class.
+ * <code>GlobalClock</code> class. Alternatively, a synchronizer can run the
+ * simulator in slices on one of its own threads through the
+ * <code>runSlice()</code> method, in which case this thread is never started.
  *
  * @author Ben L. Titzer
  */
@@ -61,6 +63,12 @@ public class SimulatorThread extends Thread
      */
     protected Synchronizer synchronizer;
 
+    /**
+     * The <code>started</code> field records whether the simulator of this
+     * node has been started, so that further slices resume it.
+     */
+    protected boolean started;
+
 
     /**
      * The constructor for the simulator thread accepts an instance of
@@ -108,11 +116,50 @@ public class SimulatorThread extends Thread
      */
     @Override
     public void run()
+    {
+        try
+        {
+            execute();
+        }
+        finally
+        {
+            if (synchronizer != null)
+                synchronizer.removeNode(node);
+        }
+    }
+
+
+    /**
+     * The <code>runSlice()</code> method runs the simulator of this node in the
+     * calling thread instead of in this thread, until the simulator is stopped
+     * or terminates. The first call starts the simulator; each further call
+     * resumes it where it was stopped. This allows a scheduler to execute many
+     * nodes as resumable tasks on a few threads, without ever starting the
+     * threads of the nodes.
+     *
+     * @return true if the simulator was stopped and can be resumed; false if
+     *         it terminated, e.g. through a timeout or an error
+     */
+    public boolean runSlice()
+    {
+        return execute();
+    }
+
+
+    private boolean execute()
     {
         try
         {
             Simulator simulator = node.getSimulator();
-            simulator.start();
+            if (started)
+            {
+                simulator.resume();
+            } else
+            {
+                started = true;
+                simulator.start();
+            }
+            return true;
         }
         catch (SimAction.TimeoutException te)
         {
@@ -128,11 +175,7 @@ public class SimulatorThread extends Thread
         {
             e.report();
         }
-        finally
-        {
-            if (synchronizer != null)
-                synchronizer.removeNode(node);
-        }
+        return false;
     }
 
 
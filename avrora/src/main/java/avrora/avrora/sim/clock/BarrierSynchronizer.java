@@ -59,6 +59,13 @@ public class BarrierSynchronizer extends Synchronizer
     protected final HashMap<SimulatorThread, SynchEvent> threadMap;
     protected final Simulator.Event action;
 
+    /**
+     * The <code>interval</code> field stores the number of cycles until the
+     * next barrier. It is a multiple of the period; when all nodes are asleep
+     * at a barrier, the barriers before the earliest wakeup are skipped.
+     */
+    protected long interval;
+
     protected final Object condition;
     protected int goal;
     protected int meet_count;
@@ -122,6 +129,7 @@ public class BarrierSynchronizer extends Synchronizer
         {
             try
             {
+                long delta;
                 synchronized (condition)
                 {
                     // if we have been removed since the last synchronization,
@@ -139,6 +147,7 @@ public class BarrierSynchronizer extends Synchronizer
                         condition.wait();
 
                     met = false;
+                    delta = interval;
                 }
                 // if we have been removed since the last synchronization, don't
                 // insert synch event
@@ -146,7 +155,7 @@ public class BarrierSynchronizer extends Synchronizer
                     return;
 
                 // we have not been removed, we can reinsert the synch event
-                clock.insertEvent(this, period);
+                clock.insertEvent(this, delta);
             }
             catch (InterruptedException e)
             {
@@ -181,9 +190,11 @@ public class BarrierSynchronizer extends Synchronizer
             // other threads
             meet_count = 0;
             wait_count = 0;
+            interval = nextInterval();
             // perform the action that should be run while all threads are
             // stopped (serial)
-            action.fire();
+            if (action != null)
+                action.fire();
             // release threads
             condition.notifyAll();
             return true;
@@ -191,6 +202,31 @@ public class BarrierSynchronizer extends Synchronizer
     }
 
 
+    /**
+     * The <code>nextInterval()</code> method computes the number of cycles
+     * until the next barrier, after all threads have met. If every node is
+     * asleep and can only be woken by one of its own events, nothing happens in
+     * the network before the earliest of these events, and the barriers before
+     * it are skipped. The barriers are not skipped if there is an action to
+     * fire at each of them.
+     *
+     * @return the number of cycles until the next barrier
+     */
+    protected long nextInterval()
+    {
+        if (action != null)
+            return period;
+        long idle = Long.MAX_VALUE;
+        for (SynchEvent e : threadMap.values())
+        {
+            idle = Math.min(idle, idleCycles(e.thread.getSimulator()));
+            if (idle < 2 * period)
+                return period;
+        }
+        return idle / period * period;
+    }
+
+
     /**
      * The <code>start()</code> method starts the threads executing, and the
      * synchronizer will add whatever synchronization to their execution that is
@@ -215,7 +251,14 @@ public class BarrierSynchronizer extends Synchronizer
     @Override
     public void join() throws InterruptedException
     {
-        for (SimulatorThread thread : threadMap.keySet())
+        // finishing threads remove themselves from the map, so iterate over a
+        // snapshot of it
+        SimulatorThread[] threads;
+        synchronized (this)
+        {
+            threads = threadMap.keySet().toArray(new SimulatorThread[threadMap.size()]);
+        }
+        for (SimulatorThread thread : threads)
         {
             thread.join();
         }
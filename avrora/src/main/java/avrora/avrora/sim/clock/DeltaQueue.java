@@ -32,6 +32,10 @@
 
 package avrora.avrora.sim.clock;
 
+import java.io.IOException;
+import java.util.ArrayList;
+
+import avrora.avrora.sim.Checkpoint;
 import avrora.avrora.sim.Simulator;
 
 /**
@@ -57,9 +61,27 @@ import avrora.avrora.sim.Simulator;
  * to store the maximum encountered simultaneous events. It does not use
  * standard libraries, casts, virtual dispatch, etc.
  */
-public class DeltaQueue
+public class DeltaQueue implements Checkpoint.Stateful
 {
 
+    /**
+     * The <code>EventVisitor</code> interface is used to visit the events that
+     * are currently in the queue.
+     */
+    public interface EventVisitor
+    {
+        /**
+         * The <code>visit()</code> method is called for each insertion of an
+         * event in the queue.
+         *
+         * @param e
+         *            the event
+         * @param cycles
+         *            the number of clock cycles until the event fires
+         */
+        public void visit(Simulator.Event e, long cycles);
+    }
+
     /**
      * The <code>EventList</code> class represents a link in the list of events
      * for a given <code>Link</code> in the delta queue chain.
@@ -154,28 +176,28 @@ public class DeltaQueue
      * The <code>head</code> field stores a reference to the head of the delta
      * queue, which represents the event that is nearest in the future.
      */
-    protected Link head;
+    protected transient Link head;
 
     /**
      * The <code>freeLinks</code> field stores a reference to any free links
      * that have become unused during the processing of events. A free list is
      * used to prevent garbage from accumulating.
      */
-    protected Link freeLinks;
+    protected transient Link freeLinks;
 
     /**
      * The <code>freeEventLists</code> field stores a reference to any free
      * event links that have become unused during the processing of events. A
      * free list is used to prevent garbage from accumulating.
      */
-    protected EventList freeEventLists;
+    protected transient EventList freeEventLists;
 
     /**
      * The <code>count</code> field stores the total number of cycles that this
      * queue has been advanced, i.e. the sum of all <code>advance()</code>
      * calls.
      */
-    protected long count;
+    protected transient long count;
 
 
     /**
@@ -396,6 +418,130 @@ public class DeltaQueue
     }
 
 
+    /**
+     * The <code>visitEvents()</code> method visits each event in the queue in
+     * the order in which the events will fire.
+     *
+     * @param v
+     *            the visitor to call for each event
+     */
+    public void visitEvents(EventVisitor v)
+    {
+        long cycles = 0;
+        for (Link pos = head; pos != null; pos = pos.next)
+        {
+            cycles += pos.delta;
+            for (EventList l = pos.events; l != null; l = l.next)
+                v.visit(l.event, cycles);
+        }
+    }
+
+
+    /**
+     * The <code>reset()</code> method removes all events from the queue and
+     * sets the total number of cycles the queue has been advanced.
+     *
+     * @param c
+     *            the new cycle count of the queue
+     */
+    protected void reset(long c)
+    {
+        while (head != null)
+        {
+            Link next = head.next;
+            free(head);
+            head = next;
+        }
+        count = c;
+    }
+
+
+    /**
+     * The <code>saveState()</code> method saves the cycle count and the events
+     * of the queue that are part of the checkpoint. Other events, such as the
+     * events of monitors, belong to the run that is saving the checkpoint.
+     *
+     * @param out
+     *            the checkpoint stream to write to
+     */
+    @Override
+    public void saveState(Checkpoint.Output out) throws IOException
+    {
+        ArrayList<Simulator.Event> events = new ArrayList<Simulator.Event>();
+        ArrayList<Long> times = new ArrayList<Long>();
+        collectEvents(events, times);
+
+        out.writeLong(count);
+        int saved = 0;
+        for (Simulator.Event e : events)
+        {
+            if (out.contains(e))
+                saved++;
+        }
+        out.writeInt(saved);
+        for (int cntr = 0; cntr < events.size(); cntr++)
+        {
+            Simulator.Event e = events.get(cntr);
+            if (!out.contains(e))
+                continue;
+            out.writeReference(e);
+            out.writeLong(times.get(cntr));
+        }
+    }
+
+
+    /**
+     * The <code>restoreState()</code> method restores the cycle count and the
+     * events of the queue from a checkpoint. Events of the current run that are
+     * not part of the checkpoint stay in the queue with their delays unchanged.
+     *
+     * @param in
+     *            the checkpoint stream to read from
+     */
+    @Override
+    public void restoreState(Checkpoint.Input in) throws IOException
+    {
+        ArrayList<Simulator.Event> events = new ArrayList<Simulator.Event>();
+        ArrayList<Long> times = new ArrayList<Long>();
+        collectEvents(events, times);
+
+        reset(in.readLong());
+        for (int cntr = events.size() - 1; cntr >= 0; cntr--)
+        {
+            Simulator.Event e = events.get(cntr);
+            if (!in.contains(e))
+                insertEvent(e, times.get(cntr));
+        }
+
+        // insert the saved events last and in reverse, so that events due at
+        // the same time fire in the saved order, before those of this run
+        int saved = in.readInt();
+        Simulator.Event[] restored = new Simulator.Event[saved];
+        long[] delays = new long[saved];
+        for (int cntr = 0; cntr < saved; cntr++)
+        {
+            restored[cntr] = (Simulator.Event) in.readReference(null);
+            delays[cntr] = in.readLong();
+        }
+        for (int cntr = saved - 1; cntr >= 0; cntr--)
+            insertEvent(restored[cntr], delays[cntr]);
+    }
+
+
+    private void collectEvents(final ArrayList<Simulator.Event> events,
+            final ArrayList<Long> times)
+    {
+        visitEvents(new EventVisitor() {
+            @Override
+            public void visit(Simulator.Event e, long cycles)
+            {
+                events.add(e);
+                times.add(cycles);
+            }
+        });
+    }
+
+
     private void free(Link l)
     {
         l.next = freeLinks;
@@ -0,0 +1,490 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.sim.clock;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import avrora.avrora.sim.Simulation;
+import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.SimulatorThread;
+import avrora.cck.util.Util;
+
+/**
+ * The <code>LookaheadSynchronizer</code> class implements a conservative
+ * synchronizer for multi-node simulations that does not use any global lock.
+ * Each node periodically publishes its local time in a volatile timestamp. A
+ * node that needs to wait for its neighbors compares the requested time with
+ * the published timestamps of the other nodes; it spins briefly, or yields its
+ * processor when the nodes outnumber the processors, and then parks its thread
+ * until the nodes it waits for have published a time that is late enough.
+ * <p/>
+ * The publication period of a node is its lookahead: the number of cycles that
+ * can pass before another node could observe an effect of this node, such as
+ * the first byte of a radio transmission. It is derived from the lead time and
+ * byte time of the radio medium the node is attached to. A node always
+ * publishes its exact time before waiting, which guarantees that two nodes can
+ * never wait for each other.
+ * <p/>
+ * The synchronizer records how long each node has been blocked, which can be
+ * reported at the end of the simulation.
+ */
+public class LookaheadSynchronizer extends Synchronizer
+{
+
+    /**
+     * The <code>SPIN_LIMIT</code> field stores the number of times a waiting
+     * thread checks the timestamps of the other nodes before parking, when
+     * every node can run on a processor of its own.
+     */
+    protected static final int SPIN_LIMIT = 1000;
+
+    /**
+     * The <code>YIELD_LIMIT</code> field stores the number of times a waiting
+     * thread yields its processor before parking, when the nodes outnumber the
+     * processors.
+     */
+    protected static final int YIELD_LIMIT = 200;
+
+    protected final long defaultPeriod;
+    protected boolean parallel;
+    protected final HashMap<SimulatorThread, NodeState> threadMap;
+    protected NodeState[] states;
+
+    /**
+     * The <code>NodeState</code> class stores the published time of a node,
+     * the threads waiting for it, and statistics about how long the node has
+     * been blocked. It is also the event that periodically publishes the time
+     * of the node.
+     */
+    public class NodeState implements Simulator.Event
+    {
+
+        public final Simulation.Node node;
+        protected final SimulatorThread thread;
+        protected final MainClock clock;
+        protected final ConcurrentLinkedQueue<NodeState> waiters;
+        protected long period;
+
+        protected volatile long time;
+        protected volatile boolean removed;
+        protected volatile long waitTime;
+        protected final AtomicInteger pending;
+
+        protected long blockedNanos;
+        protected long startNanos;
+        protected long endNanos;
+        protected int waits;
+        protected int parks;
+
+
+        protected NodeState(Simulation.Node n)
+        {
+            node = n;
+            thread = n.getThread();
+            clock = n.getSimulator().getClock();
+            waiters = new ConcurrentLinkedQueue<NodeState>();
+            pending = new AtomicInteger();
+            period = defaultPeriod;
+        }
+
+
+        /**
+         * The <code>fire()</code> method of this event is called periodically
+         * by the event queue of the node. It publishes the current time of the
+         * node and wakes any threads that were waiting for this time.
+         */
+        @Override
+        public void fire()
+        {
+            if (removed)
+                return;
+            long now = clock.getCount();
+            long next = publish(now);
+            // a sleeping node publishes again when its next event fires, but
+            // no later than the time that another node waits for
+            long delta = Math.max(period, idleCycles(thread.getSimulator()));
+            clock.insertEvent(this, Math.min(delta, next - now));
+        }
+
+
+        /**
+         * The <code>publish()</code> method publishes the time of this node and
+         * wakes the nodes for which it was the last node they waited for.
+         *
+         * @param now
+         *            the time of this node
+         * @return the earliest time that a node still waits for, or
+         *         <code>Long.MAX_VALUE</code> if no node waits
+         */
+        protected long publish(long now)
+        {
+            time = now;
+            if (waiters.isEmpty())
+                return Long.MAX_VALUE;
+            long next = Long.MAX_VALUE;
+            Iterator<NodeState> i = waiters.iterator();
+            while (i.hasNext())
+            {
+                NodeState w = i.next();
+                long t = w.waitTime;
+                if (t > now)
+                {
+                    next = Math.min(next, t);
+                    continue;
+                }
+                // wake the node when this was the last node it waited for
+                if (waiters.remove(w) && w.pending.decrementAndGet() == 0)
+                    LockSupport.unpark(w.thread);
+            }
+            return next;
+        }
+
+
+        /**
+         * The <code>getBlockedNanos()</code> method returns the wall clock
+         * time that this node has spent waiting for other nodes.
+         *
+         * @return the time blocked in nanoseconds
+         */
+        public long getBlockedNanos()
+        {
+            return blockedNanos;
+        }
+
+
+        /**
+         * The <code>getRunNanos()</code> method returns the wall clock time
+         * between the start of the simulation and the termination of this node,
+         * or the current time if the node is still running.
+         *
+         * @return the running time in nanoseconds
+         */
+        public long getRunNanos()
+        {
+            long end = removed ? endNanos : System.nanoTime();
+            return end - startNanos;
+        }
+
+
+        public int getWaitCount()
+        {
+            return waits;
+        }
+
+
+        public int getParkCount()
+        {
+            return parks;
+        }
+    }
+
+
+    /**
+     * The constructor for the <code>LookaheadSynchronizer</code> class creates
+     * a new synchronizer with the specified default period. The period is used
+     * for nodes whose lookahead has not been set.
+     * 
+     * @param p
+     *            the default period in clock cycles at which nodes publish
+     *            their time
+     */
+    public LookaheadSynchronizer(long p)
+    {
+        defaultPeriod = p;
+        threadMap = new HashMap<SimulatorThread, NodeState>();
+        states = new NodeState[0];
+    }
+
+
+    /**
+     * The <code>setLookahead()</code> method sets the lookahead of a node,
+     * i.e. the number of clock cycles before any action of this node can be
+     * observed by another node. The node publishes its time at least this
+     * often. This method should only be called before the <code>start()</code>
+     * method is called.
+     * 
+     * @param n
+     *            the node
+     * @param cycles
+     *            the lookahead of the node in clock cycles
+     */
+    public synchronized void setLookahead(Simulation.Node n, long cycles)
+    {
+        NodeState s = threadMap.get(n.getThread());
+        if (s != null && cycles > 0 && cycles < s.period)
+            s.period = cycles;
+    }
+
+
+    /**
+     * The <code>getNodeStates()</code> method returns the synchronization state
+     * of each node in this synchronizer, which includes the statistics about
+     * how long each node was blocked.
+     * 
+     * @return an array containing the state of each node
+     */
+    public NodeState[] getNodeStates()
+    {
+        return states;
+    }
+
+
+    /**
+     * The <code>addNode()</code> method adds a node to this synchronization
+     * group. This method should only be called before the <code>start()</code>
+     * method is called.
+     * 
+     * @param n
+     *            the simulator representing the node to add to this group
+     */
+    @Override
+    public synchronized void addNode(Simulation.Node n)
+    {
+        // if we already have this thread, do nothing
+        SimulatorThread st = n.getThread();
+        if (threadMap.containsKey(st))
+            return;
+
+        st.setSynchronizer(this);
+        NodeState s = new NodeState(n);
+        threadMap.put(st, s);
+
+        NodeState[] nstates = new NodeState[states.length + 1];
+        System.arraycopy(states, 0, nstates, 0, states.length);
+        nstates[states.length] = s;
+        states = nstates;
+    }
+
+
+    /**
+     * The <code>removeNode()</code> method removes a node from this
+     * synchronization group, and wakes any nodes that might be waiting on it.
+     * 
+     * @param n
+     *            the simulator thread to remove from this synchronization group
+     */
+    @Override
+    public void removeNode(Simulation.Node n)
+    {
+        NodeState s = threadMap.get(n.getThread());
+        if (s == null || s.removed)
+            return;
+        s.endNanos = System.nanoTime();
+        s.removed = true;
+        // a removed node never holds back the other nodes
+        s.publish(Long.MAX_VALUE);
+    }
+
+
+    /**
+     * The <code>waitForNeighbors()</code> method is called from within the
+     * execution of a node when that node needs to wait for its neighbors to
+     * catch up to it in execution time. The node will be blocked until the
+     * other nodes in other threads catch up in global time.
+     * 
+     * @param time
+     *            the global time to wait for all neighbors to reach
+     */
+    @Override
+    public void waitForNeighbors(long time)
+    {
+        NodeState self = threadMap.get(Thread.currentThread());
+        // if the current thread is not in the synchronizer, do nothing
+        if (self == null)
+            return;
+
+        // publish the exact time of this node first, so that no two nodes can
+        // wait for each other
+        if (!self.removed)
+            self.publish(self.clock.getCount());
+
+        for (NodeState other : states)
+        {
+            if (other != self && other.time < time)
+            {
+                waitFor(self, time);
+                return;
+            }
+        }
+    }
+
+
+    private void waitFor(NodeState self, long time)
+    {
+        long start = System.nanoTime();
+        self.waits++;
+
+        // spinning only pays off when the nodes that lag run on processors of
+        // their own; otherwise the waiting thread hands its processor to them
+        int limit = parallel ? SPIN_LIMIT : YIELD_LIMIT;
+        for (int spin = 0; spin < limit; spin++)
+        {
+            if (!lags(self, time))
+            {
+                self.blockedNanos += System.nanoTime() - start;
+                return;
+            }
+            if (!parallel)
+                Thread.yield();
+        }
+
+        // register with every node that lags, and park until the last of
+        // them has passed the time; the one extra count is released below
+        self.waitTime = time;
+        self.pending.set(1);
+        for (NodeState other : states)
+        {
+            if (other == self || other.time >= time)
+                continue;
+            self.pending.incrementAndGet();
+            other.waiters.add(self);
+            // check again after registering to avoid missing the wakeup; the
+            // thread that removes the registration releases its count
+            if (other.time >= time && other.waiters.remove(self))
+                self.pending.decrementAndGet();
+        }
+        if (self.pending.decrementAndGet() > 0)
+        {
+            self.parks++;
+            while (self.pending.get() > 0)
+                LockSupport.park(this);
+        }
+        self.blockedNanos += System.nanoTime() - start;
+    }
+
+
+    private boolean lags(NodeState self, long time)
+    {
+        for (NodeState other : states)
+        {
+            if (other != self && other.time < time)
+                return true;
+        }
+        return false;
+    }
+
+
+    /**
+     * The <code>start()</code> method starts the threads executing, and the
+     * synchronizer will add whatever synchronization to their execution that is
+     * necessary to preserve the global timing properties of simulation.
+     */
+    @Override
+    public synchronized void start()
+    {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        parallel = states.length <= cpus;
+        long now = System.nanoTime();
+        for (NodeState s : states)
+        {
+            // when the nodes share the processors, waking a waiting node early
+            // only preempts a node that has work to do; publish less often
+            if (!parallel)
+                s.period = defaultPeriod;
+            s.startNanos = now;
+            s.clock.insertEvent(s, s.period);
+        }
+        for (NodeState s : states)
+        {
+            s.thread.start();
+        }
+    }
+
+
+    /**
+     * The <code>join()</code> method will block the caller until all of the
+     * threads in this synchronization interval have terminated, either through
+     * <code>stop()</code> being called, or terminating normally such as through
+     * a timeout.
+     * 
+     * @throws InterruptedException
+     *             if the thread was interrupted
+     */
+    @Override
+    public void join() throws InterruptedException
+    {
+        for (NodeState s : states)
+        {
+            s.thread.join();
+        }
+    }
+
+
+    /**
+     * The <code>stop()</code> method will terminate all the simulation threads.
+     * It is not guaranteed to stop all the simulation threads at the same
+     * global time.
+     */
+    @Override
+    public synchronized void stop()
+    {
+        for (NodeState s : states)
+        {
+            s.thread.getSimulator().stop();
+        }
+    }
+
+
+    /**
+     * The <code>pause()</code> method temporarily pauses the simulation. The
+     * nodes are not guaranteed to stop at the same global time. This method
+     * will return when all threads in the simulation have been paused and will
+     * no longer make progress until the <code>start()</code> method is called
+     * again.
+     */
+    @Override
+    public synchronized void pause()
+    {
+        throw Util.unimplemented();
+    }
+
+
+    /**
+     * The <code>synch()</code> method will pause all of the nodes at the same
+     * global time. This method can only be called when the simulation is
+     * paused. It will run all threads forward until the global time specified
+     * and pause them.
+     * 
+     * @param globalTime
+     *            the global time in clock cycles to run all threads ahead to
+     */
+    @Override
+    public synchronized void synch(long globalTime)
+    {
+        throw Util.unimplemented();
+    }
+}
@@ -62,9 +62,26 @@ public class MainClock extends Clock
      *            the number of cycles per second for this clock
      */
     public MainClock(String n, long hz)
+    {
+        this(n, hz, new DeltaQueue());
+    }
+
+
+    /**
+     * The <code>MainClock()</code> method creates a main clock with the
+     * specified name and frequency that uses the given event queue.
+     * 
+     * @param n
+     *            the name of this clock
+     * @param hz
+     *            the number of cycles per second for this clock
+     * @param q
+     *            the event queue that stores the events for this clock
+     */
+    public MainClock(String n, long hz, DeltaQueue q)
     {
         super(n, hz);
-        eventQueue = new DeltaQueue();
+        eventQueue = q;
     }
 
 
@@ -107,12 +107,16 @@ public class RippleSynchronizer extends Synchronizer
                     lastLink = advance(now, currentWaitLink());
                     delta = lastLink.next.time - now;
                 }
-                if (delta < notifyPeriod)
+                // a sleeping node reaches its next event without doing
+                // anything, so it can notify the others when it gets there
+                long period = Math.max(notifyPeriod,
+                        idleCycles(thread.getSimulator()));
+                if (delta < period)
                 {
                     clock.insertEvent(this, delta);
                 } else
                 {
-                    clock.insertEvent(this, notifyPeriod);
+                    clock.insertEvent(this, period);
                 }
             }
         }
@@ -32,8 +32,11 @@
 
 package avrora.avrora.sim.clock;
 
+import avrora.avrora.actions.SimAction;
 import avrora.avrora.sim.Simulation;
 import avrora.avrora.sim.Simulator;
+import avrora.cck.text.StringUtil;
+import avrora.cck.text.Terminal;
 import avrora.cck.util.Util;
 
 /**
@@ -49,6 +52,7 @@ public class StepSynchronizer extends Synchronizer
     protected final Simulator.Event action;
     protected Simulator[] threads;
     protected int numThreads;
+    protected int numLive;
     protected boolean shouldRun;
     protected boolean innerLoop;
     protected RunThread thread;
@@ -89,6 +93,7 @@ public class StepSynchronizer extends Synchronizer
             threads = nthreads;
         }
         threads[nn] = n.getSimulator();
+        numLive++;
     }
 
 
@@ -221,10 +226,13 @@ public class StepSynchronizer extends Synchronizer
         {
             for (int cntr = 0; cntr < numThreads; cntr++)
             {
+                Simulator sim = threads[cntr];
+                // skip the nodes that have terminated
+                if (sim == null)
+                    continue;
                 int left = --cycles[cntr];
                 if (left <= 0)
                 {
-                    Simulator sim = threads[cntr];
                     try
                     {
                         cycles[cntr] = sim.step();
@@ -232,7 +240,7 @@ public class StepSynchronizer extends Synchronizer
                     catch (Throwable t)
                     {
                         reportExit(sim, t);
-                        removeSimulator(threads[cntr]);
+                        removeSimulator(sim);
                     }
                 }
             }
@@ -250,15 +258,54 @@ public class StepSynchronizer extends Synchronizer
     }
 
 
+    /**
+     * The <code>reportExit()</code> method reports the termination of a node
+     * in the same way as the thread of the node would when it runs alone.
+     * Timeouts are the normal end of a simulation and are not reported.
+     *
+     * @param s
+     *            the simulator of the node that terminated
+     * @param t
+     *            the exception that terminated the node
+     */
     void reportExit(Simulator s, Throwable t)
     {
-        throw Util.unimplemented();
+        if (t instanceof SimAction.TimeoutException)
+            return;
+        if (t instanceof SimAction.BreakPointException)
+        {
+            int address = ((SimAction.BreakPointException) t).address;
+            Terminal.printYellow("Simulation terminated");
+            Terminal.println(": breakpoint at "
+                    + StringUtil.addrToString(address) + " reached.");
+        } else if (t instanceof Util.Error)
+            ((Util.Error) t).report();
+        else
+            throw Util.unexpected(t);
     }
 
 
+    /**
+     * The <code>removeSimulator()</code> method removes a node from the nodes
+     * that are stepped. The simulation ends when no node is left.
+     *
+     * @param s
+     *            the simulator of the node to remove
+     */
     void removeSimulator(Simulator s)
     {
-        throw Util.unimplemented();
+        for (int cntr = 0; cntr < numThreads; cntr++)
+        {
+            if (threads[cntr] == s)
+            {
+                threads[cntr] = null;
+                if (--numLive == 0)
+                {
+                    shouldRun = false;
+                    innerLoop = false;
+                }
+            }
+        }
     }
 
 
@@ -33,6 +33,7 @@
 package avrora.avrora.sim.clock;
 
 import avrora.avrora.sim.Simulation;
+import avrora.avrora.sim.Simulator;
 import avrora.avrora.sim.SimulatorThread;
 import avrora.cck.util.Util;
 
@@ -131,6 +132,27 @@ public abstract class Synchronizer
      */
     public abstract void synch(long globalTime);
 
+
+    /**
+     * The <code>idleCycles()</code> method computes the number of cycles that
+     * the specified node will sleep before its next event fires. Nothing
+     * happens on an idle node before then, so other nodes do not need to hear
+     * about its progress in between. A synchronizer that returns 0 never skips
+     * ahead.
+     *
+     * @param s
+     *            the simulator of the node
+     * @return the number of cycles until the first event of the node if it is
+     *         idle; 0 if it is not idle or has no events
+     */
+    protected long idleCycles(Simulator s)
+    {
+        if (!s.getInterpreter().isIdle())
+            return 0;
+        long delta = s.getClock().getFirstEventDelta();
+        return delta < 0 ? 0 : delta;
+    }
+
     public static class Single extends Synchronizer
     {
 
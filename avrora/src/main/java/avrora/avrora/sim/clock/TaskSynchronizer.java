@@ -0,0 +1,466 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package avrora.avrora.sim.clock;
+
+import java.util.HashMap;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import avrora.avrora.sim.Simulation;
+import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.SimulatorThread;
+import avrora.cck.util.Util;
+
+/**
+ * The <code>TaskSynchronizer</code> class implements a synchronizer that runs
+ * the nodes of a simulation as resumable tasks on a fixed pool of worker
+ * threads, instead of running every node in a thread of its own. This allows
+ * simulations of many more nodes than the operating system can schedule as
+ * threads efficiently.
+ * <p/>
+ * All nodes advance together in windows of simulation time. In each window,
+ * the workers take the nodes one after another and run each of them until the
+ * end of the window, where an event stops the node; in the next window, the
+ * node resumes where it was stopped. The next window begins when all nodes
+ * have reached the end of the current one. A window is never longer than the
+ * time a receiver of the radio medium waits for its neighbors, which is the
+ * time to transmit one byte. The neighbors of a node that waits have therefore
+ * always reached the requested time already, and a task never blocks inside of
+ * a window. When all nodes sleep at the end of a window, the next window
+ * extends to the time the first of them wakes up.
+ * <p/>
+ * An optional event is fired between two windows, while all nodes are stopped.
+ * It can be used to exchange the interactions between nodes, such as signals
+ * on wires, that were recorded during the window.
+ */
+public class TaskSynchronizer extends Synchronizer
+{
+
+    /**
+     * The <code>MAX_OVERRUN</code> field stores the number of cycles by which a
+     * node may pass the end of a window before it stops, i.e. the rest of the
+     * instruction or interrupt invocation during which the window ends.
+     */
+    public static final long MAX_OVERRUN = 16;
+
+    protected final Simulator.Event action;
+    protected final int numWorkers;
+    protected final HashMap<Simulation.Node, NodeTask> taskMap;
+    protected NodeTask[] tasks;
+    protected int numTasks;
+    protected long window;
+
+    protected final AtomicInteger nextTask;
+    protected long safeTime;
+    protected long windowEnd;
+    protected boolean done;
+    protected volatile boolean shouldRun;
+
+    protected Worker[] workers;
+    protected CyclicBarrier barrier;
+
+    /**
+     * The <code>NodeTask</code> class represents a node that is executed as a
+     * resumable task. It is also the event that stops the node at the end of
+     * each window.
+     */
+    public class NodeTask implements Simulator.Event
+    {
+
+        public final Simulation.Node node;
+        protected final SimulatorThread thread;
+        protected final Simulator simulator;
+        protected final MainClock clock;
+        protected boolean yielded;
+        protected volatile boolean removed;
+
+
+        protected NodeTask(Simulation.Node n)
+        {
+            node = n;
+            thread = n.getThread();
+            simulator = n.getSimulator();
+            clock = simulator.getClock();
+        }
+
+
+        /**
+         * The <code>fire()</code> method of this event is called at the end of
+         * a window. It stops the node, which returns control to the worker that
+         * runs it.
+         */
+        @Override
+        public void fire()
+        {
+            yielded = true;
+            simulator.stop();
+        }
+
+
+        /**
+         * The <code>run()</code> method runs the node in the current thread up
+         * to the specified time.
+         *
+         * @param end
+         *            the end of the window in clock cycles
+         */
+        protected void run(long end)
+        {
+            long delta = end - clock.getCount();
+            // a node that is already past the end of the window has nothing
+            // to do
+            if (delta <= 0)
+                return;
+            yielded = false;
+            clock.insertEvent(this, delta);
+            // a node that stops before the end of the window has terminated
+            if (!thread.runSlice() || !yielded)
+            {
+                clock.removeEvent(this);
+                removed = true;
+            }
+        }
+    }
+
+    /**
+     * The <code>Worker</code> class is a thread of the pool that executes the
+     * nodes. In each window, it takes nodes that have not yet been run until
+     * there are none left, and then waits for the other workers at the end of
+     * the window.
+     */
+    protected class Worker extends Thread
+    {
+
+        protected Worker(int num)
+        {
+            super("worker-" + num);
+        }
+
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (!done)
+                {
+                    runTasks();
+                    barrier.await();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                // terminate the worker.
+            }
+            catch (BrokenBarrierException e)
+            {
+                // another worker was interrupted; terminate the worker.
+            }
+        }
+
+
+        private void runTasks()
+        {
+            for (int indx = nextTask.getAndIncrement(); indx < numTasks; indx = nextTask
+                    .getAndIncrement())
+            {
+                NodeTask t = tasks[indx];
+                try
+                {
+                    t.run(windowEnd);
+                }
+                catch (Throwable e)
+                {
+                    // report the error as the thread of the node would
+                    t.removed = true;
+                    getUncaughtExceptionHandler().uncaughtException(this, e);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * The constructor for the <code>TaskSynchronizer</code> class creates a new
+     * synchronizer with the specified default window length and number of
+     * worker threads.
+     *
+     * @param p
+     *            the length of a window in clock cycles, for nodes whose
+     *            lookahead has not been set
+     * @param w
+     *            the number of worker threads; when zero or less, one worker
+     *            per available processor is used
+     */
+    public TaskSynchronizer(long p, int w)
+    {
+        this(p, w, null);
+    }
+
+
+    /**
+     * The constructor for the <code>TaskSynchronizer</code> class creates a new
+     * synchronizer with the specified default window length and number of
+     * worker threads. The event passed as a parameter will be fired at the end
+     * of each window, when all nodes have been stopped.
+     *
+     * @param p
+     *            the length of a window in clock cycles, for nodes whose
+     *            lookahead has not been set
+     * @param w
+     *            the number of worker threads; when zero or less, one worker
+     *            per available processor is used
+     * @param e
+     *            the event to fire at the end of each window
+     */
+    public TaskSynchronizer(long p, int w, Simulator.Event e)
+    {
+        action = e;
+        window = p;
+        numWorkers = w > 0 ? w : Runtime.getRuntime().availableProcessors();
+        taskMap = new HashMap<Simulation.Node, NodeTask>();
+        tasks = new NodeTask[8];
+        nextTask = new AtomicInteger();
+    }
+
+
+    /**
+     * The <code>setLookahead()</code> method sets the lookahead of a node,
+     * i.e. the number of clock cycles that the node may run ahead of the
+     * others without having to wait for them. The windows are made short
+     * enough for all nodes. This method should only be called before the
+     * <code>start()</code> method is called.
+     *
+     * @param n
+     *            the node
+     * @param cycles
+     *            the lookahead of the node in clock cycles
+     */
+    public synchronized void setLookahead(Simulation.Node n, long cycles)
+    {
+        if (cycles > 0)
+            window = Math.min(window, Math.max(1, cycles - MAX_OVERRUN));
+    }
+
+
+    /**
+     * The <code>getWindow()</code> method returns the length of the windows
+     * in which the nodes advance together.
+     *
+     * @return the length of a window in clock cycles
+     */
+    public long getWindow()
+    {
+        return window;
+    }
+
+
+    /**
+     * The <code>addNode()</code> method adds a node to this synchronization
+     * group. This method should only be called before the <code>start()</code>
+     * method is called.
+     *
+     * @param n
+     *            the simulator representing the node to add to this group
+     */
+    @Override
+    public synchronized void addNode(Simulation.Node n)
+    {
+        // if we already have this node, do nothing
+        if (taskMap.containsKey(n))
+            return;
+
+        NodeTask t = new NodeTask(n);
+        taskMap.put(n, t);
+        if (numTasks == tasks.length)
+        {
+            NodeTask[] ntasks = new NodeTask[tasks.length * 2];
+            System.arraycopy(tasks, 0, ntasks, 0, tasks.length);
+            tasks = ntasks;
+        }
+        tasks[numTasks++] = t;
+    }
+
+
+    /**
+     * The <code>removeNode()</code> method removes a node from this
+     * synchronization group. The node is no longer run from the next window
+     * on.
+     *
+     * @param n
+     *            the node to remove from this synchronization group
+     */
+    @Override
+    public void removeNode(Simulation.Node n)
+    {
+        NodeTask t = taskMap.get(n);
+        if (t != null)
+            t.removed = true;
+    }
+
+
+    /**
+     * The <code>waitForNeighbors()</code> method is called from within the
+     * execution of a node when that node needs to wait for its neighbors to
+     * catch up to it in execution time. Since the windows are shorter than the
+     * lookahead of every node, the neighbors have always reached that time
+     * already, and the node never waits.
+     *
+     * @param time
+     *            the global time to wait for all neighbors to reach
+     */
+    @Override
+    public void waitForNeighbors(long time)
+    {
+        if (time > safeTime && numTasks > 1)
+            throw Util.failure("Node waits for its neighbors beyond the current window: "
+                    + time + " > " + safeTime);
+    }
+
+
+    /**
+     * The <code>nextWindow()</code> method is called by the last worker that
+     * reaches the end of a window. It fires the event of this synchronizer,
+     * drops the nodes that have terminated and computes the end of the next
+     * window.
+     */
+    protected void nextWindow()
+    {
+        // Execute the event if there is one.
+        if (action != null)
+            action.fire();
+
+        int size = 0;
+        long wakeup = Long.MAX_VALUE;
+        for (int cntr = 0; cntr < numTasks; cntr++)
+        {
+            NodeTask t = tasks[cntr];
+            tasks[cntr] = null;
+            if (t.removed)
+                continue;
+            tasks[size++] = t;
+            wakeup = Math.min(wakeup,
+                    t.clock.getCount() + idleCycles(t.simulator));
+        }
+        numTasks = size;
+        if (numTasks == 0 || !shouldRun)
+        {
+            done = true;
+            return;
+        }
+
+        // no node can affect another before the first of them wakes up
+        safeTime = Math.max(windowEnd, wakeup);
+        windowEnd = Math.max(windowEnd + window, wakeup);
+        nextTask.set(0);
+    }
+
+
+    /**
+     * The <code>start()</code> method starts the worker threads, which begin
+     * executing the nodes in windows of simulation time.
+     */
+    @Override
+    public synchronized void start()
+    {
+        shouldRun = true;
+        windowEnd = Long.MAX_VALUE;
+        for (int cntr = 0; cntr < numTasks; cntr++)
+            windowEnd = Math.min(windowEnd, tasks[cntr].clock.getCount());
+        if (numTasks == 0)
+            windowEnd = 0;
+        nextWindow();
+
+        int count = Math.max(1, Math.min(numWorkers, numTasks));
+        barrier = new CyclicBarrier(count, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                nextWindow();
+            }
+        });
+        workers = new Worker[count];
+        for (int cntr = 0; cntr < count; cntr++)
+        {
+            workers[cntr] = new Worker(cntr);
+            workers[cntr].start();
+        }
+    }
+
+
+    /**
+     * The <code>join()</code> method will block the caller until all of the
+     * nodes in this synchronization group have terminated, either through
+     * <code>stop()</code> being called, or terminating normally such as through
+     * a timeout.
+     *
+     * @throws InterruptedException
+     *             if the thread was interrupted
+     */
+    @Override
+    public void join() throws InterruptedException
+    {
+        if (workers == null)
+            return;
+        for (Worker w : workers)
+            w.join();
+    }
+
+
+    /**
+     * The <code>stop()</code> method will terminate all the nodes. The workers
+     * finish the current window and then terminate.
+     */
+    @Override
+    public synchronized void stop()
+    {
+        shouldRun = false;
+        for (NodeTask t : taskMap.values())
+            t.simulator.stop();
+    }
+
+
+    @Override
+    public synchronized void pause()
+    {
+        throw Util.unimplemented();
+    }
+
+
+    @Override
+    public synchronized void synch(long globalTime)
+    {
+        throw Util.unimplemented();
+    }
+}
@@ -0,0 +1,613 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.sim.clock;
+
+import avrora.avrora.sim.Simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+
+/**
+ * The <code>TimingWheelQueue</code> class implements an event queue as a
+ * hierarchical timing wheel. It is a drop-in replacement for the
+ * <code>DeltaQueue</code>: events are inserted with a delay in clock cycles and
+ * are fired as the queue is advanced. Unlike the delta queue, inserting and
+ * removing an event does not require a scan of the pending events, which makes
+ * this queue preferable for nodes with many devices and monitors that keep
+ * many events pending at the same time.
+ * <p/>
+ * The wheel consists of eight levels of 256 slots each; level <code>n</code>
+ * covers bits <code>8n</code> to <code>8n+7</code> of the absolute time of an
+ * event. An event is stored at the level of the highest byte in which its time
+ * differs from the current position of the wheel. When the wheel moves to the
+ * time of the next event, the slots of the higher levels that contain that
+ * time are cascaded down, so that each event is moved at most once per level.
+ * <p/>
+ * Events that are due at the same time are fired in exactly the same order as
+ * the <code>DeltaQueue</code> would fire them, i.e. the most recently inserted
+ * event is fired first, and events inserted for the current time while a group
+ * of events is firing are fired as a separate group afterwards. This keeps
+ * simulation results identical, regardless of which queue is used.
+ */
+public class TimingWheelQueue extends DeltaQueue
+{
+
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 64 / SLOT_BITS;
+    private static final int WORDS = SLOTS / 64;
+    private static final int EARLY = -1;
+
+    /**
+     * The <code>Entry</code> class represents one insertion of an event into
+     * the queue. It is a member of two doubly linked lists: the list of entries
+     * in the same slot of the wheel, and the list of entries for the same event
+     * object, which allows all insertions of an event to be removed at once.
+     */
+    private static final class Entry
+    {
+        Simulator.Event event;
+        long time;
+        long seq;
+        int slot;
+
+        Entry prev;
+        Entry next;
+
+        Entry prevSame;
+        Entry nextSame;
+    }
+
+    /**
+     * The <code>heads</code> and <code>tails</code> fields store the lists of
+     * entries for each slot of each level of the wheel.
+     */
+    protected final transient Entry[] heads;
+    protected final transient Entry[] tails;
+
+    /**
+     * The <code>occupied</code> field stores a bitmap of the slots that
+     * contain at least one entry, so that the next event can be found without
+     * visiting empty slots.
+     */
+    protected final transient long[] occupied;
+
+    /**
+     * The <code>early</code> field stores a list of entries that are due
+     * before the current position of the wheel, sorted by time and then by
+     * insertion order. This list is only used when an event is inserted with a
+     * negative delay.
+     */
+    protected transient Entry early;
+
+    /**
+     * The <code>index</code> field maps each event to the most recent entry
+     * inserted for it.
+     */
+    protected final transient IdentityHashMap<Simulator.Event, Entry> index;
+
+    protected transient Entry freeEntries;
+
+    /**
+     * The <code>position</code> field stores the time of the current position
+     * of the wheel. All entries stored in the wheel are due at or after this
+     * time.
+     */
+    protected transient long position;
+
+    protected transient long sequence;
+    protected transient int size;
+
+    protected transient long nextTime;
+    protected transient boolean nextValid;
+
+
+    public TimingWheelQueue()
+    {
+        heads = new Entry[LEVELS * SLOTS];
+        tails = new Entry[LEVELS * SLOTS];
+        occupied = new long[LEVELS * WORDS];
+        index = new IdentityHashMap<Simulator.Event, Entry>();
+    }
+
+
+    /**
+     * The <code>add</code> method adds an event to be executed in the future.
+     *
+     * @param t
+     *            the event to add
+     * @param cycles
+     *            the number of clock cycles in the future
+     */
+    @Override
+    public void insertEvent(Simulator.Event t, long cycles)
+    {
+        long time = count + cycles;
+        if (cycles > 0 && time < count)
+            // saturate instead of wrapping around into the past
+            time = Long.MAX_VALUE;
+
+        Entry e = newEntry(t, time);
+        place(e);
+
+        Entry same = index.put(t, e);
+        if (same != null)
+        {
+            e.nextSame = same;
+            same.prevSame = e;
+        }
+
+        if (size++ == 0)
+        {
+            nextTime = time;
+            nextValid = true;
+        } else if (nextValid && time < nextTime)
+        {
+            nextTime = time;
+        }
+    }
+
+
+    /**
+     * The <code>remove</code> method removes all occurrences of the specified
+     * event within the queue.
+     *
+     * @param t
+     *            the event to remove
+     */
+    @Override
+    public void removeEvent(Simulator.Event t)
+    {
+        Entry e = index.remove(t);
+        while (e != null)
+        {
+            Entry next = e.nextSame;
+            unlink(e);
+            if (e.time == nextTime)
+                nextValid = false;
+            free(e);
+            size--;
+            e = next;
+        }
+    }
+
+
+    /**
+     * The <code>advance</code> method advances timesteps through the queue by
+     * the specified number of clock cycles, processing any events.
+     *
+     * @param cycles
+     *            the number of clock cycles to advance
+     */
+    @Override
+    public void advance(long cycles)
+    {
+        if (size == 0)
+        {
+            // fast path 1: nothing in the queue
+            count += cycles;
+            return;
+        }
+
+        long target = count + cycles;
+        if (getNextTime() > target)
+        {
+            // fast path 2: next event does not fire
+            count = target;
+            return;
+        }
+
+        // slow path: fire each group of events until the target is reached
+        while (size > 0 && target - count > 0 && getNextTime() <= target)
+            fireNext();
+
+        count = target;
+    }
+
+
+    /**
+     * The <code>skipAhead()</code> method skips ahead to the next event in the
+     * queue and fires it.
+     */
+    @Override
+    public void skipAhead()
+    {
+        if (size == 0)
+        {
+            // fast path 1: nothing in the queue
+            count++;
+            return;
+        }
+
+        fireNext();
+    }
+
+
+    /**
+     * The <code>getFirstEventTime()</code> method gets the number of clock
+     * cycles until the first event will fire.
+     *
+     * @return the number of clock cycles until the first event will fire; -1
+     *         if there are no events in the queue
+     */
+    @Override
+    public long getFirstEventTime()
+    {
+        if (size == 0)
+            return -1;
+        return getNextTime() - count;
+    }
+
+
+    /**
+     * The <code>visitEvents()</code> method visits each event in the queue in
+     * the order in which the events will fire.
+     *
+     * @param v
+     *            the visitor to call for each event
+     */
+    @Override
+    public void visitEvents(EventVisitor v)
+    {
+        ArrayList<Entry> entries = new ArrayList<Entry>(size);
+        for (Entry e = early; e != null; e = e.next)
+            entries.add(e);
+        for (Entry head : heads)
+        {
+            for (Entry e = head; e != null; e = e.next)
+                entries.add(e);
+        }
+
+        // events due at the same time fire in reverse order of insertion
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b)
+            {
+                if (a.time != b.time)
+                    return a.time < b.time ? -1 : 1;
+                return a.seq > b.seq ? -1 : a.seq < b.seq ? 1 : 0;
+            }
+        });
+        for (Entry e : entries)
+            v.visit(e.event, e.time - count);
+    }
+
+
+    /**
+     * The <code>reset()</code> method removes all events from the queue and
+     * sets the total number of cycles the queue has been advanced.
+     *
+     * @param c
+     *            the new cycle count of the queue
+     */
+    @Override
+    protected void reset(long c)
+    {
+        Arrays.fill(heads, null);
+        Arrays.fill(tails, null);
+        Arrays.fill(occupied, 0);
+        early = null;
+        index.clear();
+        size = 0;
+        nextValid = false;
+        position = c;
+        count = c;
+    }
+
+
+    private long getNextTime()
+    {
+        if (!nextValid)
+        {
+            nextTime = findNextTime();
+            nextValid = true;
+        }
+        return nextTime;
+    }
+
+
+    private long findNextTime()
+    {
+        // entries in the early list are always before any entry in the wheel
+        if (early != null)
+            return early.time;
+
+        for (int level = 0; level < LEVELS; level++)
+        {
+            int slot = firstOccupied(level);
+            if (slot < 0)
+                continue;
+
+            if (level == 0)
+                return (position & ~(long) SLOT_MASK) | slot;
+
+            // a slot of a higher level covers a range of times
+            long min = Long.MAX_VALUE;
+            for (Entry e = heads[level * SLOTS + slot]; e != null; e = e.next)
+            {
+                if (e.time < min)
+                    min = e.time;
+            }
+            return min;
+        }
+        throw new IllegalStateException("event queue is empty");
+    }
+
+
+    private int firstOccupied(int level)
+    {
+        int base = level * WORDS;
+        for (int w = 0; w < WORDS; w++)
+        {
+            long bits = occupied[base + w];
+            if (bits != 0)
+                return w * 64 + Long.numberOfTrailingZeros(bits);
+        }
+        return -1;
+    }
+
+
+    private void fireNext()
+    {
+        long time = getNextTime();
+        Entry batch;
+
+        if (early != null)
+        {
+            batch = early;
+            Entry last = early;
+            while (last.next != null && last.next.time == time)
+                last = last.next;
+            early = last.next;
+            if (early != null)
+                early.prev = null;
+            last.next = null;
+        } else
+        {
+            moveTo(time);
+            int slot = (int) time & SLOT_MASK;
+            batch = heads[slot];
+            heads[slot] = null;
+            tails[slot] = null;
+            clearOccupied(slot);
+        }
+
+        // detach the group from the index, so that removing one of these
+        // events while the group fires has no effect on the group
+        Entry fire = null;
+        while (batch != null)
+        {
+            Entry next = batch.next;
+            unlinkSame(batch);
+            size--;
+            fire = insertDescending(fire, batch);
+            batch = next;
+        }
+
+        count = time;
+        nextValid = false;
+
+        // fire the most recently inserted events first
+        for (Entry e = fire; e != null; e = e.next)
+            e.event.fire();
+
+        while (fire != null)
+        {
+            Entry next = fire.next;
+            free(fire);
+            fire = next;
+        }
+    }
+
+
+    private Entry insertDescending(Entry list, Entry e)
+    {
+        // entries usually arrive in insertion order, making this constant time
+        if (list == null || e.seq > list.seq)
+        {
+            e.next = list;
+            return e;
+        }
+        Entry pos = list;
+        while (pos.next != null && pos.next.seq > e.seq)
+            pos = pos.next;
+        e.next = pos.next;
+        pos.next = e;
+        return list;
+    }
+
+
+    private void moveTo(long time)
+    {
+        position = time;
+
+        // cascade the slots of the higher levels that contain the new time
+        for (int level = LEVELS - 1; level > 0; level--)
+        {
+            int slot = level * SLOTS
+                    + ((int) (time >>> (level * SLOT_BITS)) & SLOT_MASK);
+            Entry e = heads[slot];
+            if (e == null)
+                continue;
+
+            heads[slot] = null;
+            tails[slot] = null;
+            clearOccupied(slot);
+            while (e != null)
+            {
+                Entry next = e.next;
+                place(e);
+                e = next;
+            }
+        }
+    }
+
+
+    private void place(Entry e)
+    {
+        long time = e.time;
+        if (time < position)
+        {
+            insertEarly(e);
+            return;
+        }
+
+        long diff = time ^ position;
+        int level = diff == 0 ? 0
+                : (63 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+        int slot = level * SLOTS
+                + ((int) (time >>> (level * SLOT_BITS)) & SLOT_MASK);
+
+        e.slot = slot;
+        e.next = null;
+        Entry tail = tails[slot];
+        e.prev = tail;
+        if (tail == null)
+        {
+            heads[slot] = e;
+            occupied[slot >> 6] |= 1L << (slot & 63);
+        } else
+        {
+            tail.next = e;
+        }
+        tails[slot] = e;
+    }
+
+
+    private void insertEarly(Entry e)
+    {
+        e.slot = EARLY;
+        Entry prev = null;
+        Entry pos = early;
+        while (pos != null && pos.time <= e.time)
+        {
+            prev = pos;
+            pos = pos.next;
+        }
+        e.prev = prev;
+        e.next = pos;
+        if (prev == null)
+            early = e;
+        else
+            prev.next = e;
+        if (pos != null)
+            pos.prev = e;
+    }
+
+
+    private void unlink(Entry e)
+    {
+        Entry prev = e.prev;
+        Entry next = e.next;
+
+        if (e.slot == EARLY)
+        {
+            if (prev == null)
+                early = next;
+            else
+                prev.next = next;
+            if (next != null)
+                next.prev = prev;
+            return;
+        }
+
+        int slot = e.slot;
+        if (prev == null)
+            heads[slot] = next;
+        else
+            prev.next = next;
+        if (next == null)
+            tails[slot] = prev;
+        else
+            next.prev = prev;
+        if (heads[slot] == null)
+            clearOccupied(slot);
+    }
+
+
+    private void unlinkSame(Entry e)
+    {
+        Entry prev = e.prevSame;
+        Entry next = e.nextSame;
+        if (prev == null)
+        {
+            if (next == null)
+                index.remove(e.event);
+            else
+                index.put(e.event, next);
+        } else
+        {
+            prev.nextSame = next;
+        }
+        if (next != null)
+            next.prevSame = prev;
+    }
+
+
+    private void clearOccupied(int slot)
+    {
+        occupied[slot >> 6] &= ~(1L << (slot & 63));
+    }
+
+
+    private Entry newEntry(Simulator.Event t, long time)
+    {
+        Entry e = freeEntries;
+        if (e == null)
+            e = new Entry();
+        else
+            freeEntries = e.next;
+
+        e.event = t;
+        e.time = time;
+        e.seq = sequence++;
+        e.prevSame = null;
+        e.nextSame = null;
+        return e;
+    }
+
+
+    private void free(Entry e)
+    {
+        e.event = null;
+        e.prev = null;
+        e.prevSame = null;
+        e.nextSame = null;
+        e.next = freeEntries;
+        freeEntries = e;
+    }
+}
@@ -117,6 +117,14 @@ public abstract class ATMegaClassic extends ATMegaFamilyNew
         }
 
 
+        @Override
+        protected int getMin()
+        {
+            // getCounter() sign extends the value of TCNTn
+            return Byte.MIN_VALUE;
+        }
+
+
         @Override
         public void resetMode(int WGMn)
         {
@@ -387,8 +395,8 @@ public abstract class ATMegaClassic extends ATMegaFamilyNew
             protected void decode(byte val)
             {
                 // TODO: if there is a change, remove ticker and requeue?
-                timerClock = Arithmetic.getBit(val, AS0) ? externalClock
-                        : mainClock;
+                changeClock(Arithmetic.getBit(val, AS0) ? externalClock
+                        : mainClock);
             }
 
         }
@@ -369,8 +369,8 @@ public abstract class ATMegaFamily extends AtmelMicrocontroller
             protected void decode(byte val)
             {
                 // TODO: if there is a change, remove ticker and requeue?
-                timerClock = Arithmetic.getBit(val, AS0) ? externalClock
-                        : mainClock;
+                changeClock(Arithmetic.getBit(val, AS0) ? externalClock
+                        : mainClock);
             }
 
         }
@@ -77,6 +77,7 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
 
     protected final Clock externalClock;
     Clock timerClock;
+    final TimerSchedule schedule;
     int timerNumber;
     /*
      * Fields shared by all ATMega timers.
@@ -98,6 +99,13 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
         super("Timer" + n, m);
         timerNumber = n;
         periods = p;
+        schedule = new TimerSchedule(simulator, new TimerSchedule.Counter() {
+            @Override
+            public void addQuietTicks(Simulator.Event e, int n)
+            {
+                ATMegaTimer.this.addQuietTicks((Mode) e, n);
+            }
+        });
 
         RegisterSet rset = m.getRegisterSet();
 
@@ -132,7 +140,10 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
             @Override
             public void update()
             {
+                syncCounter();
                 resetMode(value);
+                if (timerEnabled)
+                    schedule.replace(mode, mode.quietTicks());
             }
         };
     }
@@ -161,25 +172,80 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
             {
                 if (devicePrinter != null)
                     devicePrinter.println(name + " disabled");
-                timerClock.removeEvent(mode);
+                syncCounter();
+                schedule.remove(timerClock, mode);
                 timerEnabled = false;
             }
             return;
         }
         if (timerEnabled)
         {
-            timerClock.removeEvent(mode);
+            syncCounter();
+            schedule.remove(timerClock, mode);
         }
         if (devicePrinter != null)
             devicePrinter.println(name + " enabled: period = " + nPeriod
                     + " mode = " + WGMn.value);
         period = nPeriod;
         timerEnabled = true;
-        timerClock.insertEvent(mode, period);
+        schedule.insert(timerClock, mode, period, mode.quietTicks());
 
     }
 
 
+    /**
+     * The <code>changeClock()</code> method switches this timer to another
+     * clock source. The tick that is pending on the old clock still happens on
+     * the old clock; the following ticks happen on the new clock.
+     *
+     * @param c
+     *            the new clock of this timer
+     */
+    protected void changeClock(Clock c)
+    {
+        if (c != timerClock)
+        {
+            syncCounter();
+            schedule.reschedule(0);
+            timerClock = c;
+        }
+    }
+
+
+    /**
+     * Brings the counter up to date with the quiet ticks that have passed at
+     * the current time.
+     */
+    void syncCounter()
+    {
+        schedule.sync();
+    }
+
+
+    /**
+     * Adds ticks that only count to the counter, without blocking the compare
+     * match.
+     */
+    private void addQuietTicks(Mode m, int e)
+    {
+        boolean blocked = compareMatchBlocked;
+        setCounter(getCounter() + m.strategy.step() * e);
+        compareMatchBlocked = blocked;
+    }
+
+
+    /**
+     * Moves the next tick of the timer after the counter or a register that
+     * determines the ticks to be executed has been written.
+     */
+    void rescheduleTick()
+    {
+        Mode m = (Mode) schedule.getEvent();
+        if (m != null)
+            schedule.reschedule(m.quietTicks());
+    }
+
+
     /**
      * Resets the mode according to the WGMn bits.
      */
@@ -210,6 +276,16 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
     protected abstract int getMax();
 
 
+    /**
+     * Returns the smallest value returned by <code>getCounter()</code>. The
+     * counter holds <code>getMax() + 1</code> values starting at this value.
+     */
+    protected int getMin()
+    {
+        return 0;
+    }
+
+
     /**
      * Sets the overflow flag (TOVn) for this timer.
      */
@@ -413,11 +489,35 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
 
 
         /**
-         * Called by the appropriate clock whenever the strategy should tick.
+         * Computes the number of ticks after the current count that only
+         * count. A tick has to be executed when the next value of the counter
+         * is a compare value, when it is handled by the strategy, or when it
+         * does not fit into the counter register.
          */
+        protected int quietTicks()
+        {
+            if (compareMatchBlocked)
+                return 0;
+            int inc = strategy.step();
+            int next = getCounter() + inc;
+            int q = strategy.quietTicks(next);
+            q = Math.min(q, TimerSchedule.distance(next, inc, getMin() - 1));
+            q = Math.min(q,
+                    TimerSchedule.distance(next, inc, getMin() + getMax() + 1));
+            for (Comparator i : comparators.values())
+            {
+                q = Math.min(q, TimerSchedule.distance(next, inc, i.read()));
+            }
+            return q;
+        }
+
+
         @Override
         public void fire()
         {
+            int e = schedule.fire();
+            if (e != 0)
+                addQuietTicks(this, e);
             int value = getCounter();
             if (devicePrinter != null)
             {
@@ -448,7 +548,7 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
             compareMatchBlocked = false;
 
             if (period != 0)
-                timerClock.insertEvent(this, period);
+                schedule.insert(timerClock, this, period, quietTicks());
         }
 
 
@@ -463,6 +563,23 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
             protected abstract int nextValue(int count);
 
 
+            /**
+             * Returns the step of the counter in ticks that only count.
+             */
+            protected int step()
+            {
+                return 1;
+            }
+
+
+            /**
+             * Computes the number of ticks, from the tick that produces the
+             * specified value, that do not need to be handled by this
+             * strategy.
+             */
+            protected abstract int quietTicks(int next);
+
+
             protected abstract void registerWritten(BufferedRegister reg);
         }
 
@@ -482,6 +599,13 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
             }
 
 
+            @Override
+            protected int quietTicks(int next)
+            {
+                return TimerSchedule.distance(next, 1, getMax() + 1);
+            }
+
+
             @Override
             protected void registerWritten(BufferedRegister reg)
             {
@@ -512,6 +636,14 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
             }
 
 
+            @Override
+            protected int quietTicks(int next)
+            {
+                return Math.min(TimerSchedule.distance(next, 1, getTop()),
+                        TimerSchedule.distance(next, 1, getMax() + 1));
+            }
+
+
             @Override
             protected void registerWritten(BufferedRegister reg)
             {
@@ -547,6 +679,15 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
             }
 
 
+            @Override
+            protected int quietTicks(int next)
+            {
+                if (zero)
+                    return 0;
+                return TimerSchedule.distance(next, 1, getTop());
+            }
+
+
             @Override
             protected void registerWritten(BufferedRegister reg)
             {
@@ -559,6 +700,22 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
         protected class PWM extends Strategy
         {
 
+            @Override
+            protected int step()
+            {
+                return countUp ? 1 : -1;
+            }
+
+
+            @Override
+            protected int quietTicks(int next)
+            {
+                int inc = step();
+                return Math.min(TimerSchedule.distance(next, inc, getTop()),
+                        TimerSchedule.distance(next, inc, 0));
+            }
+
+
             @Override
             protected int nextValue(int count)
             {
@@ -591,7 +748,7 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
             }
         }
 
-        protected class FC_PWM extends Strategy
+        protected class FC_PWM extends PWM
         {
 
             @Override
@@ -815,14 +972,17 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
         @Override
         public void write(byte val)
         {
+            syncCounter();
             register.write(val);
             compareMatchBlocked = true;
+            schedule.reschedule(0);
         }
 
 
         @Override
         public byte read()
         {
+            syncCounter();
             return register.read();
         }
 
@@ -881,16 +1041,20 @@ public abstract class ATMegaTimer extends AtmelInternalDevice
         @Override
         public void write(byte val)
         {
+            syncCounter();
             value = val;
             mode.registerWritten(this);
+            rescheduleTick();
         }
 
 
         @Override
         public void write(int val)
         {
+            syncCounter();
             value = val;
             mode.registerWritten(this);
+            rescheduleTick();
         }
 
 
@@ -155,6 +155,7 @@ public abstract class Timer16Bit extends AtmelInternalDevice
             {
                 if (value == 1)
                 {
+                    syncCounter();
                     if (read16(TCNTnH_reg, TCNTnL_reg) == read())
                     {
                         output();
@@ -244,6 +245,7 @@ public abstract class Timer16Bit extends AtmelInternalDevice
 
     protected final Clock externalClock;
     Clock timerClock;
+    final TimerSchedule schedule;
 
     // information about registers and flags that specifies
     // which specific registers this 16-bit timer interacts with
@@ -285,6 +287,14 @@ public abstract class Timer16Bit extends AtmelInternalDevice
         RegisterSet rset = m.getRegisterSet();
 
         initValues();
+        schedule = new TimerSchedule(simulator, new TimerSchedule.Counter() {
+            @Override
+            public void addQuietTicks(Simulator.Event e, int n)
+            {
+                setCount(read16(TCNTnH_reg, TCNTnL_reg)
+                        + ((Ticker) e).step() * n);
+            }
+        });
 
         WGMn = rset.installField("WGM" + n, new RegisterSet.Field() {
             @Override
@@ -316,11 +326,11 @@ public abstract class Timer16Bit extends AtmelInternalDevice
 
         TCNTnH_reg = new RWRegister();
         TCNTnL_reg = new TCNTnRegister();
-        TCNTn_reg = new PairedRegister(TCNTnH_reg, TCNTnL_reg);
+        TCNTn_reg = new CounterRegister(TCNTnH_reg, TCNTnL_reg);
 
         ICRnH_reg = new RWRegister();
         ICRnL_reg = new RWRegister();
-        ICRn_reg = new PairedRegister(ICRnL_reg, ICRnH_reg);
+        ICRn_reg = new TopRegister(ICRnL_reg, ICRnH_reg);
 
         ICESn_flag = rset.getField("ICES" + n);
 
@@ -375,8 +385,10 @@ public abstract class Timer16Bit extends AtmelInternalDevice
 
     void captureInput()
     {
+        syncCounter();
         ICRnL_reg.write(TCNTnL_reg.value);
         ICRnH_reg.write(TCNTnH_reg.value);
+        schedule.reschedule(quietTicks());
         xTIFR_reg.flagBit(ICFn);
         interpreter.getInterruptTable().post(inputCaptureInterrupt);
     }
@@ -450,6 +462,58 @@ public abstract class Timer16Bit extends AtmelInternalDevice
 
     }
 
+    /**
+     * The <code>CounterRegister</code> class brings the counter up to date
+     * before the TCNTn register pair is accessed by the program. A write moves
+     * the next tick of the timer, since the compare match is blocked for one
+     * tick.
+     */
+    protected class CounterRegister extends PairedRegister
+    {
+        CounterRegister(RWRegister high, RWRegister low)
+        {
+            super(high, low);
+        }
+
+
+        @Override
+        public void write(byte val)
+        {
+            syncCounter();
+            super.write(val);
+            schedule.reschedule(0);
+        }
+
+
+        @Override
+        public byte read()
+        {
+            syncCounter();
+            return super.read();
+        }
+    }
+
+    /**
+     * The <code>TopRegister</code> class reschedules the next tick of the timer
+     * when the ICRn register pair, which defines TOP in some modes, is written.
+     */
+    protected class TopRegister extends PairedRegister
+    {
+        TopRegister(RWRegister high, RWRegister low)
+        {
+            super(high, low);
+        }
+
+
+        @Override
+        public void write(byte val)
+        {
+            syncCounter();
+            super.write(val);
+            schedule.reschedule(quietTicks());
+        }
+    }
+
     /**
      * The normal 16-bit read behavior described in the doc for PairedRegister
      * does not apply for the OCRnx registers. Reads on the OCRnxH registers are
@@ -526,7 +590,10 @@ public abstract class Timer16Bit extends AtmelInternalDevice
             if (devicePrinter != null)
                 devicePrinter.println("Timer" + n + " disabled");
             if (ticker != null)
-                timerClock.removeEvent(ticker);
+            {
+                syncCounter();
+                schedule.remove(timerClock, ticker);
+            }
         } else
         {
             // enable the timer.
@@ -534,10 +601,13 @@ public abstract class Timer16Bit extends AtmelInternalDevice
                 devicePrinter.println("Timer" + n + " enabled: period = "
                         + nPeriod + " mode = " + WGMn.value);
             if (ticker != null)
-                timerClock.removeEvent(ticker);
+            {
+                syncCounter();
+                schedule.remove(timerClock, ticker);
+            }
             ticker = tickers[WGMn.value];
             period = nPeriod;
-            timerClock.insertEvent(ticker, period);
+            schedule.insert(timerClock, ticker, period, quietTicks());
         }
     }
 
@@ -545,9 +615,12 @@ public abstract class Timer16Bit extends AtmelInternalDevice
     public void resetTicker(Simulator.Event e)
     {
         if (ticker != null)
-            simulator.removeEvent(ticker);
+        {
+            syncCounter();
+            schedule.remove(mainClock, ticker);
+        }
         ticker = e;
-        simulator.insertEvent(e, period);
+        schedule.insert(mainClock, e, period, quietTicks());
     }
 
     /**
@@ -577,7 +650,9 @@ public abstract class Timer16Bit extends AtmelInternalDevice
             if (mode == MODE_NORMAL || mode == MODE_CTC_OCRnA
                     || mode == MODE_CTC_ICRn)
             {
+                syncCounter();
                 flush();
+                schedule.reschedule(quietTicks());
             }
         }
 
@@ -601,21 +676,61 @@ public abstract class Timer16Bit extends AtmelInternalDevice
         }
     }
 
-    protected class Mode_Reserved implements Simulator.Event
+    /**
+     * The <code>Ticker</code> class is the base class of the modes of the
+     * timer. Besides executing a tick, each mode determines which ticks only
+     * count and can be skipped by the tickless schedule.
+     */
+    protected abstract class Ticker implements Simulator.Event
+    {
+        /**
+         * Returns the step of the counter in ticks that only count.
+         */
+        protected int step()
+        {
+            return 1;
+        }
+
+
+        /**
+         * Computes the number of ticks from the specified count that only
+         * count. The ticks at MAX and at the compare values always have to be
+         * executed.
+         */
+        protected int quietTicks(int count)
+        {
+            int inc = step();
+            int q = TimerSchedule.distance(count, inc, MAX);
+            for (int cntr = 0; cntr < compareUnits.length; cntr++)
+                q = Math.min(q, TimerSchedule.distance(count, inc,
+                        compareUnits[cntr].read()));
+            return q;
+        }
+    }
+
+    protected class Mode_Reserved extends Ticker
     {
         @Override
         public void fire()
         {
             // do nothing in the reserved mode.
+            schedule.fire();
+        }
+
+
+        @Override
+        protected int quietTicks(int count)
+        {
+            return 0;
         }
     }
 
-    protected class Mode_Normal implements Simulator.Event
+    protected class Mode_Normal extends Ticker
     {
         @Override
         public void fire()
         {
-            int ncount = read16(TCNTnH_reg, TCNTnL_reg);
+            int ncount = tickerCount();
             tickerStart(ncount);
             if (ncount >= MAX)
             {
@@ -629,7 +744,7 @@ public abstract class Timer16Bit extends AtmelInternalDevice
         }
     }
 
-    protected class Mode_CTC implements Simulator.Event
+    protected class Mode_CTC extends Ticker
     {
         protected final RWRegister compareRegHigh;
         protected final RWRegister compareRegLow;
@@ -642,12 +757,23 @@ public abstract class Timer16Bit extends AtmelInternalDevice
         }
 
 
+        @Override
+        protected int quietTicks(int count)
+        {
+            int q = super.quietTicks(count);
+            if (compareRegHigh != null)
+                q = Math.min(q, TimerSchedule.distance(count, 1,
+                        read16(compareRegHigh, compareRegLow)));
+            return q;
+        }
+
+
         @Override
         public void fire()
         {
             // TODO: set OCFnA/ICFn flag when OCRnA/ICRn define TOP and TOP is
             // reached
-            int ncount = read16(TCNTnH_reg, TCNTnL_reg);
+            int ncount = tickerCount();
             tickerStart(ncount);
             if (ncount >= MAX)
             {
@@ -666,7 +792,7 @@ public abstract class Timer16Bit extends AtmelInternalDevice
         }
     }
 
-    protected class Mode_FastPWM implements Simulator.Event
+    protected class Mode_FastPWM extends Ticker
     {
         protected final int top;
         protected final RWRegister compareRegHigh;
@@ -682,12 +808,25 @@ public abstract class Timer16Bit extends AtmelInternalDevice
         }
 
 
+        @Override
+        protected int quietTicks(int count)
+        {
+            int top = this.top;
+            if (compareRegHigh != null)
+            {
+                top = read16(compareRegHigh, compareRegLow);
+            }
+            return Math.min(super.quietTicks(count),
+                    TimerSchedule.distance(count, 1, top));
+        }
+
+
         @Override
         public void fire()
         {
             // TODO: set OCFnA/ICFn flag when OCRnA/ICRn define TOP and TOP is
             // reached
-            int ncount = read16(TCNTnH_reg, TCNTnL_reg);
+            int ncount = tickerCount();
             tickerStart(ncount);
             int top = this.top;
             if (compareRegHigh != null)
@@ -712,7 +851,7 @@ public abstract class Timer16Bit extends AtmelInternalDevice
         }
     }
 
-    protected class Mode_PWM_PNF implements Simulator.Event
+    protected class Mode_PWM_PNF extends Ticker
     {
         protected byte increment = 1;
         protected final RWRegister compareRegHigh;
@@ -726,12 +865,34 @@ public abstract class Timer16Bit extends AtmelInternalDevice
         }
 
 
+        @Override
+        protected int step()
+        {
+            return increment;
+        }
+
+
+        @Override
+        protected int quietTicks(int count)
+        {
+            int compare = MAX;
+            if (compareRegHigh != null)
+            {
+                compare = read16(compareRegHigh, compareRegLow);
+            }
+            int q = Math.min(super.quietTicks(count),
+                    TimerSchedule.distance(count, increment, compare));
+            return Math.min(q,
+                    TimerSchedule.distance(count, increment, BOTTOM));
+        }
+
+
         @Override
         public void fire()
         {
             // TODO: set OCFnA/ICFn flag when OCRnA/ICRn define TOP and TOP is
             // reached
-            int ncount = read16(TCNTnH_reg, TCNTnL_reg);
+            int ncount = tickerCount();
             tickerStart(ncount);
 
             int compare = MAX;
@@ -758,7 +919,7 @@ public abstract class Timer16Bit extends AtmelInternalDevice
         }
     }
 
-    protected class Mode_PWMPhaseCorrect implements Simulator.Event
+    protected class Mode_PWMPhaseCorrect extends Ticker
     {
         protected byte increment = 1;
         protected final int top;
@@ -775,10 +936,32 @@ public abstract class Timer16Bit extends AtmelInternalDevice
         }
 
 
+        @Override
+        protected int step()
+        {
+            return increment;
+        }
+
+
+        @Override
+        protected int quietTicks(int count)
+        {
+            int top = this.top;
+            if (compareRegHigh != null)
+            {
+                top = read16(compareRegHigh, compareRegLow);
+            }
+            int q = Math.min(super.quietTicks(count),
+                    TimerSchedule.distance(count, increment, top));
+            return Math.min(q,
+                    TimerSchedule.distance(count, increment, BOTTOM));
+        }
+
+
         @Override
         public void fire()
         {
-            int ncount = read16(TCNTnH_reg, TCNTnL_reg);
+            int ncount = tickerCount();
             tickerStart(ncount);
 
             int top = this.top;
@@ -806,6 +989,50 @@ public abstract class Timer16Bit extends AtmelInternalDevice
     }
 
 
+    /**
+     * Brings the counter up to date with the quiet ticks that have passed at
+     * the current time.
+     */
+    private void syncCounter()
+    {
+        schedule.sync();
+    }
+
+
+    /**
+     * Computes the number of ticks after the current count that only count.
+     */
+    private int quietTicks()
+    {
+        if (blockCompareMatch || ticker == null)
+            return 0;
+        return ((Ticker) ticker).quietTicks(read16(TCNTnH_reg, TCNTnL_reg));
+    }
+
+
+    private int tickerCount()
+    {
+        int e = schedule.fire();
+        int count = read16(TCNTnH_reg, TCNTnL_reg);
+        if (e != 0)
+        {
+            count += ((Ticker) ticker).step() * e;
+            setCount(count);
+        }
+        return count;
+    }
+
+
+    /**
+     * Sets the counter without blocking the compare match.
+     */
+    private void setCount(int count)
+    {
+        TCNTnH_reg.value = (byte) (count >> 8);
+        TCNTnL_reg.value = (byte) count;
+    }
+
+
     private void tickerStart(int count)
     {
         // the compare match should be performed in any case.
@@ -824,7 +1051,7 @@ public abstract class Timer16Bit extends AtmelInternalDevice
         blockCompareMatch = false;
 
         if (period != 0)
-            timerClock.insertEvent(ticker, period);
+            schedule.insert(timerClock, ticker, period, quietTicks());
     }
 
 
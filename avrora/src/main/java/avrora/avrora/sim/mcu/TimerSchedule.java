@@ -0,0 +1,328 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.sim.mcu;
+
+import avrora.avrora.sim.Simulation;
+import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.clock.Clock;
+
+/**
+ * The <code>TimerSchedule</code> class schedules the event of a timer without
+ * firing it at every tick of the timer. Most ticks of a running timer only add
+ * one to (or subtract one from) the counter. The timer computes how many of
+ * the following ticks are such <i>quiet</i> ticks and the event is fired only
+ * at the first tick after them, where a compare match, an overflow, TOP or
+ * BOTTOM has to be handled. The counter register is brought up to date when
+ * it is accessed, by adding the number of quiet ticks that have passed since
+ * the last tick that was executed.
+ * <p>
+ * Since quiet ticks have no effect other than counting, the timer goes
+ * through the same states at the same times as a timer that executes every
+ * tick. When the tickless mode is disabled, no tick is quiet and the event of
+ * the timer fires at every tick. A schedule also falls back to executing
+ * every tick when a timer inserts a second event while its first event is
+ * still pending, since both events then change the same counter.
+ *
+ * @see Simulation#TICKLESS
+ */
+public class TimerSchedule
+{
+
+    /**
+     * The number of quiet ticks when no tick that has to be handled will ever
+     * be reached.
+     */
+    public static final int NEVER = Integer.MAX_VALUE;
+
+    /**
+     * The <code>Counter</code> interface is implemented by the timer that owns
+     * a schedule, so that the schedule can add quiet ticks to the counter
+     * register of the timer.
+     */
+    public interface Counter
+    {
+        /**
+         * The <code>addQuietTicks()</code> method adds the specified number of
+         * quiet ticks to the counter, counting in the direction of the
+         * specified event.
+         *
+         * @param e
+         *            the event of the timer that the ticks belong to
+         * @param n
+         *            the number of quiet ticks that have passed
+         */
+        void addQuietTicks(Simulator.Event e, int n);
+    }
+
+    protected final Counter counter;
+    protected boolean tickless;
+
+    protected Simulator.Event event;
+    protected Clock clock;
+    protected long period;
+
+    /**
+     * The time, in cycles of the clock, of the last tick that has been applied
+     * to the counter.
+     */
+    protected long base;
+
+    /**
+     * The number of quiet ticks after <code>base</code> that have not been
+     * applied to the counter yet.
+     */
+    protected int quiet;
+    protected boolean pending;
+
+
+    /**
+     * The constructor for the <code>TimerSchedule</code> class creates a new
+     * schedule for a timer of the specified simulator. The schedule is
+     * tickless unless the simulation disables tickless timers.
+     *
+     * @param sim
+     *            the simulator of the timer
+     * @param c
+     *            the counter of the timer
+     */
+    public TimerSchedule(Simulator sim, Counter c)
+    {
+        counter = c;
+        Simulation s = sim.getSimulation();
+        tickless = s == null || s.TICKLESS.get();
+    }
+
+
+    /**
+     * The <code>insert()</code> method inserts the event of the timer into the
+     * specified clock. The event fires at the first tick after the specified
+     * number of quiet ticks, counting from the current time.
+     *
+     * @param c
+     *            the clock of the timer
+     * @param e
+     *            the event that executes a tick of the timer
+     * @param p
+     *            the period of the timer in cycles of the clock
+     * @param q
+     *            the number of quiet ticks before the event fires
+     */
+    public void insert(Clock c, Simulator.Event e, long p, int q)
+    {
+        if (pending && e != event)
+            fallBack();
+        event = e;
+        clock = c;
+        period = p;
+        base = c.getCount();
+        quiet = tickless && p != 0 ? q : 0;
+        pending = true;
+        c.insertEvent(e, (quiet + 1L) * p);
+    }
+
+
+    /**
+     * The <code>remove()</code> method removes the event of the timer from the
+     * specified clock. The caller must bring the counter up to date before the
+     * event is removed.
+     *
+     * @param c
+     *            the clock from which to remove the event
+     * @param e
+     *            the event of the timer
+     */
+    public void remove(Clock c, Simulator.Event e)
+    {
+        c.removeEvent(e);
+        if (e == event)
+        {
+            quiet = 0;
+            pending = false;
+        }
+    }
+
+
+    /**
+     * The <code>fire()</code> method is called when the event of the timer
+     * fires. All the quiet ticks before the current tick have passed.
+     *
+     * @return the number of quiet ticks that have not been applied to the
+     *         counter yet
+     */
+    public int fire()
+    {
+        int q = quiet;
+        quiet = 0;
+        pending = false;
+        return q;
+    }
+
+
+    /**
+     * The <code>elapse()</code> method computes the number of quiet ticks that
+     * have passed since the counter was last brought up to date. These ticks
+     * are considered applied to the counter afterwards.
+     *
+     * @return the number of quiet ticks that the caller has to add to the
+     *         counter
+     */
+    protected int elapse()
+    {
+        if (quiet == 0)
+            return 0;
+        long n = (clock.getCount() - base) / period;
+        if (n <= 0)
+            return 0;
+        int e = n < quiet ? (int) n : quiet;
+        base += e * period;
+        quiet -= e;
+        return e;
+    }
+
+
+    /**
+     * The <code>sync()</code> method brings the counter of the timer up to date
+     * by adding the quiet ticks that have passed at the current time.
+     */
+    public void sync()
+    {
+        int e = elapse();
+        if (e != 0)
+            counter.addQuietTicks(event, e);
+    }
+
+
+    /**
+     * The <code>reschedule()</code> method moves the pending event of the timer
+     * after the counter or a register that determines the ticks to be handled
+     * has been written. The caller must have brought the counter up to date
+     * before the write.
+     *
+     * @param q
+     *            the number of quiet ticks from the last tick applied to the
+     *            counter
+     */
+    public void reschedule(int q)
+    {
+        if (!tickless || !pending || period == 0 || q == quiet)
+            return;
+        clock.removeEvent(event);
+        quiet = q;
+        clock.insertEvent(event, base + (q + 1L) * period - clock.getCount());
+    }
+
+
+    /**
+     * The <code>replace()</code> method replaces the pending event of the timer
+     * by another event that fires at the same tick, after the timer has
+     * switched to another mode. The caller must have brought the counter up to
+     * date before the switch.
+     *
+     * @param e
+     *            the event of the new mode
+     * @param q
+     *            the number of quiet ticks from the last tick applied to the
+     *            counter
+     */
+    public void replace(Simulator.Event e, int q)
+    {
+        if (!pending || e == event)
+        {
+            reschedule(q);
+            return;
+        }
+        clock.removeEvent(event);
+        event = e;
+        quiet = tickless ? q : 0;
+        clock.insertEvent(e, base + (quiet + 1L) * period - clock.getCount());
+    }
+
+
+    /**
+     * The <code>fallBack()</code> method disables the tickless mode of this
+     * schedule. The quiet ticks that have passed are added to the counter, the
+     * pending event is moved to the next tick, and every tick is executed from
+     * then on.
+     */
+    protected void fallBack()
+    {
+        sync();
+        reschedule(0);
+        tickless = false;
+    }
+
+
+    /**
+     * The <code>getEvent()</code> method returns the event that was last
+     * inserted by the timer.
+     *
+     * @return the event of the timer, or null if the timer has not been
+     *         started yet
+     */
+    public Simulator.Event getEvent()
+    {
+        return event;
+    }
+
+
+    /**
+     * The <code>isPending()</code> method checks whether the event of the timer
+     * is in the event queue.
+     *
+     * @return true if the timer will tick again without being restarted
+     */
+    public boolean isPending()
+    {
+        return pending;
+    }
+
+
+    /**
+     * The <code>distance()</code> method computes the number of steps that a
+     * counter takes from one value to another.
+     *
+     * @param from
+     *            the current value of the counter
+     * @param inc
+     *            the step of the counter, 1 or -1
+     * @param to
+     *            the value to reach
+     * @return the number of steps, or <code>NEVER</code> if the counter moves
+     *         away from the value
+     */
+    public static int distance(int from, int inc, int to)
+    {
+        int d = (to - from) * inc;
+        return d < 0 ? NEVER : d;
+    }
+}
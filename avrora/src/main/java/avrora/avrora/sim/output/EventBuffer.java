@@ -33,90 +33,423 @@
  */
 package avrora.avrora.sim.output;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
 import avrora.avrora.sim.Simulator;
+import avrora.cck.util.Util;
 
 /**
- * The <code>EventBuffer</code> definition.
+ * The <code>EventBuffer</code> class records the events generated by a
+ * simulator so that they can be processed later, for example by an output
+ * thread. The events are stored in a ring of parallel arrays that hold the
+ * time, the parameter and the kind of each event, so that recording an event
+ * does not allocate any memory. The ring is allocated when the first event is
+ * recorded, since most simulators never record any. The kind of an event is a small
+ * integer that stands for the object passed to the event generator.
+ * <p/>
+ * When the ring is full, the older half of it is spilled to a memory mapped
+ * temporary file. Events are always drained in the order in which they were
+ * recorded: first from the file, then from the ring. The file is closed and
+ * deleted as soon as all spilled events are drained. An event buffer belongs
+ * to the thread of its simulator and is not synchronized.
  *
  * @author Ben L. Titzer
  */
 public class EventBuffer
 {
 
-    public class Event
+    /**
+     * The <code>Batch</code> interface is implemented by consumers that process
+     * many events at once. The events are passed as ranges of parallel arrays,
+     * which the consumer must not retain after the call returns.
+     */
+    public interface Batch
+    {
+        /**
+         * The <code>process()</code> method processes a range of events.
+         *
+         * @param s
+         *            the simulator that generated the events
+         * @param times
+         *            the clock cycles in which the events were generated
+         * @param kinds
+         *            the kinds of the events; see <code>getObject()</code>
+         * @param params
+         *            the parameters of the events
+         * @param offset
+         *            the index of the first event in the arrays
+         * @param length
+         *            the number of events
+         */
+        public void process(Simulator s, long[] times, int[] kinds,
+                long[] params, int offset, int length);
+    }
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    protected static final int SPILL_RECORD = 20;
+    protected static final int SPILL_CHUNK = 1 << 16;
+
+    public final Simulator sim;
+
+    protected final int capacity;
+    protected final int mask;
+    protected long[] times;
+    protected long[] params;
+    protected int[] kinds;
+    protected long head;
+    protected long tail;
+
+    protected final IdentityHashMap<Object, Integer> kindMap;
+    protected final ArrayList<Object> kindObjects;
+
+    protected File spillPath;
+    protected RandomAccessFile spillFile;
+    protected MappedByteBuffer spillWrite;
+    protected MappedByteBuffer spillRead;
+    protected long readChunk;
+    protected long writeChunk;
+    protected long spillHead;
+    protected long spillTail;
+
+    // scratch arrays used to pass spilled events to batch consumers
+    protected long[] batchTimes;
+    protected long[] batchParams;
+    protected int[] batchKinds;
+
+
+    public EventBuffer(Simulator s)
+    {
+        this(s, DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * The constructor for the <code>EventBuffer</code> class creates a new
+     * event buffer with the specified capacity.
+     *
+     * @param s
+     *            the simulator that generates the events
+     * @param capacity
+     *            the number of events the ring can hold before spilling; it is
+     *            rounded up to a power of two
+     */
+    public EventBuffer(Simulator s, int capacity)
     {
-        public final long time;
-        public final Object object;
-        public final long param;
-        public Event next;
+        sim = s;
+        this.capacity = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        mask = this.capacity - 1;
+        kindMap = new IdentityHashMap<Object, Integer>();
+        kindObjects = new ArrayList<Object>();
+    }
 
 
-        Event(Object object, long param)
+    /**
+     * The <code>getKind()</code> method returns the kind that represents the
+     * specified object in this buffer, assigning a new kind if necessary.
+     *
+     * @param o
+     *            the object that is passed to the event generator
+     * @return the kind of the events with that object
+     */
+    public int getKind(Object o)
+    {
+        Integer kind = kindMap.get(o);
+        if (kind == null)
         {
-            this.time = sim.getClock().getCount();
-            this.object = object;
-            this.param = param;
+            kind = kindObjects.size();
+            kindObjects.add(o);
+            kindMap.put(o, kind);
         }
+        return kind;
+    }
+
+
+    /**
+     * The <code>getObject()</code> method returns the object that is
+     * represented by the specified event kind.
+     *
+     * @param kind
+     *            the kind of an event
+     * @return the object that was passed to the event generator
+     */
+    public Object getObject(int kind)
+    {
+        return kindObjects.get(kind);
+    }
+
+
+    /**
+     * The <code>size()</code> method returns the number of events that are
+     * recorded and not yet drained.
+     *
+     * @return the number of events in this buffer
+     */
+    public long size()
+    {
+        return (spillTail - spillHead) + (tail - head);
+    }
 
 
-        public Simulator getSimulator()
+    protected void recordEvent(Object o, long param)
+    {
+        recordEvent(sim.getClock().getCount(), getKind(o), param);
+    }
+
+
+    protected void recordEvent(long time, int kind, long param)
+    {
+        if (times == null)
         {
-            return sim;
+            times = new long[capacity];
+            params = new long[capacity];
+            kinds = new int[capacity];
         }
+        if (tail - head == capacity)
+            spill(capacity / 2);
+        int i = (int) tail & mask;
+        times[i] = time;
+        kinds[i] = kind;
+        params[i] = param;
+        tail++;
     }
 
-    public final Simulator sim;
-    protected Event head;
-    protected Event tail;
 
+    /**
+     * The <code>reset()</code> method discards all events in this buffer and
+     * closes the spill file, if any.
+     */
+    public void reset()
+    {
+        head = tail = 0;
+        closeSpill();
+    }
 
-    public EventBuffer(Simulator s)
+
+    /**
+     * The <code>drain()</code> method passes all events that were generated
+     * before the specified time to the specified processor, in order, and
+     * removes them from this buffer.
+     *
+     * @param time
+     *            the time before which events are drained
+     * @param p
+     *            the processor for the events
+     * @return the number of events drained
+     */
+    public int drain(long time, EventProcessor p)
     {
-        sim = s;
+        int count = 0;
+        while (spillHead < spillTail)
+        {
+            MappedByteBuffer b = readBuffer();
+            int pos = offset(spillHead);
+            long t = b.getLong(pos);
+            if (t >= time)
+                return count;
+            long param = b.getLong(pos + 8);
+            int kind = b.getInt(pos + 16);
+            advanceSpill();
+            p.process(sim, t, getObject(kind), param);
+            count++;
+        }
+        while (head < tail)
+        {
+            int i = (int) head & mask;
+            if (times[i] >= time)
+                return count;
+            p.process(sim, times[i], getObject(kinds[i]), params[i]);
+            head++;
+            count++;
+        }
+        return count;
     }
 
 
-    protected Event recordEvent(Object o, long param)
+    /**
+     * The <code>drainBatch()</code> method passes all events that were generated
+     * before the specified time to the specified batch consumer, in order, and
+     * removes them from this buffer. Events in the ring are passed directly
+     * from its arrays; spilled events are first copied into reused arrays.
+     *
+     * @param time
+     *            the time before which events are drained
+     * @param b
+     *            the consumer for the events
+     * @return the number of events drained
+     */
+    public int drainBatch(long time, Batch b)
     {
-        Event e = new Event(o, param);
-        if (tail == null)
+        int count = 0;
+        while (spillHead < spillTail)
         {
-            head = tail = e;
-        } else
+            int n = readSpill(time);
+            if (n == 0)
+                return count;
+            b.process(sim, batchTimes, batchKinds, batchParams, 0, n);
+            count += n;
+        }
+        while (head < tail)
+        {
+            // find the end of the run of events that is contiguous in the ring
+            int start = (int) head & mask;
+            int end = (int) Math.min(tail - head, capacity - start)
+                    + start;
+            int limit = end;
+            if (times[end - 1] >= time)
+                limit = search(start, end, time);
+            if (limit > start)
+            {
+                b.process(sim, times, kinds, params, start, limit - start);
+                head += limit - start;
+                count += limit - start;
+            }
+            if (limit < end)
+                break;
+        }
+        return count;
+    }
+
+
+    // returns the index of the first event at or after the given time
+    private int search(int low, int high, long time)
+    {
+        while (low < high)
         {
-            tail.next = e;
-            tail = e;
+            int mid = (low + high) >>> 1;
+            if (times[mid] < time)
+                low = mid + 1;
+            else
+                high = mid;
         }
-        return e;
+        return low;
     }
 
 
-    public Event extract(long time)
+    private void spill(int count)
     {
-        Event prev = null;
-        Event cur = head;
-        while (cur != null)
+        try
         {
-            if (cur.time >= time)
+            if (spillFile == null)
             {
-                // chop the list before this node
-                if (prev != null)
+                spillPath = File.createTempFile("avrora-events", ".buf");
+                spillPath.deleteOnExit();
+                spillFile = new RandomAccessFile(spillPath, "rw");
+            }
+            for (int cntr = 0; cntr < count; cntr++)
+            {
+                long chunk = spillTail / SPILL_CHUNK;
+                if (spillWrite == null || writeChunk != chunk)
                 {
-                    // extracted at least one node
-                    prev.next = null;
-                    prev = head;
-                    head = cur;
-                    return prev;
+                    spillWrite = map(chunk);
+                    writeChunk = chunk;
                 }
-                // did not extract any nodes
-                return null;
+                int pos = offset(spillTail);
+                int i = (int) head & mask;
+                spillWrite.putLong(pos, times[i]);
+                spillWrite.putLong(pos + 8, params[i]);
+                spillWrite.putInt(pos + 16, kinds[i]);
+                head++;
+                spillTail++;
+            }
+        }
+        catch (IOException e)
+        {
+            throw Util.unexpected(e);
+        }
+    }
+
+
+    // reads up to one batch of spilled events before the given time
+    private int readSpill(long time)
+    {
+        if (batchTimes == null)
+        {
+            batchTimes = new long[capacity / 2];
+            batchParams = new long[capacity / 2];
+            batchKinds = new int[capacity / 2];
+        }
+        int n = 0;
+        while (n < batchTimes.length && spillHead < spillTail)
+        {
+            MappedByteBuffer b = readBuffer();
+            int pos = offset(spillHead);
+            long t = b.getLong(pos);
+            if (t >= time)
+                break;
+            batchTimes[n] = t;
+            batchParams[n] = b.getLong(pos + 8);
+            batchKinds[n] = b.getInt(pos + 16);
+            n++;
+            advanceSpill();
+        }
+        return n;
+    }
+
+
+    private MappedByteBuffer readBuffer()
+    {
+        long chunk = spillHead / SPILL_CHUNK;
+        if (spillRead == null || readChunk != chunk)
+        {
+            try
+            {
+                spillRead = map(chunk);
+                readChunk = chunk;
+            }
+            catch (IOException e)
+            {
+                throw Util.unexpected(e);
             }
-            prev = cur;
-            cur = cur.next;
         }
-        // consumed the whole list
-        cur = head;
-        head = tail = null;
-        return cur;
+        return spillRead;
+    }
+
+
+    private void advanceSpill()
+    {
+        spillHead++;
+        if (spillHead == spillTail)
+            closeSpill();
+    }
+
+
+    private void closeSpill()
+    {
+        spillHead = spillTail = 0;
+        spillRead = spillWrite = null;
+        if (spillFile == null)
+            return;
+        try
+        {
+            spillFile.close();
+        }
+        catch (IOException e)
+        {
+            throw Util.unexpected(e);
+        }
+        spillPath.delete();
+        spillFile = null;
+        spillPath = null;
+    }
+
+
+    private static int offset(long index)
+    {
+        return (int) (index % SPILL_CHUNK) * SPILL_RECORD;
+    }
+
+
+    private MappedByteBuffer map(long chunk) throws IOException
+    {
+        long size = (long) SPILL_CHUNK * SPILL_RECORD;
+        return spillFile.getChannel().map(FileChannel.MapMode.READ_WRITE,
+                chunk * size, size);
     }
 }
@@ -45,6 +45,8 @@ public class EventGen
 
     private boolean enabled;
     private final EventBuffer buffer;
+    private Object lastObject;
+    private int lastKind = -1;
 
 
     public EventGen(EventBuffer buf)
@@ -69,7 +71,7 @@ public class EventGen
     {
         if (enabled)
         {
-            buffer.recordEvent(o, 0);
+            record(o, 0);
         }
     }
 
@@ -78,7 +80,7 @@ public class EventGen
     {
         if (enabled)
         {
-            buffer.recordEvent(o, (long) param);
+            record(o, (long) param);
         }
     }
 
@@ -87,7 +89,7 @@ public class EventGen
     {
         if (enabled)
         {
-            buffer.recordEvent(o, Float.floatToIntBits(param));
+            record(o, Float.floatToIntBits(param));
         }
     }
 
@@ -96,7 +98,7 @@ public class EventGen
     {
         if (enabled)
         {
-            buffer.recordEvent(o, Double.doubleToLongBits(param));
+            record(o, Double.doubleToLongBits(param));
         }
     }
 
@@ -106,7 +108,7 @@ public class EventGen
         if (enabled)
         {
             long param = ((long) p1) << 32 | (0xffffffffL & p2);
-            buffer.recordEvent(o, param);
+            record(o, param);
         }
     }
 
@@ -115,7 +117,7 @@ public class EventGen
     {
         if (enabled)
         {
-            buffer.recordEvent(o, (long) param);
+            record(o, (long) param);
         }
     }
 
@@ -125,7 +127,7 @@ public class EventGen
         if (enabled)
         {
             long param = Arithmetic.word(p1, p2);
-            buffer.recordEvent(o, param);
+            record(o, param);
         }
     }
 
@@ -134,8 +136,19 @@ public class EventGen
     {
         if (enabled)
         {
-            buffer.recordEvent(o, (long) param);
+            record(o, (long) param);
         }
     }
 
+
+    private void record(Object o, long param)
+    {
+        // most generators use the same object for all their events
+        if (o != lastObject || lastKind < 0)
+        {
+            lastKind = buffer.getKind(o);
+            lastObject = o;
+        }
+        buffer.recordEvent(buffer.sim.getClock().getCount(), lastKind, param);
+    }
 }
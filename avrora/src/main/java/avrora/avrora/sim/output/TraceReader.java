@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.sim.output;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import avrora.avrora.arch.AbstractInstr;
+import avrora.avrora.core.Program;
+import avrora.cck.util.Util;
+
+/**
+ * The <code>TraceReader</code> class decodes an instruction trace that was
+ * written by the <code>TraceWriter</code> class and passes its records to a
+ * <code>Handler</code>. The program that was traced is needed to compute the
+ * address of each instruction that directly follows its predecessor.
+ */
+public class TraceReader
+{
+
+    /**
+     * The <code>Handler</code> interface receives the decoded records of a
+     * trace.
+     */
+    public interface Handler
+    {
+        public void instr(long time, int pc, AbstractInstr i);
+
+
+        public void register(long time, int reg, int value);
+
+
+        public void write(long time, int address, int value);
+
+
+        public void text(long time, String s);
+    }
+
+    public final int id;
+    public final long hz;
+
+    protected final Program program;
+    protected final DataInputStream input;
+    protected byte[] block;
+    protected int length;
+    protected int pos;
+
+    protected long time;
+    protected int nextPC;
+    protected int lastAddress;
+
+
+    /**
+     * The constructor for the <code>TraceReader</code> class opens a trace
+     * file and reads its header.
+     *
+     * @param f
+     *            the trace file
+     * @param p
+     *            the program that was traced
+     * @throws IOException
+     *             if the file cannot be read or is not a trace file
+     */
+    public TraceReader(File f, Program p) throws IOException
+    {
+        program = p;
+        input = new DataInputStream(new FileInputStream(f));
+        if (input.readInt() != TraceWriter.MAGIC)
+            Util.userError("Not a trace file", f.getPath());
+        int version = input.readInt();
+        if (version != TraceWriter.VERSION)
+            Util.userError("Unsupported trace version", "" + version);
+        id = input.readInt();
+        hz = input.readLong();
+        block = new byte[0];
+    }
+
+
+    /**
+     * The <code>read()</code> method decodes the whole trace and passes each
+     * record to the specified handler.
+     *
+     * @param h
+     *            the handler for the records
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public void read(Handler h) throws IOException
+    {
+        try
+        {
+            while (readBlock())
+            {
+                while (pos < length)
+                    readRecord(h);
+            }
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+
+    private void readRecord(Handler h)
+    {
+        int b = block[pos++] & 0xff;
+        long delta = b >>> 3;
+        if (delta == 31)
+            delta += readUnsigned();
+        time += delta;
+        switch (b & 7)
+        {
+            case TraceWriter.INSTR:
+                instr(h, nextPC);
+                break;
+            case TraceWriter.JUMP:
+                instr(h, nextPC + (int) readSigned());
+                break;
+            case TraceWriter.REGISTER:
+                int reg = block[pos++];
+                h.register(time, reg, block[pos++] & 0xff);
+                break;
+            case TraceWriter.WRITE:
+                lastAddress += (int) readSigned();
+                h.write(time, lastAddress, block[pos++] & 0xff);
+                break;
+            case TraceWriter.TEXT:
+                int len = (int) readUnsigned();
+                h.text(time, new String(block, pos, len));
+                pos += len;
+                break;
+            default:
+                Util.userError("Corrupted trace file");
+        }
+    }
+
+
+    private void instr(Handler h, int pc)
+    {
+        AbstractInstr i = program.readInstr(pc);
+        if (i == null)
+            Util.userError("Trace does not match program",
+                    "no instruction at " + pc);
+        h.instr(time, pc, i);
+        nextPC = pc + i.getSize();
+    }
+
+
+    private long readSigned()
+    {
+        long v = readUnsigned();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+
+    private long readUnsigned()
+    {
+        long v = 0;
+        int shift = 0;
+        while (true)
+        {
+            int b = block[pos++];
+            v |= (long) (b & 0x7f) << shift;
+            if (b >= 0)
+                return v;
+            shift += 7;
+        }
+    }
+
+
+    private boolean readBlock() throws IOException
+    {
+        int raw, compressed;
+        try
+        {
+            raw = input.readInt();
+        }
+        catch (EOFException e)
+        {
+            return false;
+        }
+        compressed = input.readInt();
+        byte[] data = new byte[compressed];
+        input.readFully(data);
+        if (block.length < raw)
+            block = new byte[raw];
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput(data);
+            length = inflater.inflate(block, 0, raw);
+        }
+        catch (DataFormatException e)
+        {
+            Util.userError("Corrupted trace file", e.getMessage());
+        }
+        finally
+        {
+            inflater.end();
+        }
+        pos = 0;
+        return true;
+    }
+}
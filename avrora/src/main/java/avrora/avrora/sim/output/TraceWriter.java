@@ -0,0 +1,389 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.sim.output;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+import avrora.cck.util.Util;
+
+/**
+ * The <code>TraceWriter</code> class writes an instruction trace in a compact
+ * binary format. Each executed instruction is recorded as the difference of its
+ * cycle count to the previous record and, if it does not directly follow the
+ * previous instruction, the difference of its address to the expected one. In
+ * the common case this takes a single byte per instruction. Optionally, the
+ * values written to registers and to the SRAM are recorded as well.
+ * <p/>
+ * The records are collected in blocks, which a background thread compresses
+ * and writes to the file, so that the simulation only pays for encoding the
+ * records. The <code>TraceReader</code> class decodes such a file.
+ * <p/>
+ * The file starts with a header that contains a magic number, the version of
+ * the format, the ID of the node and its clock frequency. Each block consists
+ * of its uncompressed length, its compressed length and the deflated records.
+ * Each record starts with a byte whose lower 3 bits give the kind of the record
+ * and whose upper 5 bits give the cycle delta; a delta of 31 or more is
+ * followed by the rest of the delta as a variable length integer.
+ */
+public class TraceWriter
+{
+
+    public static final int MAGIC = 0x41565254; // "AVRT"
+    public static final int VERSION = 1;
+
+    public static final int INSTR = 0;
+    public static final int JUMP = 1;
+    public static final int REGISTER = 2;
+    public static final int WRITE = 3;
+    public static final int TEXT = 4;
+
+    protected static final int BLOCK_SIZE = 1 << 16;
+    protected static final int MAX_RECORD = 32;
+    protected static final int BUFFERS = 4;
+
+    protected final FileChannel channel;
+    protected final BlockingQueue<ByteBuffer> full;
+    protected final BlockingQueue<ByteBuffer> free;
+    protected final Thread thread;
+    protected ByteBuffer buffer;
+    protected IOException error;
+
+    protected long lastTime;
+    protected int nextPC;
+    protected int lastAddress;
+    protected long records;
+    protected long rawBytes;
+    protected long fileBytes;
+
+
+    /**
+     * The constructor for the <code>TraceWriter</code> class creates the trace
+     * file, writes its header and starts the thread that writes the blocks.
+     *
+     * @param f
+     *            the file to write the trace to
+     * @param id
+     *            the ID of the node that is traced
+     * @param hz
+     *            the clock frequency of the node
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    public TraceWriter(File f, int id, long hz) throws IOException
+    {
+        channel = new FileOutputStream(f).getChannel();
+        ByteBuffer header = ByteBuffer.allocate(20);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(id);
+        header.putLong(hz);
+        header.flip();
+        writeFully(header);
+
+        full = new ArrayBlockingQueue<ByteBuffer>(BUFFERS);
+        free = new ArrayBlockingQueue<ByteBuffer>(BUFFERS);
+        for (int cntr = 1; cntr < BUFFERS; cntr++)
+            free.add(ByteBuffer.allocate(BLOCK_SIZE));
+        buffer = ByteBuffer.allocate(BLOCK_SIZE);
+        thread = new Thread(new Compressor(), "trace-writer-" + id);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    /**
+     * The <code>instr()</code> method records the execution of an instruction.
+     *
+     * @param time
+     *            the clock cycle in which the instruction starts
+     * @param pc
+     *            the address of the instruction
+     * @param size
+     *            the size of the instruction in bytes
+     */
+    public void instr(long time, int pc, int size)
+    {
+        ensure(MAX_RECORD);
+        if (pc == nextPC)
+        {
+            putHeader(INSTR, time);
+        } else
+        {
+            putHeader(JUMP, time);
+            putSigned(pc - nextPC);
+        }
+        nextPC = pc + size;
+    }
+
+
+    /**
+     * The <code>register()</code> method records a new value of a register.
+     *
+     * @param time
+     *            the clock cycle of the write
+     * @param reg
+     *            the number of the register
+     * @param value
+     *            the new value of the register
+     */
+    public void register(long time, int reg, byte value)
+    {
+        ensure(MAX_RECORD);
+        putHeader(REGISTER, time);
+        buffer.put((byte) reg);
+        buffer.put(value);
+    }
+
+
+    /**
+     * The <code>write()</code> method records a write to the data memory. The
+     * address is stored as the difference to the address of the previous
+     * write.
+     *
+     * @param time
+     *            the clock cycle of the write
+     * @param address
+     *            the data address that was written
+     * @param value
+     *            the value that was written
+     */
+    public void write(long time, int address, byte value)
+    {
+        ensure(MAX_RECORD);
+        putHeader(WRITE, time);
+        putSigned(address - lastAddress);
+        buffer.put(value);
+        lastAddress = address;
+    }
+
+
+    /**
+     * The <code>text()</code> method records a line of text, such as a message
+     * that marks the beginning of a traced region.
+     *
+     * @param time
+     *            the clock cycle in which the message was printed
+     * @param s
+     *            the message
+     */
+    public void text(long time, String s)
+    {
+        byte[] bytes = s.getBytes();
+        if (bytes.length > BLOCK_SIZE - MAX_RECORD)
+            throw Util.failure("trace message too long");
+        ensure(MAX_RECORD + bytes.length);
+        putHeader(TEXT, time);
+        putUnsigned(bytes.length);
+        buffer.put(bytes);
+    }
+
+
+    /**
+     * The <code>close()</code> method writes the remaining records, waits for
+     * the background thread to finish and closes the file.
+     */
+    public void close()
+    {
+        try
+        {
+            flush();
+            full.put(ByteBuffer.allocate(0));
+            thread.join();
+            channel.close();
+        }
+        catch (Exception e)
+        {
+            throw Util.unexpected(e);
+        }
+        if (error != null)
+            throw Util.unexpected(error);
+    }
+
+
+    public long getRecordCount()
+    {
+        return records;
+    }
+
+
+    public long getRawBytes()
+    {
+        return rawBytes;
+    }
+
+
+    public long getFileBytes()
+    {
+        return fileBytes;
+    }
+
+
+    private void putHeader(int kind, long time)
+    {
+        long delta = time - lastTime;
+        lastTime = time;
+        records++;
+        if (delta < 31)
+        {
+            buffer.put((byte) (kind | (delta << 3)));
+        } else
+        {
+            buffer.put((byte) (kind | (31 << 3)));
+            putUnsigned(delta - 31);
+        }
+    }
+
+
+    private void putSigned(long v)
+    {
+        // zig-zag encoding keeps small negative numbers small
+        putUnsigned((v << 1) ^ (v >> 63));
+    }
+
+
+    private void putUnsigned(long v)
+    {
+        while ((v & ~0x7fL) != 0)
+        {
+            buffer.put((byte) ((v & 0x7f) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+
+    private void ensure(int size)
+    {
+        if (buffer.remaining() < size)
+            flush();
+    }
+
+
+    private void flush()
+    {
+        if (buffer.position() == 0)
+            return;
+        try
+        {
+            rawBytes += buffer.position();
+            buffer.flip();
+            full.put(buffer);
+            buffer = free.take();
+            buffer.clear();
+        }
+        catch (InterruptedException e)
+        {
+            throw Util.unexpected(e);
+        }
+    }
+
+
+    private void writeFully(ByteBuffer b) throws IOException
+    {
+        fileBytes += b.remaining();
+        while (b.hasRemaining())
+            channel.write(b);
+    }
+
+    /**
+     * The <code>Compressor</code> class compresses the blocks of records and
+     * writes them to the file.
+     */
+    protected class Compressor implements Runnable
+    {
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final ByteBuffer out = ByteBuffer
+                .allocate(BLOCK_SIZE + BLOCK_SIZE / 8 + 64);
+
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (true)
+                {
+                    ByteBuffer block = full.take();
+                    if (block.limit() == 0)
+                        break;
+                    if (error == null)
+                        writeBlock(block);
+                    free.put(block);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                // the trace is incomplete
+            }
+            finally
+            {
+                deflater.end();
+            }
+        }
+
+
+        private void writeBlock(ByteBuffer block)
+        {
+            int length = block.limit();
+            deflater.reset();
+            deflater.setInput(block.array(), 0, length);
+            deflater.finish();
+            out.clear();
+            out.position(8);
+            while (!deflater.finished())
+            {
+                int n = deflater.deflate(out.array(), out.position(),
+                        out.remaining());
+                out.position(out.position() + n);
+            }
+            out.putInt(0, length);
+            out.putInt(4, out.position() - 8);
+            out.flip();
+            try
+            {
+                writeFully(out);
+            }
+            catch (IOException e)
+            {
+                error = e;
+            }
+        }
+    }
+}
@@ -111,7 +111,7 @@ public class DefaultPlatform extends Platform
         @Override
         public Platform newPlatform(int id, Simulation sim, Program p)
         {
-            ClockDomain cd = new ClockDomain(mainClockSpeed);
+            ClockDomain cd = sim.newClockDomain(mainClockSpeed);
             cd.newClock("external", extClockSpeed);
             return new DefaultPlatform(id,
                     mcf.newMicrocontroller(id, sim, cd, p));
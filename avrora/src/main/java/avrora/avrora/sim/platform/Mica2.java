@@ -81,7 +81,7 @@ public class Mica2 extends Platform
         @Override
         public Platform newPlatform(int id, Simulation sim, Program p)
         {
-            ClockDomain cd = new ClockDomain(MAIN_HZ);
+            ClockDomain cd = sim.newClockDomain(MAIN_HZ);
             cd.newClock("external", EXT_HZ);
 
             return new Mica2(new ATMega128(id, sim, cd, p));
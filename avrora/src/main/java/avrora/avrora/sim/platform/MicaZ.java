@@ -82,7 +82,7 @@ public class MicaZ extends Platform
         @Override
         public Platform newPlatform(int id, Simulation sim, Program p)
         {
-            ClockDomain cd = new ClockDomain(MAIN_HZ);
+            ClockDomain cd = sim.newClockDomain(MAIN_HZ);
             cd.newClock("external", 32768);
 
             return new MicaZ(new ATMega128(id, sim, cd, p));
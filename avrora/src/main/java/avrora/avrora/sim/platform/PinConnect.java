@@ -36,14 +36,23 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
+import avrora.avrora.sim.FiniteStateMachine;
+import avrora.avrora.sim.Simulation;
 import avrora.avrora.sim.Simulator;
 import avrora.avrora.sim.SimulatorThread;
 import avrora.avrora.sim.clock.StepSynchronizer;
 import avrora.avrora.sim.clock.Synchronizer;
+import avrora.avrora.sim.clock.TaskSynchronizer;
 import avrora.avrora.sim.mcu.Microcontroller;
+import avrora.avrora.sim.types.WiredSimulation;
 
 /**
- * Very simple implementation of pin interconnect between microcontrollers
+ * Very simple implementation of pin interconnect between microcontrollers.
+ * The transitions of an output wire are recorded with the time at which they
+ * happen, and delivered to the input wires of the connected node at the next
+ * point where the nodes are synchronized. Each transition arrives on the input
+ * wires after the propagation latency of the wires. With a latency of zero, a
+ * transition arrives as soon as it is delivered.
  *
  * @author Jacob Everist
  */
@@ -60,7 +69,10 @@ public class PinConnect
     }
 
     private final PinEvent pinEvent;
-    public final Synchronizer synchronizer;
+    public Synchronizer synchronizer;
+
+    // propagation latency of the wires in clock cycles
+    protected long latency;
 
     // List of all the pin relationships
     protected LinkedList<PinNode> pinNodes;
@@ -96,6 +108,59 @@ public class PinConnect
     }
 
 
+    /**
+     * The <code>getPinConnect()</code> method gets the interconnect that the
+     * wired node of the specified simulator is added to. Each wired simulation
+     * has its own interconnect; nodes outside of one share a default one.
+     *
+     * @param sim
+     *            the simulator of the node
+     * @return the interconnect for the node
+     */
+    public static PinConnect getPinConnect(Simulator sim)
+    {
+        Simulation s = sim.getSimulation();
+        if (s instanceof WiredSimulation)
+            return ((WiredSimulation) s).getPinConnect();
+        return pinConnect;
+    }
+
+
+    /**
+     * The <code>setLatency()</code> method sets the propagation latency of the
+     * wires, i.e. the time between a transition of an output wire and its
+     * arrival on the connected input wires.
+     *
+     * @param cycles
+     *            the propagation latency in clock cycles
+     */
+    public void setLatency(long cycles)
+    {
+        latency = cycles;
+    }
+
+
+    /**
+     * The <code>newTaskSynchronizer()</code> method replaces the synchronizer
+     * that steps the nodes one instruction at a time with a synchronizer that
+     * runs the nodes ahead of each other in windows that are shorter than the
+     * propagation latency of the wires. Since a transition can not arrive at
+     * another node within the same window, the transitions are delivered at
+     * the end of each window, with the same results as when stepping the nodes.
+     *
+     * @param workers
+     *            the number of worker threads; when zero or less, one worker
+     *            per available processor is used
+     * @return the new synchronizer
+     */
+    public Synchronizer newTaskSynchronizer(int workers)
+    {
+        long window = latency - TaskSynchronizer.MAX_OVERRUN;
+        synchronizer = new TaskSynchronizer(window, workers, pinEvent);
+        return synchronizer;
+    }
+
+
     public void addSeresNode(Microcontroller mcu, PinWire northTx,
             PinWire eastTx, PinWire southTx, PinWire westTx, PinWire northRx,
             PinWire eastRx, PinWire southRx, PinWire westRx, PinWire northInt,
@@ -365,6 +430,7 @@ public class PinConnect
 
             for (PinLink del : toRemove)
             {
+                del.disconnect();
                 pinConnections.remove(del);
             }
         }
@@ -379,7 +445,7 @@ public class PinConnect
      *
      * @author Jacob Everist
      */
-    protected class PinLink
+    protected class PinLink implements FiniteStateMachine.Probe
     {
 
         protected LinkedList<PinWire> pinWires;
@@ -391,12 +457,17 @@ public class PinConnect
         public PinNode inputNode;
         public int inputSide;
 
+        // the output wire and the transitions that have not been delivered yet
+        protected final PinWire outputWire;
+        protected final LinkedList<PinSignal> signals;
+
 
         // must start PinLink with an output pin
         public PinLink(PinWire outputPin)
         {
 
             pinWires = new LinkedList<PinWire>();
+            signals = new LinkedList<PinSignal>();
 
             // make sure it is set as output
             outputPin.wireOutput.enableOutput();
@@ -404,6 +475,10 @@ public class PinConnect
             // add to list of pins on this connection
             pinWires.add(outputPin);
 
+            // record the transitions of the output pin
+            outputWire = outputPin;
+            outputWire.state.insertProbe(this);
+
         }
 
 
@@ -420,58 +495,68 @@ public class PinConnect
         }
 
 
-        // transmit the signals on this connection
-        public void propagateSignals()
+        // stop recording the transitions of the output pin
+        public void disconnect()
         {
-            // iterator over PinWires
-            PinWire currOutput = null;
+            outputWire.state.removeProbe(this);
+            signals.clear();
+        }
 
-            // go through the complete list of PinWires to find the output wire
-            for (PinWire curr : pinWires)
-            {
-                // if this wire accepts output
-                if (curr.outputReady())
-                {
-                    // check that we haven't already found an output wire
-                    if (currOutput != null)
-                    {
-                        String s = "ERROR: More than one output wire on this PinLink";
-                        System.out.println(s);
-                        return;
-                    } else
-                    {
-                        // set this pin as the output wire
-                        currOutput = curr;
-                    }
 
-                }
-            }
+        @Override
+        public void fireBeforeTransition(int beforeState, int afterState)
+        {
+            // do nothing
+        }
 
-            // check if we have an output wire
-            if (currOutput == null)
-            {
-                // there is no output wire, so do nothing
-            }
-            // if we have an output wire, propagate its signal
-            else
+
+        // record the transition with the time at which it arrives
+        @Override
+        public void fireAfterTransition(int beforeState, int afterState)
+        {
+            if (beforeState == afterState)
+                return;
+
+            long time = outputWire.sim.getClock().getCount() + latency;
+            signals.add(new PinSignal(time, afterState == 1));
+        }
+
+
+        // transmit the signals on this connection
+        public void propagateSignals()
+        {
+            // deliver the recorded transitions to the input pins in order
+            while (!signals.isEmpty())
             {
+                PinSignal signal = signals.removeFirst();
                 for (PinWire curr : pinWires)
                 {
                     // if this is not the output, propagate the signal
-                    if (curr != currOutput)
-                    {
-                        // write the value of output pin to the input pins
-                        curr.wireOutput.write(currOutput.wireInput.read());
-                        // System.out.println("Writing " +
-                        // currOutput.wireInput.read()
-                        // + " from " + currOutput.readName() + " to "
-                        // + curr.readName());
-                    }
+                    if (curr != outputWire)
+                        curr.propagate(signal.level, signal.time);
                 }
             }
         }
     }
 
+    /**
+     * This class stores a transition of an output pin that has not been
+     * delivered to the input pins yet.
+     */
+    protected static class PinSignal
+    {
+
+        public final long time;
+        public final boolean level;
+
+
+        public PinSignal(long time, boolean level)
+        {
+            this.time = time;
+            this.level = level;
+        }
+    }
+
     protected class PinEvent implements Simulator.Event
     {
         @Override
@@ -78,9 +78,6 @@ public class PinWire
     // probe of the PinWire activity
     protected final PinWireProbe probe;
 
-    // propagation delay in cycles
-    protected final long propDelay;
-
 
     protected PinWire(Simulator s, int colorNum, String pinName)
     {
@@ -100,8 +97,6 @@ public class PinWire
         this.pinName = pinName;
         atmel = null;
 
-        propDelay = clock.millisToCycles(0.0014);
-
     }
 
 
@@ -123,7 +118,6 @@ public class PinWire
         this.colorNum = colorNum;
         this.pinName = pinName;
         atmel = (ATMegaFamily) mcu;
-        propDelay = clock.millisToCycles(0.0014);
     }
 
 
@@ -156,6 +150,28 @@ public class PinWire
         return acceptsOutput;
     }
 
+
+    /**
+     * The <code>propagate()</code> method drives this wire to the specified
+     * level at the specified time of the simulator that owns the wire. If that
+     * time has already passed, the level changes immediately; otherwise, an
+     * event is inserted that changes the level at that time. This method must
+     * only be called while the simulator that owns the wire is stopped.
+     *
+     * @param level
+     *            the new level of the wire
+     * @param time
+     *            the time of the change in clock cycles of the owner of the wire
+     */
+    public void propagate(boolean level, long time)
+    {
+        long delta = time - sim.getClock().getCount();
+        if (delta <= 0)
+            wireOutput.write(level);
+        else
+            sim.insertEvent(new WirePropagationEvent(level), delta);
+    }
+
     /**
      * The <code>PinWireProbe</code> class implements a probe from the (tiny)
      * finite state machine that represents an PinWire's state. An PinWire can
@@ -281,10 +297,6 @@ public class PinWire
         @Override
         public void write(boolean level)
         {
-
-            // propagate signal after 1.4 uS =
-            // sim.insertEvent(new WirePropagationEvent(level), propDelay);
-
             if (level)
                 state.transition(1);
             else
@@ -292,28 +304,28 @@ public class PinWire
 
         }
 
-        protected class WirePropagationEvent implements Simulator.Event
-        {
-            private boolean value;
-
+    }
 
-            public WirePropagationEvent(boolean value)
-            {
-                this.value = value;
-            }
+    protected class WirePropagationEvent implements Simulator.Event
+    {
+        private boolean value;
 
 
-            // propagate signal to the pin finally
-            @Override
-            public void fire()
-            {
-                if (value)
-                    state.transition(1);
-                else
-                    state.transition(0);
-            }
+        public WirePropagationEvent(boolean value)
+        {
+            this.value = value;
         }
 
+
+        // propagate signal to the pin finally
+        @Override
+        public void fire()
+        {
+            if (value)
+                state.transition(1);
+            else
+                state.transition(0);
+        }
     }
 
 }
@@ -70,7 +70,7 @@ public class Seres extends Platform
         @Override
         public Platform newPlatform(int id, Simulation sim, Program p)
         {
-            ClockDomain cd = new ClockDomain(7372800);
+            ClockDomain cd = sim.newClockDomain(7372800);
             cd.newClock("external", 32768);
 
             return new Seres(new ATMega128(id, sim, cd, p));
@@ -158,7 +158,7 @@ public class Seres extends Platform
         westPinInt.enableConnect();
 
         // pin management device
-        pinConnect = PinConnect.pinConnect;
+        pinConnect = PinConnect.getPinConnect(sim);
 
         pinConnect.addSeresNode(mcu, northPinTx, eastPinTx, southPinTx,
                 westPinTx, northPinRx, eastPinRx, southPinRx, westPinRx,
@@ -68,7 +68,7 @@ public class Superbot extends Platform
         @Override
         public Platform newPlatform(int id, Simulation sim, Program p)
         {
-            ClockDomain cd = new ClockDomain(7372800);
+            ClockDomain cd = sim.newClockDomain(7372800);
             cd.newClock("external", 32768);
 
             return new Superbot(new ATMega128(id, sim, cd, p));
@@ -180,7 +180,7 @@ public class Superbot extends Platform
         LED6PinInt.enableConnect();
 
         // pin management device
-        pinConnect = PinConnect.pinConnect;
+        pinConnect = PinConnect.getPinConnect(sim);
 
         pinConnect.addSuperbotNode(mcu, LED1PinTx, LED2PinTx, LED3PinTx,
                 LED4PinTx, LED5PinTx, LED6PinTx, LED1PinRx, LED2PinRx,
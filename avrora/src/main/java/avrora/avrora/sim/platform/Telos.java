@@ -68,7 +68,7 @@ public class Telos extends Platform
         @Override
         public Platform newPlatform(int id, Simulation sim, Program p)
         {
-            ClockDomain cd = new ClockDomain(MAIN_HZ);
+            ClockDomain cd = sim.newClockDomain(MAIN_HZ);
             cd.newClock("external", EXT_HZ);
 
             return new Telos(new F1611(id, sim, cd, p));
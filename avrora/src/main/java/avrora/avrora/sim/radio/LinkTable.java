@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2007, Ben L. Titzer
+ * See the file "license.txt" for details.
+ */
+package avrora.avrora.sim.radio;
+
+import java.util.Arrays;
+
+import avrora.avrora.sim.radio.Topology.Position;
+
+/**
+ * The <code>LinkTable</code> class stores precomputed, position dependent
+ * properties of the links between the radios of a medium, such as the
+ * distance or the path loss. Each radio is assigned an index when its position
+ * is set; the properties of the link from transmitter <code>i</code> to
+ * receiver <code>j</code> are stored in row <code>j</code> at column
+ * <code>i</code>. A row is only allocated for radios that actually receive,
+ * and each entry is computed the first time it is used.
+ * <p/>
+ * When a radio moves, only the row of that radio and its column in the other
+ * rows are invalidated. Radios may be moved by other threads than those of the
+ * receivers, e.g. by the mobility model, which write the rows of other
+ * receivers and grow the arrays of the table. All accesses are therefore
+ * synchronized on the table.
+ */
+public class LinkTable
+{
+
+    /**
+     * The <code>Function</code> interface is implemented by radio models to
+     * compute the properties of a link from the positions of the transmitter
+     * and the receiver.
+     */
+    public interface Function
+    {
+        /**
+         * The <code>compute()</code> method computes the properties of a link
+         * and stores them into the specified array.
+         * 
+         * @param t
+         *            the position of the transmitter
+         * @param r
+         *            the position of the receiver
+         * @param dest
+         *            the array in which to store the properties
+         * @param offset
+         *            the index of the first property in the array
+         */
+        public void compute(Position t, Position r, float[] dest, int offset);
+    }
+
+    protected final int width;
+    protected final Function function;
+    protected Position[] positions;
+    protected float[][] rows;
+    protected int size;
+
+
+    /**
+     * The constructor for the <code>LinkTable</code> class creates a new,
+     * empty table.
+     * 
+     * @param w
+     *            the number of properties stored for each link
+     * @param f
+     *            the function that computes the properties of a link
+     */
+    public LinkTable(int w, Function f)
+    {
+        width = w;
+        function = f;
+        positions = new Position[16];
+        rows = new float[16][];
+    }
+
+
+    /**
+     * The <code>setPosition()</code> method sets the position of a radio and
+     * invalidates all the links from and to this radio.
+     * 
+     * @param radio
+     *            the radio
+     * @param p
+     *            the (new) position of the radio
+     */
+    public synchronized void setPosition(Radio radio, Position p)
+    {
+        Medium.Transmitter t = radio.getTransmitter();
+        Medium.Receiver r = radio.getReceiver();
+        int i = t.linkIndex;
+        if (i < 0)
+        {
+            i = size++;
+            if (i == positions.length)
+            {
+                positions = Arrays.copyOf(positions, 2 * i);
+                rows = Arrays.copyOf(rows, 2 * i);
+            }
+            t.linkIndex = i;
+            r.linkIndex = i;
+        }
+        positions[i] = p;
+
+        // invalidate the row of this radio and its column in all other rows
+        rows[i] = null;
+        int col = i * width;
+        for (int j = 0; j < size; j++)
+        {
+            float[] row = rows[j];
+            if (row != null && col < row.length)
+                row[col] = Float.NaN;
+        }
+    }
+
+
+    /**
+     * The <code>contains()</code> method checks whether the link between the
+     * specified transmitter and receiver is stored in this table.
+     * 
+     * @param t
+     *            the transmitter
+     * @param r
+     *            the receiver
+     * @return true if both radios have a position in this table
+     */
+    public synchronized boolean contains(Medium.Transmitter t,
+            Medium.Receiver r)
+    {
+        return t.linkIndex >= 0 && r.linkIndex >= 0;
+    }
+
+
+    /**
+     * The <code>get()</code> method gets a property of the link between the
+     * specified transmitter and receiver. Both radios must be contained in this
+     * table.
+     * 
+     * @param t
+     *            the transmitter
+     * @param r
+     *            the receiver
+     * @param field
+     *            the index of the property
+     * @return the value of the property
+     */
+    public synchronized float get(Medium.Transmitter t, Medium.Receiver r,
+            int field)
+    {
+        return getRow(t, r)[t.linkIndex * width + field];
+    }
+
+
+    /**
+     * The <code>get()</code> method copies all the properties of the link
+     * between the specified transmitter and receiver into an array, so that
+     * they are consistent with each other even if one of the radios moves at
+     * the same time. Both radios must be contained in this table.
+     * 
+     * @param t
+     *            the transmitter
+     * @param r
+     *            the receiver
+     * @param dest
+     *            the array in which to store the properties
+     */
+    public synchronized void get(Medium.Transmitter t, Medium.Receiver r,
+            float[] dest)
+    {
+        System.arraycopy(getRow(t, r), t.linkIndex * width, dest, 0, width);
+    }
+
+
+    private float[] getRow(Medium.Transmitter t, Medium.Receiver r)
+    {
+        int ri = r.linkIndex;
+        int ti = t.linkIndex;
+        float[] row = rows[ri];
+        int col = ti * width;
+        if (row == null || col >= row.length)
+            row = growRow(ri);
+        if (Float.isNaN(row[col]))
+            function.compute(positions[ti], positions[ri], row, col);
+        return row;
+    }
+
+
+    private float[] growRow(int ri)
+    {
+        float[] old = rows[ri];
+        float[] row = new float[size * width];
+        Arrays.fill(row, Float.NaN);
+        if (old != null)
+            System.arraycopy(old, 0, row, 0, old.length);
+        rows[ri] = row;
+        return row;
+    }
+}
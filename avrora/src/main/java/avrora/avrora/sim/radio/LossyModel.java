@@ -20,6 +20,7 @@
  */
 package avrora.avrora.sim.radio;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,6 +43,28 @@ public class LossyModel implements Medium.Arbitrator
     protected final double u = Math.sqrt((1 - Math.pow(lambda, 2D)));
     protected double Csf, Sf;
     protected boolean first = true;
+    protected LinkTable links;
+    protected Fading[] fading;
+
+    protected static final int TIME_SHARING = 0;
+    protected static final int PATH_LOSS = 1;
+    protected static final int SHADOW_STD = 2;
+    protected static final int SHADOW_MEAN = 3;
+    protected static final int FADING_SLOTS = 4;
+
+    /**
+     * The <code>Fading</code> class remembers the received power of the last
+     * few transmissions at one receiver, so that the fading of a transmission
+     * is sampled once instead of once for every byte of the transmission.
+     */
+    protected static class Fading
+    {
+        protected final Medium.Transmission[] transmissions =
+                new Medium.Transmission[FADING_SLOTS];
+        protected final double[] power = new double[FADING_SLOTS];
+        protected final float[] link = new float[4];
+        protected int next;
+    }
 
 
     public LossyModel()
@@ -50,6 +73,32 @@ public class LossyModel implements Medium.Arbitrator
     }
 
 
+    /**
+     * The <code>enableLinkTable()</code> method enables a table that caches the
+     * path loss and the shadowing parameters of the link between each pair of
+     * radios, which only change when one of them moves. It also causes the
+     * random fading of a transmission to be computed once per receiver for the
+     * whole transmission. This method must be called before the positions of
+     * the radios are set.
+     */
+    public void enableLinkTable()
+    {
+        links = new LinkTable(4, new LinkTable.Function()
+        {
+            @Override
+            public void compute(Topology.Position t, Topology.Position r,
+                    float[] dest, int offset)
+            {
+                double[] link = new double[4];
+                computeLink(t, r, link, 0);
+                for (int i = 0; i < link.length; i++)
+                    dest[offset + i] = (float) link[i];
+            }
+        });
+        fading = new Fading[16];
+    }
+
+
     @Override
     public boolean lockTransmission(Medium.Receiver receiver,
             Medium.Transmission trans, int Milliseconds)
@@ -142,6 +191,15 @@ public class LossyModel implements Medium.Arbitrator
     {
         positions.put(radio.getTransmitter(), pos);
         positions.put(radio.getReceiver(), pos);
+        if (links != null)
+        {
+            links.setPosition(radio, pos);
+            int i = radio.getReceiver().linkIndex;
+            if (i >= fading.length)
+                fading = Arrays.copyOf(fading, 2 * i);
+            if (fading[i] == null)
+                fading[i] = new Fading();
+        }
     }
 
 
@@ -160,11 +218,15 @@ public class LossyModel implements Medium.Arbitrator
 
 
     protected double distance(Medium.Transmitter t, Medium.Receiver r)
+    {
+        return distance(positions.get(t), positions.get(r));
+    }
+
+
+    protected double distance(Topology.Position a, Topology.Position b)
     {
         // Distance computed from mote 3D coordinates of topology file
         double dist = 0;
-        Topology.Position a = positions.get(t);
-        Topology.Position b = positions.get(r);
         if (a != null && b != null)
         {
             double dx = a.x - b.x;
@@ -177,14 +239,18 @@ public class LossyModel implements Medium.Arbitrator
 
 
     protected double densityObstacles(Medium.Transmitter t, Medium.Receiver r)
+    {
+        return densityObstacles(positions.get(t), positions.get(r));
+    }
+
+
+    protected double densityObstacles(Topology.Position a, Topology.Position b)
     {
         /*
          * Density of obstacles computed as the maximum rho between transmitter
          * and receiver motes inserted in topology file
          */
         double rho = 0D;
-        Topology.Position a = positions.get(t);
-        Topology.Position b = positions.get(r);
         if (a != null && b != null)
         {
             rho = Math.max(a.rho, b.rho);
@@ -205,16 +271,60 @@ public class LossyModel implements Medium.Arbitrator
     @Override
     public double computeReceivedPower(Medium.Transmission t,
             Medium.Receiver receiver, int Milliseconds)
+    {
+        if (links == null || !links.contains(t.origin, receiver))
+        {
+            double[] link = new double[4];
+            computeLink(positions.get(t.origin), positions.get(receiver),
+                    link, 0);
+            return computeReceivedPower(t, link[TIME_SHARING], link[PATH_LOSS],
+                    link[SHADOW_STD], link[SHADOW_MEAN], Milliseconds);
+        }
+
+        // the fading is sampled once per transmission at each receiver
+        Fading f = fading[receiver.linkIndex];
+        for (int i = 0; i < FADING_SLOTS; i++)
+        {
+            if (f.transmissions[i] == t)
+                return f.power[i];
+        }
+        links.get(t.origin, receiver, f.link);
+        double power = computeReceivedPower(t, f.link[TIME_SHARING],
+                f.link[PATH_LOSS], f.link[SHADOW_STD], f.link[SHADOW_MEAN],
+                Milliseconds);
+        int slot = f.next;
+        f.next = (slot + 1) % FADING_SLOTS;
+        f.transmissions[slot] = t;
+        f.power[slot] = power;
+        return power;
+    }
+
+
+    /**
+     * The <code>computeLink()</code> method computes the parts of the channel
+     * model that only depend on the positions of the transmitter and the
+     * receiver.
+     * 
+     * @param a
+     *            the position of the transmitter
+     * @param b
+     *            the position of the receiver
+     * @param dest
+     *            the array in which to store the time sharing factor, the path
+     *            loss and the standard deviation and mean of the shadowing
+     * @param offset
+     *            the index in the array of the first value
+     */
+    protected void computeLink(Topology.Position a, Topology.Position b,
+            double[] dest, int offset)
     {
         // Indoor channel model with consideration of movement of
         // people/obstacles
         // people density -number of people or obstacles over an occupied area-
         // (m-2)
-        double p = densityObstacles(t.origin, receiver);
+        double p = densityObstacles(a, b);
         // length of ray over area with moving people(m)
-        double d = distance(t.origin, receiver);
-        // Time sharing between bad and good state
-        double A = Math.pow((1 - p), 0.2 * d);
+        double d = distance(a, b);
         // Log-distance Pathloss model (d0,n)
         double n = 3;
         /*
@@ -225,14 +335,25 @@ public class LossyModel implements Medium.Arbitrator
         double PathLoss = 55;
         if (d > 1)
             PathLoss = PathLoss + 10 * n * Math.log10(d);
+        // Time sharing between bad and good state
+        dest[offset + TIME_SHARING] = Math.pow((1 - p), 0.2 * d);
+        dest[offset + PATH_LOSS] = PathLoss;
+        // Shadowing
+        dest[offset + SHADOW_STD] = (Math.log10(55 * d * p + 1) / Math
+                .log10(7)) + 0.5;
+        dest[offset + SHADOW_MEAN] = Math.pow(3 * d * p, 0.7);
+    }
+
+
+    private double computeReceivedPower(Medium.Transmission t, double A,
+            double PathLoss, double std, double mean, int Milliseconds)
+    {
         // Rayleigh fading
         double L_Rayleigh = Rayleigh();
         // Ricean fading
         int k = 6;// Rician k factor
         double L_Rician = (L_Rayleigh / (Math.sqrt(k)) + 1);
         // Shadowing
-        double std = (Math.log10(55 * d * p + 1) / Math.log10(7)) + 0.5;
-        double mean = Math.pow(3 * d * p, 0.7);
         double s = Shadowing(mean, std, Milliseconds);
         // double s = getGaussian(mean,std);
         double Lsf = Math.pow(10, s / 20);
@@ -33,15 +33,18 @@
  */
 package avrora.avrora.sim.radio;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 
 import avrora.avrora.sim.Simulator;
 import avrora.avrora.sim.clock.Clock;
 import avrora.avrora.sim.clock.Synchronizer;
 import avrora.avrora.sim.util.TransactionalList;
 import avrora.cck.util.Arithmetic;
+import avrora.cck.util.Util;
 
 /**
  * The <code>Medium</code> definition drives the timming in the transmission and
@@ -176,10 +179,17 @@ public class Medium
         public final long cyclesPerByte;
         public final long leadCycles;
         public final long cyclesPerBit;
-        protected Probe.List probeList;
+        protected transient Probe.List probeList;
 
         public boolean activated;
 
+        /**
+         * The <code>linkIndex</code> field stores the index of the radio of
+         * this transmitter or receiver in the link table of the radio model;
+         * -1 if the radio has no position in the table.
+         */
+        protected int linkIndex = -1;
+
 
         /**
          * The <code>TXRX</code> constructor method
@@ -243,6 +253,13 @@ public class Medium
         protected final Transmitter.Ticker ticker;
         protected boolean shutdown;
 
+        /**
+         * The <code>transmissions</code> field stores the recent transmissions
+         * of this transmitter in the order they were started. It is only used
+         * when the medium has a spatial index.
+         */
+        protected final List<Transmission> transmissions;
+
 
         /**
          * The constructor <code>Transmitter</code> creates an extension of TXRX
@@ -252,6 +269,7 @@ public class Medium
         {
             super(m, c);
             ticker = new Ticker();
+            transmissions = new LinkedList<Transmission>();
         }
 
 
@@ -353,6 +371,19 @@ public class Medium
         protected double frequency;
         public Receiver.Ticker ticker;
 
+        /**
+         * The <code>frame</code> field stores the transmission that this
+         * receiver is receiving with frame delivery, i.e. without arbitrating
+         * the medium for every byte, or null if every byte is arbitrated.
+         */
+        protected transient Transmission frame;
+        private transient List<Transmission> frameList;
+        private transient long frameGeneration;
+        private transient long frameUntil;
+        private transient double frameRSSI;
+        private transient int frameMillis;
+        private transient double frameBER;
+
 
         // Receiver class constructor
         protected Receiver(Medium m, Clock c)
@@ -387,6 +418,7 @@ public class Medium
             }
             activated = false;
             locked = false;
+            frame = null;
             clock.removeEvent(ticker);
         }
 
@@ -499,8 +531,18 @@ public class Medium
              */
             private void deliverByte(long oneBitBeforeNow)
             {
-                List<Transmission> it = getIntersection(
-                        oneBitBeforeNow - BYTE_SIZE);
+                long bit = oneBitBeforeNow - BYTE_SIZE;
+                if (frame != null)
+                {
+                    if (isExclusive(bit))
+                    {
+                        deliverFrameByte(bit);
+                        return;
+                    }
+                    // another transmission may interfere, arbitrate again
+                    frame = null;
+                }
+                List<Transmission> it = getIntersection(bit);
                 if (it != null)
                 {// there is a transmission
                     boolean one = false;
@@ -531,29 +573,17 @@ public class Medium
                             SNR = Pr - Pn;
                         }
                     }
-                    double snr = Math.pow(10D, (SNR / 10D));
-                    // ebno = snr / spectral efficiency = snr / log(1 + snr)
-                    double ebno = snr / Math.log(1 + snr);
-                    // BER vs Ebno in AWGN channel
-                    double x = Math.sqrt(2 * ebno);
-                    double x2 = Math.pow(x, 2);
-                    double BER = Math.exp(-x2 / 2)
-                            / (1.64D * x + Math.sqrt(0.76D * (x2) + 4D));
-                    setBER(BER);
+                    setBER(computeBER(SNR));
                     setRSSI(rssi);
                     // merge transmissions into a single byte and send it to
                     // receiver
                     // we return val in order to get rssi and corr value
                     char val = medium.arbitrator.mergeTransmissions(
-                            Receiver.this, it, oneBitBeforeNow - BYTE_SIZE,
+                            Receiver.this, it, bit,
                             (int) clock.cyclesToMillis(clock.getCount()));
-                    // store high byte for corrupted bytes
-                    int newval = (int) (val & 0xff00);
-                    newval |= (int) (0xff & nextByte(true, (byte) val));
-                    val = (char) newval;
-                    if (probeList != null)
-                        probeList.fireAfterReceive(Receiver.this, val);
-                    clock.insertEvent(this, cyclesPerByte);
+                    if (it.size() == 1 && medium.delivery != DELIVER_BYTES)
+                        beginFrame(it.get(0), bit, rssi);
+                    receiveByte(val);
 
                 } else
                 {// no transmissions intersect
@@ -566,6 +596,156 @@ public class Medium
                 }
             }
 
+
+            /**
+             * The <code>deliverFrameByte</code> method delivers the next byte
+             * of the transmission this receiver has locked onto while no
+             * other transmission can interfere with it. The received power was
+             * computed once for the whole frame, so neither the medium lock
+             * nor the list of transmissions is needed.
+             *
+             * @param bit
+             *            the first bit of the byte (oneBitBeforeNow -
+             *            BYTE_SIZE)
+             */
+            private void deliverFrameByte(long bit)
+            {
+                int millis = (int) clock.cyclesToMillis(clock.getCount());
+                if (millis != frameMillis)
+                {
+                    // the noise changes at most once per millisecond
+                    frameMillis = millis;
+                    frameBER = computeBER(
+                            frameRSSI - medium.arbitrator.getNoise(millis));
+                }
+                setBER(frameBER);
+                setRSSI(frameRSSI);
+                char val = medium.arbitrator.mergeTransmissions(Receiver.this,
+                        frameList, bit, millis);
+                if (medium.delivery == VALIDATE_FRAMES)
+                    validateFrameByte(bit, millis, val);
+                receiveByte(val);
+            }
+
+
+            private void receiveByte(char val)
+            {
+                // store high byte for corrupted bytes
+                int newval = (int) (val & 0xff00);
+                newval |= (int) (0xff & nextByte(true, (byte) val));
+                val = (char) newval;
+                if (probeList != null)
+                    probeList.fireAfterReceive(Receiver.this, val);
+                clock.insertEvent(this, cyclesPerByte);
+            }
+        }
+
+
+        /**
+         * The <code>computeBER</code> method computes the bit error rate of a
+         * reception with the given signal to noise ratio.
+         *
+         * @param SNR
+         *            the signal to noise ratio in dB
+         * @return the bit error rate
+         */
+        private double computeBER(double SNR)
+        {
+            double snr = Math.pow(10D, (SNR / 10D));
+            // ebno = snr / spectral efficiency = snr / log(1 + snr)
+            double ebno = snr / Math.log(1 + snr);
+            // BER vs Ebno in AWGN channel
+            double x = Math.sqrt(2 * ebno);
+            double x2 = Math.pow(x, 2);
+            return Math.exp(-x2 / 2)
+                    / (1.64D * x + Math.sqrt(0.76D * (x2) + 4D));
+        }
+
+
+        /**
+         * The <code>beginFrame</code> method switches this receiver to frame
+         * delivery for the specified transmission, which is the only one that
+         * intersects the given bit. The receiver stays in frame delivery until
+         * the transmission ends, another transmission may begin, or the set of
+         * transmissions of the medium changes.
+         *
+         * @param tx
+         *            the transmission that is received alone
+         * @param bit
+         *            the first bit of the byte just delivered
+         * @param rssi
+         *            the received power of the transmission
+         */
+        private void beginFrame(Transmission tx, long bit, double rssi)
+        {
+            long until = Long.MAX_VALUE;
+            synchronized (medium)
+            {
+                frameGeneration = medium.generation;
+                if (medium.grid == null)
+                {
+                    for (Transmission t : medium.transmissions)
+                        until = frameBound(until, tx, t, bit);
+                } else
+                {
+                    for (Transmitter o : medium.grid.getNeighbors(this))
+                        for (Transmission t : o.transmissions)
+                            until = frameBound(until, tx, t, bit);
+                }
+            }
+            if (until <= bit)
+                return;
+            frame = tx;
+            frameList = Collections.singletonList(tx);
+            frameUntil = until;
+            frameRSSI = rssi;
+            frameMillis = -1;
+        }
+
+
+        private long frameBound(long until, Transmission tx, Transmission t,
+                long bit)
+        {
+            // a transmission that is not over may interfere from its first bit
+            if (t != tx && t.lastBit > bit && t.firstBit < until)
+                return t.firstBit;
+            return until;
+        }
+
+
+        private boolean isExclusive(long bit)
+        {
+            // lastBit is volatile, so the end of the frame is seen without
+            // the medium lock
+            return bit < frameUntil && bit < frame.lastBit
+                    && medium.generation == frameGeneration;
+        }
+
+
+        /**
+         * The <code>validateFrameByte</code> method checks a byte delivered by
+         * frame delivery against the result of a full arbitration of the
+         * medium. Note that the received power only matches for arbitrators
+         * that compute it once per transmission.
+         */
+        private void validateFrameByte(long bit, int millis, char val)
+        {
+            List<Transmission> it = getIntersection(bit);
+            if (it == null || it.size() != 1 || it.get(0) != frame)
+                throw Util.failure("Frame delivery of transmission " + frame.number
+                        + " missed interference at bit " + bit);
+            char v = medium.arbitrator.mergeTransmissions(Receiver.this, it,
+                    bit, millis);
+            if (v != val)
+                throw Util.failure("Frame delivery of transmission " + frame.number
+                        + " delivered " + (int) val + " instead of " + (int) v
+                        + " at bit " + bit);
+            double rssi = medium.arbitrator.computeReceivedPower(frame,
+                    Receiver.this, millis);
+            if (rssi != frameRSSI)
+                throw Util.failure("Frame delivery of transmission " + frame.number
+                        + " received power " + frameRSSI + " instead of "
+                        + rssi + " at bit " + bit);
         }
 
 
@@ -657,6 +837,8 @@ public class Medium
             Transmission tx = null;
             synchronized (medium)
             {
+                if (medium.grid != null)
+                    return earliestNearbyTransmission(bit);
                 Iterator<Transmission> i = medium.transmissions.iterator();
                 while (i.hasNext())
                 {
@@ -680,6 +862,45 @@ public class Medium
         }
 
 
+        /**
+         * The <code>earliestNearbyTransmission</code> method determines if there
+         * is a new transmission from the transmitters near this receiver. It
+         * is used instead of a scan of all transmissions when the medium has a
+         * spatial index. Ties are broken by the order in which transmissions
+         * were started, exactly like the scan of all transmissions.
+         *
+         * @param bit
+         *            equal to oneBitBeforeNow - BYTE_SIZE
+         * @return tx new transmission
+         */
+        private Transmission earliestNearbyTransmission(long bit)
+        {
+            Transmission tx = null;
+            for (Transmitter o : medium.grid.getNeighbors(this))
+            {
+                Iterator<Transmission> i = o.transmissions.iterator();
+                while (i.hasNext())
+                {
+                    Transmission t = i.next();
+                    if (bit <= t.firstBit && medium.arbitrator.lockTransmission(
+                            Receiver.this, t,
+                            (int) clock.cyclesToMillis(clock.getCount())))
+                    {
+                        if (tx == null || t.firstBit < tx.firstBit
+                                || t.firstBit == tx.firstBit
+                                        && t.number < tx.number)
+                            tx = t;
+                    } else if (bit - 8 - 2 * medium.leadBits > t.lastBit)
+                    {
+                        // remove older transmissions
+                        i.remove();
+                    }
+                }
+            }
+            return tx;
+        }
+
+
         /**
          * The <code>getIntersection</code> method calculate if transmissions
          * intersect
@@ -694,6 +915,8 @@ public class Medium
             List<Transmission> it = null;
             synchronized (medium)
             {
+                if (medium.grid != null)
+                    return getNearbyIntersection(bit);
                 for (Transmission t : medium.transmissions)
                 {
                     if (intersect(bit, t))
@@ -708,6 +931,54 @@ public class Medium
         }
 
 
+        /**
+         * The <code>getNearbyIntersection</code> method computes the
+         * intersecting transmissions from the transmitters that are in range
+         * of this receiver. The transmissions are returned in the order in
+         * which they were started.
+         *
+         * @param bit
+         *            time in which calculate if tx intersect (oneBitBeforeNow -
+         *            BYTE_SIZE)
+         * @return it representing the list of transmissions that intersect
+         */
+        private List<Transmission> getNearbyIntersection(long bit)
+        {
+            LinkedList<Transmission> it = null;
+            int millis = (int) clock.cyclesToMillis(clock.getCount());
+            for (Transmitter o : medium.grid.getNeighbors(this))
+            {
+                for (Transmission t : o.transmissions)
+                {
+                    if (intersect(bit, t) && medium.arbitrator
+                            .lockTransmission(Receiver.this, t, millis))
+                    {
+                        if (it == null)
+                            it = new LinkedList<Transmission>();
+                        insertInOrder(it, t);
+                    }
+                }
+            }
+            return it;
+        }
+
+
+        private void insertInOrder(LinkedList<Transmission> it,
+                Transmission t)
+        {
+            ListIterator<Transmission> i = it.listIterator(it.size());
+            while (i.hasPrevious())
+            {
+                if (i.previous().number < t.number)
+                {
+                    i.next();
+                    break;
+                }
+            }
+            i.add(t);
+        }
+
+
         /**
          * The method <code>intersect</code> calculates if byte to transmit
          * intersect with another transmission
@@ -790,9 +1061,10 @@ public class Medium
         public final double power;
         public final double Pt;
         public final double f;
-        public long lastBit;
+        public volatile long lastBit;
         public long end;
 
+        protected final long number;
         protected int counter;
         protected byte[] data;
 
@@ -812,6 +1084,7 @@ public class Medium
         protected Transmission(Transmitter o, double pow, double freq)
         {
             origin = o;
+            number = transmissionCount++;
             power = pow;
             Pt = pow;
             f = freq;
@@ -859,6 +1132,18 @@ public class Medium
         }
     }
 
+    /**
+     * The delivery modes of a medium. By default, the receivers arbitrate the
+     * medium for every byte they receive. With frame delivery, a receiver that
+     * receives a single transmission arbitrates the medium once and delivers
+     * the rest of the frame without the medium lock until another
+     * transmission may interfere. Validation uses frame delivery and checks
+     * every byte against a full arbitration.
+     */
+    public static final int DELIVER_BYTES = 0;
+    public static final int DELIVER_FRAMES = 1;
+    public static final int VALIDATE_FRAMES = 2;
+
     public final Synchronizer synch;
     public final Arbitrator arbitrator;
 
@@ -868,6 +1153,16 @@ public class Medium
     public final int maxLength;
 
     protected List<Transmission> transmissions = new LinkedList<Transmission>();
+    protected SpatialGrid grid;
+    protected long transmissionCount;
+    protected int delivery;
+
+    /**
+     * The <code>generation</code> field counts the changes to the set of
+     * transmissions a receiver can see, so that receivers in frame delivery
+     * notice new transmissions without taking the medium lock.
+     */
+    protected volatile long generation;
 
 
     /**
@@ -908,6 +1203,56 @@ public class Medium
     }
 
 
+    /**
+     * The <code>getLookahead()</code> method returns the lookahead of this
+     * medium for a node with a clock of the given frequency, i.e. the number of
+     * clock cycles between the beginning of a transmission and the delivery of
+     * its first byte to a receiver. No other node can observe a transmission
+     * earlier than this.
+     *
+     * @param hz
+     *            the frequency of the clock of the node
+     * @return the lookahead of this medium in clock cycles
+     */
+    public long getLookahead(long hz)
+    {
+        return (leadBits + BYTE_SIZE) * hz / bitsPerSecond;
+    }
+
+
+    /**
+     * The <code>getByteCycles()</code> method returns the number of clock
+     * cycles it takes to transmit one byte over this medium, for a node with a
+     * clock of the given frequency. A receiver only waits for the other nodes
+     * to reach a time one byte before its own time, so a node can run this
+     * many cycles ahead of the others without ever having to wait.
+     *
+     * @param hz
+     *            the frequency of the clock of the node
+     * @return the time to transmit a byte in clock cycles
+     */
+    public long getByteCycles(long hz)
+    {
+        return BYTE_SIZE * (hz / bitsPerSecond);
+    }
+
+
+    /**
+     * The <code>setDelivery()</code> method sets how the receivers of this
+     * medium deliver the bytes of a transmission. Either way, the bytes are
+     * handed to the radio at the same times, so the timing of the radio
+     * registers and pins is the same.
+     *
+     * @param mode
+     *            one of <code>DELIVER_BYTES</code>, <code>DELIVER_FRAMES</code>
+     *            and <code>VALIDATE_FRAMES</code>
+     */
+    public void setDelivery(int mode)
+    {
+        delivery = mode;
+    }
+
+
     /**
      * The synchronized class <code>newTransmission</code> creates a new
      * Transmission object and adds it to the list of transmissions
@@ -922,11 +1267,80 @@ public class Medium
             double f)
     {
         Transmission tx = new Transmission(o, p, f);
-        transmissions.add(tx);
+        generation++;
+        if (grid != null)
+        {
+            grid.addTransmitter(o);
+            removeOldTransmissions(o, tx.firstBit);
+            o.transmissions.add(tx);
+        } else
+            transmissions.add(tx);
         return tx;
     }
 
 
+    private void removeOldTransmissions(Transmitter o, long bit)
+    {
+        Iterator<Transmission> i = o.transmissions.iterator();
+        while (i.hasNext())
+        {
+            if (bit - 8 - 2 * leadBits > i.next().lastBit)
+                i.remove();
+        }
+    }
+
+
+    /**
+     * The <code>enableSpatialIndex()</code> method makes this medium keep its
+     * transmissions in a spatial index, so that each receiver only considers
+     * the transmitters that are within the specified range. Only transmitters
+     * that are in range according to the arbitrator are taken into account by
+     * receivers. This method must be called before any transmission starts.
+     *
+     * @param range
+     *            the maximum distance at which a transmission can be received
+     */
+    public synchronized void enableSpatialIndex(double range)
+    {
+        if (range > 0)
+            grid = new SpatialGrid(range);
+        generation++;
+    }
+
+
+    /**
+     * The <code>setPosition()</code> method sets the position of a radio that
+     * uses this medium in the spatial index. It has no effect if the medium has
+     * no spatial index.
+     *
+     * @param radio
+     *            the radio
+     * @param pos
+     *            the position of the radio
+     */
+    public synchronized void setPosition(Radio radio, Topology.Position pos)
+    {
+        if (grid != null)
+            grid.setPosition(radio.getTransmitter(), radio.getReceiver(), pos);
+        generation++;
+    }
+
+
+    /**
+     * The <code>updatePosition()</code> method updates the spatial index after
+     * the position of a radio that uses this medium has changed.
+     *
+     * @param radio
+     *            the radio that moved
+     */
+    public synchronized void updatePosition(Radio radio)
+    {
+        if (grid != null)
+            grid.update(radio.getTransmitter());
+        generation++;
+    }
+
+
     /**
      * The method <code>isCorruptedByte</code> computes if the byte is corrupted
      * or not
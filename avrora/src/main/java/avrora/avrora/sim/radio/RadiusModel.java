@@ -26,6 +26,7 @@ public class RadiusModel implements Medium.Arbitrator
     protected final double maximumDistance;
     protected final double maximumDistanceSq;
     protected final Map<TXRX, Position> positions;
+    protected LinkTable links;
 
 
     public RadiusModel(double minDist, double maxDist)
@@ -38,6 +39,27 @@ public class RadiusModel implements Medium.Arbitrator
     }
 
 
+    /**
+     * The <code>enableLinkTable()</code> method enables a table that caches
+     * whether each receiver is in range of each transmitter, so that the
+     * distance between two radios is only computed again when one of them
+     * moves. This method must be called before the positions of the radios are
+     * set.
+     */
+    public void enableLinkTable()
+    {
+        links = new LinkTable(1, new LinkTable.Function()
+        {
+            @Override
+            public void compute(Position t, Position r, float[] dest,
+                    int offset)
+            {
+                dest[offset] = distanceSq(t, r) <= maximumDistanceSq ? 1 : 0;
+            }
+        });
+    }
+
+
     @Override
     public int getNoise(int index)
     {
@@ -59,6 +81,8 @@ public class RadiusModel implements Medium.Arbitrator
     public boolean lockTransmission(Medium.Receiver receiver,
             Medium.Transmission trans, int Milliseconds)
     {
+        if (links != null && links.contains(trans.origin, receiver))
+            return links.get(trans.origin, receiver, 0) != 0;
         return distanceSq(trans.origin, receiver) <= maximumDistanceSq;
     }
 
@@ -97,14 +121,20 @@ public class RadiusModel implements Medium.Arbitrator
     {
         positions.put(radio.getTransmitter(), pos);
         positions.put(radio.getReceiver(), pos);
+        if (links != null)
+            links.setPosition(radio, pos);
     }
 
 
     protected double distanceSq(Medium.Transmitter t, Medium.Receiver r)
+    {
+        return distanceSq(positions.get(t), positions.get(r));
+    }
+
+
+    protected double distanceSq(Topology.Position a, Topology.Position b)
     {
         double distSq = 0;
-        Topology.Position a = positions.get(t);
-        Topology.Position b = positions.get(r);
         if (a != null && b != null)
         {
             double dx = a.x - b.x;
@@ -0,0 +1,245 @@
+/**
+ * Copyright (c) 2007, Ben L. Titzer
+ * See the file "license.txt" for details.
+ */
+package avrora.avrora.sim.radio;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import avrora.avrora.sim.radio.Medium.Receiver;
+import avrora.avrora.sim.radio.Medium.Transmitter;
+import avrora.avrora.sim.radio.Topology.Position;
+
+/**
+ * The <code>SpatialGrid</code> class implements a uniform grid over the
+ * positions of the transmitters of a medium. The size of each cell is equal to
+ * the maximum range of a transmission, so that all transmitters that can reach
+ * a receiver are located in the cell of the receiver or in one of the adjacent
+ * cells. The list of these transmitters is cached for each receiver and only
+ * recomputed when a transmitter or receiver moves into another cell.
+ * <p/>
+ * Transmitters and receivers without a position are treated like the radio
+ * models treat them: a transmitter without a position can reach every
+ * receiver, and a receiver without a position can hear every transmitter.
+ * <p/>
+ * This class is not thread safe; the medium accesses it while holding its own
+ * lock.
+ */
+public class SpatialGrid
+{
+
+    private static final int COORD_BITS = 21;
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+
+    /**
+     * The <code>Node</code> class stores the position and the current cell of
+     * a transmitter and its receiver, which belong to the same radio.
+     */
+    private static class Node
+    {
+        final Transmitter transmitter;
+        Receiver receiver;
+        Position position;
+        long cell;
+        boolean placed;
+
+
+        Node(Transmitter t)
+        {
+            transmitter = t;
+        }
+    }
+
+    /**
+     * The <code>Neighborhood</code> class stores the cached list of
+     * transmitters near a receiver, together with the version of the grid for
+     * which it was computed.
+     */
+    private static class Neighborhood
+    {
+        int version = -1;
+        List<Transmitter> transmitters;
+    }
+
+    protected final double cellSize;
+    protected final HashMap<Long, List<Node>> cells;
+    protected final HashMap<Transmitter, Node> byTransmitter;
+    protected final HashMap<Receiver, Node> byReceiver;
+    protected final HashMap<Receiver, Neighborhood> neighborhoods;
+    protected final List<Transmitter> unplaced;
+    protected final List<Transmitter> all;
+    protected int version;
+
+
+    /**
+     * The constructor for the <code>SpatialGrid</code> class creates a new,
+     * empty grid for transmissions with the specified maximum range.
+     * 
+     * @param range
+     *            the maximum distance at which a transmission can be received
+     */
+    public SpatialGrid(double range)
+    {
+        cellSize = range;
+        cells = new HashMap<Long, List<Node>>();
+        byTransmitter = new HashMap<Transmitter, Node>();
+        byReceiver = new HashMap<Receiver, Node>();
+        neighborhoods = new HashMap<Receiver, Neighborhood>();
+        unplaced = new ArrayList<Transmitter>();
+        all = new ArrayList<Transmitter>();
+    }
+
+
+    /**
+     * The <code>setPosition()</code> method sets the position of a radio,
+     * consisting of a transmitter and a receiver. The position object may be
+     * modified later, in which case <code>update()</code> must be called.
+     * 
+     * @param t
+     *            the transmitter of the radio
+     * @param r
+     *            the receiver of the radio
+     * @param p
+     *            the position of the radio
+     */
+    public void setPosition(Transmitter t, Receiver r, Position p)
+    {
+        Node n = getNode(t);
+        if (r != null)
+        {
+            n.receiver = r;
+            byReceiver.put(r, n);
+        }
+        n.position = p;
+        update(t);
+    }
+
+
+    /**
+     * The <code>addTransmitter()</code> method adds a transmitter without a
+     * position to the grid, if it is not already known.
+     * 
+     * @param t
+     *            the transmitter
+     */
+    public void addTransmitter(Transmitter t)
+    {
+        getNode(t);
+    }
+
+
+    /**
+     * The <code>update()</code> method updates the cell of the radio of the
+     * given transmitter after its position has changed.
+     * 
+     * @param t
+     *            the transmitter of the radio that moved
+     */
+    public void update(Transmitter t)
+    {
+        Node n = byTransmitter.get(t);
+        if (n == null || n.position == null)
+            return;
+
+        long cell = cellOf(n.position);
+        if (n.placed && cell == n.cell)
+            return;
+
+        if (n.placed)
+            cells.get(n.cell).remove(n);
+        else
+            unplaced.remove(t);
+
+        List<Node> list = cells.get(cell);
+        if (list == null)
+        {
+            list = new ArrayList<Node>();
+            cells.put(cell, list);
+        }
+        list.add(n);
+        n.cell = cell;
+        n.placed = true;
+        version++;
+    }
+
+
+    /**
+     * The <code>getNeighbors()</code> method returns the transmitters that may
+     * be in range of the specified receiver.
+     * 
+     * @param r
+     *            the receiver
+     * @return a list of the transmitters near the receiver
+     */
+    public List<Transmitter> getNeighbors(Receiver r)
+    {
+        Neighborhood nb = neighborhoods.get(r);
+        if (nb == null)
+        {
+            nb = new Neighborhood();
+            neighborhoods.put(r, nb);
+        }
+        if (nb.version != version)
+        {
+            nb.transmitters = computeNeighbors(r);
+            nb.version = version;
+        }
+        return nb.transmitters;
+    }
+
+
+    private List<Transmitter> computeNeighbors(Receiver r)
+    {
+        Node n = byReceiver.get(r);
+        if (n == null || !n.placed)
+            return all;
+
+        List<Transmitter> list = new ArrayList<Transmitter>(unplaced);
+        long cx = n.cell >> (2 * COORD_BITS) & COORD_MASK;
+        long cy = n.cell >> COORD_BITS & COORD_MASK;
+        long cz = n.cell & COORD_MASK;
+        for (int dx = -1; dx <= 1; dx++)
+            for (int dy = -1; dy <= 1; dy++)
+                for (int dz = -1; dz <= 1; dz++)
+                {
+                    List<Node> cell = cells.get(key(cx + dx, cy + dy, cz + dz));
+                    if (cell == null)
+                        continue;
+                    for (Node o : cell)
+                        list.add(o.transmitter);
+                }
+        return list;
+    }
+
+
+    private Node getNode(Transmitter t)
+    {
+        Node n = byTransmitter.get(t);
+        if (n == null)
+        {
+            n = new Node(t);
+            byTransmitter.put(t, n);
+            unplaced.add(t);
+            all.add(t);
+            version++;
+        }
+        return n;
+    }
+
+
+    private long cellOf(Position p)
+    {
+        return key((long) Math.floor(p.x / cellSize),
+                (long) Math.floor(p.y / cellSize),
+                (long) Math.floor(p.z / cellSize));
+    }
+
+
+    private static long key(long x, long y, long z)
+    {
+        return (x & COORD_MASK) << (2 * COORD_BITS)
+                | (y & COORD_MASK) << COORD_BITS | z & COORD_MASK;
+    }
+}
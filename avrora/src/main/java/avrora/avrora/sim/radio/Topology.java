@@ -75,9 +75,20 @@ public abstract class Topology extends HelpCategory
         }
     }
 
+    /**
+     * The <code>PositionListener</code> interface is implemented by objects
+     * that need to be notified when a node of the topology has moved, e.g. to
+     * keep a spatial index up to date.
+     */
+    public interface PositionListener
+    {
+        public void positionChanged(Simulation.Node node, Position p);
+    }
+
     // structure of the node positions
     protected final ArrayList<Position> positions;
     protected final ArrayList<Simulation.Node> nodes;
+    protected final ArrayList<PositionListener> listeners;
 
 
     /**
@@ -99,6 +110,7 @@ public abstract class Topology extends HelpCategory
 
         positions = new ArrayList<Position>();
         nodes = new ArrayList<Simulation.Node>();
+        listeners = new ArrayList<PositionListener>();
     }
 
 
@@ -114,6 +126,19 @@ public abstract class Topology extends HelpCategory
     }
 
 
+    public void addPositionListener(PositionListener l)
+    {
+        listeners.add(l);
+    }
+
+
+    protected void firePositionChanged(Simulation.Node node, Position p)
+    {
+        for (PositionListener l : listeners)
+            l.positionChanged(node, p);
+    }
+
+
     public void processOptions(Options o)
     {
         options.process(o);
@@ -102,6 +102,7 @@ public class TopologyRWP extends TopologyStatic
 
     protected class NodeMover implements Simulator.Event
     {
+        private Simulation.Node node;
         private Position nodepos;
         private MainClock clock;
         private SimPrinter printer;
@@ -113,6 +114,7 @@ public class TopologyRWP extends TopologyStatic
 
         public NodeMover(Simulation.Node n, Position p)
         {
+            node = n;
             clock = n.getSimulator().getClock();
             nodepos = p;
             wasWaiting = false;
@@ -191,6 +193,7 @@ public class TopologyRWP extends TopologyStatic
                 nodepos.x = newX;
                 nodepos.y = newY;
                 nodepos.z = newZ;
+                firePositionChanged(node, nodepos);
                 // set new position
                 setNewPosition();
                 // check if we may wait
@@ -213,6 +216,7 @@ public class TopologyRWP extends TopologyStatic
                 nodepos.x += dirX;
                 nodepos.y += dirY;
                 nodepos.z += dirZ;
+                firePositionChanged(node, nodepos);
                 if (allCycles < eventCycles)
                 {
                     eventCycles = allCycles;
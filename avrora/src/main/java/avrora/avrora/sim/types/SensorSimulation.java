@@ -46,7 +46,10 @@ import avrora.avrora.core.SourceMapping;
 import avrora.avrora.sim.AtmelInterpreter;
 import avrora.avrora.sim.Simulation;
 import avrora.avrora.sim.SimulatorThread;
+import avrora.avrora.sim.clock.LookaheadSynchronizer;
 import avrora.avrora.sim.clock.RippleSynchronizer;
+import avrora.avrora.sim.clock.Synchronizer;
+import avrora.avrora.sim.clock.TaskSynchronizer;
 import avrora.avrora.sim.platform.Platform;
 import avrora.avrora.sim.platform.PlatformFactory;
 import avrora.avrora.sim.platform.sensors.RandomSensorData;
@@ -61,6 +64,8 @@ import avrora.avrora.sim.radio.RadiusModel;
 import avrora.avrora.sim.radio.Topology;
 import avrora.avrora.sim.radio.noise;
 import avrora.cck.text.StringUtil;
+import avrora.cck.text.TermUtil;
+import avrora.cck.text.Terminal;
 import avrora.cck.util.Arithmetic;
 import avrora.cck.util.Option;
 import avrora.cck.util.Options;
@@ -128,6 +133,41 @@ public class SensorSimulation extends Simulation
                     + "result, then a list of time value pairs separated by whitespace; the sensor will continue "
                     + "returning the current value until the next (relative) time in seconds, and then the sensor "
                     + "will change to the new value. ");
+    public final Option.Bool SPATIAL_INDEX = newOption("spatial-index", false,
+            "When this option is set and a topology is used with the radius model, each radio "
+                    + "medium keeps its transmissions in a spatial grid, so that receivers only consider "
+                    + "transmitters within the radio range instead of all transmissions in the network. "
+                    + "When it is not set, every receiver scans all transmissions, and transmissions "
+                    + "from out of range nodes still occupy the channel. Since this changes the "
+                    + "channel and RSSI seen by the receivers, it is not set by default.");
+    public final Option.Bool LINK_CACHE = newOption("link-cache", true,
+            "When this option is set and a topology is used, the radio model caches the "
+                    + "position dependent properties of the link between each pair of nodes, such as "
+                    + "the distance and the path loss, and only computes them again when one of the "
+                    + "nodes moves. With the lossy model, the random fading of a transmission is "
+                    + "then also computed once per transmission instead of once per byte.");
+    public final Option.Str RADIO_DELIVERY = newOption("radio-delivery", "byte",
+            "This option selects how radio receivers obtain the bytes of a transmission from the "
+                    + "medium. With \"byte\", every byte is arbitrated against all transmissions in the "
+                    + "medium. With \"frame\", a receiver that receives a single transmission arbitrates "
+                    + "it once and then delivers the rest of the frame without locking the medium, until "
+                    + "another transmission may interfere. In both modes the radio still receives the frame "
+                    + "one byte at a time, at the same times. With \"validate\", frame delivery is checked against byte delivery "
+                    + "for every byte; this requires a radio model that computes the received power once "
+                    + "per transmission, i.e. not the lossy model without the link cache.");
+    public final Option.Str SYNCHRONIZER = newOption("synchronizer", "ripple",
+            "This option selects how the threads that simulate the nodes are kept synchronized. "
+                    + "The \"ripple\" synchronizer lets nodes wait for each other on shared monitors. The "
+                    + "\"lookahead\" synchronizer lets each node publish its time periodically, based on "
+                    + "the lookahead of its radio medium, and lets waiting nodes spin briefly and then park "
+                    + "without any global lock. It reports how long each node was blocked at the end of the "
+                    + "simulation. The \"task\" synchronizer does not create a thread per node; it runs the "
+                    + "nodes as resumable tasks on a fixed pool of worker threads, in windows of simulation "
+                    + "time that are shorter than the time to transmit a byte over the radio.");
+    public final Option.Long WORKER_THREADS = newOption("worker-threads", 0,
+            "This option selects the number of worker threads that execute the nodes when the "
+                    + "\"task\" synchronizer is used. When it is zero, one worker per available processor "
+                    + "is used.");
     public final Option.Bool UPDATE_NODE_ID = newOption("update-node-id", true,
             "When this option is set, the sensor network simulator will attempt to update "
                     + "the node identifiers stored in the flash memory of the program. For TinyOS programs, "
@@ -225,12 +265,14 @@ public class SensorSimulation extends Simulation
                 CC2420Radio radio = (CC2420Radio) dev;
                 this.radio = radio;
                 radio.setMedium(createCC2420Medium());
+                setLookahead(cc2420_medium);
             } else if (dev instanceof CC1000Radio)
             {
                 // connect to the cc1000 medium
                 CC1000Radio radio = (CC1000Radio) dev;
                 this.radio = radio;
                 radio.setMedium(createCC1000Medium());
+                setLookahead(cc1000_medium);
             }
             simulator.delay(startup);
             if (topology != null)
@@ -241,6 +283,22 @@ public class SensorSimulation extends Simulation
         }
 
 
+        private void setLookahead(Medium m)
+        {
+            long hz = simulator.getClock().getHZ();
+            if (synchronizer instanceof LookaheadSynchronizer)
+            {
+                ((LookaheadSynchronizer) synchronizer).setLookahead(this,
+                        m.getLookahead(hz));
+            } else if (synchronizer instanceof TaskSynchronizer)
+            {
+                // receivers wait for their neighbors up to one byte back
+                ((TaskSynchronizer) synchronizer).setLookahead(this,
+                        m.getByteCycles(hz));
+            }
+        }
+
+
         private Medium createCC2420Medium()
         {
             if (cc2420_medium == null)
@@ -248,12 +306,13 @@ public class SensorSimulation extends Simulation
                 createRadioModel();
                 if (LOSSY_MODEL.get())
                 {
-                    return cc2420_medium = CC2420Radio
-                            .createMedium(synchronizer, lossyModel);
+                    return cc2420_medium = setDelivery(CC2420Radio
+                            .createMedium(synchronizer, lossyModel));
                 } else
                 {
-                    return cc2420_medium = CC2420Radio
-                            .createMedium(synchronizer, radiusModel);
+                    cc2420_medium = setDelivery(CC2420Radio
+                            .createMedium(synchronizer, radiusModel));
+                    return enableSpatialIndex(cc2420_medium);
                 }
             }
             return cc2420_medium;
@@ -267,18 +326,43 @@ public class SensorSimulation extends Simulation
                 createRadioModel();
                 if (LOSSY_MODEL.get())
                 {
-                    return cc1000_medium = CC1000Radio
-                            .createMedium(synchronizer, lossyModel);
+                    return cc1000_medium = setDelivery(CC1000Radio
+                            .createMedium(synchronizer, lossyModel));
                 } else
                 {
-                    return cc1000_medium = CC1000Radio
-                            .createMedium(synchronizer, radiusModel);
+                    cc1000_medium = setDelivery(CC1000Radio
+                            .createMedium(synchronizer, radiusModel));
+                    return enableSpatialIndex(cc1000_medium);
                 }
             }
             return cc1000_medium;
         }
 
 
+        private Medium enableSpatialIndex(Medium m)
+        {
+            // only the radius model has a maximum range
+            if (radiusModel != null && SPATIAL_INDEX.get())
+                m.enableSpatialIndex(RANGE.get());
+            return m;
+        }
+
+
+        private Medium setDelivery(Medium m)
+        {
+            String s = RADIO_DELIVERY.get();
+            if ("byte".equals(s))
+                m.setDelivery(Medium.DELIVER_BYTES);
+            else if ("frame".equals(s))
+                m.setDelivery(Medium.DELIVER_FRAMES);
+            else if ("validate".equals(s))
+                m.setDelivery(Medium.VALIDATE_FRAMES);
+            else
+                Util.userError("Unknown radio delivery", StringUtil.quote(s));
+            return m;
+        }
+
+
         private void createRadioModel()
         {
             if (topology != null)
@@ -286,9 +370,13 @@ public class SensorSimulation extends Simulation
                 if (LOSSY_MODEL.get())
                 {
                     lossyModel = new LossyModel();
+                    if (LINK_CACHE.get())
+                        lossyModel.enableLinkTable();
                 } else
                 {
                     radiusModel = new RadiusModel(1.0, RANGE.get());
+                    if (LINK_CACHE.get())
+                        radiusModel.enableLinkTable();
                 }
             }
         }
@@ -307,6 +395,7 @@ public class SensorSimulation extends Simulation
                 {
                     radiusModel.setPosition(radio, p);
                 }
+                radio.getTransmitter().medium.setPosition(radio, p);
             }
         }
 
@@ -436,7 +525,7 @@ public class SensorSimulation extends Simulation
         PlatformFactory pf = getPlatform();
 
         // build the synchronizer
-        synchronizer = new RippleSynchronizer(100000, null);
+        synchronizer = newSynchronizer();
 
         // create the topology
         processTopology();
@@ -452,6 +541,67 @@ public class SensorSimulation extends Simulation
     }
 
 
+    private Synchronizer newSynchronizer()
+    {
+        String s = SYNCHRONIZER.get();
+        if ("ripple".equals(s))
+            return new RippleSynchronizer(100000, null);
+        if ("lookahead".equals(s))
+            return new LookaheadSynchronizer(100000);
+        if ("task".equals(s))
+            return new TaskSynchronizer(100000, (int) WORKER_THREADS.get());
+        Util.userError("Unknown synchronizer", StringUtil.quote(s));
+        return null;
+    }
+
+
+    /**
+     * The <code>join()</code> method waits for the simulation to terminate
+     * before returning. In this implementation, when the lookahead synchronizer
+     * is used, it also reports how long each node was blocked waiting for the
+     * other nodes.
+     * 
+     * @throws InterruptedException
+     *             if the thread is interrupt
+     */
+    @Override
+    public synchronized void join() throws InterruptedException
+    {
+        super.join();
+        if (synchronizer instanceof LookaheadSynchronizer)
+            reportBlockedTime((LookaheadSynchronizer) synchronizer);
+    }
+
+
+    private void reportBlockedTime(LookaheadSynchronizer synch)
+    {
+        TermUtil.printSeparator("Synchronization results");
+        Terminal.printGreen(
+                "Node       Waits      Parks    Blocked (ms)  Percent");
+        Terminal.nextln();
+        TermUtil.printThinSeparator(Terminal.MAXLINE);
+        for (LookaheadSynchronizer.NodeState s : synch.getNodeStates())
+        {
+            long blocked = s.getBlockedNanos();
+            long run = s.getRunNanos();
+            float ms = blocked / 1.0e6f;
+            float pcnt = run > 0 ? (100.0f * blocked) / run : 0;
+            Terminal.printGreen(StringUtil.rightJustify(s.node.id, 4));
+            Terminal.printBrightCyan(
+                    StringUtil.rightJustify(s.getWaitCount(), 12));
+            Terminal.printBrightCyan(
+                    StringUtil.rightJustify(s.getParkCount(), 11));
+            Terminal.printBrightCyan(StringUtil
+                    .rightJustify(StringUtil.toFixedFloat(ms, 3), 16));
+            Terminal.printBrightCyan(StringUtil
+                    .rightJustify(StringUtil.toFixedFloat(pcnt, 2), 9));
+            Terminal.print(" %");
+            Terminal.nextln();
+        }
+        Terminal.nextln();
+    }
+
+
     private void createNodes(String[] args, PlatformFactory pf) throws Exception
     {
         Iterator<String> i = NODECOUNT.get().iterator();
@@ -556,6 +706,22 @@ public class SensorSimulation extends Simulation
             // Util.userError("No such topology model", TOPOLOGY.get());
             topology.processOptions(options);
             topology.start();
+            topology.addPositionListener(new Topology.PositionListener()
+            {
+                @Override
+                public void positionChanged(Node node, Topology.Position p)
+                {
+                    Radio radio = ((SensorNode) node).radio;
+                    if (radio != null)
+                    {
+                        if (lossyModel != null)
+                            lossyModel.setPosition(radio, p);
+                        if (radiusModel != null)
+                            radiusModel.setPosition(radio, p);
+                        radio.getTransmitter().medium.updatePosition(radio);
+                    }
+                }
+            });
         }
     }
 }
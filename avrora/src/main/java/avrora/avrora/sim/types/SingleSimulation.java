@@ -102,4 +102,24 @@ public class SingleSimulation extends Simulation
         createNode(pf, p);
 
     }
+
+
+    /**
+     * The <code>process()</code> method processes options and creates the node
+     * for a program that has already been loaded. This allows a program to be
+     * loaded once and shared between several simulations.
+     * 
+     * @param o
+     *            the options for this simulation
+     * @param p
+     *            the loaded program to simulate
+     * @throws Exception
+     *             if there was a problem creating the simulation
+     */
+    public void process(Options o, LoadableProgram p) throws Exception
+    {
+        options.process(o);
+        processMonitorList();
+        createNode(getPlatform(), p);
+    }
 }
@@ -38,6 +38,7 @@ import avrora.avrora.Main;
 import avrora.avrora.core.LoadableProgram;
 import avrora.avrora.sim.Simulation;
 import avrora.avrora.sim.SimulatorThread;
+import avrora.avrora.sim.clock.TaskSynchronizer;
 import avrora.avrora.sim.platform.PinConnect;
 import avrora.avrora.sim.platform.PlatformFactory;
 import avrora.cck.text.StringUtil;
@@ -79,6 +80,24 @@ public class WiredSimulation extends Simulation
                     + "of clock cycles. For example, if this option is given the "
                     + "value X, then node 0 will start at time 0, node 1 at time 1*X, node 2 at "
                     + "time 2*X, etc.");
+    public final Option.Long WIRE_LATENCY = newOption("wire-latency", 0,
+            "This option sets the propagation latency of the wires between the nodes in clock "
+                    + "cycles. A change of the level of an output wire arrives on the input wires of the "
+                    + "connected node after this latency. When it is zero, the change arrives as soon as "
+                    + "the nodes are next synchronized.");
+    public final Option.Str SYNCHRONIZER = newOption("synchronizer", "step",
+            "This option selects how the nodes are kept synchronized. The \"step\" synchronizer "
+                    + "executes one instruction of each node in turn and delivers the changes on the wires "
+                    + "after each step. The \"task\" synchronizer lets the nodes run ahead of each other "
+                    + "in windows of simulation time that are shorter than the latency of the wires, on a "
+                    + "fixed pool of worker threads, and delivers the changes on the wires at the end of "
+                    + "each window. It gives the same results as the \"step\" synchronizer, but requires "
+                    + "the \"wire-latency\" option to be set to more than "
+                    + TaskSynchronizer.MAX_OVERRUN + " cycles.");
+    public final Option.Long WORKER_THREADS = newOption("worker-threads", 0,
+            "This option selects the number of worker threads that execute the nodes when the "
+                    + "\"task\" synchronizer is used. When it is zero, one worker per available processor "
+                    + "is used.");
 
     /**
      * The <code>WiredNode</code> class extends the <code>Node</code> class of a
@@ -143,7 +162,7 @@ public class WiredSimulation extends Simulation
     {
         super("wired", HELP, null);
 
-        pinConnect = PinConnect.pinConnect;
+        pinConnect = new PinConnect();
         synchronizer = pinConnect.synchronizer;
 
         addSection("WIRED SIMULATION OVERVIEW", help);
@@ -157,6 +176,18 @@ public class WiredSimulation extends Simulation
     }
 
 
+    /**
+     * The <code>getPinConnect()</code> method gets the interconnect that wires
+     * the nodes of this simulation together.
+     *
+     * @return the interconnect of this simulation
+     */
+    public PinConnect getPinConnect()
+    {
+        return pinConnect;
+    }
+
+
     /**
      * The <code>newNode()</code> method creates a new node in the simulation.
      * In this implementation, a <code>WiredNode</code> is created that
@@ -204,6 +235,9 @@ public class WiredSimulation extends Simulation
         Main.checkFilesExist(args);
         PlatformFactory pf = getPlatform();
 
+        // select the synchronizer of the wires
+        processSynchronizer();
+
         // create the nodes based on arguments
         createNodes(args, pf);
 
@@ -244,6 +278,27 @@ public class WiredSimulation extends Simulation
     }
 
 
+    private void processSynchronizer()
+    {
+        long latency = WIRE_LATENCY.get();
+        if (latency < 0)
+            Util.userError("Wire latency must be non-negative",
+                    String.valueOf(latency));
+        pinConnect.setLatency(latency);
+
+        String s = SYNCHRONIZER.get();
+        if ("step".equals(s))
+            return;
+        if (!"task".equals(s))
+            Util.userError("Unknown synchronizer", StringUtil.quote(s));
+        if (latency <= TaskSynchronizer.MAX_OVERRUN)
+            Util.userError("Wire latency too short for task synchronizer",
+                    latency + " <= " + TaskSynchronizer.MAX_OVERRUN);
+        synchronizer = pinConnect.newTaskSynchronizer((int) WORKER_THREADS
+                .get());
+    }
+
+
     long processRandom()
     {
         long low = RANDOM_START.getLow();
@@ -66,6 +66,12 @@ public abstract class AbstractState implements IORegisterConstants
     }
 
 
+    AbstractState(char[] regs)
+    {
+        av_REGISTERS = regs;
+    }
+
+
     protected int computeHashCode()
     {
         int hash = pc;
@@ -240,7 +246,7 @@ public abstract class AbstractState implements IORegisterConstants
      */
     public char getRegisterAV(LegacyRegister r)
     {
-        return av_REGISTERS[r.getNumber()];
+        return getRegisterAV(r.getNumber());
     }
 
 
@@ -285,7 +291,7 @@ public abstract class AbstractState implements IORegisterConstants
             buf.append(" R");
             buf.append(cntr);
             buf.append(": ");
-            AbstractArithmetic.toString(av_REGISTERS[cntr], buf);
+            AbstractArithmetic.toString(getRegisterAV(cntr), buf);
         }
 
         return buf.toString();
@@ -312,7 +318,7 @@ public abstract class AbstractState implements IORegisterConstants
         if (this.av_TIMSK != i.av_TIMSK)
             return false;
         for (int cntr = 0; cntr < NUM_REGS; cntr++)
-            if (this.av_REGISTERS[cntr] != i.av_REGISTERS[cntr])
+            if (this.getRegisterAV(cntr) != i.getRegisterAV(cntr))
                 return false;
         return true;
     }
@@ -32,9 +32,13 @@
 
 package avrora.avrora.stack;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
 
 import avrora.avrora.arch.legacy.LegacyInstr;
 import avrora.avrora.arch.legacy.LegacyRegister;
@@ -67,6 +71,9 @@ public class Analyzer
     public static boolean TRACE_SUMMARY;
     public static boolean USE_ISEA;
     public static boolean SHOW_PATH;
+    public static int WORKERS = 1;
+    public static boolean COMPACT_STATES;
+    public static String ISEA_SUMMARIES = "";
 
     protected final Verbose.Printer printer = Verbose
             .getVerbosePrinter("analyzer.stack");
@@ -89,6 +96,14 @@ public class Analyzer
     Path maximalPath;
     ISEAnalyzer isea;
 
+    /**
+     * The <code>expansions</code> field stores the outgoing edges of states
+     * that worker threads have computed ahead of time but that have not been
+     * explored yet. It is only used when there is more than one worker.
+     */
+    protected ConcurrentHashMap<State, Expansion> expansions;
+    protected ForkJoinPool pool;
+
     public static final int NORMAL_EDGE = 0;
     public static final int PUSH_EDGE = 1;
     public static final int POP_EDGE = 2;
@@ -115,12 +130,12 @@ public class Analyzer
     public Analyzer(Program p)
     {
         program = p;
-        graph = new StateTransitionGraph(p);
+        graph = new StateTransitionGraph(p, COMPACT_STATES);
         policy = new ContextSensitivePolicy();
         interpreter = new AbstractInterpreter(program, policy);
         if (USE_ISEA)
         {
-            isea = new ISEAnalyzer(program);
+            isea = new ISEAnalyzer(program, WORKERS, ISEA_SUMMARIES);
             isea.analyze();
         }
     }
@@ -147,6 +162,12 @@ public class Analyzer
             t.start();
         }
 
+        if (WORKERS > 1)
+        {
+            pool = new ForkJoinPool(WORKERS);
+            expansions = new ConcurrentHashMap<State, Expansion>();
+        }
+
         long start = System.currentTimeMillis();
         try
         {
@@ -168,6 +189,8 @@ public class Analyzer
         finally
         {
             running = false;
+            if (pool != null)
+                pool.shutdown();
         }
 
     }
@@ -197,7 +220,7 @@ public class Analyzer
         while (i.hasNext())
         {
             StateCache.State state = i.next();
-            StateCache.Set stateSet = state.info.stateSet;
+            StateCache.Set stateSet = state.stateSet;
             int size = stateSet == null ? 0 : stateSet.size();
             sizeDist.record(size);
         }
@@ -372,11 +395,11 @@ public class Analyzer
     {
         while (newEdges != null)
         {
-            StateTransitionGraph.Edge edge = newEdges.edge;
+            int edge = newEdges.edge;
             newEdges = newEdges.next;
-            StateCache.Set set = edge.target.info.stateSet;
+            StateCache.Set set = graph.getTarget(edge).stateSet;
             if (set != null && !set.isEmpty())
-                propagateSetBackwards(edge.source, edge.target.info.stateSet,
+                propagateSetBackwards(graph.getSource(edge), set,
                         new Object());
             newEdgeCount--;
         }
@@ -392,26 +415,28 @@ public class Analyzer
             return;
         t.mark = mark;
 
-        StateTransitionGraph.StateInfo info = t.info;
-        if (info.stateSet == null)
-            info.stateSet = graph.newSet();
-        else if (info.stateSet.contains(rt))
+        if (t.stateSet == null)
+            t.stateSet = graph.newSet();
+        else if (t.stateSet.contains(rt))
             return;
 
-        info.stateSet.add(rt);
+        t.stateSet.add(rt);
 
-        for (StateTransitionGraph.Edge edge = info.backwardEdges; edge != null; edge = edge.backwardLink)
+        for (int edge = graph.getFirstBackwardEdge(t);
+                edge != StateTransitionGraph.NO_EDGE;
+                edge = graph.getNextBackwardEdge(edge))
         {
 
-            if (edge.type == CALL_EDGE)
+            if (graph.getType(edge) == CALL_EDGE)
             {
                 // found a call edge: we need to connect this caller to a new
                 // return state
-                insertReturnEdge(edge.source, copy, rt.getType() == RETI_STATE);
+                insertReturnEdge(graph.getSource(edge), copy,
+                        rt.getType() == RETI_STATE);
             } else
             {
                 // propagate this return state backwards
-                propagateOneBackwards(edge.source, rt, copy, mark);
+                propagateOneBackwards(graph.getSource(edge), rt, copy, mark);
             }
         }
     }
@@ -426,28 +451,29 @@ public class Analyzer
             return;
         t.mark = mark;
 
-        StateTransitionGraph.StateInfo info = t.info;
-        if (info.stateSet == null)
-            info.stateSet = graph.newSet();
-        else if (info.stateSet.containsAll(rset))
+        if (t.stateSet == null)
+            t.stateSet = graph.newSet();
+        else if (t.stateSet.containsAll(rset))
             return;
 
-        for (StateTransitionGraph.Edge edge = info.backwardEdges; edge != null; edge = edge.backwardLink)
+        for (int edge = graph.getFirstBackwardEdge(t);
+                edge != StateTransitionGraph.NO_EDGE;
+                edge = graph.getNextBackwardEdge(edge))
         {
 
-            if (edge.type == CALL_EDGE)
+            if (graph.getType(edge) == CALL_EDGE)
             {
                 // found a call edge: we need to connect this caller to the new
                 // return states
-                insertReturnEdges(edge.source, edge.target.info.stateSet, rset);
+                insertReturnEdges(graph.getSource(edge), t.stateSet, rset);
             } else
             {
                 // propagate these calls to all children
-                propagateSetBackwards(edge.source, rset, mark);
+                propagateSetBackwards(graph.getSource(edge), rset, mark);
             }
         }
 
-        info.stateSet.addAll(rset);
+        t.stateSet.addAll(rset);
     }
 
 
@@ -543,7 +569,7 @@ public class Analyzer
     }
 
 
-    private void postNewEdge(StateTransitionGraph.Edge edge)
+    private void postNewEdge(int edge)
     {
         newEdges = new StateTransitionGraph.EdgeList(edge, newEdges);
         newEdgeCount++;
@@ -562,7 +588,171 @@ public class Analyzer
         graph.setExplored(s);
 
         // compute the possible next states
-        interpreter.computeNextStates(s);
+        if (pool != null)
+            replayExpansion(s);
+        else
+            interpreter.computeNextStates(s);
+    }
+
+
+    /**
+     * The <code>replayExpansion()</code> method inserts the edges out of a
+     * frontier state that were computed by the worker threads. The edges are
+     * inserted in the order in which the abstract interpreter produced them,
+     * so the state transition graph is exactly the same as the one built by a
+     * single thread. If the state has not been expanded yet, the workers first
+     * expand it together with the rest of the frontier.
+     *
+     * @param s
+     *            the frontier state that is being explored
+     */
+    private void replayExpansion(StateCache.State s)
+    {
+        Expansion e = expansions.remove(s);
+        if (e == null)
+        {
+            pool.invoke(new ExpandFrontier(s));
+            e = expansions.remove(s);
+        }
+
+        for (int cntr = 0; cntr < e.count; cntr++)
+        {
+            StateCache.State t = e.targets[cntr];
+            if (t != null)
+                policy.addEdge(s, e.types[cntr], graph.getCachedState(t));
+            else if (e.types[cntr] == RET_EDGE)
+                policy.ret(null);
+            else
+                policy.reti(null);
+        }
+    }
+
+
+    /**
+     * The <code>Expansion</code> class records the outgoing edges of a state
+     * as they are produced by the abstract interpreter. A return or a return
+     * from interrupt is recorded as an edge without a target.
+     */
+    protected static class Expansion
+    {
+        int count;
+        int[] types = new int[4];
+        StateCache.State[] targets = new StateCache.State[4];
+
+
+        void add(int type, StateCache.State t)
+        {
+            if (count == types.length)
+            {
+                types = Arrays.copyOf(types, count * 2);
+                targets = Arrays.copyOf(targets, count * 2);
+            }
+            types[count] = type;
+            targets[count] = t;
+            count++;
+        }
+    }
+
+
+    /**
+     * The <code>claim()</code> method reserves the expansion of the specified
+     * state for the calling thread. Every state that is reachable from the
+     * frontier is explored eventually, so no expansion is wasted.
+     *
+     * @param s
+     *            the state to expand
+     * @return a new expansion for the state, or null if the state is already
+     *         explored or being expanded by another thread
+     */
+    private Expansion claim(StateCache.State s)
+    {
+        if (graph.isExplored(s) || expansions.containsKey(s))
+            return null;
+        Expansion e = new Expansion();
+        return expansions.putIfAbsent(s, e) == null ? e : null;
+    }
+
+
+    /**
+     * The <code>ExpandFrontier</code> class is the root task of a parallel
+     * expansion. It expands the given state and all states on the frontier
+     * that are not expanded yet, together with all the states reachable from
+     * them.
+     */
+    private class ExpandFrontier extends CountedCompleter<Void>
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        final StateCache.State state;
+
+
+        ExpandFrontier(StateCache.State s)
+        {
+            state = s;
+        }
+
+
+        @Override
+        public void compute()
+        {
+            Expansion e = new Expansion();
+            expansions.put(state, e);
+            addToPendingCount(1);
+            new Expand(this, state, e).fork();
+            for (StateTransitionGraph.StateList l = graph.getFrontier(); l != null; l = l.next)
+            {
+                e = claim(l.state);
+                if (e != null)
+                {
+                    addToPendingCount(1);
+                    new Expand(this, l.state, e).fork();
+                }
+            }
+            tryComplete();
+        }
+    }
+
+
+    /**
+     * The <code>Expand</code> class computes the outgoing edges of one state
+     * on a worker thread and forks the expansion of each new state it finds.
+     * It does not modify the state transition graph.
+     */
+    private class Expand extends CountedCompleter<Void>
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        final StateCache.State state;
+        final Expansion expansion;
+
+
+        Expand(CountedCompleter<?> parent, StateCache.State s, Expansion e)
+        {
+            super(parent);
+            state = s;
+            expansion = e;
+        }
+
+
+        @Override
+        public void compute()
+        {
+            Expander p = new Expander(state, expansion);
+            new AbstractInterpreter(program, p).computeNextStates(state);
+            for (int cntr = 0; cntr < expansion.count; cntr++)
+            {
+                StateCache.State t = expansion.targets[cntr];
+                Expansion e = t == null ? null : claim(t);
+                if (e != null)
+                {
+                    addToPendingCount(1);
+                    new Expand(this, t, e).fork();
+                }
+            }
+            tryComplete();
+        }
     }
 
 
@@ -584,15 +774,15 @@ public class Analyzer
         }
     }
 
-    private class Path
+    class Path
     {
         final int depth;
         final int length;
-        final StateTransitionGraph.Edge edge;
+        final int edge;
         final Path tail;
 
 
-        Path(int d, StateTransitionGraph.Edge e, Path p)
+        Path(int d, int e, Path p)
         {
             depth = d;
             edge = e;
@@ -630,52 +820,54 @@ public class Analyzer
         int maxdepth = 0;
         int minlength = Integer.MAX_VALUE;
         Path maxtail = null;
-        StateTransitionGraph.Edge maxedge = null;
-        for (StateTransitionGraph.Edge edge = s.info.forwardEdges; edge != null; edge = edge.forwardLink)
+        int maxedge = StateTransitionGraph.NO_EDGE;
+        for (int edge = graph.getFirstForwardEdge(s);
+                edge != StateTransitionGraph.NO_EDGE;
+                edge = graph.getNextForwardEdge(edge))
         {
 
-            StateCache.State t = edge.target;
+            StateCache.State t = graph.getTarget(edge);
+            int weight = graph.getWeight(edge);
             if (stack.containsKey(t))
             {
                 // cycle detected. check that the depth when reentering is the
                 // same
                 int prevdepth = stack.get(t);
-                if (depth + edge.weight != prevdepth)
+                if (depth + weight != prevdepth)
                 {
                     stack.remove(s);
                     throw new UnboundedStackException(
-                            new Path(depth + edge.weight, edge, null));
+                            new Path(depth + weight, edge, null));
                 }
             } else
             {
                 Path tail;
 
-                if (edge.target.mark instanceof Path)
+                if (t.mark instanceof Path)
                 {
                     // node has already been visited and marked with the
                     // maximum amount of stack depth that it can add.
-                    tail = ((Path) edge.target.mark);
+                    tail = ((Path) t.mark);
                 } else
                 {
                     // node has not been seen before, traverse it
                     try
                     {
-                        tail = findMaximalPath(edge.target, stack,
-                                depth + edge.weight);
+                        tail = findMaximalPath(t, stack, depth + weight);
                     }
                     catch (UnboundedStackException e)
                     {
                         // this node is part of an unbounded cycle, add it to
                         // the path
                         // and rethrow the exception
-                        e.path = new Path(depth + edge.weight, edge, e.path);
+                        e.path = new Path(depth + weight, edge, e.path);
                         stack.remove(s);
                         throw e;
                     }
                 }
 
                 // compute maximum added stack depth by following this edge
-                int extra = edge.weight + tail.depth;
+                int extra = weight + tail.depth;
 
                 // remember the shortest path (in number of links) to the
                 // maximum depth stack from following any of the links
@@ -763,25 +955,29 @@ public class Analyzer
     {
         int depth = 0;
         int cntr = 1;
-        for (Path path = p; path != null && path.edge != null; path = path.tail)
+        for (Path path = p; path != null
+                && path.edge != StateTransitionGraph.NO_EDGE; path = path.tail)
         {
 
-            StateTransitionGraph.Edge edge = path.edge;
+            int edge = path.edge;
+            int weight = graph.getWeight(edge);
+            StateCache.State source = graph.getSource(edge);
+            StateCache.State target = graph.getTarget(edge);
 
-            if (cntr > 1 && TRACE_SUMMARY && edge.weight == 0)
+            if (cntr > 1 && TRACE_SUMMARY && weight == 0)
             {
-                int pc = edge.source.getPC();
-                if (edge.target.getPC() == program.getNextPC(pc))
+                int pc = source.getPC();
+                if (target.getPC() == program.getNextPC(pc))
                 {
                     cntr++;
                     continue;
                 }
             }
 
-            printFullState("[" + cntr + "] Depth: " + depth, edge.source);
+            printFullState("[" + cntr + "] Depth: " + depth, source);
             Terminal.print("    ");
-            StatePrinter.printEdge(edge.type, edge.weight, edge.target);
-            depth += edge.weight;
+            StatePrinter.printEdge(graph.getType(edge), weight, target);
+            depth += weight;
             cntr++;
         }
     }
@@ -1131,9 +1327,15 @@ public class Analyzer
         }
 
 
-        private void addEdge(StateCache.State from, int type, MutableState to)
+        protected void addEdge(StateCache.State from, int type,
+                MutableState to)
+        {
+            addEdge(from, type, graph.getCachedState(to));
+        }
+
+
+        void addEdge(StateCache.State from, int type, StateCache.State t)
         {
-            StateCache.State t = graph.getCachedState(to);
             traceProducedState(t);
             addEdge(type, from, t, EDGE_DELTA[type]);
             pushFrontier(t);
@@ -1168,7 +1370,7 @@ public class Analyzer
                 int weight)
         {
             traceEdge(type, s, t, weight);
-            StateTransitionGraph.Edge edge = graph.addEdge(s, type, weight, t);
+            int edge = graph.addEdge(s, type, weight, t);
             if (graph.isExplored(t))
                 postNewEdge(edge);
         }
@@ -1176,6 +1378,49 @@ public class Analyzer
     }
 
 
+    /**
+     * The <code>Expander</code> class is the policy used by the worker threads.
+     * Instead of inserting edges into the state transition graph, it records
+     * them in an expansion, to be inserted later in the same order.
+     */
+    private class Expander extends ContextSensitivePolicy
+    {
+        final Expansion expansion;
+
+
+        Expander(StateCache.State s, Expansion e)
+        {
+            frontierState = s;
+            edgeType = NORMAL_EDGE;
+            expansion = e;
+        }
+
+
+        @Override
+        protected void addEdge(StateCache.State from, int type,
+                MutableState to)
+        {
+            expansion.add(type, graph.getStateCache().getStateFor(to));
+        }
+
+
+        @Override
+        public MutableState ret(MutableState s)
+        {
+            expansion.add(RET_EDGE, null);
+            return null;
+        }
+
+
+        @Override
+        public MutableState reti(MutableState s)
+        {
+            expansion.add(RETI_EDGE, null);
+            return null;
+        }
+    }
+
+
     // -----------------------------------------------------------------------
     // D E B U G G I N G A N D T R A C I N G
     // -----------------------------------------------------------------------
@@ -32,9 +32,13 @@
 
 package avrora.avrora.stack;
 
-import java.util.HashMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import avrora.avrora.core.Program;
 import avrora.cck.text.StringUtil;
@@ -45,6 +49,13 @@ import avrora.cck.util.Util;
  * is explored by the <code>Analyzer</code> class. It stores reachable states
  * and the outgoing edges that connect them.
  *
+ * <p>
+ * In compact mode, the register values of the states are stored outside of
+ * the heap in a <code>StateStore</code>, and the sets of states that are
+ * propagated backwards through the graph store the numbers of the states
+ * rather than references to them.
+ * </p>
+ *
  * @author Ben L. Titzer
  */
 public class StateCache
@@ -52,33 +63,52 @@ public class StateCache
 
     private long uidCount;
 
+    /**
+     * The number of stripes of the state map. Each stripe is a separate hash
+     * table guarded by its own lock, so that several threads can look up and
+     * insert states at the same time.
+     */
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
     /**
      * The <code>LegacyState</code> class represents an immutable state within
      * the state space of the program. Such a state is cached and cannot be
      * modified. It contains a unique identifier, a mark for graph traversals,
-     * and a list of outgoing edges.
+     * and the set of return states reachable from it. Its edges are stored in
+     * the <code>StateTransitionGraph</code> by the number of the state.
      */
     public class State extends AbstractState implements IORegisterConstants
     {
 
         private final int hashCode;
+        private final int id;
         private int type;
-        public final long UID;
+
+        /**
+         * The <code>UID</code> field stores the unique identifier of this
+         * state. It is assigned when the state is first added to the state
+         * transition graph.
+         */
+        public long UID = -1;
 
         boolean isExplored;
         boolean onFrontier;
+        boolean inGraph;
 
 
-        State(MutableState s)
+        State(MutableState s, char[] regs, int hash, int id)
         {
+            super(regs);
             pc = s.pc;
             av_SREG = s.av_SREG;
             av_EIMSK = s.av_EIMSK;
             av_TIMSK = s.av_TIMSK;
-            av_REGISTERS = new char[NUM_REGS];
-            System.arraycopy(s.av_REGISTERS, 0, av_REGISTERS, 0, NUM_REGS);
-            hashCode = computeHashCode();
-            UID = uidCount++;
+            hashCode = hash;
+            this.id = id;
         }
 
 
@@ -99,6 +129,37 @@ public class StateCache
             return deepCompare((State) o);
         }
 
+
+        @Override
+        public char getRegisterAV(int num)
+        {
+            if (av_REGISTERS == null)
+                return store.get(id, num);
+            return av_REGISTERS[num];
+        }
+
+
+        @Override
+        public MutableState copy()
+        {
+            if (av_REGISTERS != null)
+                return super.copy();
+            char[] regs = new char[NUM_REGS];
+            store.read(id, regs);
+            return new MutableState(pc, av_SREG, av_EIMSK, av_TIMSK, regs);
+        }
+
+
+        boolean matches(MutableState s)
+        {
+            if (pc != s.pc || av_SREG != s.av_SREG || av_EIMSK != s.av_EIMSK
+                    || av_TIMSK != s.av_TIMSK)
+                return false;
+            if (av_REGISTERS == null)
+                return store.matches(id, s.av_REGISTERS);
+            return Arrays.equals(av_REGISTERS, s.av_REGISTERS);
+        }
+
         /**
          * The <code>mark</code> field is used by graph traversal algorithms to
          * detect cycles and terminate traversals. Concurrent traversal is not
@@ -106,7 +167,12 @@ public class StateCache
          */
         public Object mark;
 
-        public StateTransitionGraph.StateInfo info;
+        /**
+         * The <code>stateSet</code> field stores the return states that are
+         * reachable from this state, as they are propagated backwards through
+         * the state transition graph.
+         */
+        public Set stateSet;
 
 
         /**
@@ -122,6 +188,20 @@ public class StateCache
         }
 
 
+        /**
+         * The <code>getNumber()</code> method gets the number of this state in
+         * the state cache. The states are numbered densely in the order they
+         * are created, so that they can be referred to by their numbers in
+         * tables of primitive values.
+         *
+         * @return the number of this state
+         */
+        public int getNumber()
+        {
+            return id;
+        }
+
+
         public void setType(int t)
         {
             type = t;
@@ -139,7 +219,7 @@ public class StateCache
     {
 
         private State oneState;
-        private HashSet<State> delegate;
+        private java.util.Set<State> delegate;
 
         private boolean delegating = false;
         private boolean empty = true;
@@ -240,7 +320,10 @@ public class StateCache
 
         private void beginDelegation()
         {
-            delegate = new HashSet<State>();
+            if (store != null)
+                delegate = new IdSet();
+            else
+                delegate = new HashSet<State>();
             if (oneState != null)
                 delegate.add(oneState);
             else
@@ -298,9 +381,175 @@ public class StateCache
 
     }
 
-    private HashMap<State, State> stateMap;
+    /**
+     * The <code>IdSet</code> class is the representation of a set of states
+     * in compact mode. It stores the numbers of the states in an open
+     * addressing table of integers for lookups, and in an array in the order
+     * they were added for iteration. The numbers of states depend on the order
+     * in which threads create them, but the order of additions does not, so
+     * the analysis visits the members in the same order with any number of
+     * threads.
+     */
+    private class IdSet extends AbstractSet<State>
+    {
+        // the number of each state is stored plus one, so zero is empty
+        private int[] table = new int[8];
+        private int[] order = new int[4];
+        private int size;
+
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return o instanceof State && containsId(((State) o).id + 1);
+        }
+
+
+        @Override
+        public boolean add(State s)
+        {
+            return addId(s.id + 1);
+        }
+
+
+        @Override
+        public boolean containsAll(Collection<?> c)
+        {
+            if (!(c instanceof IdSet))
+                return super.containsAll(c);
+            IdSet o = (IdSet) c;
+            for (int cntr = 0; cntr < o.size; cntr++)
+            {
+                if (!containsId(o.order[cntr]))
+                    return false;
+            }
+            return true;
+        }
+
+
+        @Override
+        public boolean addAll(Collection<? extends State> c)
+        {
+            if (!(c instanceof IdSet))
+                return super.addAll(c);
+            IdSet o = (IdSet) c;
+            boolean changed = false;
+            for (int cntr = 0; cntr < o.size; cntr++)
+                changed |= addId(o.order[cntr]);
+            return changed;
+        }
+
+
+        private boolean containsId(int key)
+        {
+            int mask = table.length - 1;
+            for (int i = mix(key) & mask;; i = (i + 1) & mask)
+            {
+                int k = table[i];
+                if (k == key)
+                    return true;
+                if (k == 0)
+                    return false;
+            }
+        }
+
+
+        private boolean addId(int key)
+        {
+            int mask = table.length - 1;
+            int i = mix(key) & mask;
+            for (int k = table[i]; k != 0; k = table[i])
+            {
+                if (k == key)
+                    return false;
+                i = (i + 1) & mask;
+            }
+            table[i] = key;
+            if (size == order.length)
+                order = Arrays.copyOf(order, size * 2);
+            order[size++] = key;
+            if (size * 2 > table.length)
+                grow();
+            return true;
+        }
+
+
+        private void grow()
+        {
+            table = new int[table.length * 2];
+            int mask = table.length - 1;
+            for (int cntr = 0; cntr < size; cntr++)
+            {
+                int key = order[cntr];
+                int i = mix(key) & mask;
+                while (table[i] != 0)
+                    i = (i + 1) & mask;
+                table[i] = key;
+            }
+        }
+
+
+        @Override
+        public Iterator<State> iterator()
+        {
+            return new Iterator<State>() {
+                int pos;
+
+
+                @Override
+                public boolean hasNext()
+                {
+                    return pos < size;
+                }
+
+
+                @Override
+                public State next()
+                {
+                    if (pos >= size)
+                        throw new NoSuchElementException();
+                    return getState(order[pos++] - 1);
+                }
+
+
+                @Override
+                public void remove()
+                {
+                    throw Util.unimplemented();
+                }
+            };
+        }
+    }
+
+    /**
+     * The <code>Stripe</code> class is one part of the state map. It is an
+     * open addressing hash table of states with linear probing that is kept at
+     * most half full.
+     */
+    private static class Stripe
+    {
+        State[] table;
+        int size;
+
+
+        Stripe(int capacity)
+        {
+            table = new State[capacity];
+        }
+    }
+
+    private final Stripe[] stateMap;
+    private final AtomicInteger idCount = new AtomicInteger();
+    private final StateStore store;
+    private volatile State[][] states;
     private final State edenState;
-    private long totalStateCount;
 
 
     /**
@@ -312,7 +561,31 @@ public class StateCache
      */
     public StateCache(Program p)
     {
-        stateMap = new HashMap<State, State>(p.program_end * 5);
+        this(p, false);
+    }
+
+
+    /**
+     * This constructor for the <code>StateSpace</code> accepts a program and
+     * whether the state space should be stored in compact mode. The size of
+     * the program is used as an approximation of the size of the state space.
+     *
+     * @param p
+     *            the program to create the state space for
+     * @param compact
+     *            true if the register values should be stored off the heap
+     *            and sets of states should store state numbers
+     */
+    public StateCache(Program p, boolean compact)
+    {
+        int capacity = 16;
+        while (capacity < p.program_end * 10 / STRIPES)
+            capacity <<= 1;
+        stateMap = new Stripe[STRIPES];
+        for (int cntr = 0; cntr < STRIPES; cntr++)
+            stateMap[cntr] = new Stripe(capacity);
+        store = compact ? new StateStore() : null;
+        states = new State[16][];
         edenState = getStateFor(new MutableState());
     }
 
@@ -341,20 +614,120 @@ public class StateCache
      */
     public State getStateFor(MutableState s)
     {
-        State is = new State(s);
-        State cs = stateMap.get(is);
+        int hash = s.computeHashCode();
+        int mixed = mix(hash);
+        Stripe stripe = stateMap[mixed >>> (Integer.SIZE - STRIPE_BITS)];
+        synchronized (stripe)
+        {
+            State[] table = stripe.table;
+            int mask = table.length - 1;
+            int i = mixed & mask;
+            for (State cs = table[i]; cs != null; cs = table[i])
+            {
+                // if the state is already in the state map, return original
+                if (cs.hashCode == hash && cs.matches(s))
+                    return cs;
+                i = (i + 1) & mask;
+            }
+
+            // the state is new, put it in the map and return it.
+            State is = newState(s, hash);
+            table[i] = is;
+            if (++stripe.size * 2 > table.length)
+                grow(stripe);
+            return is;
+        }
+    }
 
-        if (cs != null)
+
+    private State newState(MutableState s, int hash)
+    {
+        int id = idCount.getAndIncrement();
+        State is;
+        if (store == null)
         {
-            // if the state is already in the state map, return original
-            return cs;
+            is = new State(s, s.av_REGISTERS.clone(), hash, id);
         } else
         {
-            totalStateCount++;
-            // the state is new, put it in the map and return it.
-            stateMap.put(is, is);
-            return is;
+            store.put(id, s.av_REGISTERS);
+            is = new State(s, null, hash, id);
+        }
+        getChunk(id >>> CHUNK_BITS)[id & CHUNK_MASK] = is;
+        return is;
+    }
+
+
+    private static void grow(Stripe stripe)
+    {
+        State[] old = stripe.table;
+        State[] table = new State[old.length * 2];
+        int mask = table.length - 1;
+        for (State s : old)
+        {
+            if (s == null)
+                continue;
+            int i = mix(s.hashCode) & mask;
+            while (table[i] != null)
+                i = (i + 1) & mask;
+            table[i] = s;
         }
+        stripe.table = table;
+    }
+
+
+    private synchronized State[] getChunk(int chunk)
+    {
+        State[][] c = states;
+        if (chunk >= c.length)
+            states = c = Arrays.copyOf(c, Math.max(chunk + 1, c.length * 2));
+        if (c[chunk] == null)
+            c[chunk] = new State[1 << CHUNK_BITS];
+        return c[chunk];
+    }
+
+
+    /**
+     * The <code>getState()</code> method gets the state with the specified
+     * number.
+     *
+     * @param id
+     *            the number of the state
+     * @return the state with the specified number
+     */
+    public State getState(int id)
+    {
+        return states[id >>> CHUNK_BITS][id & CHUNK_MASK];
+    }
+
+
+    private static int mix(int h)
+    {
+        // the low bits of the hash code mostly depend on the pc, so mix all
+        // of the bits; the top bits select the stripe and the low bits the
+        // slot within it
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+
+    /**
+     * The <code>numberState()</code> method counts a lookup of the specified
+     * state by the state transition graph and gives the state its unique
+     * identifier if it does not have one yet. The identifiers therefore only
+     * depend on the order of the lookups, not on the thread that first created
+     * the state.
+     *
+     * @param s
+     *            the state that was looked up
+     */
+    public void numberState(State s)
+    {
+        long uid = uidCount++;
+        if (s.UID < 0)
+            s.UID = uid;
     }
 
 
@@ -367,13 +740,71 @@ public class StateCache
      */
     public long getTotalStateCount()
     {
-        return totalStateCount;
+        return idCount.get();
     }
 
 
+    /**
+     * The <code>getStateIterator()</code> method returns an iterator over all
+     * the states in this cache. It must not be used while other threads are
+     * adding states.
+     *
+     * @return an iterator over all states in the cache
+     */
     public Iterator<State> getStateIterator()
     {
-        return stateMap.values().iterator();
+        return new StateIterator();
+    }
+
+    /**
+     * The <code>StateIterator</code> class iterates over the tables of the
+     * stripes of the state map one after another, without copying them.
+     */
+    private class StateIterator implements Iterator<State>
+    {
+        int stripe;
+        int slot = -1;
+        State next = advance();
+
+
+        private State advance()
+        {
+            for (; stripe < STRIPES; stripe++, slot = -1)
+            {
+                State[] table = stateMap[stripe].table;
+                while (++slot < table.length)
+                {
+                    if (table[slot] != null)
+                        return table[slot];
+                }
+            }
+            return null;
+        }
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return next != null;
+        }
+
+
+        @Override
+        public State next()
+        {
+            if (next == null)
+                throw new NoSuchElementException();
+            State s = next;
+            next = advance();
+            return s;
+        }
+
+
+        @Override
+        public void remove()
+        {
+            throw Util.unimplemented();
+        }
     }
 
 
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.stack;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * The <code>StateStore</code> class stores the abstract register values of the
+ * states of a <code>StateCache</code> outside of the Java heap. The values of
+ * each state are packed four to a long word and stored at the index of the
+ * state, in direct buffers that are allocated in chunks as the state space
+ * grows. States can be added by several threads at the same time.
+ *
+ * @see StateCache
+ */
+class StateStore
+{
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    private static final int WORDS = IORegisterConstants.NUM_REGS / 4;
+
+    private volatile LongBuffer[] chunks = new LongBuffer[16];
+
+
+    /**
+     * The <code>put()</code> method stores the register values of the state
+     * with the specified index.
+     *
+     * @param id
+     *            the index of the state
+     * @param regs
+     *            the abstract values of the registers
+     */
+    void put(int id, char[] regs)
+    {
+        LongBuffer b = getChunk(id >>> CHUNK_BITS);
+        int base = (id & CHUNK_MASK) * WORDS;
+        for (int w = 0; w < WORDS; w++)
+        {
+            int r = w * 4;
+            b.put(base + w, regs[r] | (long) regs[r + 1] << 16
+                    | (long) regs[r + 2] << 32 | (long) regs[r + 3] << 48);
+        }
+    }
+
+
+    /**
+     * The <code>get()</code> method returns the abstract value of a register of
+     * the state with the specified index.
+     *
+     * @param id
+     *            the index of the state
+     * @param reg
+     *            the number of the register
+     * @return the abstract value of the register
+     */
+    char get(int id, int reg)
+    {
+        long w = chunks[id >>> CHUNK_BITS]
+                .get((id & CHUNK_MASK) * WORDS + (reg >> 2));
+        return (char) (w >>> ((reg & 3) << 4));
+    }
+
+
+    /**
+     * The <code>read()</code> method copies the register values of the state
+     * with the specified index into an array.
+     *
+     * @param id
+     *            the index of the state
+     * @param regs
+     *            the array to store the abstract values of the registers
+     */
+    void read(int id, char[] regs)
+    {
+        LongBuffer b = chunks[id >>> CHUNK_BITS];
+        int base = (id & CHUNK_MASK) * WORDS;
+        for (int w = 0; w < WORDS; w++)
+        {
+            long v = b.get(base + w);
+            int r = w * 4;
+            regs[r] = (char) v;
+            regs[r + 1] = (char) (v >>> 16);
+            regs[r + 2] = (char) (v >>> 32);
+            regs[r + 3] = (char) (v >>> 48);
+        }
+    }
+
+
+    /**
+     * The <code>matches()</code> method compares the register values of the
+     * state with the specified index with the given values.
+     *
+     * @param id
+     *            the index of the state
+     * @param regs
+     *            the abstract values of the registers to compare with
+     * @return true if all the register values are equal; false otherwise
+     */
+    boolean matches(int id, char[] regs)
+    {
+        LongBuffer b = chunks[id >>> CHUNK_BITS];
+        int base = (id & CHUNK_MASK) * WORDS;
+        for (int w = 0; w < WORDS; w++)
+        {
+            int r = w * 4;
+            if (b.get(base + w) != (regs[r] | (long) regs[r + 1] << 16
+                    | (long) regs[r + 2] << 32 | (long) regs[r + 3] << 48))
+                return false;
+        }
+        return true;
+    }
+
+
+    private synchronized LongBuffer getChunk(int chunk)
+    {
+        LongBuffer[] c = chunks;
+        if (chunk >= c.length)
+            chunks = c = Arrays.copyOf(c, Math.max(chunk + 1, c.length * 2));
+        if (c[chunk] == null)
+            c[chunk] = ByteBuffer.allocateDirect((WORDS << CHUNK_BITS) * 8)
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+        return c[chunk];
+    }
+}
@@ -32,6 +32,7 @@
 
 package avrora.avrora.stack;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 import avrora.avrora.core.Program;
@@ -60,11 +61,11 @@ public class StateTransitionGraph
 
     public static class EdgeList
     {
-        public final Edge edge;
+        public final int edge;
         public final EdgeList next;
 
 
-        EdgeList(Edge tar, EdgeList n)
+        EdgeList(int tar, EdgeList n)
         {
             edge = tar;
             next = n;
@@ -72,62 +73,40 @@ public class StateTransitionGraph
     }
 
     /**
-     * The <code>Edge</code> inner class represents a bidirectional edge between
-     * two states. It is contained on two linked lists: the forward edge list of
-     * the source node and the backward edge list of the target node.
+     * The <code>NO_EDGE</code> field is the number that ends a list of edges.
+     * Edges are numbered from one.
      */
-    public static class Edge
-    {
-        public final StateCache.State source;
-        public final StateCache.State target;
-        public final Edge forwardLink;
-        public final Edge backwardLink;
-        public final int type;
-        public final int weight;
+    public static final int NO_EDGE = 0;
 
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
 
-        Edge(StateCache.State source, StateCache.State target, Edge fl, Edge bl,
-                int type, int weight)
-        {
-            this.source = source;
-            this.target = target;
-            this.forwardLink = fl;
-            this.backwardLink = bl;
-            this.type = type;
-            this.weight = weight;
-        }
-    }
+    // the fields of an edge, which are stored one after another in the edge
+    // table; an edge is on the forward edge list of its source and on the
+    // backward edge list of its target
+    private static final int SOURCE = 0;
+    private static final int TARGET = 1;
+    private static final int FORWARD_LINK = 2;
+    private static final int BACKWARD_LINK = 3;
+    private static final int TYPE_WEIGHT = 4;
+    private static final int EDGE_INTS = 5;
+
+    // the first forward and backward edge of a state, stored at its number
+    private static final int FORWARD = 0;
+    private static final int BACKWARD = 1;
 
     /**
-     * The <code>StateInfo</code> class is a representation of both the forward
-     * and backward edge list corresponding to a node in the state transition
-     * graph. It also stores a cache of reachable return states (based on
-     * backwards reachability search).
+     * The <code>edges</code> field stores the edges of the graph in chunks of
+     * integers, so that an edge takes five integers rather than an object.
+     * The states are referred to by their numbers in the state cache.
      */
-    public static class StateInfo
-    {
-        public final StateCache.State state;
-        public StateCache.Set stateSet;
-        public Edge forwardEdges;
-        public Edge backwardEdges;
-
-
-        StateInfo(StateCache.State s)
-        {
-            state = s;
-        }
-
-
-        public Edge addEdge(int type, int weight, StateCache.State target)
-        {
-            Edge nedge = new Edge(state, target, forwardEdges,
-                    target.info.backwardEdges, type, weight);
+    private int[][] edges = new int[16][];
 
-            this.forwardEdges = nedge;
-            target.info.backwardEdges = nedge;
-            return nedge;
-        }
-    }
+    /**
+     * The <code>heads</code> field stores the heads of the forward and
+     * backward edge lists of each state, indexed by the number of the state.
+     */
+    private int[][] heads = new int[16][];
 
     /**
      * The <code>frontierList</code> field stores a simple linked list of the
@@ -160,9 +139,25 @@ public class StateTransitionGraph
      */
     public StateTransitionGraph(Program p)
     {
-        cache = new StateCache(p);
-        edenState = cache.getEdenState();
-        edenState.info = new StateInfo(edenState);
+        this(p, false);
+    }
+
+
+    /**
+     * This constructor for the <code>StateTransitionGraph</code> class
+     * constructs a new state transition graph, with a state cache that may
+     * store its states in compact mode.
+     *
+     * @param p
+     *            the program to create a state transition graph for.
+     * @param compact
+     *            true if the state cache should store the states in compact
+     *            mode
+     */
+    public StateTransitionGraph(Program p, boolean compact)
+    {
+        cache = new StateCache(p, compact);
+        edenState = getCachedState(cache.getEdenState());
         addFrontierState(edenState);
     }
 
@@ -178,9 +173,24 @@ public class StateTransitionGraph
      */
     public StateCache.State getCachedState(MutableState s)
     {
-        StateCache.State ns = cache.getStateFor(s);
-        if (ns.info == null)
-            ns.info = new StateInfo(ns);
+        return getCachedState(cache.getStateFor(s));
+    }
+
+
+    /**
+     * The <code>getCachedState()</code> method adds a state that is already in
+     * the state cache to this graph, if it is not part of the graph yet. A
+     * state that was created by another thread ahead of time gets its
+     * identifier and edge lists only when it is added to the graph.
+     *
+     * @param ns
+     *            the cached state
+     * @return the same state, with its edge information
+     */
+    public StateCache.State getCachedState(StateCache.State ns)
+    {
+        cache.numberState(ns);
+        ns.inGraph = true;
         return ns;
     }
 
@@ -197,16 +207,140 @@ public class StateTransitionGraph
      *            the weight of the edge as an integer
      * @param t
      *            the target node of the edge
+     * @return the number of the new edge
      */
-    public Edge addEdge(StateCache.State s, int type, int weight,
+    public int addEdge(StateCache.State s, int type, int weight,
             StateCache.State t)
     {
-        if (s.info == null)
+        if (!s.inGraph)
             throw Util.failure("No edge info for: " + s.getUniqueName());
-        if (t.info == null)
+        if (!t.inGraph)
             throw Util.failure("No edge info for: " + t.getUniqueName());
-        edgeCount++;
-        return s.info.addEdge(type, weight, t);
+        int edge = (int) ++edgeCount;
+        int source = s.getNumber();
+        int target = t.getNumber();
+        int[] chunk = getEdgeChunk(edge >>> CHUNK_BITS);
+        int base = (edge & CHUNK_MASK) * EDGE_INTS;
+        chunk[base + SOURCE] = source;
+        chunk[base + TARGET] = target;
+        chunk[base + FORWARD_LINK] = getHead(source, FORWARD);
+        chunk[base + BACKWARD_LINK] = getHead(target, BACKWARD);
+        chunk[base + TYPE_WEIGHT] = type << 24 | weight & 0xffffff;
+        setHead(source, FORWARD, edge);
+        setHead(target, BACKWARD, edge);
+        return edge;
+    }
+
+
+    /**
+     * The <code>getFirstForwardEdge()</code> method gets the most recently
+     * added edge out of the specified state.
+     *
+     * @param s
+     *            the source state of the edges
+     * @return the number of the first edge on the forward edge list of the
+     *         state; <code>NO_EDGE</code> if there are no edges out of it
+     */
+    public int getFirstForwardEdge(StateCache.State s)
+    {
+        return getHead(s.getNumber(), FORWARD);
+    }
+
+
+    /**
+     * The <code>getFirstBackwardEdge()</code> method gets the most recently
+     * added edge into the specified state.
+     *
+     * @param s
+     *            the target state of the edges
+     * @return the number of the first edge on the backward edge list of the
+     *         state; <code>NO_EDGE</code> if there are no edges into it
+     */
+    public int getFirstBackwardEdge(StateCache.State s)
+    {
+        return getHead(s.getNumber(), BACKWARD);
+    }
+
+
+    public int getNextForwardEdge(int edge)
+    {
+        return getField(edge, FORWARD_LINK);
+    }
+
+
+    public int getNextBackwardEdge(int edge)
+    {
+        return getField(edge, BACKWARD_LINK);
+    }
+
+
+    public StateCache.State getSource(int edge)
+    {
+        return cache.getState(getField(edge, SOURCE));
+    }
+
+
+    public StateCache.State getTarget(int edge)
+    {
+        return cache.getState(getField(edge, TARGET));
+    }
+
+
+    public int getType(int edge)
+    {
+        return getField(edge, TYPE_WEIGHT) >>> 24;
+    }
+
+
+    public int getWeight(int edge)
+    {
+        // the weight is stored in the low 24 bits
+        return getField(edge, TYPE_WEIGHT) << 8 >> 8;
+    }
+
+
+    private int getField(int edge, int field)
+    {
+        return edges[edge >>> CHUNK_BITS][(edge & CHUNK_MASK) * EDGE_INTS
+                + field];
+    }
+
+
+    private int getHead(int state, int list)
+    {
+        int chunk = state >>> CHUNK_BITS;
+        if (chunk >= heads.length || heads[chunk] == null)
+            return NO_EDGE;
+        return heads[chunk][(state & CHUNK_MASK) * 2 + list];
+    }
+
+
+    private void setHead(int state, int list, int edge)
+    {
+        int[] chunk = getHeadChunk(state >>> CHUNK_BITS);
+        chunk[(state & CHUNK_MASK) * 2 + list] = edge;
+    }
+
+
+    private int[] getEdgeChunk(int chunk)
+    {
+        if (chunk >= edges.length)
+            edges = Arrays.copyOf(edges, edges.length * 2);
+        if (edges[chunk] == null)
+            edges[chunk] = new int[EDGE_INTS << CHUNK_BITS];
+        return edges[chunk];
+    }
+
+
+    private int[] getHeadChunk(int chunk)
+    {
+        // states may be created ahead of the graph by other threads, so the
+        // numbers of the states added to the graph are not contiguous
+        if (chunk >= heads.length)
+            heads = Arrays.copyOf(heads, Math.max(chunk + 1, heads.length * 2));
+        if (heads[chunk] == null)
+            heads[chunk] = new int[2 << CHUNK_BITS];
+        return heads[chunk];
     }
 
 
@@ -227,7 +361,7 @@ public class StateTransitionGraph
         frontierList = frontierList.next;
 
         StateCache.State state = l.state;
-        if (state.info == null)
+        if (!state.inGraph)
             throw Util.failure("LegacyState on frontier has no edge info: "
                     + state.getUniqueName());
 
@@ -324,6 +458,18 @@ public class StateTransitionGraph
     }
 
 
+    /**
+     * The <code>getFrontier()</code> method returns the list of states that are
+     * currently on the frontier, most recently added first.
+     *
+     * @return the current frontier list; null if the frontier is empty
+     */
+    public StateList getFrontier()
+    {
+        return frontierList;
+    }
+
+
     public StateCache.State getEdenState()
     {
         return edenState;
@@ -360,7 +506,7 @@ public class StateTransitionGraph
         while (i.hasNext())
         {
             StateCache.State state = i.next();
-            state.info.stateSet = null;
+            state.stateSet = null;
         }
     }
 
@@ -379,7 +525,8 @@ public class StateTransitionGraph
         while (i.hasNext())
         {
             StateCache.State state = i.next();
-            for (Edge e = state.info.forwardEdges; e != null; e = e.forwardLink)
+            for (int e = getFirstForwardEdge(state); e != NO_EDGE;
+                    e = getNextForwardEdge(e))
             {
                 StringBuffer buf = dumpToBuffer(e);
                 p.println(buf.toString());
@@ -388,17 +535,17 @@ public class StateTransitionGraph
     }
 
 
-    private StringBuffer dumpToBuffer(Edge e)
+    private StringBuffer dumpToBuffer(int e)
     {
         StringBuffer buf = new StringBuffer(32);
         buf.append('[');
-        buf.append(e.source.getUniqueName());
+        buf.append(getSource(e).getUniqueName());
         buf.append("] --(");
-        buf.append(Analyzer.EDGE_NAMES[e.type]);
+        buf.append(Analyzer.EDGE_NAMES[getType(e)]);
         buf.append(',');
-        buf.append(e.weight);
+        buf.append(getWeight(e));
         buf.append(")--> [");
-        buf.append(e.target.getUniqueName());
+        buf.append(getTarget(e).getUniqueName());
         buf.append(']');
         return buf;
     }
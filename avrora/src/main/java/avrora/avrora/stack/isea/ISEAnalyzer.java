@@ -32,12 +32,30 @@
 
 package avrora.avrora.stack.isea;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Stack;
-
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import avrora.avrora.arch.legacy.LegacyEncoder;
+import avrora.avrora.arch.legacy.LegacyInstr;
 import avrora.avrora.core.ControlFlowGraph;
 import avrora.avrora.core.ControlFlowGraph.Block;
 import avrora.avrora.core.ProcedureMap;
@@ -57,6 +75,14 @@ import avrora.cck.util.Util;
  * analyzers must do when they analyze code, because they can use the results of
  * this analysis to know which registers' values are used, and which registers
  * are unmodified by a procedure.
+ * <p/>
+ * The analysis of a whole program proceeds bottom up through the call graph.
+ * The procedures at the same level of the call graph do not call each other
+ * and are analyzed in parallel. When a summary file is given, the summary of
+ * each procedure is stored under a hash of its code and of the summaries of
+ * its callees, and a later run only analyzes the procedures whose hash has
+ * changed. The hash does not depend on the addresses of the procedure and its
+ * callees, so a procedure that only moved keeps its summary.
  *
  * @author Ben L. Titzer
  */
@@ -70,12 +96,37 @@ public class ISEAnalyzer implements ISEInterpreter.SummaryCache
     protected final HashMap<Block, ISEState> procedureSummaries;
     protected final HashMap<Integer, ISEState> returnSummaries;
     protected final Stack<Block> stack;
+    protected final HashMap<Block, Procedure> procedures;
+    protected final int workers;
+    protected final File summaryFile;
+
+    protected int analyzedCount;
+    protected int reusedCount;
 
     protected final Verbose.Printer printer = Verbose
             .getVerbosePrinter("analysis.isea");
 
 
     public ISEAnalyzer(Program p)
+    {
+        this(p, 1, "");
+    }
+
+
+    /**
+     * The constructor for the <code>ISEAnalyzer</code> class creates an
+     * analyzer that analyzes the procedures of a whole program with the
+     * specified number of threads, and keeps their summaries in the specified
+     * file between runs.
+     *
+     * @param p
+     *            the program to analyze
+     * @param w
+     *            the number of threads that analyze procedures
+     * @param sfile
+     *            the name of the summary file; empty for none
+     */
+    public ISEAnalyzer(Program p, int w, String sfile)
     {
         program = p;
         smap = p.getSourceMapping();
@@ -84,6 +135,114 @@ public class ISEAnalyzer implements ISEInterpreter.SummaryCache
         procedureSummaries = new HashMap<Block, ISEState>();
         returnSummaries = new HashMap<Integer, ISEState>();
         stack = new Stack<Block>();
+        procedures = new HashMap<Block, Procedure>();
+        workers = w;
+        summaryFile = sfile.length() > 0 ? new File(sfile) : null;
+    }
+
+    /**
+     * The <code>Procedure</code> class represents a procedure in the static
+     * call graph of the program: the blocks reachable from its entry without
+     * following calls, the procedures it calls, and the results of its
+     * analysis.
+     */
+    protected class Procedure
+    {
+        final Block entry;
+        final List<Block> blocks;
+        final List<Procedure> callees;
+        int level = -1;
+        boolean cacheable = true;
+        byte[] key;
+        ISEState summary;
+        HashMap<Integer, ISEState> returns;
+
+
+        Procedure(Block e)
+        {
+            entry = e;
+            blocks = new ArrayList<Block>();
+            callees = new ArrayList<Procedure>();
+        }
+    }
+
+    /**
+     * The <code>Task</code> class analyzes one procedure in a worker thread.
+     * It takes the summaries of callees from the levels below, and it collects
+     * the return summaries recorded by the analysis locally, so that they can
+     * be merged in after the level is complete.
+     */
+    protected class Task implements ISEInterpreter.SummaryCache,
+            Callable<Procedure>
+    {
+        final Procedure proc;
+        final HashMap<Block, ISEState> extra;
+        final HashMap<Integer, ISEState> returns;
+        final Stack<Block> tstack;
+
+
+        Task(Procedure p)
+        {
+            proc = p;
+            extra = new HashMap<Block, ISEState>();
+            returns = new HashMap<Integer, ISEState>();
+            tstack = new Stack<Block>();
+        }
+
+
+        @Override
+        public Procedure call()
+        {
+            proc.summary = analyze(proc.entry);
+            proc.returns = returns;
+            return proc;
+        }
+
+
+        private ISEState analyze(Block start)
+        {
+            if (printer.enabled)
+            {
+                printStart(start, tstack.size());
+            }
+            if (tstack.contains(start))
+            {
+                throw Util.failure("program contains recursion");
+            }
+            tstack.push(start);
+            ISEState rs = new ISEInterpreter(program, this).analyze(start
+                    .getAddress());
+            tstack.pop();
+            return rs;
+        }
+
+
+        @Override
+        public ISEState getProcedureSummary(int start)
+        {
+            ControlFlowGraph.Block block = cfg.getBlockStartingAt(start);
+            if (block == null)
+            {
+                throw Util.failure("cannot get procedure summary for address: "
+                        + StringUtil.addrToString(start));
+            }
+            Procedure callee = procedures.get(block);
+            if (callee != null && callee.returns != null)
+                return callee.summary;
+            // not a callee in the static call graph; analyze it here, but do
+            // not store the result of this procedure
+            proc.cacheable = false;
+            if (!extra.containsKey(block))
+                extra.put(block, analyze(block));
+            return extra.get(block);
+        }
+
+
+        @Override
+        public void recordReturnSummary(int retaddr, ISEState rs)
+        {
+            mergeReturnSummary(returns, retaddr, rs);
+        }
     }
 
     class Item
@@ -99,8 +258,19 @@ public class ISEAnalyzer implements ISEInterpreter.SummaryCache
     }
 
 
+    /**
+     * The <code>getProcedureSummary()</code> method returns the summary of the
+     * procedure starting at the specified address, analyzing it first if it
+     * was not reached by <code>analyze()</code>, e.g. an interrupt handler.
+     * The stack analyzer calls this method from several worker threads, so
+     * the procedures are analyzed one at a time.
+     *
+     * @param start
+     *            the address of the entry of the procedure
+     * @return the summary of the procedure
+     */
     @Override
-    public ISEState getProcedureSummary(int start)
+    public synchronized ISEState getProcedureSummary(int start)
     {
         ControlFlowGraph.Block block = cfg.getBlockStartingAt(start);
         if (block == null)
@@ -114,28 +284,71 @@ public class ISEAnalyzer implements ISEInterpreter.SummaryCache
 
 
     @Override
-    public void recordReturnSummary(int retaddr, ISEState rs)
+    public synchronized void recordReturnSummary(int retaddr, ISEState rs)
     {
-        ISEState ors = getReturnSummary(retaddr);
+        // other threads may hold the previous summary, so merge into a copy
+        ISEState ors = returnSummaries.get(new Integer(retaddr));
         if (ors == null)
         {
             ors = rs.dup();
-            returnSummaries.put(new Integer(retaddr), ors);
         } else
         {
+            ors = ors.dup();
             ors.merge(rs);
         }
+        returnSummaries.put(new Integer(retaddr), ors);
     }
 
 
-    public ISEState getReturnSummary(int retaddr)
+    private static void mergeReturnSummary(HashMap<Integer, ISEState> map,
+            int retaddr, ISEState rs)
+    {
+        ISEState ors = map.get(new Integer(retaddr));
+        if (ors == null)
+        {
+            ors = rs.dup();
+            map.put(new Integer(retaddr), ors);
+        } else
+        {
+            ors.merge(rs);
+        }
+    }
+
+
+    public synchronized ISEState getReturnSummary(int retaddr)
     {
         return returnSummaries.get(new Integer(retaddr));
     }
 
 
+    /**
+     * The <code>getAnalyzedCount()</code> method returns the number of
+     * procedures analyzed by the last call to <code>analyze()</code>.
+     *
+     * @return the number of procedures that were analyzed
+     */
+    public int getAnalyzedCount()
+    {
+        return analyzedCount;
+    }
+
+
+    /**
+     * The <code>getReusedCount()</code> method returns the number of
+     * procedures whose summaries the last call to <code>analyze()</code> took
+     * from the summary file.
+     *
+     * @return the number of procedure summaries that were reused
+     */
+    public int getReusedCount()
+    {
+        return reusedCount;
+    }
+
+
     public void analyze()
     {
+        List<Block> entries = new ArrayList<Block>();
         HashSet<Block> seen = new HashSet<Block>();
         Item head;
         Item tail = head = new Item(cfg.getBlockStartingAt(0x0000));
@@ -151,7 +364,7 @@ public class ISEAnalyzer implements ISEInterpreter.SummaryCache
             if (pmap.getProcedureEntrypoints().contains(block))
             {
                 // this is a procedure entrypoint
-                analyzeProcedure(block);
+                entries.add(block);
             } else
             {
                 // otherwise, look for successor blocks
@@ -179,6 +392,346 @@ public class ISEAnalyzer implements ISEInterpreter.SummaryCache
 
             head = head.next;
         }
+
+        analyzeProcedures(entries);
+    }
+
+
+    private void analyzeProcedures(List<Block> entries)
+    {
+        // build the call graph and sort the procedures into levels
+        List<List<Procedure>> levels = new ArrayList<List<Procedure>>();
+        for (Block entry : entries)
+            computeLevel(getProcedure(entry), levels);
+
+        HashMap<String, ISESummaryStore.Entry> stored;
+        if (summaryFile != null)
+            stored = ISESummaryStore.read(summaryFile);
+        else
+            stored = new HashMap<String, ISESummaryStore.Entry>();
+        ExecutorService pool = workers > 1 ? Executors
+                .newFixedThreadPool(workers) : null;
+        try
+        {
+            for (List<Procedure> level : levels)
+                analyzeLevel(level, stored, pool);
+        }
+        finally
+        {
+            if (pool != null)
+                pool.shutdown();
+        }
+
+        if (summaryFile != null)
+            writeSummaries(levels);
+    }
+
+
+    private void analyzeLevel(List<Procedure> level,
+            HashMap<String, ISESummaryStore.Entry> stored,
+            ExecutorService pool)
+    {
+        List<Task> tasks = new ArrayList<Task>();
+        for (Procedure p : level)
+        {
+            if (procedureSummaries.containsKey(p.entry))
+            {
+                // already analyzed on demand
+                p.cacheable = false;
+                p.summary = procedureSummaries.get(p.entry);
+                p.returns = new HashMap<Integer, ISEState>();
+                continue;
+            }
+            p.key = computeKey(p);
+            ISESummaryStore.Entry e = stored.get(ISESummaryStore
+                    .getName(p.key));
+            if (e != null && Arrays.equals(e.key, p.key))
+            {
+                p.summary = e.summary;
+                p.returns = relocate(e.returns, p.entry.getAddress());
+                reusedCount++;
+            } else
+                tasks.add(new Task(p));
+        }
+
+        if (pool == null || tasks.size() < 2)
+        {
+            for (Task t : tasks)
+                t.call();
+        } else
+            runTasks(pool, tasks);
+        analyzedCount += tasks.size();
+
+        // publish the results in the order of the procedures
+        for (Procedure p : level)
+        {
+            procedureSummaries.put(p.entry, p.summary);
+            for (Map.Entry<Integer, ISEState> r : p.returns.entrySet())
+                recordReturnSummary(r.getKey().intValue(), r.getValue());
+        }
+    }
+
+
+    private void runTasks(ExecutorService pool, List<Task> tasks)
+    {
+        try
+        {
+            for (Future<Procedure> f : pool.invokeAll(tasks))
+                f.get();
+        }
+        catch (InterruptedException e)
+        {
+            throw Util.unexpected(e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable c = e.getCause();
+            if (c instanceof RuntimeException)
+                throw (RuntimeException) c;
+            if (c instanceof Error)
+                throw (Error) c;
+            throw Util.unexpected(e);
+        }
+    }
+
+
+    private Procedure getProcedure(Block entry)
+    {
+        Procedure p = procedures.get(entry);
+        if (p != null)
+            return p;
+        p = new Procedure(entry);
+        procedures.put(entry, p);
+
+        // collect the blocks reachable without following calls, and the
+        // procedures called from them
+        HashSet<Block> seen = new HashSet<Block>();
+        HashSet<Block> called = new HashSet<Block>();
+        List<Block> work = new ArrayList<Block>();
+        work.add(entry);
+        seen.add(entry);
+        while (!work.isEmpty())
+        {
+            Block block = work.remove(work.size() - 1);
+            p.blocks.add(block);
+            Iterator<ControlFlowGraph.Edge> i = block.getEdgeIterator();
+            while (i.hasNext())
+            {
+                ControlFlowGraph.Edge e = i.next();
+                String type = e.getType();
+                if ("RET".equals(type) || "RETI".equals(type))
+                    continue;
+                HashSet<Block> set = "CALL".equals(type) ? called : seen;
+                List<Block> targets = getTargets(block, e);
+                for (Block t : targets)
+                {
+                    if (set.add(t) && set == seen)
+                        work.add(t);
+                }
+            }
+        }
+        Collections.sort(p.blocks, ControlFlowGraph.COMPARATOR);
+        List<Block> sorted = new ArrayList<Block>(called);
+        Collections.sort(sorted, ControlFlowGraph.COMPARATOR);
+        for (Block b : sorted)
+            p.callees.add(getProcedure(b));
+        return p;
+    }
+
+
+    private List<Block> getTargets(Block block, ControlFlowGraph.Edge e)
+    {
+        List<Block> list = new ArrayList<Block>();
+        if (e.getTarget() != null)
+        {
+            list.add(e.getTarget());
+            return list;
+        }
+        List<Integer> iedges = program.getIndirectEdges(block
+                .getLastAddress());
+        if (iedges != null)
+        {
+            for (Integer taddr : iedges)
+            {
+                Block t = cfg.getBlockStartingAt(taddr);
+                if (t != null)
+                    list.add(t);
+            }
+        }
+        return list;
+    }
+
+
+    private int computeLevel(Procedure p, List<List<Procedure>> levels)
+    {
+        if (p.level == -2)
+            throw Util.failure("program contains recursion");
+        if (p.level >= 0)
+            return p.level;
+        p.level = -2;
+        int level = 0;
+        for (Procedure c : p.callees)
+            level = Math.max(level, computeLevel(c, levels) + 1);
+        p.level = level;
+        while (levels.size() <= level)
+            levels.add(new ArrayList<Procedure>());
+        levels.get(level).add(p);
+        return level;
+    }
+
+
+    /**
+     * The <code>computeKey()</code> method computes the hash under which the
+     * summary of a procedure is stored. It covers the machine code of the
+     * blocks of the procedure, the targets of its indirect branches and
+     * calls, and the summaries of its callees, which must already be known.
+     * The addresses of blocks and the targets of jumps are taken relative to
+     * the entry of the procedure, and the targets of calls are replaced by the
+     * index of the callee, so that the hash stays the same when the procedure
+     * or its callees move.
+     */
+    private byte[] computeKey(Procedure p)
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            LegacyEncoder encoder = new LegacyEncoder();
+            byte[] code = new byte[4];
+            int entry = p.entry.getAddress();
+            for (Block b : p.blocks)
+            {
+                int address = b.getAddress();
+                out.writeInt(address - entry);
+                Iterator<LegacyInstr> i = b.getInstrIterator();
+                while (i.hasNext())
+                {
+                    LegacyInstr instr = i.next();
+                    int target = getTarget(instr, address);
+                    if (target < 0)
+                    {
+                        int size = encoder.encode(instr, code, 0);
+                        out.write(code, 0, size);
+                    } else
+                    {
+                        out.writeUTF(instr.getName());
+                        writeTarget(out, p, target);
+                    }
+                    address += instr.getSize();
+                }
+                List<Integer> iedges = program.getIndirectEdges(b
+                        .getLastAddress());
+                if (iedges != null)
+                {
+                    out.writeInt(iedges.size());
+                    for (Integer taddr : iedges)
+                        writeTarget(out, p, taddr.intValue());
+                }
+            }
+            for (Procedure c : p.callees)
+                ISESummaryStore.writeSummary(out, c.summary);
+            out.close();
+            return MessageDigest.getInstance("SHA-1").digest(
+                    bytes.toByteArray());
+        }
+        catch (IOException e)
+        {
+            throw Util.unexpected(e);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw Util.unexpected(e);
+        }
+    }
+
+
+    /**
+     * The <code>getTarget()</code> method returns the target of a jump or call
+     * whose encoding depends on the address of the instruction or of its
+     * target. The relative branches and jumps within a procedure do not, so
+     * they are hashed as they are.
+     *
+     * @param i
+     *            the instruction
+     * @param address
+     *            the address of the instruction
+     * @return the address of the target; -1 if the instruction is hashed as
+     *         it is
+     */
+    private static int getTarget(LegacyInstr i, int address)
+    {
+        if (i instanceof LegacyInstr.JMP || i instanceof LegacyInstr.CALL)
+            return ((LegacyInstr.WORD_class) i).imm1 * 2;
+        if (i instanceof LegacyInstr.RCALL)
+            return address + 2 + ((LegacyInstr.RCALL) i).imm1 * 2;
+        return -1;
+    }
+
+
+    private static void writeTarget(DataOutputStream out, Procedure p,
+            int target) throws IOException
+    {
+        for (int cntr = 0; cntr < p.callees.size(); cntr++)
+        {
+            if (p.callees.get(cntr).entry.getAddress() == target)
+            {
+                // the callee is identified by its index, and its summary is
+                // part of the key
+                out.writeBoolean(true);
+                out.writeInt(cntr);
+                return;
+            }
+        }
+        out.writeBoolean(false);
+        out.writeInt(target - p.entry.getAddress());
+    }
+
+
+    /**
+     * The <code>relocate()</code> method adds the address of a procedure to the
+     * offsets of the return addresses of its stored return summaries, or
+     * subtracts it from the return addresses of its computed ones.
+     *
+     * @param returns
+     *            the return summaries
+     * @param delta
+     *            the amount to add to each return address
+     * @return a new map with the moved return summaries
+     */
+    private static HashMap<Integer, ISEState> relocate(
+            HashMap<Integer, ISEState> returns, int delta)
+    {
+        HashMap<Integer, ISEState> map = new HashMap<Integer, ISEState>();
+        for (Map.Entry<Integer, ISEState> r : returns.entrySet())
+            map.put(new Integer(r.getKey().intValue() + delta), r.getValue());
+        return map;
+    }
+
+
+    private void writeSummaries(List<List<Procedure>> levels)
+    {
+        TreeMap<String, ISESummaryStore.Entry> entries;
+        entries = new TreeMap<String, ISESummaryStore.Entry>();
+        for (List<Procedure> level : levels)
+        {
+            for (Procedure p : level)
+            {
+                if (p.cacheable)
+                    entries.put(ISESummaryStore.getName(p.key),
+                            new ISESummaryStore.Entry(p.key, p.summary,
+                                    relocate(p.returns, -p.entry
+                                            .getAddress())));
+            }
+        }
+        try
+        {
+            ISESummaryStore.write(summaryFile, entries);
+        }
+        catch (IOException e)
+        {
+            Util.userError("Cannot write ISEA summary file", summaryFile
+                    .getPath());
+        }
     }
 
 
@@ -197,14 +750,14 @@ public class ISEAnalyzer implements ISEInterpreter.SummaryCache
     }
 
 
-    public void analyzeProcedure(ControlFlowGraph.Block start)
+    public synchronized void analyzeProcedure(ControlFlowGraph.Block start)
     {
         // first check the procedure summary cache
         if (procedureSummaries.containsKey(start))
             return;
         if (printer.enabled)
         {
-            printStart(start);
+            printStart(start, stack.size());
         }
         if (stack.contains(start))
         {
@@ -218,9 +771,8 @@ public class ISEAnalyzer implements ISEInterpreter.SummaryCache
     }
 
 
-    private void printStart(ControlFlowGraph.Block start)
+    private void printStart(ControlFlowGraph.Block start, int size)
     {
-        int size = stack.size();
         String indent = StringUtil.dup('=', 4 * size + 3);
         Terminal.print(Terminal.COLOR_MAGENTA, indent + ">");
         Terminal.print(Terminal.COLOR_PURPLE, " ISE: Analyzing procedure ");
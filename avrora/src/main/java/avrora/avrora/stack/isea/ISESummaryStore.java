@@ -0,0 +1,260 @@
+/**
+ * Copyright (c) 2004-2005, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the University of California, Los Angeles nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avrora.avrora.stack.isea;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import avrora.cck.text.StringUtil;
+import avrora.cck.util.Util;
+
+/**
+ * The <code>ISESummaryStore</code> class reads and writes the file in which
+ * the <code>ISEAnalyzer</code> keeps the summaries of procedures between runs.
+ * Each entry is stored under the key it was computed for, which does not
+ * depend on where the procedure is located in the program, together with the
+ * procedure summary and the return summaries that the analysis of the
+ * procedure recorded. The return summaries are stored at the offsets of the
+ * return addresses from the entry of the procedure.
+ */
+public class ISESummaryStore
+{
+
+    protected static final int MAGIC = 0x49534541;
+    protected static final int VERSION = 2;
+    protected static final int MAX_KEY_LENGTH = 64;
+
+    /**
+     * The <code>Entry</code> class represents the stored results of the
+     * analysis of one procedure.
+     */
+    public static class Entry
+    {
+        public final byte[] key;
+        public final ISEState summary;
+        // the return summaries, by the offset of the return address
+        public final HashMap<Integer, ISEState> returns;
+
+
+        public Entry(byte[] k, ISEState s, HashMap<Integer, ISEState> r)
+        {
+            key = k;
+            summary = s;
+            returns = r;
+        }
+    }
+
+
+    /**
+     * The <code>read()</code> method reads the entries stored in the specified
+     * file. A missing file yields no entries; a file that cannot be read is
+     * reported with a warning and ignored, so that all procedures are analyzed
+     * again.
+     *
+     * @param f
+     *            the file to read
+     * @return a map from the key of each entry, as returned by
+     *         <code>getName()</code>, to the entry
+     */
+    public static HashMap<String, Entry> read(File f)
+    {
+        HashMap<String, Entry> entries = new HashMap<String, Entry>();
+        if (!f.exists())
+            return entries;
+        try
+        {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(f)));
+            try
+            {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                {
+                    Util.warning("ignoring ISEA summary file of another "
+                            + "version: " + f);
+                    return entries;
+                }
+                int count = in.readInt();
+                for (int cntr = 0; cntr < count; cntr++)
+                {
+                    int length = in.readInt();
+                    if (length < 0 || length > MAX_KEY_LENGTH)
+                        throw new IOException("invalid key length " + length);
+                    byte[] key = new byte[length];
+                    in.readFully(key);
+                    ISEState summary = in.readBoolean() ? readState(in) : null;
+                    HashMap<Integer, ISEState> returns;
+                    returns = new HashMap<Integer, ISEState>();
+                    int rcount = in.readInt();
+                    for (int rcntr = 0; rcntr < rcount; rcntr++)
+                    {
+                        int offset = in.readInt();
+                        returns.put(new Integer(offset), readState(in));
+                    }
+                    entries.put(getName(key), new Entry(key, summary,
+                            returns));
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (IOException e)
+        {
+            Util.warning("ignoring unreadable ISEA summary file " + f + ": "
+                    + e.getMessage());
+            entries.clear();
+        }
+        return entries;
+    }
+
+
+    /**
+     * The <code>write()</code> method writes the specified entries to a file.
+     * The entries are first written to a temporary file next to it, which then
+     * replaces the file, so that an interrupted run does not leave a truncated
+     * file behind.
+     *
+     * @param f
+     *            the file to write
+     * @param entries
+     *            a map from the key of each entry to the entry
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public static void write(File f, Map<String, Entry> entries)
+            throws IOException
+    {
+        File tmp = new File(f.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tmp)));
+        try
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Entry entry : entries.values())
+            {
+                out.writeInt(entry.key.length);
+                out.write(entry.key);
+                writeSummary(out, entry.summary);
+                out.writeInt(entry.returns.size());
+                for (Map.Entry<Integer, ISEState> r : entry.returns.entrySet())
+                {
+                    out.writeInt(r.getKey().intValue());
+                    writeState(out, r.getValue());
+                }
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+        if (!tmp.renameTo(f) && !(f.delete() && tmp.renameTo(f)))
+            throw new IOException("cannot replace " + f);
+    }
+
+
+    /**
+     * The <code>getName()</code> method returns the key of an entry as a
+     * string of hexadecimal digits, under which the entry can be looked up.
+     *
+     * @param key
+     *            the key of the entry
+     * @return a string representation of the key
+     */
+    public static String getName(byte[] key)
+    {
+        StringBuffer buf = new StringBuffer(key.length * 2);
+        for (byte b : key)
+            StringUtil.toHex(buf, b & 0xff, 2);
+        return buf.toString();
+    }
+
+
+    /**
+     * The <code>writeSummary()</code> method writes a procedure summary,
+     * which is null for a procedure that does not return.
+     *
+     * @param out
+     *            the stream to write to
+     * @param s
+     *            the summary to write, or null
+     * @throws IOException
+     *             if the stream cannot be written
+     */
+    public static void writeSummary(DataOutputStream out, ISEState s)
+            throws IOException
+    {
+        out.writeBoolean(s != null);
+        if (s != null)
+            writeState(out, s);
+    }
+
+
+    protected static void writeState(DataOutputStream out, ISEState s)
+            throws IOException
+    {
+        for (ISEAbstractState.Element e : s.elements)
+        {
+            out.writeByte(e.value);
+            out.writeBoolean(e.read);
+        }
+        out.writeInt(s.depth);
+        out.write(s.stack, 0, s.depth);
+    }
+
+
+    protected static ISEState readState(DataInputStream in) throws IOException
+    {
+        ISEState s = new ISEState();
+        for (ISEAbstractState.Element e : s.elements)
+        {
+            e.value = in.readByte();
+            e.read = in.readBoolean();
+        }
+        s.depth = in.readInt();
+        if (s.depth < 0 || s.depth > s.stack.length)
+            throw new IOException("invalid stack depth " + s.depth);
+        in.readFully(s.stack, 0, s.depth);
+        return s;
+    }
+}
@@ -396,16 +396,6 @@ public class Module implements Context
 
     protected void simplify(Item i)
     {
-        Item.Instruction instr = null;
-        if (i instanceof Item.Instruction)
-        {
-            instr = (Item.Instruction) i;
-        } else
-        {
-            throw new IllegalStateException(
-                    "i is no instanceof Item.Instruction");
-        }
-
         try
         {
             i.simplify();
@@ -416,11 +406,13 @@ public class Module implements Context
         }
         catch (LegacyInstr.InvalidImmediate e)
         {
+            Item.Instruction instr = (Item.Instruction) i;
             ERROR.ConstantOutOfRange(instr.operands[e.number - 1], e.value,
                     StringUtil.interval(e.low, e.high));
         }
         catch (LegacyInstr.InvalidRegister e)
         {
+            Item.Instruction instr = (Item.Instruction) i;
             ERROR.IncorrectRegister(instr.operands[e.number - 1], e.register,
                     e.set.toString());
         }
@@ -430,6 +422,7 @@ public class Module implements Context
         }
         catch (LegacyInstr.WrongNumberOfOperands e)
         {
+            Item.Instruction instr = (Item.Instruction) i;
             ERROR.WrongNumberOfOperands(instr.name, e.found, e.expected);
         }
     }
@@ -32,8 +32,9 @@
 
 package avrora.avrora.syntax.elf;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import avrora.avrora.Main;
@@ -100,47 +101,57 @@ public class ELFParser extends ProgramReader
         String fname = args[0];
         Main.checkFileExists(fname);
 
-        RandomAccessFile fis = new RandomAccessFile(fname, "r");
+        ByteBuffer buf = ELFLoader.mapFile(fname);
 
-        // read the ELF header
         try
         {
-            header = ELFLoader.readELFHeader(fis);
+            // read the ELF header
+            header = ELFLoader.readELFHeader(buf);
+            arch = getArchitecture();
+            return load(new ELFDataInputStream(header, buf));
         }
         catch (ELFHeader.FormatError e)
         {
             Util.userError(fname, "invalid ELF header");
+            return null;
         }
+        catch (EOFException e)
+        {
+            Util.userError(fname, "truncated ELF file");
+            return null;
+        }
+    }
 
-        arch = getArchitecture();
 
+    private Program load(ELFDataInputStream is) throws IOException
+    {
         // read the program header table (if it exists)
-        pht = ELFLoader.readPHT(fis, header);
+        pht = ELFLoader.readPHT(is);
 
         // read the section header table (if it exists)
         if (SYMBOLS.get())
         {
-            sht = ELFLoader.readSHT(fis, header);
+            sht = ELFLoader.readSHT(is);
             shstrtab = sht.getStringTable();
         }
         // load the sections from the ELF file
-        Program p = loadSections(fis);
+        Program p = loadSections(is);
 
         // read the symbol tables (if they exist)
-        loadSymbolTables(p, fis);
+        loadSymbolTables(p, is);
 
         return p;
     }
 
 
-    private void loadSymbolTables(Program p, RandomAccessFile fis)
+    private void loadSymbolTables(Program p, ELFDataInputStream is)
             throws IOException
     {
         SourceMapping map = new SourceMapping(p);
         p.setSourceMapping(map);
         if (SYMBOLS.get())
         {
-            symbolTables = ELFLoader.readSymbolTables(fis, header, sht);
+            symbolTables = ELFLoader.readSymbolTables(is, sht);
             for (ELFSymbolTable stab : symbolTables)
             {
                 addSymbols(map, stab, stab.getStringTable());
@@ -166,17 +177,15 @@ public class ELFParser extends ProgramReader
     }
 
 
-    private Program loadSections(RandomAccessFile fis) throws IOException
+    private Program loadSections(ELFDataInputStream is) throws IOException
     {
         // load each section
-        ELFDataInputStream is = new ELFDataInputStream(header, fis);
         Program p = createProgram();
         for (int cntr = 0; cntr < pht.entries.length; cntr++)
         {
             ELFProgramHeaderTable.Entry32 e = pht.entries[cntr];
             if (e.isLoadable() && e.p_filesz > 0)
             {
-                fis.seek(e.p_offset);
                 byte[] sect = is.read_section(e.p_offset, e.p_filesz);
                 p.writeProgramBytes(sect, e.p_paddr);
                 if (e.isExecutable())
@@ -233,7 +242,7 @@ public class ELFParser extends ProgramReader
                 String section = sht.getSectionName(e.st_shndx);
                 String name = ELFDumpAction.getName(str, e.st_name);
                 map.newLocation(section, name, e.st_value, findLMA(e),
-                        e.st_size);
+                        e.st_size, e.isObject());
             }
         }
     }
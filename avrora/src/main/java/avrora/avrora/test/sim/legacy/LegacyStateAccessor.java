@@ -34,10 +34,10 @@
 
 package avrora.avrora.test.sim.legacy;
 
-import avrora.avrora.arch.legacy.LegacyInterpreter;
 import avrora.avrora.arch.legacy.LegacyRegister;
 import avrora.avrora.arch.legacy.LegacyState;
 import avrora.avrora.core.Program;
+import avrora.avrora.sim.AtmelInterpreter;
 import avrora.avrora.sim.Simulator;
 import avrora.avrora.test.sim.StateAccessor;
 
@@ -53,13 +53,13 @@ import avrora.avrora.test.sim.StateAccessor;
 public class LegacyStateAccessor extends StateAccessor
 {
 
-    final LegacyInterpreter interpreter;
+    final AtmelInterpreter interpreter;
 
 
     public LegacyStateAccessor(Program p, Simulator s)
     {
         super(p, s);
-        interpreter = (LegacyInterpreter) simulator.getInterpreter();
+        interpreter = (AtmelInterpreter) simulator.getInterpreter();
 
         // install the general purpose registers
         for (int cntr = 0; cntr < 32; cntr++)
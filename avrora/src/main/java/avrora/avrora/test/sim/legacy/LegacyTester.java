@@ -39,6 +39,7 @@ import avrora.avrora.arch.AbstractArchitecture;
 import avrora.avrora.arch.legacy.LegacyArchitecture;
 import avrora.avrora.core.Program;
 import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.types.SingleSimulation;
 import avrora.avrora.test.sim.StateAccessor;
 import avrora.avrora.test.sim.Tester;
 
@@ -48,10 +49,20 @@ import avrora.avrora.test.sim.Tester;
 public class LegacyTester extends Tester
 {
 
+    /**
+     * The <code>INTERPRETER</code> field stores the name of the interpreter
+     * that runs the test programs. If it is empty, the default interpreter of
+     * the microcontroller is used.
+     */
+    public static String INTERPRETER = "";
+
+
     @Override
     public Simulator newSimulator(Program p)
     {
-        return Defaults.newSimulator(0, p);
+        SingleSimulation sim = new SingleSimulation();
+        sim.INTERPRETER.set(INTERPRETER);
+        return Defaults.newSimulator(0, sim, p);
     }
 
 
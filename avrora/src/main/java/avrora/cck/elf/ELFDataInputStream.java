@@ -33,10 +33,18 @@
  */
 package avrora.cck.elf;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
+ * The <code>ELFDataInputStream</code> class reads the data types of the ELF
+ * format from either a random access file or a byte buffer, typically one that
+ * maps the whole file into memory. Reading from a mapped buffer avoids a
+ * system call for every byte of the headers and tables.
+ *
  * @author Ben L. Titzer
  */
 public class ELFDataInputStream
@@ -45,6 +53,7 @@ public class ELFDataInputStream
     final boolean bigEndian;
     final ELFHeader header;
     final RandomAccessFile file;
+    final ByteBuffer buffer;
 
 
     public ELFDataInputStream(ELFHeader header, RandomAccessFile f)
@@ -52,18 +61,100 @@ public class ELFDataInputStream
         this.header = header;
         bigEndian = header.isBigEndian();
         file = f;
+        buffer = null;
+    }
+
+
+    /**
+     * This constructor for the <code>ELFDataInputStream</code> class creates a
+     * stream that reads from the specified buffer, starting at its current
+     * position. The byte order of the buffer is set to the byte order of the
+     * file given in the header.
+     *
+     * @param header
+     *            the header of the ELF file
+     * @param b
+     *            the buffer containing the ELF file
+     */
+    public ELFDataInputStream(ELFHeader header, ByteBuffer b)
+    {
+        this.header = header;
+        bigEndian = header.isBigEndian();
+        file = null;
+        buffer = b;
+        b.order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
     }
 
 
     public byte[] read_section(int off, int length) throws IOException
     {
-        byte[] buffer = new byte[length];
-        file.seek(off);
-        for (int cntr = 0; cntr < length;)
+        byte[] data = new byte[length];
+        seek(off);
+        read_fully(data);
+        return data;
+    }
+
+
+    /**
+     * The <code>seek()</code> method moves the stream to the specified offset
+     * from the beginning of the file.
+     *
+     * @param off
+     *            the offset in the file
+     * @throws IOException
+     *             if there is a problem seeking in the file or the offset is
+     *             beyond its end
+     */
+    public void seek(long off) throws IOException
+    {
+        if (buffer == null)
+            file.seek(off);
+        else if (off < 0 || off > buffer.limit())
+            throw new EOFException();
+        else
+            buffer.position((int) off);
+    }
+
+
+    /**
+     * The <code>skip()</code> method skips over the specified number of bytes,
+     * such as the padding at the end of a table entry.
+     *
+     * @param length
+     *            the number of bytes to skip
+     * @throws IOException
+     *             if there is a problem reading the file
+     */
+    public void skip(int length) throws IOException
+    {
+        if (length <= 0)
+            return;
+        if (buffer == null)
+            file.skipBytes(length);
+        else
+            seek(buffer.position() + (long) length);
+    }
+
+
+    /**
+     * The <code>read_fully()</code> method reads bytes from the stream until the
+     * specified array is full.
+     *
+     * @param data
+     *            the array to fill
+     * @throws IOException
+     *             if there is a problem reading the file or it ends before the
+     *             array is full
+     */
+    public void read_fully(byte[] data) throws IOException
+    {
+        if (buffer == null)
         {
-            cntr += file.read(buffer, cntr, length - cntr);
+            file.readFully(data);
+            return;
         }
-        return buffer;
+        require(data.length);
+        buffer.get(data);
     }
 
 
@@ -111,12 +202,22 @@ public class ELFDataInputStream
 
     private int read_1() throws IOException
     {
+        if (buffer != null)
+        {
+            require(1);
+            return buffer.get() & 0xff;
+        }
         return file.read() & 0xff;
     }
 
 
     private int read_2() throws IOException
     {
+        if (buffer != null)
+        {
+            require(2);
+            return buffer.getShort() & 0xffff;
+        }
         int b1 = read_1();
         int b2 = read_1();
         if (bigEndian)
@@ -127,6 +228,11 @@ public class ELFDataInputStream
 
     private int read_4() throws IOException
     {
+        if (buffer != null)
+        {
+            require(4);
+            return buffer.getInt();
+        }
         int b1 = read_1();
         int b2 = read_1();
         int b3 = read_1();
@@ -137,6 +243,13 @@ public class ELFDataInputStream
     }
 
 
+    private void require(int length) throws EOFException
+    {
+        if (buffer.remaining() < length)
+            throw new EOFException();
+    }
+
+
     private short asShort(int bl, int bh)
     {
         return (short) ((bh << 8) | bl);
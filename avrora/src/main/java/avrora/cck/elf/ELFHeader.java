@@ -34,6 +34,7 @@ package avrora.cck.elf;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 
 /**
  * The <code>ELFHeader</code> class represents the header of an ELF file. It can
@@ -117,7 +118,35 @@ public class ELFHeader
         for (int index = 0; index < EI_NIDENT;)
             index += fs.read(e_ident, index, EI_NIDENT - index);
         checkIdent();
-        ELFDataInputStream is = new ELFDataInputStream(this, fs);
+        readFields(new ELFDataInputStream(this, fs));
+    }
+
+
+    /**
+     * The <code>read()</code> method reads the header from the beginning of
+     * the specified buffer, which usually maps the whole file. After the
+     * header is read, the byte order of the buffer is the byte order of the
+     * file.
+     *
+     * @param b
+     *            the buffer from which to read the ELF header
+     * @throws IOException
+     *             if there is a problem reading from the buffer
+     */
+    public void read(ByteBuffer b) throws IOException, FormatError
+    {
+        // read the indentification string
+        if (b.limit() < EI_NIDENT)
+            throw new FormatError();
+        b.position(0);
+        b.get(e_ident);
+        checkIdent();
+        readFields(new ELFDataInputStream(this, b));
+    }
+
+
+    private void readFields(ELFDataInputStream is) throws IOException
+    {
         e_type = is.read_Elf32_Half();
         e_machine = is.read_Elf32_Half();
         e_version = is.read_Elf32_Word();
@@ -35,6 +35,8 @@ package avrora.cck.elf;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -72,6 +74,55 @@ public class ELFLoader
     }
 
 
+    /**
+     * The <code>mapFile()</code> method maps the whole of the specified file
+     * into memory, so that its headers, tables and sections can be read from
+     * the buffer without copying the file first.
+     *
+     * @param fname
+     *            the name of the file to map
+     * @return a read-only buffer that maps the contents of the file
+     * @throws IOException
+     *             if the file cannot be opened or mapped
+     */
+    public static ByteBuffer mapFile(String fname) throws IOException
+    {
+        RandomAccessFile f = new RandomAccessFile(fname, "r");
+        try
+        {
+            FileChannel ch = f.getChannel();
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        finally
+        {
+            f.close();
+        }
+    }
+
+
+    /**
+     * The <code>readELFHeader()</code> method loads an ELF header data
+     * structure from the beginning of the specified buffer, and checks that it
+     * complies with the ELF specification.
+     *
+     * @param b
+     *            the buffer from which to read the header
+     * @return a reference to a new <code>ELFHeader</code> instance representing
+     *         the header
+     * @throws IOException
+     *             if the buffer ends before the header
+     * @throws ELFHeader.FormatError
+     *             if the header does not comply with the ELF specification
+     */
+    public static ELFHeader readELFHeader(ByteBuffer b)
+            throws IOException, ELFHeader.FormatError
+    {
+        ELFHeader header = new ELFHeader();
+        header.read(b);
+        return header;
+    }
+
+
     /**
      * The <code>readPHT()</code> method reads the program header table from the
      * specified file.
@@ -88,8 +139,26 @@ public class ELFLoader
     public static ELFProgramHeaderTable readPHT(RandomAccessFile fis,
             ELFHeader header) throws IOException
     {
-        ELFProgramHeaderTable pht = new ELFProgramHeaderTable(header);
-        pht.read(fis);
+        return readPHT(new ELFDataInputStream(header, fis));
+    }
+
+
+    /**
+     * The <code>readPHT()</code> method reads the program header table from the
+     * specified ELF data stream.
+     *
+     * @param is
+     *            the stream from which to read the program header table
+     * @return a reference to a new object representing the program header table
+     *         for this ELF file
+     * @throws IOException
+     *             if an IO exception occurs
+     */
+    public static ELFProgramHeaderTable readPHT(ELFDataInputStream is)
+            throws IOException
+    {
+        ELFProgramHeaderTable pht = new ELFProgramHeaderTable(is.header);
+        pht.read(is);
         return pht;
     }
 
@@ -110,15 +179,34 @@ public class ELFLoader
     public static ELFSectionHeaderTable readSHT(RandomAccessFile fis,
             ELFHeader header) throws IOException
     {
+        return readSHT(new ELFDataInputStream(header, fis));
+    }
+
+
+    /**
+     * The <code>readSHT()</code> method loads the section header table and the
+     * string table of the section names from the specified ELF data stream.
+     *
+     * @param is
+     *            the stream from which to load the section header table
+     * @return a reference to a new object that represents the section header
+     *         table
+     * @throws IOException
+     *             if an IO exception occurs
+     */
+    public static ELFSectionHeaderTable readSHT(ELFDataInputStream is)
+            throws IOException
+    {
+        ELFHeader header = is.header;
         ELFSectionHeaderTable sht = new ELFSectionHeaderTable(header);
-        sht.read(fis);
+        sht.read(is);
 
         // read the ELF string table that contains the section names
         if (header.e_shstrndx < sht.entries.length)
         {
             ELFSectionHeaderTable.Entry32 e = sht.entries[header.e_shstrndx];
             ELFStringTable srttab = new ELFStringTable(header, e);
-            srttab.read(fis);
+            srttab.read(is);
             sht.setStringTable(srttab);
         }
         return sht;
@@ -143,6 +231,27 @@ public class ELFLoader
     public static List<ELFSymbolTable> readSymbolTables(RandomAccessFile fis,
             ELFHeader header, ELFSectionHeaderTable sht) throws IOException
     {
+        return readSymbolTables(new ELFDataInputStream(header, fis), sht);
+    }
+
+
+    /**
+     * The <code>readSymbolTables()</code> method reads a list of symbol tables
+     * from the specified ELF data stream, if any exist.
+     *
+     * @param is
+     *            the stream from which to load the symbol tables
+     * @param sht
+     *            the section header table for this file, which is used to
+     *            locate string tables
+     * @return a list of symbol tables that are contained in this ELF file
+     * @throws IOException
+     *             if an IO exception occurs
+     */
+    public static List<ELFSymbolTable> readSymbolTables(ELFDataInputStream is,
+            ELFSectionHeaderTable sht) throws IOException
+    {
+        ELFHeader header = is.header;
         List<ELFSymbolTable> symbolTables = new LinkedList<ELFSymbolTable>();
         for (int cntr = 0; cntr < sht.entries.length; cntr++)
         {
@@ -150,13 +259,13 @@ public class ELFLoader
             if (e1.isSymbolTable())
             {
                 ELFSymbolTable stab = new ELFSymbolTable(header, e1);
-                stab.read(fis);
+                stab.read(is);
                 symbolTables.add(stab);
                 ELFSectionHeaderTable.Entry32 strent = sht.entries[e1.sh_link];
                 if (strent.isStringTable())
                 {
                     ELFStringTable str = new ELFStringTable(header, strent);
-                    str.read(fis);
+                    str.read(is);
                     stab.setStringTable(str);
                 }
             }
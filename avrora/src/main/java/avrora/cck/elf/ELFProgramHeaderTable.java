@@ -143,12 +143,26 @@ public class ELFProgramHeaderTable
      *             if there is a problem reading the header table from the input
      */
     public void read(RandomAccessFile fis) throws IOException
+    {
+        read(new ELFDataInputStream(header, fis));
+    }
+
+
+    /**
+     * The <code>read()</code> method reads the program header table from the
+     * specified ELF data stream, seeking to the offset given in the header.
+     *
+     * @param is
+     *            the stream from which to read the program header table
+     * @throws IOException
+     *             if there is a problem reading the header table from the input
+     */
+    public void read(ELFDataInputStream is) throws IOException
     {
         if (entries.length == 0)
             return;
         // seek to the beginning of the table
-        fis.seek(header.e_phoff);
-        ELFDataInputStream is = new ELFDataInputStream(header, fis);
+        is.seek(header.e_phoff);
         // read each entry
         for (int cntr = 0; cntr < entries.length; cntr++)
         {
@@ -163,8 +177,7 @@ public class ELFProgramHeaderTable
             e.p_align = is.read_Elf32_Word();
             entries[cntr] = e;
             // read the rest of the entry (padding)
-            for (int pad = 32; pad < header.e_phentsize; pad++)
-                fis.read();
+            is.skip(header.e_phentsize - 32);
         }
     }
 
@@ -183,12 +183,26 @@ public class ELFSectionHeaderTable
      *             if there is a problem reading the data from the file
      */
     public void read(RandomAccessFile fis) throws IOException
+    {
+        read(new ELFDataInputStream(header, fis));
+    }
+
+
+    /**
+     * The <code>read()</code> method reads the section header table from the
+     * specified ELF data stream, seeking to the offset given in the header.
+     *
+     * @param is
+     *            the stream that reads the file containing the table
+     * @throws IOException
+     *             if there is a problem reading the data from the file
+     */
+    public void read(ELFDataInputStream is) throws IOException
     {
         if (entries.length == 0)
             return;
         // seek to the beginning of the section header table
-        fis.seek(header.e_shoff);
-        ELFDataInputStream is = new ELFDataInputStream(header, fis);
+        is.seek(header.e_shoff);
         // load each of the section header entries
         for (int cntr = 0; cntr < entries.length; cntr++)
         {
@@ -205,8 +219,7 @@ public class ELFSectionHeaderTable
             e.sh_entsize = is.read_Elf32_Word();
 
             entries[cntr] = e;
-            for (int pad = 40; pad < header.e_shentsize; pad++)
-                fis.read();
+            is.skip(header.e_shentsize - 40);
         }
     }
 
@@ -96,6 +96,24 @@ public class ELFStringTable
     }
 
 
+    /**
+     * The <code>read()</code> method reads this string table from the specified
+     * ELF data stream, seeking to the beginning of the section first.
+     *
+     * @param is
+     *            the stream to read the data from
+     * @throws IOException
+     *             if there is a problem reading the file
+     */
+    public void read(ELFDataInputStream is) throws IOException
+    {
+        if (data.length == 0)
+            return;
+        is.seek(entry.sh_offset);
+        is.read_fully(data);
+    }
+
+
     /**
      * The <code>getString()</code> method gets a string in this section
      * corresponding to the specified index. Since Java strings are not
@@ -165,10 +165,24 @@ public class ELFSymbolTable
      */
     public void read(RandomAccessFile f) throws IOException
     {
-        // seek to the beginning of the section
-        f.seek(entry.sh_offset);
         // create the elf data input stream
-        ELFDataInputStream is = new ELFDataInputStream(header, f);
+        read(new ELFDataInputStream(header, f));
+    }
+
+
+    /**
+     * The <code>read()</code> method reads this symbol table from the specified
+     * ELF data stream, seeking to the beginning of the section first.
+     *
+     * @param is
+     *            the stream from which to read the symbol table
+     * @throws IOException
+     *             if there is a problem reading from the file
+     */
+    public void read(ELFDataInputStream is) throws IOException
+    {
+        // seek to the beginning of the section
+        is.seek(entry.sh_offset);
         // read each of the entries
         for (int cntr = 0; cntr < entries.length; cntr++)
         {
@@ -180,8 +194,7 @@ public class ELFSymbolTable
             e.st_other = is.read_Elf32_uchar();
             e.st_shndx = is.read_Elf32_Half();
             entries[cntr] = e;
-            for (int pad = 16; pad < entry.sh_entsize; pad++)
-                f.read();
+            is.skip(entry.sh_entsize - 16);
         }
     }
 
@@ -51,6 +51,8 @@ public class Terminal
     public static final int MAXLINE = 78;
 
     private static PrintStream out = System.out;
+    private static final ThreadLocal<PrintStream> threadOut =
+            new InheritableThreadLocal<PrintStream>();
 
     public static final int COLOR_BLACK = 0;
     public static final int COLOR_RED = 1;
@@ -142,7 +144,7 @@ public class Terminal
     public static void println(int color, String s)
     {
         print(color, s);
-        out.print('\n');
+        output().print('\n');
     }
 
 
@@ -171,19 +173,19 @@ public class Terminal
 
     public static void print(String s)
     {
-        out.print(s);
+        output().print(s);
     }
 
 
     public static void println(String s)
     {
-        out.println(s);
+        output().println(s);
     }
 
 
     public static void nextln()
     {
-        out.print("\n");
+        output().print("\n");
     }
 
 
@@ -193,6 +195,20 @@ public class Terminal
     }
 
 
+    // redirects the output of this thread and the threads it creates later
+    public static void setThreadOutput(PrintStream s)
+    {
+        threadOut.set(s);
+    }
+
+
+    private static PrintStream output()
+    {
+        PrintStream s = threadOut.get();
+        return s == null ? out : s;
+    }
+
+
     public static void printRed(String s)
     {
         outputColor(COLOR_RED, s);
@@ -249,7 +265,7 @@ public class Terminal
 
     public static void flush()
     {
-        out.flush();
+        output().flush();
     }
 
 
@@ -282,20 +298,20 @@ public class Terminal
         {
             if (htmlColors)
             {
-                out.print(HTML_STRINGS[color]);
-                out.print(s);
-                out.print("</font>");
+                output().print(HTML_STRINGS[color]);
+                output().print(s);
+                output().print("</font>");
                 return;
             } else if (color != COLOR_DEFAULT)
             {
-                out.print(COLORS[color]);
-                out.print(s);
-                out.print(COLORS[COLOR_DEFAULT]);
+                output().print(COLORS[color]);
+                output().print(s);
+                output().print(COLORS[COLOR_DEFAULT]);
                 return;
             }
         }
 
-        out.print(s);
+        output().print(s);
     }
 
 }
@@ -34,7 +34,10 @@ package avrora.jintgen.gen;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import avrora.cck.util.Arithmetic;
 import avrora.cck.util.Util;
@@ -43,6 +46,7 @@ import avrora.jintgen.jigir.BinOpExpr;
 import avrora.jintgen.jigir.DeclStmt;
 import avrora.jintgen.jigir.Expr;
 import avrora.jintgen.jigir.FixedRangeExpr;
+import avrora.jintgen.jigir.IfStmt;
 import avrora.jintgen.jigir.IndexExpr;
 import avrora.jintgen.jigir.Literal;
 import avrora.jintgen.jigir.Stmt;
@@ -64,6 +68,8 @@ public class ConstantPropagator
 
     private static HashSet<String> trackedMaps;
 
+    private final Set<String> globals;
+
     public class Environ
     {
         Environ parent;
@@ -118,6 +124,31 @@ public class ConstantPropagator
         }
 
 
+        /**
+         * The <code>invalidate()</code> method removes the copies of a
+         * variable that is about to be assigned, so that the variables holding
+         * the old value are no longer replaced by it.
+         *
+         * @param name
+         *            the name of the variable being assigned
+         */
+        void invalidate(String name)
+        {
+            List<String> copies = new LinkedList<String>();
+            for (Map.Entry<String, Expr> e : constantMap.entrySet())
+            {
+                Expr v = e.getValue();
+                if (v.isVariable()
+                        && name.equals(((VarExpr) v).variable.toString()))
+                    copies.add(e.getKey());
+            }
+            for (String c : copies)
+                remove(c);
+            if (parent != null)
+                parent.invalidate(name);
+        }
+
+
         Expr lookupMap(String name, int index)
         {
             if (!trackedMaps.contains(name))
@@ -217,6 +248,22 @@ public class ConstantPropagator
 
     public ConstantPropagator()
     {
+        this(new HashSet<String>());
+    }
+
+
+    /**
+     * The constructor for the <code>ConstantPropagator</code> class creates a
+     * new constant propagator for code that can access the specified global
+     * variables. Globals are never propagated, since they can be changed by
+     * calls to subroutines.
+     *
+     * @param globals
+     *            the names of the global variables
+     */
+    public ConstantPropagator(Set<String> globals)
+    {
+        this.globals = globals;
         resetTrackedMaps();
         ConstantPropagator.trackedMaps.add("regs"); // this is all for now
     }
@@ -258,18 +305,57 @@ public class ConstantPropagator
     }
 
 
+    @Override
+    public Stmt visit(AssignStmt.Var s, Environ cenv)
+    {
+        Expr ne = update(s.dest.variable.toString(), s.expr, cenv);
+        if (s.expr != ne)
+            return new AssignStmt.Var(s.dest, ne);
+        else
+            return s;
+    }
+
+
+    @Override
+    public Stmt visit(IfStmt s, Environ cenv)
+    {
+        Expr nc = s.cond.accept(this, cenv);
+        Environ tenv = new Environ(cenv);
+        List<Stmt> nt = visitStmtList(s.trueBranch, tenv);
+        Environ fenv = new Environ(cenv);
+        List<Stmt> nf = visitStmtList(s.falseBranch, fenv);
+        // keep only the constants that are the same on both branches
+        tenv.mergeToParent(fenv);
+
+        if (nc != s.cond || nt != s.trueBranch || nf != s.falseBranch)
+            return new IfStmt(nc, nt, nf);
+        else
+            return s;
+    }
+
+
     private Expr update(String name, Expr val, Environ cenv)
     {
         Expr ne = val.accept(this, cenv);
-        if (ne.isLiteral())
+        cenv.invalidate(name);
+        if (globals.contains(name))
+        {
+            // globals can be changed by calls: do not track them
+            cenv.remove(name);
+        } else if (ne.isLiteral())
         {
             // propagate this constant forward
             cenv.put(name, ne);
         } else if (ne.isVariable())
         {
             VarExpr ve = (VarExpr) ne;
-            Expr e = cenv.lookup(ve.variable.toString());
-            if (e != null)
+            String var = ve.variable.toString();
+            Expr e = cenv.lookup(var);
+            if (globals.contains(var) || var.equals(name))
+            {
+                // a copy of a global may become stale at any call
+                cenv.remove(name);
+            } else if (e != null)
             {
                 // propagate the constant
                 cenv.put(name, e);
@@ -290,11 +376,24 @@ public class ConstantPropagator
     @Override
     public Expr visit(VarExpr e, Environ cenv)
     {
-        Expr ce = cenv.lookup(e.variable.toString());
+        String name = e.variable.toString();
+        Expr ce = cenv.lookup(name);
         if (ce != null)
             return ce;
-        else
-            return e;
+        // a sub-operand of a copied operand is a sub-operand of the original
+        int dot = name.indexOf('.');
+        if (dot > 0)
+        {
+            ce = cenv.lookup(name.substring(0, dot));
+            if (ce != null && ce.isVariable())
+            {
+                VarExpr ve = new VarExpr(((VarExpr) ce).variable.toString()
+                        + name.substring(dot));
+                ve.setType(e.getType());
+                return ve;
+            }
+        }
+        return e;
     }
 
 
@@ -40,6 +40,8 @@ import java.util.Set;
 
 import avrora.cck.util.Util;
 import avrora.jintgen.jigir.AssignStmt;
+import avrora.jintgen.jigir.CallExpr;
+import avrora.jintgen.jigir.CodeVisitor;
 import avrora.jintgen.jigir.DeclStmt;
 import avrora.jintgen.jigir.Expr;
 import avrora.jintgen.jigir.IfStmt;
@@ -56,6 +58,8 @@ public class DeadCodeEliminator
 
     Set<String> globals;
 
+    Set<String> assigned = new HashSet<String>();
+
     protected class DefUseEnvironment
     {
         DefUseEnvironment parent;
@@ -146,11 +150,13 @@ public class DeadCodeEliminator
     @Override
     public List<Stmt> visitStmtList(List<Stmt> l, DefUseEnvironment denv)
     {
-        Collections.reverse(l);
+        // walk a reversed copy, since the list may be shared with other code
+        List<Stmt> rl = new LinkedList<Stmt>(l);
+        Collections.reverse(rl);
         List<Stmt> nl = new LinkedList<Stmt>();
         boolean changed = false;
 
-        for (Stmt sa : l)
+        for (Stmt sa : rl)
         {
             Stmt na = sa.accept(this, denv);
             if (na == null)
@@ -168,7 +174,6 @@ public class DeadCodeEliminator
             Collections.reverse(nl);
             return nl;
         }
-        Collections.reverse(l);
         return l;
     }
 
@@ -195,10 +200,13 @@ public class DeadCodeEliminator
     @Override
     public Stmt visit(DeclStmt s, DefUseEnvironment denv)
     {
-        if (denv.isDead(s.name.toString()))
+        // a variable that is assigned later must still be declared
+        String name = s.name.toString();
+        if (denv.isDead(name) && !assigned.contains(name)
+                && !hasCalls(s.init))
             return null;
 
-        denv.def(s.name.toString());
+        denv.def(name);
 
         s.init.accept(this, denv);
         return s;
@@ -212,10 +220,64 @@ public class DeadCodeEliminator
     }
 
 
+    @Override
+    public Stmt visit(AssignStmt.Var s, DefUseEnvironment denv)
+    {
+        String name = s.dest.variable.toString();
+        // the globals are live at the end and may be read by any call
+        if (!globals.contains(name))
+        {
+            if (denv.isDead(name) && !hasCalls(s.expr))
+                return null;
+            denv.def(name);
+            assigned.add(name);
+        }
+
+        s.expr.accept(this, denv);
+        return s;
+    }
+
+
+    /**
+     * The <code>hasCalls()</code> method checks whether the specified
+     * expression contains a call. A call may have side effects, so the
+     * statement that evaluates it cannot be removed even if its result is not
+     * used.
+     *
+     * @param e
+     *            the expression to check
+     * @return true if the expression contains a call; false otherwise
+     */
+    protected boolean hasCalls(Expr e)
+    {
+        CallFinder f = new CallFinder();
+        e.accept(f);
+        return f.found;
+    }
+
+
+    static class CallFinder extends CodeVisitor.DepthFirst
+    {
+        boolean found;
+
+
+        @Override
+        public void visit(CallExpr e)
+        {
+            found = true;
+        }
+    }
+
+
     @Override
     public Expr visit(VarExpr e, DefUseEnvironment denv)
     {
-        denv.use(e.variable.toString());
+        String name = e.variable.toString();
+        denv.use(name);
+        // a sub-operand, e.g. rd.value, uses the variable holding its operand
+        int dot = name.indexOf('.');
+        if (dot > 0)
+            denv.use(name.substring(0, dot));
         return e;
     }
 
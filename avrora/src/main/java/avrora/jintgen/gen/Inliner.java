@@ -46,6 +46,7 @@ import avrora.jintgen.jigir.CallExpr;
 import avrora.jintgen.jigir.CallStmt;
 import avrora.jintgen.jigir.DeclStmt;
 import avrora.jintgen.jigir.Expr;
+import avrora.jintgen.jigir.IfStmt;
 import avrora.jintgen.jigir.ReturnStmt;
 import avrora.jintgen.jigir.Stmt;
 import avrora.jintgen.jigir.StmtRebuilder;
@@ -99,12 +100,20 @@ public class Inliner extends StmtRebuilder<Object>
 
         String varName(String n)
         {
+            // the body of a subroutine can only refer to its own parameters
+            // and locals and to the globals, never to those of its caller
             String nn = varMap.get(n);
-            if (nn == null && caller != null)
-                nn = caller.varName(n);
-            if (nn == null)
-                return n;
-            return nn;
+            if (nn != null)
+                return nn;
+            // a sub-operand is named relative to its operand, e.g. _this.rd
+            int dot = n.indexOf('.');
+            if (dot > 0)
+            {
+                nn = varMap.get(n.substring(0, dot));
+                if (nn != null)
+                    return nn + n.substring(dot);
+            }
+            return n;
         }
     }
 
@@ -125,7 +134,7 @@ public class Inliner extends StmtRebuilder<Object>
     @Override
     public Stmt visit(CallStmt s, Object env)
     {
-        SubroutineDecl d = archDecl.getSubroutine(s.method.image);
+        SubroutineDecl d = getSubroutine(s.method, s.getDecl());
         if (shouldNotInline(d))
         {
             return super.visit(s, env);
@@ -147,6 +156,9 @@ public class Inliner extends StmtRebuilder<Object>
     @Override
     public Stmt visit(DeclStmt s, Object env)
     {
+        // the locals of the code being processed keep their names
+        if (context.caller == null)
+            return super.visit(s, env);
         String nv = newTemp(s.name.image);
         return (new DeclStmt(newToken(nv), s.typeRef,
                 s.init.accept(this, env)));
@@ -156,8 +168,9 @@ public class Inliner extends StmtRebuilder<Object>
     @Override
     public Stmt visit(ReturnStmt s, Object env)
     {
-        if (context.curSubroutine == null)
-            throw Util.failure("return not within subroutine!");
+        // a return in the code being processed stays a return
+        if (context.caller == null)
+            return super.visit(s, env);
 
         context.returnTemp = newTemp(null);
         return (new DeclStmt(newToken(context.returnTemp),
@@ -174,7 +187,7 @@ public class Inliner extends StmtRebuilder<Object>
     protected String inlineCall(Token m, SubroutineDecl d, List<Expr> args)
     {
         if (d.params.size() != args.size())
-            Util.failure("arity mismatch in call to " + m.image + " @ "
+            throw Util.failure("arity mismatch in call to " + m.image + " @ "
                     + m.beginLine + ':' + m.beginColumn);
 
         Context nc = new Context(context);
@@ -196,7 +209,7 @@ public class Inliner extends StmtRebuilder<Object>
         nc.curSubroutine = d;
         context = nc;
         // process body
-        visitStmts(d.code.getStmts(), null);
+        visitStmts(getBody(d), null);
         context = nc.caller;
 
         return nc.returnTemp;
@@ -206,7 +219,7 @@ public class Inliner extends StmtRebuilder<Object>
     @Override
     public Expr visit(CallExpr v, Object env)
     {
-        SubroutineDecl d = archDecl.getSubroutine(v.method.image);
+        SubroutineDecl d = getSubroutine(v.method, v.getDecl());
         if (shouldNotInline(d))
         {
             return super.visit(v, null);
@@ -218,9 +231,80 @@ public class Inliner extends StmtRebuilder<Object>
     }
 
 
+    private SubroutineDecl getSubroutine(Token m, SubroutineDecl d)
+    {
+        // the accessors of different operand types share the same name, so
+        // prefer the subroutine that the call was resolved to
+        if (d != null)
+            return d;
+        return archDecl.getSubroutine(m.image);
+    }
+
+
+    /**
+     * The <code>getBody()</code> method returns the statements of the
+     * specified subroutine that are copied into the caller when the subroutine
+     * is inlined. Subclasses can override this method to inline a transformed
+     * version of the body instead of the original code.
+     *
+     * @param d
+     *            the subroutine being inlined
+     * @return a list of statements that implement the subroutine
+     */
+    protected List<Stmt> getBody(SubroutineDecl d)
+    {
+        return d.code.getStmts();
+    }
+
+
     protected boolean shouldNotInline(SubroutineDecl d)
     {
-        return !ArchDecl.INLINE || d == null || !d.inline || !d.code.hasBody();
+        return !canInline(d);
+    }
+
+
+    /**
+     * The <code>canInline()</code> method checks whether calls to the
+     * specified subroutine can be replaced with its body. The subroutine must
+     * be declared inline and its only return statement, if any, must be the
+     * last statement of the body, because the return value is stored in a
+     * temporary declared at the point of the return.
+     *
+     * @param d
+     *            the subroutine to check
+     * @return true if calls to the subroutine will be inlined; false otherwise
+     */
+    public static boolean canInline(SubroutineDecl d)
+    {
+        if (!ArchDecl.INLINE || d == null || !d.inline || !d.code.hasBody())
+            return false;
+        List<Stmt> body = d.code.getStmts();
+        int cntr = 0;
+        for (Stmt s : body)
+        {
+            boolean last = ++cntr == body.size();
+            if (s instanceof ReturnStmt ? !last : containsReturn(s))
+                return false;
+        }
+        return true;
+    }
+
+
+    private static boolean containsReturn(Stmt s)
+    {
+        if (s instanceof ReturnStmt)
+            return true;
+        if (s instanceof IfStmt)
+        {
+            IfStmt is = (IfStmt) s;
+            for (Stmt t : is.trueBranch)
+                if (containsReturn(t))
+                    return true;
+            for (Stmt t : is.falseBranch)
+                if (containsReturn(t))
+                    return true;
+        }
+        return false;
     }
 
 
@@ -125,8 +125,8 @@ public class InstrIRGenerator extends Generator
     private void generateInstrClasses() throws IOException
     {
         LinkedList<String> imports = new LinkedList<String>();
-        imports.add("avrora.arch.AbstractArchitecture");
-        imports.add("avrora.arch.AbstractInstr");
+        imports.add("avrora.avrora.arch.AbstractArchitecture");
+        imports.add("avrora.avrora.arch.AbstractInstr");
         LinkedList<String> impl = new LinkedList<String>();
         impl.add("AbstractInstr");
         setPrinter(newAbstractClassPrinter("instr", imports, null, impl,
@@ -168,6 +168,11 @@ public class InstrIRGenerator extends Generator
                 "The <code>size</code> field stores the size of the instruction in bytes.");
         println("public final int size;");
 
+        generateJavaDoc(
+                "The <code>cycles</code> field stores the number of cycles the instruction takes "
+                        + "when no branch is taken.");
+        println("public final int cycles;");
+
         generateJavaDoc(
                 "The <code>getSize()</code> method returns the size of this instruction in bytes.");
         startblock("public int getSize()");
@@ -191,12 +196,14 @@ public class InstrIRGenerator extends Generator
 
         generateJavaDoc(
                 tr("The default constructor for the <code>$instr</code> class accepts a "
-                        + "string name and a size for each instruction.\n"
+                        + "string name, a size and a number of cycles for each instruction.\n"
                         + "@param name the string name of the instruction\n"
-                        + "@param size the size of the instruction in bytes"));
-        startblock("protected $instr(String name, int size)");
+                        + "@param size the size of the instruction in bytes\n"
+                        + "@param cycles the number of cycles the instruction takes"));
+        startblock("protected $instr(String name, int size, int cycles)");
         println("this.name = name;");
         println("this.size = size;");
+        println("this.cycles = cycles;");
         endblock();
         println("");
 
@@ -248,10 +255,10 @@ public class InstrIRGenerator extends Generator
                 d.name);
         for (AddrModeDecl.Operand o : d.operands)
             println("public final $operand.$1 $2;", o.typeRef, o.name);
-        startblock("protected $1_Instr(String name, int size, $addr.$1 am)",
+        startblock("protected $1_Instr(String name, int size, int cycles, $addr.$1 am)",
                 d.name);
 
-        println("super(name, size);");
+        println("super(name, size, cycles);");
         initFields("this.$1 = am.$1;", d.operands);
         endblock();
         // emit the accept method for the addressing mode visitor
@@ -277,10 +284,10 @@ public class InstrIRGenerator extends Generator
         println("public final $addr.$1 am;", d.name);
         for (AddrModeDecl.Operand o : d.unionOperands)
             println("public final $operand $1;", o.name);
-        startblock("protected $1_Instr(String name, int size, $addr.$1 am)",
+        startblock("protected $1_Instr(String name, int size, int cycles, $addr.$1 am)",
                 d.name);
 
-        println("super(name, size);");
+        println("super(name, size, cycles);");
         println("this.am = am;", d.name);
         initFields("this.$1 = am.get_$1();", d.unionOperands);
         endblock();
@@ -353,10 +360,10 @@ public class InstrIRGenerator extends Generator
         }
         if (hasSuper)
         {
-            println("super($1, size, am);", d.name);
+            println("super($1, size, $2, am);", d.name, d.getCycles());
         } else
         {
-            println("super($1, size);", d.name);
+            println("super($1, size, $2);", d.name, d.getCycles());
             initFields("this.$1 = am.$1;", d.getOperands());
         }
         endblock();
@@ -40,8 +40,9 @@ import java.util.List;
 import java.util.Map;
 
 import avrora.cck.text.Printer;
-import avrora.jintgen.Main;
+import avrora.cck.util.Option;
 import avrora.jintgen.isdl.AddrModeDecl;
+import avrora.jintgen.isdl.GlobalDecl;
 import avrora.jintgen.isdl.InstrDecl;
 import avrora.jintgen.isdl.OperandTypeDecl;
 import avrora.jintgen.isdl.SubroutineDecl;
@@ -65,8 +66,20 @@ import avrora.jintgen.types.TypeRef;
 public class InterpreterGenerator extends Generator
 {
 
+    public final Option.Str CONSTRUCTOR = options.newOption("constructor",
+            "avrora.avrora.sim.Simulator sim",
+            "This option specifies the parameters of the constructor of the generated interpreter, "
+                    + "which passes them on to the constructor of the state class.");
+    public final Option.Bool ABSTRACT_EXTERNALS = options.newOption(
+            "abstract-externals", true,
+            "This option specifies whether the external subroutines of the architecture are "
+                    + "declared as abstract methods of the generated interpreter. When this option is "
+                    + "false, the state class or one of its superclasses must implement them.");
+
     protected JavaCodePrinter javaCodePrinter;
     CodeSimplifier ncg;
+    HashSet<String> globals;
+    HashMap<SubroutineDecl, List<Stmt>> simplifiedBodies;
 
 
     @Override
@@ -84,9 +97,8 @@ public class InterpreterGenerator extends Generator
         setPrinter(printer);
         javaCodePrinter = new JavaCodePrinter();
 
-        startblock(tr("public $interpreter(avrora.sim.Simulator sim) ",
-                arch.name));
-        println("super(sim);");
+        startblock("public $interpreter($1) ", CONSTRUCTOR.get());
+        println("super($1);", getParameterNames(CONSTRUCTOR.get()));
         endblock();
         println("");
 
@@ -114,6 +126,24 @@ public class InterpreterGenerator extends Generator
         properties.setProperty("state", className("State"));
         ncg = new CodeSimplifier(arch);
         ncg.genAccessMethods();
+        globals = new HashSet<String>();
+        for (GlobalDecl d : arch.globals)
+            globals.add(d.name.image);
+        simplifiedBodies = new HashMap<SubroutineDecl, List<Stmt>>();
+    }
+
+
+    private static String getParameterNames(String params)
+    {
+        StringBuilder buf = new StringBuilder();
+        for (String param : params.split(","))
+        {
+            String p = param.trim();
+            if (buf.length() > 0)
+                buf.append(", ");
+            buf.append(p.substring(p.lastIndexOf(' ') + 1));
+        }
+        return buf.toString();
     }
 
 
@@ -196,7 +226,7 @@ public class InterpreterGenerator extends Generator
                     ot.name, "$read", typeString);
         }
         endblock();
-        println("throw cck.util.Util.failure(\"invalid operand type in read\");");
+        println("throw avrora.cck.util.Util.failure(\"invalid operand type in read\");");
         endblock();
         println("");
     }
@@ -215,7 +245,7 @@ public class InterpreterGenerator extends Generator
                     ot.name, "$write", typeString);
         }
         endblock();
-        println("throw cck.util.Util.failure(\"invalid operand type in write\");");
+        println("throw avrora.cck.util.Util.failure(\"invalid operand type in write\");");
         endblock();
         println("");
     }
@@ -241,6 +271,8 @@ public class InterpreterGenerator extends Generator
     {
         if (!d.code.hasBody())
         {
+            if (!ABSTRACT_EXTERNALS.get())
+                return;
             print("protected abstract " + renderType(d.ret) + ' '
                     + d.name.image);
             beginList("(");
@@ -251,8 +283,8 @@ public class InterpreterGenerator extends Generator
             endListln(");");
             return;
         }
-        if (d.inline && Main.INLINE.get())
-            return;
+        // inline subroutines are generated as well, since the state class
+        // may call them
         print("public $1 $2", renderType(d.ret), d.name.image);
         beginList("(");
         for (SubroutineDecl.Parameter p : d.getParams())
@@ -276,11 +308,48 @@ public class InterpreterGenerator extends Generator
 
     void generateCode(List<Stmt> stmts)
     {
-        CodeSimplifier ncg = new CodeSimplifier(arch);
-        stmts = ncg.visitStmtList(stmts, new CGEnv(null, 0));
+        stmts = simplify(stmts);
+        stmts = new SimplifiedInliner().process(stmts);
+        stmts = new ConstantPropagator(globals).process(stmts);
+        stmts = new DeadCodeEliminator(globals).process(stmts);
         javaCodePrinter.visitStmtList(stmts);
     }
 
+
+    List<Stmt> simplify(List<Stmt> stmts)
+    {
+        CodeSimplifier ncg = new CodeSimplifier(arch);
+        return ncg.visitStmtList(stmts, new CGEnv(null, 0));
+    }
+
+    /**
+     * The <code>SimplifiedInliner</code> class inlines calls in code that has
+     * already been simplified. It replaces each call with the simplified body
+     * of the subroutine, so that the inlined code needs no further
+     * simplification.
+     */
+    protected class SimplifiedInliner extends Inliner
+    {
+
+        SimplifiedInliner()
+        {
+            super(arch);
+        }
+
+
+        @Override
+        protected List<Stmt> getBody(SubroutineDecl d)
+        {
+            List<Stmt> body = simplifiedBodies.get(d);
+            if (body == null)
+            {
+                body = simplify(d.code.getStmts());
+                simplifiedBodies.put(d, body);
+            }
+            return body;
+        }
+    }
+
     protected class JavaCodePrinter extends PrettyPrinter
     {
 
@@ -297,9 +366,17 @@ public class InterpreterGenerator extends Generator
         protected String getVariable(Token variable)
         {
             String var = variableMap.get(variable.image);
-            if (var == null)
-                var = variable.image;
-            return var;
+            if (var != null)
+                return var;
+            // the sub-operands of an inlined operand, e.g. rd.value
+            int dot = variable.image.indexOf('.');
+            if (dot > 0)
+            {
+                var = variableMap.get(variable.image.substring(0, dot));
+                if (var != null)
+                    return var + variable.image.substring(dot);
+            }
+            return variable.image;
         }
 
 
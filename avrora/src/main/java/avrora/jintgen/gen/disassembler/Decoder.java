@@ -52,6 +52,7 @@ abstract class Decoder extends GenBase
 {
     boolean multiple;
     boolean chained;
+    boolean table;
     int treeNodes = 0;
     int numTrees = 0;
     DisassemblerGenerator dGen;
@@ -95,6 +96,7 @@ abstract class Decoder extends GenBase
         setPrinter(dGen.p);
         multiple = dGen.MULTI_TREE.get();
         chained = dGen.CHAINED.get();
+        table = dGen.TABLE.get();
         completeTree = new DTBuilder[maxprio + 1];
         finalTrees = new HashMap<String, DTNode>();
     }
@@ -113,6 +115,9 @@ abstract class Decoder extends GenBase
             if (chained)
                 Util.userError(
                         "Chained decoder trees are only supported in non-parallel implementations");
+            if (table)
+                Util.userError(
+                        "Table decoders are only supported in non-parallel implementations");
         }
 
 
@@ -284,6 +289,9 @@ abstract class Decoder extends GenBase
         {
             super(dGen, maxprio);
             finalTrees = new DTNode[maxprio + 1];
+            if (table && multiple && !chained)
+                Util.userError(
+                        "Table decoders require a single decoder tree or chained trees");
         }
 
 
@@ -317,6 +325,86 @@ abstract class Decoder extends GenBase
                         last = treeName;
                 }
             }
+            if (table)
+                generateDecodingTable();
+        }
+
+
+        void generateDecodingTable()
+        {
+            generateJavaDoc(
+                    "The <code>TableBuilder</code> class flattens a decoding graph into a single array of "
+                            + "integers. Each node occupies three header entries (the left bit, the mask and the "
+                            + "index of its action) followed by one entry for every value of the bits it compares. "
+                            + "An entry is either the offset of the next node, the complement of the action of a "
+                            + "terminal node, or <code>TABLE_ERROR</code>. Sorted nodes are expanded to dense arrays.");
+            startblock("static class TableBuilder");
+            println("final IdentityHashMap<DTNode, Integer> offsets = new IdentityHashMap<DTNode, Integer>();");
+            println("final IdentityHashMap<Action, Integer> actionIds = new IdentityHashMap<Action, Integer>();");
+            println("final List<SetBuilderAndRead> actions = new ArrayList<SetBuilderAndRead>();");
+            println("int[] table = new int[1024];");
+            println("int size;");
+            println("TableBuilder() { actions.add(null); }");
+            startblock("int add(DTNode n)");
+            println("Integer offset = offsets.get(n);");
+            println("if ( offset != null ) return offset;");
+            println("int pos = size;");
+            println("int width = n.mask + 1;");
+            println("size += 3 + width;");
+            println("if ( size > table.length ) table = Arrays.copyOf(table, Math.max(size, table.length * 2));");
+            println("offsets.put(n, pos);");
+            println("table[pos] = n.left_bit;");
+            println("table[pos + 1] = n.mask;");
+            println("table[pos + 2] = getAction(n.action);");
+            startblock("for ( int val = 0; val < width; val++ )");
+            println("// adding the child may grow the table");
+            println("int entry = getEntry(next(n, val));");
+            println("table[pos + 3 + val] = entry;");
+            endblock();
+            println("return pos;");
+            endblock();
+            startblock("int getEntry(DTNode n)");
+            println("if ( n == ERROR || n.action instanceof ErrorAction ) return TABLE_ERROR;");
+            println("if ( n instanceof DTTerminal || n instanceof DTTerm ) return ~getAction(n.action);");
+            println("return add(n);");
+            endblock();
+            startblock("int getAction(Action a)");
+            println("if ( a == null ) return 0;");
+            println("Integer id = actionIds.get(a);");
+            startblock("if ( id == null )");
+            println("id = actions.size();");
+            println("actionIds.put(a, id);");
+            println("actions.add((SetBuilderAndRead) a);");
+            endblock();
+            println("return id;");
+            endblock();
+            startblock("static DTNode next(DTNode n, int val)");
+            println("if ( n instanceof DTArrayNode ) return ((DTArrayNode) n).nodes[val];");
+            println("DTSortedNode s = (DTSortedNode) n;");
+            println("int ind = Arrays.binarySearch(s.values, val);");
+            println("return ind >= 0 ? s.nodes[ind] : s.def;");
+            endblock();
+            endblock();
+
+            generateJavaDoc(
+                    "The <code>TABLE_ERROR</code> entry in the decoding table marks bit patterns that are "
+                            + "not valid instructions.");
+            println("private static final int TABLE_ERROR = Integer.MIN_VALUE;");
+            generateJavaDoc(
+                    "The <code>TABLE</code> field stores the decoding graph starting at <code>root0</code> "
+                            + "flattened into an array by the <code>TableBuilder</code> class. The root node is at "
+                            + "offset 0.");
+            println("private static final int[] TABLE;");
+            generateJavaDoc(
+                    "The <code>ACTIONS</code> field stores the actions referenced from the decoding table, "
+                            + "indexed by their number. Entry 0 stands for no action.");
+            println("private static final SetBuilderAndRead[] ACTIONS;");
+            startblock("static");
+            println("TableBuilder tb = new TableBuilder();");
+            println("tb.add(root0);");
+            println("TABLE = Arrays.copyOf(tb.table, tb.size);");
+            println("ACTIONS = tb.actions.toArray(new SetBuilderAndRead[tb.actions.size()]);");
+            endblock();
         }
 
 
@@ -326,6 +414,11 @@ abstract class Decoder extends GenBase
             generateJavaDoc(
                     "The <code>decoder_root()</code> method begins decoding the bit pattern "
                             + "into an instruction.");
+            if (table)
+            {
+                generateTableMethods();
+                return;
+            }
             startblock("$instr decode_root()");
             println("size = 0;");
             println("builder = null;");
@@ -367,6 +460,96 @@ abstract class Decoder extends GenBase
         }
 
 
+        void generateTableMethods()
+        {
+            generateJavaDoc(
+                    "The <code>decode()</code> method decodes one instruction without allocating any "
+                            + "objects. It looks the bit pattern up in the flattened decoding table and writes the "
+                            + "size of the instruction and the values of its operands into the given buffer, which "
+                            + "must have room for all operands of the instruction plus one.\n"
+                            + "@param index the index into the array where to begin decoding\n"
+                            + "@param code the actual code\n"
+                            + "@param operands the buffer that receives the size of the instruction followed by its operands\n"
+                            + "@return the number of the decoded instruction and encoding, which can be passed to "
+                            + "<code>getBuilder()</code>; 0 if the bit pattern at this address is not a valid instruction");
+            startblock("public int decode(int index, byte[] code, int[] operands)");
+            generateWordReads(8);
+            println("int action = run_table();");
+            println("if ( action != 0 ) ACTIONS[action].reader.readOperands(this, operands);");
+            println("return action;");
+            endblock();
+
+            generateJavaDoc(
+                    "The <code>getBuilder()</code> method returns the builder of the instruction with the "
+                            + "specified number, as returned by the <code>decode()</code> method that fills an "
+                            + "operand buffer.\n"
+                            + "@param action the number of the instruction and encoding\n"
+                            + "@return the builder for the instruction");
+            startblock("public static $builder getBuilder(int action)");
+            println("return ACTIONS[action].builder;");
+            endblock();
+
+            generateJavaDoc(
+                    "The <code>decoder_root()</code> method begins decoding the bit pattern "
+                            + "into an instruction.");
+            startblock("$instr decode_root()");
+            println("int action = run_table();");
+            println("if ( action == 0 ) return null;");
+            println("SetBuilderAndRead a = ACTIONS[action];");
+            println("$addr am = a.reader.read(this);");
+            println("return a.builder.build(size, am);");
+            endblock();
+
+            generateJavaDoc(
+                    "The <code>decode_tree()</code> method decodes the current bit pattern by walking the "
+                            + "decoding tree instead of the flattened table. The table is built from the tree, and "
+                            + "both must always agree.");
+            startblock("$instr decode_tree()");
+            println("size = 0;");
+            println("builder = null;");
+            println("addrMode = null;");
+            println("return run_decoder(root0);");
+            endblock();
+
+            generateJavaDoc(
+                    "The <code>run_decoder()</code> method begins decoding the bit pattern "
+                            + "into an instruction starting at the specified <code>DTNode</code> representing "
+                            + "the root of a decoder. This implementation resolves both instruction and addressing "
+                            + "mode with one decoder. It begins at the root node and continues comparing bits and "
+                            + "following the appropriate paths until a terminal node is reached.\n"
+                            + "@param node a reference to the root of the decoder where to begin decoding");
+            startblock("private $instr run_decoder(DTNode node)");
+            println("state = MOVE;");
+            startblock("while ( state == MOVE )");
+            println("int bits = (word0 >> node.left_bit) & node.mask;");
+            println("node = node.move(this, bits);");
+            endblock();
+            println("if ( state == ERR ) return null;");
+            println("else return builder.build(size, addrMode);");
+            endblock();
+
+            generateJavaDoc(
+                    "The <code>run_table()</code> method decodes the bit pattern in the <code>word0</code> "
+                            + "field with the flattened decoding table. Like the tree, it remembers the last action "
+                            + "that it passes and stops at a terminal entry, but it only determines the action to "
+                            + "take without executing it.\n"
+                            + "@return the number of the action that decodes the instruction; 0 if the bit pattern "
+                            + "is not a valid instruction");
+            startblock("private int run_table()");
+            println("int node = 0;");
+            println("int action = 0;");
+            startblock("while ( true )");
+            println("int a = TABLE[node + 2];");
+            println("if ( a != 0 ) action = a;");
+            println("int next = TABLE[node + 3 + ((word0 >> TABLE[node]) & TABLE[node + 1])];");
+            println("if ( next >= 0 ) node = next;");
+            println("else if ( next == TABLE_ERROR ) return 0;");
+            println("else return ~next != 0 ? ~next : action;");
+            endblock();
+            endblock();
+        }
+
+
         @Override
         void generateSpecialActions()
         {
@@ -555,6 +738,14 @@ abstract class Decoder extends GenBase
                         + "the operands from the bit pattern.");
         startblock("static abstract class OperandReader");
         println("abstract $addr read($disassembler d);");
+        if (table)
+        {
+            generateJavaDoc(
+                    "The <code>readOperands()</code> method reads the same operands as <code>read()</code> "
+                            + "without allocating them. It stores the size of the instruction in the first element "
+                            + "of the buffer, followed by the value of each operand in the order of the addressing mode.");
+            println("abstract void readOperands($disassembler d, int[] ops);");
+        }
         endblock();
     }
 
@@ -687,6 +878,20 @@ abstract class Decoder extends GenBase
         startblock("public $instr decode(int base, int index, $1[] code)",
                 type);
         int num = DisassemblerGenerator.WORD_SIZE / elemSize;
+        generateWordReads(elemSize);
+        int i = (elemSize / 8);
+        String scale = i > 1 ? " * " + i : "";
+        println("pc = base + index" + scale + ';');
+        println("return decode_root();");
+        endblock();
+        println("");
+        generateWordMethod(type, num, elemSize, signed);
+    }
+
+
+    void generateWordReads(int elemSize)
+    {
+        int num = DisassemblerGenerator.WORD_SIZE / elemSize;
         String off = "";
         for (int cntr = 0; cntr < dGen.maxInstrLength
                 - 1; cntr += DisassemblerGenerator.WORD_SIZE)
@@ -695,13 +900,6 @@ abstract class Decoder extends GenBase
             println("word$1 = word(code, index$2);", word, off);
             off = " + " + (word * num + num);
         }
-        int i = (elemSize / 8);
-        String scale = i > 1 ? " * " + i : "";
-        println("pc = base + index" + scale + ';');
-        println("return decode_root();");
-        endblock();
-        println("");
-        generateWordMethod(type, num, elemSize, signed);
     }
 
 
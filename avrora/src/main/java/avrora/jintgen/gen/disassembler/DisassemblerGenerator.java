@@ -81,6 +81,12 @@ public class DisassemblerGenerator extends Generator
             "This option selects whether the disassembler generator will chain the decoders from multiple "
                     + "priority levels together into one larger tree. This can reduce the complexity of the main "
                     + "decoder loop, but is only supported for non-parallel decoder implementations.");
+    protected final Option.Bool TABLE = options.newOption("table-decoder",
+            false,
+            "This option selects whether the disassembler generator will flatten the decode tree into a "
+                    + "table of integers that is indexed by the bits of the instruction. The table is walked by "
+                    + "a simple loop and allows decoding into a reusable operand buffer without allocating "
+                    + "objects. It is only supported for serial decoders with a single tree or chained trees.");
     protected final Option.Long WORD = options.newOption("word-size", 16,
             "This option controls the word size (in bits) that is used when generating the disassembler "
                     + "code. The disassembler reads fields from individual words of the instruction stream. This "
@@ -116,9 +122,15 @@ public class DisassemblerGenerator extends Generator
     public void generate() throws Exception
     {
         List<String> imports = new LinkedList<String>();
-        imports.add("avrora.arch.AbstractDisassembler");
-        imports.add("avrora.arch.AbstractInstr");
+        imports.add("avrora.avrora.arch.AbstractDisassembler");
+        imports.add("avrora.avrora.arch.AbstractInstr");
         imports.add("java.util.Arrays");
+        if (TABLE.get())
+        {
+            imports.add("java.util.ArrayList");
+            imports.add("java.util.IdentityHashMap");
+            imports.add("java.util.List");
+        }
         initStatics();
         List<String> impl = new LinkedList<String>();
         impl.add("AbstractDisassembler");
@@ -129,8 +141,10 @@ public class DisassemblerGenerator extends Generator
                         + "The following options have been specified to tune this implementation:\n\n"
                         + "</p>-word-size=$1\n" + "</p>-parallel-trees=$2\n"
                         + "</p>-multiple-trees=$3\n"
-                        + "</p>-chained-trees=$4\n", WORD.get(),
-                PARALLEL_TREE.get(), MULTI_TREE.get(), CHAINED.get())));
+                        + "</p>-chained-trees=$4\n"
+                        + "</p>-table-decoder=$5\n", WORD.get(),
+                PARALLEL_TREE.get(), MULTI_TREE.get(), CHAINED.get(),
+                TABLE.get())));
 
         generateHeader();
         generateDecodeTables();
@@ -254,6 +254,7 @@ class ReaderImplementation extends GenBase
         final FormatDecl decl;
         final AddrModeDecl addrMode;
         final HashMap<String, String> operandDecodeString;
+        final HashMap<String, String> operandValueString;
 
 
         EncodingReader(String n, InstrDecl i, FormatDecl ed, AddrModeDecl addr)
@@ -263,6 +264,7 @@ class ReaderImplementation extends GenBase
             decl = ed;
             addrMode = addr;
             operandDecodeString = new HashMap<String, String>();
+            operandValueString = new HashMap<String, String>();
         }
 
 
@@ -303,13 +305,18 @@ class ReaderImplementation extends GenBase
             int[] decoder = computeScatter(opname, vt, nl);
             ReadMethod rm = getReadMethod(decoder);
             if (et != null)
+            {
                 operandDecodeString.put(opname, tr("$1_table[$2]", et, rm));
-            else if (ot.isRelative())
+                operandValueString.put(opname,
+                        tr("$1_table[$2].value", et, rm));
+            } else if (ot.isRelative())
             {
                 operandDecodeString.put(opname, "d.pc, " + getReadExpr(rm, vt));
+                operandValueString.put(opname, getReadExpr(rm, vt));
             } else
             {
                 operandDecodeString.put(opname, getReadExpr(rm, vt));
+                operandValueString.put(opname, getReadExpr(rm, vt));
             }
         }
 
@@ -318,10 +325,16 @@ class ReaderImplementation extends GenBase
                 FormatDecl.Cond cond)
         {
             if (et != null)
+            {
                 operandDecodeString.put(opname,
                         tr("$symbol.$1.$2", et, cond.expr));
-            else
+                operandValueString.put(opname,
+                        tr("$symbol.$1.$2.value", et, cond.expr));
+            } else
+            {
                 operandDecodeString.put(opname, cond.expr.toString());
+                operandValueString.put(opname, cond.expr.toString());
+            }
         }
 
 
@@ -377,22 +390,12 @@ class ReaderImplementation extends GenBase
             Expr e = f.field;
             if (matches(e, name))
             {
-                for (int cntr = 0; cntr < f.getWidth(); cntr++)
-                    result[cntr] = cntr + bit;
+                scatterField(0, f.getWidth(), bit, result);
             } else if (e.isBitRangeExpr())
             {
                 FixedRangeExpr bre = (FixedRangeExpr) e;
                 if (matches(bre.expr, name))
-                {
-                    for (int cntr = 0; cntr < f.getWidth(); cntr++)
-                    {
-                        int indx = cntr + bre.low_bit;
-                        // we don't care about bits beyond the end of our
-                        // declared operand
-                        if (indx < result.length)
-                            result[indx] = cntr + bit;
-                    }
-                }
+                    scatterField(bre.low_bit, f.getWidth(), bit, result);
             } else if (e instanceof IndexExpr)
             {
                 IndexExpr be = (IndexExpr) e;
@@ -405,6 +408,30 @@ class ReaderImplementation extends GenBase
         }
 
 
+        private void scatterField(int low_bit, int width, int bit,
+                int[] result)
+        {
+            // a field that crosses a word boundary is split into a part in
+            // each word; the part in the first word holds the high bits
+            int wsize = DisassemblerGenerator.WORD_SIZE;
+            int remaining = width;
+            while (remaining > 0)
+            {
+                int length = Math.min(remaining, wsize - bit % wsize);
+                remaining -= length;
+                for (int cntr = 0; cntr < length; cntr++)
+                {
+                    int indx = low_bit + remaining + cntr;
+                    // we don't care about bits beyond the end of our
+                    // declared operand
+                    if (indx < result.length)
+                        result[indx] = bit + cntr;
+                }
+                bit += length;
+            }
+        }
+
+
         private boolean matches(Expr e, String name)
         {
             if (e instanceof VarExpr)
@@ -437,10 +464,39 @@ class ReaderImplementation extends GenBase
             println(";");
             nextln();
             endblock();
+            if (dGen.TABLE.get())
+            {
+                startblock("void readOperands($disassembler d, int[] ops)");
+                println("ops[0] = $1;", decl.getBitWidth() / 8);
+                int index = 1;
+                for (AddrModeDecl.Operand o : addrMode.operands)
+                    index = generateOperandValue("", o, index);
+                endblock();
+            }
             endblock();
         }
 
 
+        int generateOperandValue(String prefix, AddrModeDecl.Operand o,
+                int index)
+        {
+            String vname = prefix + o.name.image;
+            OperandTypeDecl td = dGen.arch
+                    .getOperandDecl(o.typeRef.getTypeConName());
+            if (td.isCompound())
+            {
+                for (AddrModeDecl.Operand so : td.subOperands)
+                    index = generateOperandValue(vname + '.', so, index);
+            } else if (td.isValue())
+            {
+                String str = operandValueString.get(vname);
+                assert str != null;
+                println("ops[$1] = $2;", index++, str);
+            }
+            return index;
+        }
+
+
         void generateOperandRead(String prefix, AddrModeDecl.Operand o)
         {
             String oname = o.name.image;
@@ -509,6 +565,12 @@ class ReaderImplementation extends GenBase
         println("d.size = size;");
         println("return null;");
         endblock();
+        if (dGen.TABLE.get())
+        {
+            startblock("void readOperands($disassembler d, int[] ops)");
+            println("ops[0] = size;");
+            endblock();
+        }
         endblock();
 
         startblock("private static int signExtend(int val, int size)");
@@ -205,7 +205,13 @@ public class CodeRebuilder<Env> implements CodeAccumulator<Expr, Env>
     @Override
     public Expr visit(DotExpr e, Env env)
     {
-        // terminal node in the tree
+        Expr ne = visitExpr(e.expr, env);
+        if (ne != e.expr)
+        {
+            DotExpr dotExpr = new DotExpr(ne, e.field);
+            dotExpr.setType(e.getType());
+            return dotExpr;
+        }
         return e;
     }
 
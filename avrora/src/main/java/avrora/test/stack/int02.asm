@@ -0,0 +1,56 @@
+a0000:	jmp main
+a0002:	jmp int01
+a0004:	jmp int02
+a0006:	reti
+a0007:	nop
+a0008:	reti
+a0009:	nop
+a000a:	reti
+a000b:	nop
+a000c:	reti
+a000d:	nop
+a000e:	reti
+a000f:	nop
+a0010:	reti
+a0011:	nop
+a0012:	reti
+a0013:	nop
+
+main:
+	ldi r17, 3
+	out eimsk, r17
+	call init
+	sei
+forever:
+	call work
+	rjmp forever
+
+init:
+	ldi r20, 0
+	ret
+
+work:
+	inc r20
+	ret
+
+int01:
+	push r16
+	call count
+	pop r16
+	reti
+
+int02:
+	push r16
+	call count
+	call store
+	pop r16
+	reti
+
+count:
+	ldi r16, 42
+	call store
+	ret
+
+store:
+	mov r18, r16
+	ret
@@ -0,0 +1,113 @@
+package avrora.avrora.arch.avr;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import avrora.avrora.util.TestUtil;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the flattened decoding table of the <code>AVRDisassembler</code>
+ * decodes every bit pattern the same way as the decoding tree it is built
+ * from, and that the decoder that fills an operand buffer agrees with both.
+ */
+public class AVRDisassemblerTests extends TestCase
+{
+
+    public void testTableMatchesTree()
+    {
+        AVRDisassembler d = new AVRDisassembler();
+        int[] ops = new int[4];
+        int valid = 0;
+        for (int word1 : TestUtil.SECOND_WORDS)
+        {
+            for (int word0 = 0; word0 < 0x10000; word0++)
+            {
+                byte[] code = TestUtil.code(word0, word1);
+                AVRInstr table = d.decode(0, 0, code);
+                AVRInstr tree = d.decode_tree();
+                int action = d.decode(0, code, ops);
+                String where = Integer.toHexString(word0) + " "
+                        + Integer.toHexString(word1);
+                if (tree == null)
+                {
+                    assertNull(where, table);
+                    assertEquals(where, 0, action);
+                    continue;
+                }
+                valid++;
+                assertNotNull(where, table);
+                assertEquals(where, tree.getClass(), table.getClass());
+                assertEquals(where, tree.toString(), table.toString());
+                assertEquals(where, tree.getSize(), table.getSize());
+                assertTrue(where, action != 0);
+                assertEquals(where, tree.getSize(), ops[0]);
+                List<Integer> expected = operands(tree);
+                for (int cntr = 0; cntr < expected.size(); cntr++)
+                    assertEquals(where + " operand " + cntr,
+                            expected.get(cntr).intValue(), ops[cntr + 1]);
+                assertSame(where, AVRInstrBuilder.builders.get(tree.getName()),
+                        AVRDisassembler.getBuilder(action));
+            }
+        }
+        assertTrue(valid > 0);
+    }
+
+
+    /**
+     * Collects the values of the operands of an instruction decoded by the
+     * tree, in the order of its addressing mode, which is the order in which
+     * <code>decode()</code> stores them in the operand buffer.
+     */
+    private static List<Integer> operands(AVRInstr i)
+    {
+        final List<Integer> values = new ArrayList<Integer>();
+        InvocationHandler h = new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method m, Object[] args)
+            {
+                // the first argument is the instruction itself
+                for (int cntr = 1; cntr < args.length; cntr++)
+                    values.add(value((AVROperand) args[cntr]));
+                return null;
+            }
+        };
+        i.accept((AVRAddrModeVisitor) Proxy.newProxyInstance(
+                AVRAddrModeVisitor.class.getClassLoader(),
+                new Class<?>[] { AVRAddrModeVisitor.class }, h));
+        return values;
+    }
+
+
+    private static int value(AVROperand o)
+    {
+        if (o instanceof AVROperand.Sym)
+            return ((AVROperand.Sym) o).value.value;
+        return ((AVROperand.Int) o).value;
+    }
+
+
+    private static void assertOperands(int word0, String name,
+            int... expected)
+    {
+        int[] ops = new int[4];
+        int action = new AVRDisassembler().decode(0, TestUtil.code(word0, 0), ops);
+        assertSame(AVRInstrBuilder.builders.get(name),
+                AVRDisassembler.getBuilder(action));
+        for (int cntr = 0; cntr < expected.length; cntr++)
+            assertEquals(name + " operand " + cntr, expected[cntr], ops[cntr]);
+    }
+
+
+    public void testOperandBuffer()
+    {
+        assertOperands(0x0C12, "add", 2, 1, 2);
+        assertOperands(0x805B, "ldd", 2, 5, AVRSymbol.YZ.Y.value, 3);
+        assertOperands(0xCFFF, "rjmp", 2, -1);
+        assertOperands(0xEA15, "ldi", 2, 17, 0xA5);
+        assertOperands(0x940C, "jmp", 4, 0);
+    }
+}
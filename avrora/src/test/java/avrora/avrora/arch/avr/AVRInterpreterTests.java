@@ -0,0 +1,53 @@
+package avrora.avrora.arch.avr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import avrora.avrora.Defaults;
+import avrora.avrora.arch.legacy.LegacyInstr;
+import avrora.avrora.arch.legacy.LegacyRegister;
+import avrora.avrora.sim.AtmelInterpreter;
+import avrora.avrora.sim.types.SingleSimulation;
+import avrora.avrora.util.TestUtil;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the generated interpreter executes the legacy instructions it
+ * visits in the same way as the legacy interpreter.
+ */
+public class AVRInterpreterTests extends TestCase
+{
+
+    private static final LegacyRegister R16 = LegacyRegister.R16;
+    private static final LegacyRegister R17 = LegacyRegister.R17;
+
+
+    private static List<String> visit(String interpreter)
+    {
+        SingleSimulation sim = new SingleSimulation();
+        sim.INTERPRETER.set(interpreter);
+        AtmelInterpreter a = (AtmelInterpreter) Defaults.newSimulator(0, sim,
+                TestUtil.createProgram()).getInterpreter();
+
+        LegacyInstr[] code = { new LegacyInstr.LDI(0, R16, 0xF0),
+                new LegacyInstr.LDI(0, R17, 0x31),
+                new LegacyInstr.ADD(0, R16, R17),
+                new LegacyInstr.ADC(0, R17, R16),
+                new LegacyInstr.SUBI(0, R16, 0x22) };
+        List<String> list = new ArrayList<String>();
+        for (LegacyInstr i : code)
+        {
+            i.accept(a);
+            list.add(i + " r16 " + a.getRegisterByte(R16) + " r17 "
+                    + a.getRegisterByte(R17) + " sreg "
+                    + a.getIORegisterByte(a.SREG));
+        }
+        return list;
+    }
+
+
+    public void testVisitLegacyInstr()
+    {
+        assertEquals(visit("legacy"), visit("generated"));
+    }
+}
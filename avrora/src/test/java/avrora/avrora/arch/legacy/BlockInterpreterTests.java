@@ -0,0 +1,155 @@
+package avrora.avrora.arch.legacy;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import avrora.avrora.Defaults;
+import avrora.avrora.core.Program;
+import avrora.avrora.sim.AtmelInterpreter;
+import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.State;
+import avrora.avrora.sim.types.SingleSimulation;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the block interpreter, which executes and compiles straight-line
+ * code a block at a time, leaves the machine in the same state as the legacy
+ * interpreter, and that it discards a block when a probe is inserted in it.
+ */
+public class BlockInterpreterTests extends TestCase
+{
+
+    private static final String[] BODY = { "inc r16", "add r17, r16",
+            "adc r18, r17", "eor r19, r18", "subi r20, 7", "sbci r21, 0",
+            "mov r22, r17", "lsl r22", "rol r23", "swap r24",
+            "mul r16, r17", "adiw r26, 3", "com r28", "asr r29" };
+
+    // the loop is longer than a block, so it is split into two blocks that
+    // follow each other
+    private static final int LENGTH = BlockInterpreter.MAX_BLOCK + 10;
+
+    private static final long CYCLES = 30000;
+
+    /**
+     * Stops the simulator when it fires.
+     */
+    static class Stop implements Simulator.Event
+    {
+        final Simulator simulator;
+
+
+        Stop(Simulator simulator)
+        {
+            this.simulator = simulator;
+        }
+
+
+        @Override
+        public void fire()
+        {
+            simulator.stop();
+        }
+    }
+
+    /**
+     * Counts the instructions it is fired on.
+     */
+    static class Count extends Simulator.Probe.Empty
+    {
+        int count;
+
+
+        @Override
+        public void fireBefore(State s, int pc)
+        {
+            count++;
+        }
+    }
+
+    private File program;
+
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        program = File.createTempFile("loop", ".asm");
+        FileWriter w = new FileWriter(program);
+        w.write("loop:\n");
+        for (int cntr = 0; cntr < LENGTH; cntr++)
+            w.write("    " + BODY[cntr % BODY.length] + "\n");
+        w.write("    rjmp loop\n");
+        w.close();
+    }
+
+
+    @Override
+    protected void tearDown()
+    {
+        program.delete();
+    }
+
+
+    private Simulator newSimulator(String interpreter) throws Exception
+    {
+        Program p = Defaults.getProgramReader("auto").read(
+                new String[] { program.getPath() });
+        SingleSimulation sim = new SingleSimulation();
+        sim.INTERPRETER.set(interpreter);
+        return Defaults.newSimulator(0, sim, p);
+    }
+
+
+    private static void run(Simulator sim, long cycles, boolean resume)
+    {
+        sim.insertEvent(new Stop(sim), cycles);
+        if (resume)
+            sim.getInterpreter().resume();
+        else
+            sim.start();
+    }
+
+
+    private static List<String> describe(Simulator sim)
+    {
+        AtmelInterpreter a = (AtmelInterpreter) sim.getInterpreter();
+        State s = sim.getState();
+        List<String> list = new ArrayList<String>();
+        list.add("cycles " + s.getCycles());
+        list.add("pc " + s.getPC());
+        list.add("sreg " + a.getIORegisterByte(a.SREG));
+        for (int cntr = 0; cntr < 32; cntr++)
+            list.add("r" + cntr + " " + a.getRegisterByte(cntr));
+        return list;
+    }
+
+
+    public void testMatchesLegacy() throws Exception
+    {
+        Simulator legacy = newSimulator("legacy");
+        Simulator block = newSimulator("block");
+        BlockInterpreter b = (BlockInterpreter) block.getInterpreter();
+        run(legacy, CYCLES, false);
+        run(block, CYCLES, false);
+        assertEquals(describe(legacy), describe(block));
+
+        // both halves of the loop ran often enough to be compiled
+        int second = 2 * BlockInterpreter.MAX_BLOCK;
+        assertNotNull(b.blocks[0].code);
+        assertNotNull(b.blocks[second >> 1].code);
+
+        // a probe inside of the first block discards it
+        Count lp = new Count();
+        Count bp = new Count();
+        legacy.insertProbe(lp, 8);
+        block.insertProbe(bp, 8);
+        assertNull(b.blocks[0]);
+
+        run(legacy, CYCLES, true);
+        run(block, CYCLES, true);
+        assertEquals(describe(legacy), describe(block));
+        assertTrue(bp.count > 0);
+        assertEquals(lp.count, bp.count);
+    }
+}
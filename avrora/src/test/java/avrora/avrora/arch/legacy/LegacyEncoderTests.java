@@ -0,0 +1,46 @@
+package avrora.avrora.arch.legacy;
+
+import avrora.avrora.arch.avr.AVRDisassembler;
+import avrora.avrora.arch.avr.AVRInstr;
+import avrora.avrora.util.TestUtil;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the <code>LegacyEncoder</code> produces the machine code from
+ * which the <code>LegacyDisassembler</code> decoded an instruction, for every
+ * bit pattern of the first word of an instruction, and that the generated
+ * interpreter, which decodes that machine code, charges the same cycles.
+ */
+public class LegacyEncoderTests extends TestCase
+{
+
+    public void testRoundTrip()
+    {
+        LegacyDisassembler d = new LegacyDisassembler();
+        LegacyEncoder e = new LegacyEncoder();
+        AVRDisassembler avr = new AVRDisassembler();
+        byte[] encoded = new byte[4];
+        int valid = 0;
+        for (int word1 : TestUtil.SECOND_WORDS)
+        {
+            for (int word0 = 0; word0 < 0x10000; word0++)
+            {
+                byte[] code = TestUtil.code(word0, word1);
+                LegacyInstr i = d.disassembleLegacy(code, 0, 0);
+                if (i == null)
+                    continue;
+                valid++;
+                String where = Integer.toHexString(word0) + " "
+                        + Integer.toHexString(word1) + " " + i;
+                int size = e.encode(i, encoded, 0);
+                assertEquals(where, i.getSize(), size);
+                for (int cntr = 0; cntr < size; cntr++)
+                    assertEquals(where, code[cntr], encoded[cntr]);
+                AVRInstr a = avr.decode(0, 0, encoded);
+                assertNotNull(where, a);
+                assertEquals(where, i.getCycles(), a.cycles);
+            }
+        }
+        assertTrue(valid > 0);
+    }
+}
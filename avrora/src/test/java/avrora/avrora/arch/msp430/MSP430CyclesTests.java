@@ -0,0 +1,206 @@
+package avrora.avrora.arch.msp430;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import avrora.avrora.core.Program;
+import avrora.avrora.sim.ActiveRegister;
+import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.platform.Telos;
+import avrora.avrora.sim.types.SingleSimulation;
+import junit.framework.TestCase;
+
+/**
+ * Tests the cycle counts of decoded MSP430 instructions against the timing
+ * tables of the MSP430x1xx family user's guide, and the way the interpreter
+ * advances the clock by them when it runs a program on a telos node.
+ */
+public class MSP430CyclesTests extends TestCase
+{
+
+    // the interpreter starts at the beginning of the code segment
+    private static final int START = 0x4000;
+
+    // loop: add #1, r4; xor r4, r5; add r5, r6; jmp loop
+    private static final int[] LOOP = { 0x5314, 0xE405, 0x5506, 0x3FFC };
+
+    // add #1, r4; add #1, r4; mov &0x0100, r7; bis #CPUOFF, r2; jmp $
+    private static final int[] SLEEP = { 0x5314, 0x5314, 0x4217, 0x0100,
+            0xD032, 0x0010, 0x3FFF };
+
+    private static final int IOREG = 0x0100;
+
+
+    private static MSP430Instr decode(int... words)
+    {
+        byte[] code = new byte[2 * words.length];
+        for (int cntr = 0; cntr < words.length; cntr++)
+        {
+            code[2 * cntr] = (byte) words[cntr];
+            code[2 * cntr + 1] = (byte) (words[cntr] >> 8);
+        }
+        MSP430Instr i = new MSP430Disassembler().decode(0, 0, code);
+        assertNotNull(i);
+        return i;
+    }
+
+
+    private static void assertCycles(int cycles, int... words)
+    {
+        MSP430Instr i = decode(words);
+        assertEquals(i.toString(), cycles, MSP430Cycles.getCycles(i));
+    }
+
+
+    public void testDoubleOperand()
+    {
+        // add #1, r4 (constant generator)
+        assertCycles(1, 0x5314);
+        // xor r4, r5
+        assertCycles(1, 0xE405);
+        // bis #0x10, r2
+        assertCycles(2, 0xD032, 0x0010);
+        // mov @sp+, pc
+        assertCycles(3, 0x4130);
+        // mov 2(r5), 4(r6)
+        assertCycles(6, 0x4596, 0x0002, 0x0004);
+    }
+
+
+    public void testSingleOperand()
+    {
+        // push r4
+        assertCycles(3, 0x1204);
+        // call #0x4000
+        assertCycles(5, 0x12B0, 0x4000);
+        // rra r4
+        assertCycles(1, 0x1104);
+    }
+
+
+    public void testJumpAndReturn()
+    {
+        // jmp $-6
+        assertCycles(MSP430Cycles.JUMP, 0x3FFC);
+        // reti
+        assertCycles(MSP430Cycles.RETI, 0x1300);
+    }
+
+
+    private static Simulator newTelos(int... words)
+    {
+        Program p = new Program(MSP430Architecture.INSTANCE, START,
+                START + 2 * words.length);
+        for (int cntr = 0; cntr < words.length; cntr++)
+            p.writeProgramBytes(new byte[] { (byte) words[cntr],
+                    (byte) (words[cntr] >> 8) }, START + 2 * cntr);
+        for (int pc = START; pc < p.program_end;)
+            pc += p.disassembleInstr(pc).getSize();
+        return new Telos.Factory().newPlatform(0, new SingleSimulation(), p)
+                .getMicrocontroller().getSimulator();
+    }
+
+
+    /**
+     * Runs the loop until a periodic event has fired a number of times and
+     * records the cycle count and the loop counter in r4 at every firing.
+     */
+    private static List<Long> runLoop(boolean probed)
+    {
+        final Simulator sim = newTelos(LOOP);
+        final MSP430State state = (MSP430State) sim.getState();
+        final List<Long> fired = new ArrayList<Long>();
+        if (probed)
+            sim.insertProbe(new Simulator.Probe.Empty());
+        sim.insertEvent(new Simulator.Event()
+        {
+            @Override
+            public void fire()
+            {
+                fired.add(state.getCycles());
+                fired.add((long) state.getRegister(4));
+                if (fired.size() < 200)
+                    sim.insertEvent(this, 7 + fired.size() % 13);
+                else
+                    sim.stop();
+            }
+        }, 3);
+        sim.start();
+        return fired;
+    }
+
+
+    public void testBatchedEvents()
+    {
+        List<Long> batched = runLoop(false);
+        // the instrumented loop advances the clock after every instruction
+        assertEquals(runLoop(true), batched);
+        // the loop takes 5 cycles per iteration
+        long cycles = batched.get(batched.size() - 2);
+        long count = batched.get(batched.size() - 1);
+        assertTrue(count > 0);
+        assertTrue(cycles - 5 * count >= -5 && cycles - 5 * count < 5);
+    }
+
+
+    private void runSleep(boolean probed)
+    {
+        final Simulator sim = newTelos(SLEEP);
+        final MSP430Interpreter interpreter = (MSP430Interpreter) sim
+                .getInterpreter();
+        final List<Long> reads = new ArrayList<Long>();
+        final boolean[] idle = new boolean[1];
+        if (probed)
+            sim.insertProbe(new Simulator.Probe.Empty());
+        ActiveRegister[] ioregs = sim.getMicrocontroller().getRegisterSet()
+                .share();
+        for (int cntr = 0; cntr < 2; cntr++)
+            ioregs[IOREG + cntr] = new ActiveRegister()
+            {
+                @Override
+                public byte read()
+                {
+                    reads.add(sim.getClock().getCount());
+                    return 0;
+                }
+
+
+                @Override
+                public void write(byte val)
+                {
+                    fail("unexpected write");
+                }
+            };
+        sim.insertEvent(new Simulator.Event()
+        {
+            @Override
+            public void fire()
+            {
+                idle[0] = interpreter.isIdle();
+                sim.stop();
+            }
+        }, 100);
+        sim.start();
+        // the two add instructions have been accounted for before the read
+        assertEquals(2, reads.size());
+        assertEquals(2, (long) reads.get(0));
+        assertEquals(2, (long) reads.get(1));
+        // the node sleeps from the bis instruction until the event at 100
+        assertTrue(idle[0]);
+        assertEquals(100, interpreter.getCycles());
+        assertEquals(2, interpreter.getRegister(4));
+        assertEquals(START + 12, interpreter.getPC());
+    }
+
+
+    public void testIOAccessAndSleep()
+    {
+        runSleep(false);
+    }
+
+
+    public void testIOAccessAndSleepProbed()
+    {
+        runSleep(true);
+    }
+}
@@ -0,0 +1,59 @@
+package avrora.avrora.monitors;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Iterator;
+
+import avrora.avrora.sim.Simulation;
+import avrora.avrora.sim.types.SingleSimulation;
+import avrora.cck.text.Terminal;
+import avrora.cck.util.Options;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the sampling profiler only attributes samples to functions, not
+ * to the data objects that are stored in flash next to the code.
+ */
+public class SamplingProfilerTests extends TestCase
+{
+
+    private static final String TINYOS = "src/main/java/avrora/test/tinyos/";
+
+
+    public void testDataObjectsTakeNoSamples() throws Exception
+    {
+        Options o = new Options();
+        o.setOption("seconds", "3");
+        o.setOption("platform", "mica2");
+        o.setOption("monitors", "sampling-profile");
+        o.setOption("jitter", "false");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        boolean colors = Terminal.useColors;
+        Terminal.useColors = false;
+        Terminal.setOutput(new PrintStream(bytes, true));
+        try
+        {
+            SingleSimulation sim = new SingleSimulation();
+            sim.process(o, new String[] { TINYOS + "CntToRfm.elf" });
+            sim.start();
+            sim.join();
+            Iterator<Simulation.Node> i = sim.getNodeIterator();
+            while (i.hasNext())
+            {
+                for (Monitor mon : i.next().getMonitors())
+                    mon.report();
+            }
+        }
+        finally
+        {
+            Terminal.setOutput(System.out);
+            Terminal.useColors = colors;
+        }
+
+        String report = bytes.toString();
+        assertTrue(report.contains("TOS_post"));
+        assertFalse(report.contains("crcTable"));
+        assertFalse(report.contains("CC1K_Params"));
+    }
+}
@@ -0,0 +1,146 @@
+package avrora.avrora.sim;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import avrora.avrora.Defaults;
+import avrora.avrora.core.Program;
+import avrora.cck.util.Util;
+import junit.framework.TestCase;
+
+/**
+ * Tests that a simulator restored from a checkpoint continues exactly as the
+ * simulator that saved it: the SRAM, registers, PC, cycle count and the state
+ * of the devices all match after both have run on.
+ */
+public class CheckpointTests extends TestCase
+{
+
+    private static final String PROGRAM = "src/main/java/avrora/test/tinyos/"
+            + "Blink_mica2.elf";
+
+    /**
+     * Stops the simulator when it fires.
+     */
+    static class Stop implements Simulator.Event
+    {
+        final Simulator simulator;
+
+
+        Stop(Simulator simulator)
+        {
+            this.simulator = simulator;
+        }
+
+
+        @Override
+        public void fire()
+        {
+            simulator.stop();
+        }
+    }
+
+
+    private static Program read(String file) throws Exception
+    {
+        return Defaults.getProgramReader("auto").read(new String[] { file });
+    }
+
+
+    private static void run(Simulator sim, long cycles, boolean resume)
+    {
+        sim.insertEvent(new Stop(sim), cycles);
+        if (resume)
+            sim.getInterpreter().resume();
+        else
+            sim.start();
+    }
+
+
+    private static byte[] save(Simulator sim) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sim.saveState(bytes);
+        return bytes.toByteArray();
+    }
+
+
+    private static List<String> describe(Simulator sim)
+    {
+        AtmelInterpreter a = (AtmelInterpreter) sim.getInterpreter();
+        State s = sim.getState();
+        List<String> list = new ArrayList<String>();
+        list.add("cycles " + s.getCycles());
+        list.add("next event " + sim.getClock().getFirstEventDelta());
+        list.add("pc " + s.getPC());
+        list.add("sp " + s.getSP());
+        list.add("sreg " + a.getIORegisterByte(a.SREG));
+        list.add("sleeping " + a.sleeping);
+        for (int cntr = 0; cntr < 32; cntr++)
+            list.add("r" + cntr + " " + a.getRegisterByte(cntr));
+        list.add("sram " + Arrays.hashCode(a.sram));
+        return list;
+    }
+
+
+    public void testContinueAfterRestore() throws Exception
+    {
+        Program p = read(PROGRAM);
+        Simulator original = Defaults.newSimulator(0, p);
+        run(original, 2000000, false);
+        byte[] data = save(original);
+
+        Simulator restored = Defaults.newSimulator(0, p);
+        restored.restoreState(new ByteArrayInputStream(data));
+        assertEquals(describe(original), describe(restored));
+
+        run(original, 3000000, true);
+        run(restored, 3000000, false);
+        assertEquals(describe(original), describe(restored));
+        // all of the state, including that of the devices, is the same
+        assertTrue(Arrays.equals(save(original), save(restored)));
+    }
+
+
+    public void testRejectChangedFields() throws Exception
+    {
+        Simulator sim = Defaults.newSimulator(0, read(PROGRAM));
+        run(sim, 100000, false);
+        byte[] data = save(sim);
+
+        // change the fingerprint of the fields of the interpreter, which
+        // follows its name in the class table
+        String cname = sim.getInterpreter().getClass().getName();
+        byte[] name = cname.getBytes("UTF-8");
+        int pos = indexOf(data, name);
+        assertTrue(pos > 0);
+        data[pos + name.length] ^= 1;
+        try
+        {
+            Defaults.newSimulator(0, read(PROGRAM)).restoreState(
+                    new ByteArrayInputStream(data));
+            fail("restored a checkpoint with different fields");
+        } catch (Util.Error e)
+        {
+            assertEquals(cname, e.getParam());
+        }
+    }
+
+
+    private static int indexOf(byte[] data, byte[] pattern)
+    {
+        for (int cntr = 0; cntr <= data.length - pattern.length; cntr++)
+        {
+            int k = 0;
+            while (k < pattern.length && data[cntr + k] == pattern[k])
+                k++;
+            if (k == pattern.length)
+                return cntr;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,80 @@
+package avrora.avrora.sim;
+
+import avrora.avrora.Defaults;
+import avrora.avrora.arch.legacy.LegacyInstr;
+import avrora.avrora.core.Program;
+import junit.framework.TestCase;
+
+/**
+ * Tests that simulators of the same program share its decoded instructions
+ * until one of them changes an instruction, e.g. by inserting a probe, and
+ * that the change is not seen by the other simulators.
+ */
+public class CodeSegmentTests extends TestCase
+{
+
+    private static final String PROGRAM = "src/main/java/avrora/test/tinyos/"
+            + "Blink_mica2.elf";
+
+    /**
+     * Counts the executions of the instruction it is inserted on.
+     */
+    static class Count extends Simulator.Probe.Empty
+    {
+        int count;
+
+
+        @Override
+        public void fireBefore(State s, int pc)
+        {
+            count++;
+        }
+    }
+
+
+    private static CodeSegment flash(Simulator sim)
+    {
+        return ((AtmelInterpreter) sim.getInterpreter()).flash;
+    }
+
+
+    private static void run(final Simulator sim, long cycles)
+    {
+        sim.insertEvent(new Simulator.Event()
+        {
+            @Override
+            public void fire()
+            {
+                sim.stop();
+            }
+        }, cycles);
+        sim.start();
+    }
+
+
+    public void testCopyOnWrite() throws Exception
+    {
+        Program p = Defaults.getProgramReader("auto").read(
+                new String[] { PROGRAM });
+        Simulator probed = Defaults.newSimulator(0, p);
+        Simulator other = Defaults.newSimulator(1, p);
+        LegacyInstr[] code = flash(other).segment_instr;
+        assertSame(code, flash(probed).segment_instr);
+
+        // the reset vector is executed first
+        LegacyInstr reset = flash(other).getInstr(0);
+        Count count = new Count();
+        probed.insertProbe(count, 0);
+
+        assertNotSame(code, flash(probed).segment_instr);
+        assertSame(code, flash(other).segment_instr);
+        assertSame(reset, flash(other).getInstr(0));
+        assertNotSame(reset, flash(probed).getInstr(0));
+        assertSame(reset, flash(probed).readInstr(0));
+
+        run(probed, 1000);
+        run(other, 1000);
+        assertEquals(1, count.count);
+        assertSame(reset, code[0]);
+    }
+}
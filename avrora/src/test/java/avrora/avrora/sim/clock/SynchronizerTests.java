@@ -0,0 +1,179 @@
+package avrora.avrora.sim.clock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.types.SensorSimulation;
+import avrora.cck.text.Terminal;
+import avrora.cck.util.Options;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the synchronizers, which let a network of sleeping nodes skip
+ * ahead to the earliest wakeup, simulate a duty-cycled network in the same way
+ * as when they synchronize the nodes at every period.
+ */
+public class SynchronizerTests extends TestCase
+{
+
+    private static final String TINYOS = "src/main/java/avrora/test/tinyos/";
+
+    private static final long PERIOD = 100000;
+
+    /**
+     * A sensor network whose synchronizer is chosen by the test instead of by
+     * an option.
+     */
+    static class Network extends SensorSimulation
+    {
+        void setSynchronizer(Synchronizer s)
+        {
+            synchronizer = s;
+        }
+    }
+
+    /**
+     * A ripple synchronizer that records whether a node was idle, and that
+     * skips ahead only if asked to.
+     */
+    static class Ripple extends RippleSynchronizer
+    {
+        final boolean skip;
+        volatile boolean idle;
+
+
+        Ripple(boolean skip)
+        {
+            super(PERIOD, null);
+            this.skip = skip;
+        }
+
+
+        @Override
+        protected long idleCycles(Simulator s)
+        {
+            long cycles = super.idleCycles(s);
+            if (cycles > PERIOD)
+                idle = true;
+            return skip ? cycles : 0;
+        }
+    }
+
+    /**
+     * A barrier synchronizer that records whether a node was idle, and that
+     * skips barriers only if asked to.
+     */
+    static class Barrier extends BarrierSynchronizer
+    {
+        final boolean skip;
+        volatile boolean idle;
+
+
+        Barrier(boolean skip)
+        {
+            super(PERIOD, null);
+            this.skip = skip;
+        }
+
+
+        @Override
+        protected long idleCycles(Simulator s)
+        {
+            long cycles = super.idleCycles(s);
+            if (cycles > 2 * PERIOD)
+                idle = true;
+            return skip ? cycles : 0;
+        }
+    }
+
+
+    /**
+     * Runs a network with the specified synchronizer and returns the changes
+     * of the LEDs and the packets printed by the monitors, ordered by node.
+     * The order of the events of each node is kept. The CntToLeds nodes sleep
+     * between the ticks of their timer.
+     */
+    private List<String> run(Synchronizer s, String nodes, String... programs)
+            throws Exception
+    {
+        Options o = new Options();
+        o.setOption("seconds", "2");
+        o.setOption("platform", "mica2");
+        o.setOption("nodecount", nodes);
+        o.setOption("stagger-start", "1000000");
+        o.setOption("random-seed", "3");
+        o.setOption("monitors", "leds,packet");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        boolean colors = Terminal.useColors;
+        Terminal.useColors = false;
+        Terminal.setOutput(new PrintStream(bytes, true));
+        try
+        {
+            Network sim = new Network();
+            String[] files = new String[programs.length];
+            for (int cntr = 0; cntr < programs.length; cntr++)
+                files[cntr] = TINYOS + programs[cntr];
+            sim.process(o, files);
+            sim.setSynchronizer(s);
+            sim.start();
+            sim.join();
+        }
+        finally
+        {
+            Terminal.setOutput(System.out);
+            Terminal.useColors = colors;
+        }
+
+        List<String> trace = new ArrayList<String>();
+        for (String line : bytes.toString().split("\n"))
+        {
+            if (line.matches("\\s*\\d+\\s+\\d+\\s+(on |off|---->|<====).*"))
+                trace.add(line.trim());
+        }
+        Collections.sort(trace, new Comparator<String>()
+        {
+            @Override
+            public int compare(String a, String b)
+            {
+                return node(a) - node(b);
+            }
+        });
+        return trace;
+    }
+
+
+    private static int node(String line)
+    {
+        return Integer.parseInt(line.split("\\s+")[0]);
+    }
+
+
+    public void testRippleIdleSkipping() throws Exception
+    {
+        // the radio keeps the other two nodes awake
+        Ripple skip = new Ripple(true);
+        List<String> skipped = run(skip, "1,1,1", "CntToLeds.elf",
+                "CntToRfm.elf", "RfmToLeds.elf");
+        assertTrue(skip.idle);
+        assertTrue(skipped.size() > 12);
+        assertEquals(skipped, run(new Ripple(false), "1,1,1",
+                "CntToLeds.elf", "CntToRfm.elf", "RfmToLeds.elf"));
+    }
+
+
+    public void testBarrierIdleSkipping() throws Exception
+    {
+        // the barrier synchronizer does not model the timing of the radio
+        Barrier skip = new Barrier(true);
+        List<String> skipped = run(skip, "2", "CntToLeds.elf");
+        assertTrue(skip.idle);
+        assertTrue(skipped.size() > 12);
+        assertEquals(skipped, run(new Barrier(false), "2", "CntToLeds.elf"));
+    }
+}
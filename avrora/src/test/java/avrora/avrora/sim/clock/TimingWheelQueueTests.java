@@ -0,0 +1,112 @@
+package avrora.avrora.sim.clock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import avrora.avrora.sim.Simulator;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the TimingWheelQueue fires events in the same order and at the
+ * same times as the DeltaQueue.
+ */
+public class TimingWheelQueueTests extends TestCase
+{
+
+    /**
+     * Records its firing into a shared log and, like many device events,
+     * sometimes reschedules itself or cancels another event while firing.
+     */
+    private static class LogEvent implements Simulator.Event
+    {
+        final int id;
+        final DeltaQueue queue;
+        final List<String> log;
+        final Random random;
+        LogEvent[] events;
+
+
+        LogEvent(int id, DeltaQueue queue, List<String> log, Random random)
+        {
+            this.id = id;
+            this.queue = queue;
+            this.log = log;
+            this.random = random;
+        }
+
+
+        public void fire()
+        {
+            log.add(id + "@" + queue.getCount());
+            int r = random.nextInt(8);
+            if (r == 0)
+                queue.insertEvent(this, 0);
+            else if (r < 4)
+                queue.insertEvent(this, random.nextInt(300));
+            else if (r == 4)
+                queue.removeEvent(events[random.nextInt(events.length)]);
+        }
+    }
+
+
+    private List<String> run(DeltaQueue queue, long seed)
+    {
+        List<String> log = new ArrayList<String>();
+        Random random = new Random(seed);
+        LogEvent[] events = new LogEvent[24];
+        for (int i = 0; i < events.length; i++)
+            events[i] = new LogEvent(i, queue, log, random);
+        for (LogEvent e : events)
+            e.events = events;
+
+        for (int step = 0; step < 20000; step++)
+        {
+            int r = random.nextInt(16);
+            LogEvent e = events[random.nextInt(events.length)];
+            if (r < 5)
+                queue.insertEvent(e, random.nextInt(4) == 0
+                        ? random.nextInt(1 << 20) : random.nextInt(64));
+            else if (r < 7)
+                queue.removeEvent(e);
+            else if (r < 14)
+                queue.advance(random.nextInt(40));
+            else if (r < 15)
+                queue.skipAhead();
+            else
+                log.add("first " + queue.getFirstEventTime());
+        }
+        log.add("count " + queue.getCount());
+        return log;
+    }
+
+
+    public void testSameOrderAsDeltaQueue()
+    {
+        for (long seed = 1; seed <= 20; seed++)
+        {
+            List<String> expected = run(new DeltaQueue(), seed);
+            List<String> actual = run(new TimingWheelQueue(), seed);
+            assertEquals("seed " + seed, expected, actual);
+        }
+    }
+
+
+    public void testLongDelays()
+    {
+        DeltaQueue queue = new TimingWheelQueue();
+        List<String> log = new ArrayList<String>();
+        Random random = new Random(0);
+        LogEvent a = new LogEvent(0, queue, log, random);
+        LogEvent b = new LogEvent(1, queue, log, random);
+        a.events = b.events = new LogEvent[] { a, b };
+
+        queue.insertEvent(a, 1L << 40);
+        queue.insertEvent(b, (1L << 40) + 3);
+        assertEquals(1L << 40, queue.getFirstEventTime());
+        queue.advance((1L << 40) - 1);
+        assertEquals(1, queue.getFirstEventTime());
+        queue.skipAhead();
+        assertEquals("0@" + (1L << 40), log.get(0));
+    }
+}
@@ -0,0 +1,223 @@
+package avrora.avrora.sim.mcu;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.clock.ClockDomain;
+import avrora.avrora.sim.types.SingleSimulation;
+import avrora.avrora.util.TestUtil;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the tickless timers go through the same states at the same
+ * cycles as timers that execute every tick. Two microcontrollers, one with
+ * tickless timers and one without, receive the same random writes to the
+ * control, compare and counter registers of the 8-bit and 16-bit timers at
+ * the same cycles, and every value read back from the timers must match.
+ */
+public class TicklessTimerTests extends TestCase
+{
+
+    private static final int STEPS = 10000;
+
+    private static final String[] TIMER8 = { "0", "2" };
+    private static final String[] TIMER16 = { "1", "3" };
+    private static final String[] UNITS16 = { "A", "B", "C" };
+
+    /**
+     * A microcontroller together with the log of the values read from its
+     * timers.
+     */
+    static class Run
+    {
+        final ATMega128 mcu;
+        final Simulator simulator;
+        final List<String> log = new ArrayList<String>();
+
+
+        Run(boolean tickless)
+        {
+            SingleSimulation sim = new SingleSimulation();
+            sim.TICKLESS.set(Boolean.toString(tickless));
+            ClockDomain cd = new ClockDomain(8000000);
+            cd.newClock("external", 32768);
+            mcu = (ATMega128) new ATMega128.Factory().newMicrocontroller(0,
+                    sim, cd, TestUtil.createProgram());
+            simulator = mcu.getSimulator();
+        }
+
+
+        void write(String reg, int value)
+        {
+            mcu.getIOReg(reg).write((byte) value);
+        }
+
+
+        void read(String reg)
+        {
+            log.add(simulator.getClock().getCount() + " " + reg + " = "
+                    + (mcu.getIOReg(reg).read() & 0xff));
+        }
+
+
+        void advance(long cycles)
+        {
+            simulator.getClock().advance(cycles);
+        }
+    }
+
+
+    public void testTimersMatchEveryTick()
+    {
+        for (long seed = 1; seed <= 4; seed++)
+            compare(seed);
+    }
+
+
+    private void compare(long seed)
+    {
+        Run[] runs = { new Run(true), new Run(false) };
+        Random random = new Random(seed);
+        for (int step = 0; step < STEPS; step++)
+        {
+            long cycles = nextCycles(random);
+            for (Run r : runs)
+                r.advance(cycles);
+            // draw the operation once so both runs do the same
+            long opSeed = random.nextLong();
+            for (Run r : runs)
+                operate(r, new Random(opSeed));
+            assertEquals("seed " + seed + ", step " + step, runs[1].log,
+                    runs[0].log);
+            for (Run r : runs)
+                r.log.clear();
+        }
+    }
+
+
+    private static long nextCycles(Random random)
+    {
+        switch (random.nextInt(4))
+        {
+        case 0:
+            return 1 + random.nextInt(4);
+        case 1:
+            return 1 + random.nextInt(64);
+        case 2:
+            return 1 + random.nextInt(1024);
+        default:
+            return 1 + random.nextInt(65536);
+        }
+    }
+
+
+    private static void operate(Run r, Random random)
+    {
+        switch (random.nextInt(12))
+        {
+        case 0:
+            writeControl8(r, random);
+            break;
+        case 1:
+            r.write("OCR" + pick(random, TIMER8), random.nextInt(256));
+            break;
+        case 2:
+            r.write("TCNT" + pick(random, TIMER8), random.nextInt(256));
+            break;
+        case 3:
+            writeControl16(r, random);
+            break;
+        case 4:
+            write16(r, "OCR" + pick(random, TIMER16) + pick(random, UNITS16),
+                    next16(random));
+            break;
+        case 5:
+            write16(r, "ICR" + pick(random, TIMER16), next16(random));
+            break;
+        case 6:
+            write16(r, "TCNT" + pick(random, TIMER16), next16(random));
+            break;
+        case 7:
+            // clear some of the flags
+            r.write(random.nextBoolean() ? "TIFR" : "ETIFR",
+                    random.nextInt(256));
+            break;
+        default:
+            readAll(r);
+            break;
+        }
+    }
+
+
+    private static void writeControl8(Run r, Random random)
+    {
+        String n = pick(random, TIMER8);
+        // WGMn0 and WGMn1 select one of the four modes; the clock select
+        // prefers the fast prescalers so that the timer ticks often
+        int wgm = random.nextInt(4);
+        int value = (wgm & 1) << 6 | (wgm & 2) << 2
+                | random.nextInt(4) << 4 | nextClockSelect(random);
+        r.write("TCCR" + n, value);
+    }
+
+
+    private static void writeControl16(Run r, Random random)
+    {
+        String n = pick(random, TIMER16);
+        int wgm = random.nextInt(16);
+        r.write("TCCR" + n + "A", random.nextInt(64) << 2 | wgm & 3);
+        r.write("TCCR" + n + "B", (wgm >> 2) << 3 | nextClockSelect(random));
+    }
+
+
+    private static int nextClockSelect(Random random)
+    {
+        int cs = random.nextInt(8);
+        return cs > 5 ? 1 : cs;
+    }
+
+
+    private static int next16(Random random)
+    {
+        // small values make TOP and the compare values come around often
+        return random.nextBoolean() ? random.nextInt(1024)
+                : random.nextInt(65536);
+    }
+
+
+    private static void write16(Run r, String reg, int value)
+    {
+        r.write(reg + "H", value >> 8);
+        r.write(reg + "L", value);
+    }
+
+
+    private static void readAll(Run r)
+    {
+        for (String n : TIMER8)
+        {
+            r.read("TCNT" + n);
+            r.read("OCR" + n);
+        }
+        for (String n : TIMER16)
+        {
+            r.read("TCNT" + n + "L");
+            r.read("TCNT" + n + "H");
+            for (String u : UNITS16)
+            {
+                r.read("OCR" + n + u + "L");
+                r.read("OCR" + n + u + "H");
+            }
+        }
+        r.read("TIFR");
+        r.read("ETIFR");
+    }
+
+
+    private static String pick(Random random, String[] values)
+    {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,158 @@
+package avrora.avrora.sim.output;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import avrora.avrora.sim.Simulator;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the EventBuffer returns events in the order they were recorded,
+ * also when the ring overflows into the spill file.
+ */
+public class EventBufferTests extends TestCase
+{
+
+    private static class Log implements EventProcessor, EventBuffer.Batch
+    {
+        final EventBuffer buffer;
+        final List<String> entries = new ArrayList<String>();
+        int batches;
+
+
+        Log(EventBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+
+        public void process(Simulator s, long time, Object obj, long param)
+        {
+            entries.add(time + ":" + obj + ":" + param);
+        }
+
+
+        public void process(Simulator s, long[] times, int[] kinds,
+                long[] params, int offset, int length)
+        {
+            batches++;
+            for (int i = offset; i < offset + length; i++)
+                process(s, times[i], buffer.getObject(kinds[i]), params[i]);
+        }
+    }
+
+
+    private static List<String> record(EventBuffer buffer, int count)
+    {
+        List<String> expected = new ArrayList<String>();
+        String[] objects = { "led", "radio", "pin" };
+        for (int i = 0; i < count; i++)
+        {
+            String o = objects[i % objects.length];
+            buffer.recordEvent(i / 2, buffer.getKind(o), i * 7L);
+            expected.add((i / 2) + ":" + o + ":" + (i * 7L));
+        }
+        return expected;
+    }
+
+
+    public void testDrainInRing()
+    {
+        EventBuffer buffer = new EventBuffer(null, 64);
+        List<String> expected = record(buffer, 40);
+        Log log = new Log(buffer);
+        assertEquals(10, buffer.drain(5, log));
+        assertEquals(expected.subList(0, 10), log.entries);
+        assertEquals(30, buffer.drain(Long.MAX_VALUE, log));
+        assertEquals(expected, log.entries);
+        assertEquals(0, buffer.size());
+    }
+
+
+    public void testDrainWithSpill()
+    {
+        EventBuffer buffer = new EventBuffer(null, 16);
+        List<String> expected = record(buffer, 1000);
+        assertEquals(1000, buffer.size());
+        Log log = new Log(buffer);
+        assertEquals(300, buffer.drain(150, log));
+        assertEquals(700, buffer.drain(Long.MAX_VALUE, log));
+        assertEquals(expected, log.entries);
+
+        // the spill file is reused once it has been drained
+        expected = record(buffer, 100);
+        log.entries.clear();
+        buffer.drain(Long.MAX_VALUE, log);
+        assertEquals(expected, log.entries);
+
+        // spill more events than fit into one mapped chunk of the file
+        expected = record(buffer, 3 * EventBuffer.SPILL_CHUNK);
+        log.entries.clear();
+        buffer.drain(Long.MAX_VALUE, log);
+        assertEquals(expected, log.entries);
+    }
+
+
+    public void testBatchDrain()
+    {
+        EventBuffer buffer = new EventBuffer(null, 32);
+        List<String> expected = record(buffer, 200);
+        Log log = new Log(buffer);
+        EventBuffer.Batch batch = log;
+        assertEquals(52, buffer.drainBatch(26, batch));
+        assertEquals(148, buffer.drainBatch(Long.MAX_VALUE, batch));
+        assertEquals(expected, log.entries);
+        assertTrue(log.batches < 200 / 4);
+
+        // wrap around the end of the ring without spilling
+        expected = new ArrayList<String>();
+        for (int round = 0; round < 5; round++)
+        {
+            List<String> part = record(buffer, 20);
+            expected.addAll(part);
+            buffer.drainBatch(Long.MAX_VALUE, batch);
+        }
+        assertEquals(expected, log.entries.subList(200, 300));
+    }
+
+
+    public void testLazyRing()
+    {
+        EventBuffer buffer = new EventBuffer(null);
+        assertNull(buffer.times);
+        assertEquals(0, buffer.drain(Long.MAX_VALUE, new Log(buffer)));
+        record(buffer, 1);
+        assertEquals(EventBuffer.DEFAULT_CAPACITY, buffer.times.length);
+    }
+
+
+    public void testCloseSpill()
+    {
+        EventBuffer buffer = new EventBuffer(null, 16);
+        record(buffer, 100);
+        File f = buffer.spillPath;
+        assertTrue(f.exists());
+        Log log = new Log(buffer);
+        buffer.drain(10, log);
+        assertNotNull(buffer.spillFile);
+        buffer.drain(Long.MAX_VALUE, log);
+        assertNull(buffer.spillFile);
+        assertFalse(f.exists());
+
+        // spilling again opens a new file, which a reset closes
+        List<String> expected = record(buffer, 100);
+        f = buffer.spillPath;
+        assertTrue(f.exists());
+        buffer.reset();
+        assertEquals(0, buffer.size());
+        assertNull(buffer.spillFile);
+        assertFalse(f.exists());
+
+        log = new Log(buffer);
+        record(buffer, 100);
+        buffer.drainBatch(Long.MAX_VALUE, log);
+        assertEquals(expected, log.entries);
+        assertNull(buffer.spillFile);
+    }
+}
@@ -0,0 +1,219 @@
+package avrora.avrora.sim.radio;
+
+import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.clock.Clock;
+import avrora.avrora.sim.clock.MainClock;
+import avrora.avrora.sim.radio.Topology.Position;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the link table of the lossy radio model caches the same link
+ * properties as it computes without the table, that it computes them again
+ * when a radio moves, and that the fading is sampled once per transmission.
+ */
+public class LossyModelTests extends TestCase
+{
+
+    private static final long HZ = 7372800;
+
+    private static class TestRadio implements Radio
+    {
+        final Medium.Transmitter transmitter;
+        final Medium.Receiver receiver;
+
+
+        TestRadio(Medium m, Clock c)
+        {
+            transmitter = new Medium.Transmitter(m, c)
+            {
+                @Override
+                public byte nextByte()
+                {
+                    return 0;
+                }
+            };
+            receiver = new Medium.Receiver(m, c)
+            {
+                @Override
+                public byte nextByte(boolean lock, byte b)
+                {
+                    return b;
+                }
+
+
+                @Override
+                public void setRSSI(double rssi)
+                {
+                }
+
+
+                @Override
+                public void setBER(double BER)
+                {
+                }
+            };
+        }
+
+
+        @Override
+        public Simulator getSimulator()
+        {
+            return null;
+        }
+
+
+        @Override
+        public void setMedium(Medium m)
+        {
+        }
+
+
+        @Override
+        public Medium getMedium()
+        {
+            return transmitter.medium;
+        }
+
+
+        @Override
+        public Medium.Transmitter getTransmitter()
+        {
+            return transmitter;
+        }
+
+
+        @Override
+        public Medium.Receiver getReceiver()
+        {
+            return receiver;
+        }
+    }
+
+    /**
+     * Counts the links that are computed.
+     */
+    private static class Count implements LinkTable.Function
+    {
+        int count;
+
+
+        @Override
+        public void compute(Position t, Position r, float[] dest, int offset)
+        {
+            count++;
+            dest[offset] = (float) (t.x - r.x);
+        }
+    }
+
+
+    private static TestRadio[] place(Medium m, LossyModel model,
+            Position[] positions)
+    {
+        MainClock clock = new MainClock("main", HZ);
+        TestRadio[] radios = new TestRadio[positions.length];
+        for (int cntr = 0; cntr < positions.length; cntr++)
+        {
+            radios[cntr] = new TestRadio(m, clock);
+            if (model != null)
+                model.setPosition(radios[cntr], positions[cntr]);
+        }
+        return radios;
+    }
+
+
+    private static void assertLink(LossyModel model, TestRadio t, TestRadio r)
+    {
+        double[] expect = new double[4];
+        model.computeLink(model.positions.get(t.transmitter),
+                model.positions.get(r.receiver), expect, 0);
+        float[] link = new float[4];
+        model.links.get(t.transmitter, r.receiver, link);
+        for (int cntr = 0; cntr < link.length; cntr++)
+            assertEquals((float) expect[cntr], link[cntr]);
+    }
+
+
+    public void testLinksMatchComputeLink()
+    {
+        LossyModel model = new LossyModel();
+        model.enableLinkTable();
+        Medium m = new Medium(null, model, 19200, 8, 8, 1024);
+        Position[] positions = { new Position(0, 0, 0, 0.1),
+                new Position(3, 4, 0, 0.2), new Position(10, 0, 2, 0) };
+        TestRadio[] radios = place(m, model, positions);
+        for (TestRadio t : radios)
+            for (TestRadio r : radios)
+                assertLink(model, t, r);
+
+        // moving a radio changes its links in both directions
+        float before = model.links.get(radios[0].transmitter,
+                radios[1].receiver, LossyModel.PATH_LOSS);
+        model.setPosition(radios[0], new Position(20, 0, 0, 0.1));
+        assertTrue(before != model.links.get(radios[0].transmitter,
+                radios[1].receiver, LossyModel.PATH_LOSS));
+        for (TestRadio t : radios)
+            for (TestRadio r : radios)
+                assertLink(model, t, r);
+    }
+
+
+    public void testLinkRecomputedAfterMove()
+    {
+        Medium m = new Medium(null, null, 19200, 8, 8, 1024);
+        TestRadio[] radios = place(m, null, new Position[3]);
+        Count count = new Count();
+        LinkTable links = new LinkTable(1, count);
+        for (int cntr = 0; cntr < radios.length; cntr++)
+            links.setPosition(radios[cntr], new Position(cntr, 0, 0));
+
+        assertEquals(-2f, links.get(radios[0].transmitter,
+                radios[2].receiver, 0));
+        assertEquals(-2f, links.get(radios[0].transmitter,
+                radios[2].receiver, 0));
+        assertEquals(1f, links.get(radios[1].transmitter,
+                radios[0].receiver, 0));
+        assertEquals(-1f, links.get(radios[1].transmitter,
+                radios[2].receiver, 0));
+        assertEquals(3, count.count);
+
+        // only the links from and to the moved radio are computed again
+        links.setPosition(radios[0], new Position(5, 0, 0));
+        assertEquals(3f, links.get(radios[0].transmitter,
+                radios[2].receiver, 0));
+        assertEquals(-4f, links.get(radios[1].transmitter,
+                radios[0].receiver, 0));
+        assertEquals(-1f, links.get(radios[1].transmitter,
+                radios[2].receiver, 0));
+        assertEquals(5, count.count);
+    }
+
+
+    public void testFadingSampledOncePerTransmission()
+    {
+        LossyModel model = new LossyModel();
+        model.enableLinkTable();
+        Medium m = new Medium(null, model, 19200, 8, 8, 1024);
+        TestRadio[] radios = place(m, model, new Position[] {
+                new Position(0, 0, 0, 0.1), new Position(5, 0, 0, 0.1) });
+        Medium.Receiver r = radios[1].receiver;
+
+        Medium.Transmission t1 = m.newTransmission(radios[0].transmitter, 0,
+                868);
+        double power = model.computeReceivedPower(t1, r, 0);
+        assertEquals(power, model.computeReceivedPower(t1, r, 0));
+
+        // each transmission samples the fading again, and the power of the
+        // first one is forgotten once enough others were received
+        boolean changed = false;
+        for (int cntr = 0; cntr < LossyModel.FADING_SLOTS; cntr++)
+        {
+            Medium.Transmission t = m.newTransmission(radios[0].transmitter,
+                    0, 868);
+            double p = model.computeReceivedPower(t, r, 0);
+            assertEquals(p, model.computeReceivedPower(t, r, 0));
+            changed |= p != power;
+        }
+        assertTrue(changed);
+        assertTrue(power != model.computeReceivedPower(t1, r, 0));
+    }
+}
@@ -0,0 +1,328 @@
+package avrora.avrora.sim.radio;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import avrora.avrora.Defaults;
+import avrora.avrora.sim.Simulation;
+import avrora.avrora.sim.Simulator;
+import avrora.avrora.sim.clock.Clock;
+import avrora.avrora.sim.clock.MainClock;
+import avrora.avrora.sim.radio.Topology.Position;
+import avrora.avrora.util.TestUtil;
+import avrora.cck.util.Options;
+import avrora.cck.util.Util;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the delivery modes of the {@link Medium}
+ */
+public class MediumTests extends TestCase
+{
+
+    private static final long HZ = 8000000;
+    private static final long BYTE = 8 * (HZ / 250000);
+    private static final double RANGE = 10;
+
+    private static class TestTransmitter extends Medium.Transmitter
+    {
+        int count;
+
+
+        TestTransmitter(Medium m, Clock c)
+        {
+            super(m, c);
+        }
+
+
+        @Override
+        public byte nextByte()
+        {
+            return (byte) count++;
+        }
+    }
+
+    private static class TestReceiver extends Medium.Receiver
+    {
+        final List<Integer> bytes = new ArrayList<Integer>();
+
+
+        TestReceiver(Medium m, Clock c)
+        {
+            super(m, c);
+        }
+
+
+        @Override
+        public byte nextByte(boolean lock, byte b)
+        {
+            if (lock)
+                bytes.add(b & 0xff);
+            return b;
+        }
+
+
+        @Override
+        public void setRSSI(double rssi)
+        {
+        }
+
+
+        @Override
+        public void setBER(double BER)
+        {
+        }
+    }
+
+
+    /**
+     * A radio that consists of a transmitter and a receiver of the same
+     * medium.
+     */
+    private static class TestRadio implements Radio
+    {
+        final TestTransmitter transmitter;
+        final TestReceiver receiver;
+
+
+        TestRadio(Medium m, Clock c)
+        {
+            transmitter = new TestTransmitter(m, c);
+            receiver = new TestReceiver(m, c);
+        }
+
+
+        @Override
+        public Simulator getSimulator()
+        {
+            return null;
+        }
+
+
+        @Override
+        public void setMedium(Medium m)
+        {
+        }
+
+
+        @Override
+        public Medium getMedium()
+        {
+            return transmitter.medium;
+        }
+
+
+        @Override
+        public Medium.Transmitter getTransmitter()
+        {
+            return transmitter;
+        }
+
+
+        @Override
+        public Medium.Receiver getReceiver()
+        {
+            return receiver;
+        }
+    }
+
+    /**
+     * A node that is moved by a mobility model, but that is not simulated.
+     */
+    private static class MobileNode extends Simulation.Node
+    {
+        MobileNode(Simulator s)
+        {
+            s.getSimulation().super(0, null, null);
+            simulator = s;
+        }
+    }
+
+    private int moves;
+
+
+    private List<Integer> receive(int mode)
+    {
+        MainClock clock = new MainClock("main", HZ);
+        Medium m = new Medium(null, null, 250000, 48, 8, 1024);
+        m.setDelivery(mode);
+        TestTransmitter tx = new TestTransmitter(m, clock);
+        TestReceiver rx = new TestReceiver(m, clock);
+        rx.beginReceive(2400);
+        tx.beginTransmit(0, 2400);
+        clock.advance(20 * BYTE);
+        tx.endTransmit();
+        clock.advance(20 * BYTE);
+        return rx.bytes;
+    }
+
+
+    public void testFrameDeliveryMatchesByteDelivery()
+    {
+        List<Integer> bytes = receive(Medium.DELIVER_BYTES);
+        assertTrue(bytes.size() > 10);
+        assertEquals(bytes, receive(Medium.DELIVER_FRAMES));
+        assertEquals(bytes, receive(Medium.VALIDATE_FRAMES));
+    }
+
+
+    public void testValidateDetectsMissedInterference()
+    {
+        MainClock clock = new MainClock("main", HZ);
+        Medium m = new Medium(null, null, 250000, 48, 8, 1024);
+        m.setDelivery(Medium.VALIDATE_FRAMES);
+        TestTransmitter tx1 = new TestTransmitter(m, clock);
+        TestTransmitter tx2 = new TestTransmitter(m, clock);
+        TestReceiver rx = new TestReceiver(m, clock);
+        rx.beginReceive(2400);
+        tx1.beginTransmit(0, 2400);
+        clock.advance(12 * BYTE);
+        assertNotNull(rx.frame);
+
+        // start an interfering transmission that the receiver in frame
+        // delivery does not notice
+        long generation = m.generation;
+        tx2.beginTransmit(0, 2400);
+        m.generation = generation;
+        try
+        {
+            clock.advance(20 * BYTE);
+            fail("validation did not detect the interfering transmission");
+        } catch (Util.InternalError e)
+        {
+            assertTrue(e.getMessage().contains("missed interference"));
+        }
+    }
+
+
+    /**
+     * Creates a radio for each position in the specified medium.
+     */
+    private TestRadio[] place(Medium m, Clock c, RadiusModel model,
+            Position[] positions)
+    {
+        TestRadio[] radios = new TestRadio[positions.length];
+        for (int cntr = 0; cntr < positions.length; cntr++)
+        {
+            radios[cntr] = new TestRadio(m, c);
+            model.setPosition(radios[cntr], positions[cntr]);
+            m.setPosition(radios[cntr], positions[cntr]);
+        }
+        return radios;
+    }
+
+
+    /**
+     * Lets the mobile and the static transmitter send at the same time and
+     * returns the bytes received by each receiver.
+     */
+    private List<List<Integer>> burst(MainClock clock, TestRadio[] radios)
+    {
+        // the static transmitter sends other bytes than the mobile one
+        radios[0].transmitter.count = 0;
+        radios[1].transmitter.count = 100;
+        for (int cntr = 2; cntr < radios.length; cntr++)
+            radios[cntr].receiver.beginReceive(2400);
+        radios[0].transmitter.beginTransmit(0, 2400);
+        radios[1].transmitter.beginTransmit(0, 2400);
+        clock.advance(20 * BYTE);
+        radios[0].transmitter.endTransmit();
+        radios[1].transmitter.endTransmit();
+        clock.advance(20 * BYTE);
+
+        List<List<Integer>> bytes = new ArrayList<List<Integer>>();
+        for (int cntr = 2; cntr < radios.length; cntr++)
+        {
+            radios[cntr].receiver.endReceive();
+            bytes.add(new ArrayList<Integer>(radios[cntr].receiver.bytes));
+            radios[cntr].receiver.bytes.clear();
+        }
+        return bytes;
+    }
+
+
+    public void testSpatialIndexMatchesFullScan()
+    {
+        Simulator sim = Defaults.newSimulator(0, TestUtil.createProgram());
+        MainClock clock = sim.getClock();
+        final RadiusModel model = new RadiusModel(1.0, RANGE);
+        final Medium grid = new Medium(null, model, 250000, 48, 8, 1024);
+        grid.enableSpatialIndex(RANGE);
+        final Medium full = new Medium(null, model, 250000, 48, 8, 1024);
+
+        // node 0 moves back and forth along the x axis
+        TopologyRWP rwp = new TopologyRWP();
+        Options o = new Options();
+        o.setOption("mobility-minX", "0");
+        o.setOption("mobility-maxX", "100");
+        o.setOption("mobility-minY", "0");
+        o.setOption("mobility-maxY", "0");
+        o.setOption("mobility-minZ", "0");
+        o.setOption("mobility-maxZ", "0");
+        o.setOption("mobility-minvel", "50");
+        o.setOption("mobility-maxvel", "50");
+        o.setOption("mobility-granularity", "5");
+        o.setOption("mobile-nodes", "0");
+        rwp.processOptions(o);
+        rwp.start();
+        rwp.addNode(new MobileNode(sim));
+
+        // a static transmitter, a receiver in its range and a receiver out
+        // of range of every static radio
+        Position[] positions = { rwp.getPosition(0), new Position(30, 0, 0),
+                new Position(36, 0, 0), new Position(80, 0, 0) };
+        final TestRadio[] g = place(grid, clock, model, positions);
+        final TestRadio[] f = place(full, clock, model, positions);
+        rwp.addPositionListener(new Topology.PositionListener()
+        {
+            @Override
+            public void positionChanged(Simulation.Node node, Position p)
+            {
+                model.setPosition(g[0], p);
+                model.setPosition(f[0], p);
+                grid.updatePosition(g[0]);
+                full.updatePosition(f[0]);
+                moves++;
+            }
+        });
+
+        boolean near = false;
+        boolean far = false;
+        for (int cntr = 0; cntr < 1000 && !(near && far); cntr++)
+        {
+            // wait for the next step of the mobile node
+            int before = moves;
+            while (moves == before)
+                clock.advance(16 * BYTE);
+
+            boolean inRange = model.distanceSq(g[0].transmitter,
+                    g[2].receiver) <= RANGE * RANGE;
+            near |= inRange;
+            far |= !inRange;
+
+            // every transmitter in range is a neighbor in the grid
+            for (int rx = 2; rx < g.length; rx++)
+                for (int tx = 0; tx < 2; tx++)
+                {
+                    if (model.distanceSq(g[tx].transmitter,
+                            g[rx].receiver) <= RANGE * RANGE)
+                        assertTrue(grid.grid.getNeighbors(g[rx].receiver)
+                                .contains(g[tx].transmitter));
+                }
+
+            // the transmission of the mobile node only occupies the channel
+            // in its range
+            g[0].transmitter.beginTransmit(0, 2400);
+            clock.advance(12 * BYTE);
+            assertEquals(!inRange, g[2].receiver.isChannelClear(0, 0));
+            g[0].transmitter.endTransmit();
+            clock.advance(20 * BYTE);
+
+            List<List<Integer>> bytes = burst(clock, g);
+            assertTrue(bytes.get(0).size() > 10);
+            assertEquals(bytes, burst(clock, f));
+        }
+        assertTrue(near);
+        assertTrue(far);
+    }
+}
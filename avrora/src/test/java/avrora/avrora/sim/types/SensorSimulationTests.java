@@ -0,0 +1,115 @@
+package avrora.avrora.sim.types;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import avrora.cck.text.Terminal;
+import avrora.cck.util.Options;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the synchronizers of a sensor network, which let the nodes run
+ * ahead of each other in different ways, send and receive the same packets as
+ * the ripple synchronizer.
+ */
+public class SensorSimulationTests extends TestCase
+{
+
+    private static final String TINYOS = "src/main/java/avrora/test/tinyos/";
+
+
+    /**
+     * Runs a network of one CntToRfm node and one RfmToLeds node and returns
+     * the packets sent and received as printed, ordered by node. The order of
+     * the packets of each node is kept.
+     */
+    private List<String> run(String... pairs) throws Exception
+    {
+        Options o = new Options();
+        o.setOption("seconds", "1");
+        o.setOption("platform", "mica2");
+        o.setOption("nodecount", "1,1");
+        o.setOption("random-seed", "3");
+        o.setOption("monitors", "packet");
+        for (int cntr = 0; cntr < pairs.length; cntr += 2)
+            o.setOption(pairs[cntr], pairs[cntr + 1]);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        boolean colors = Terminal.useColors;
+        Terminal.useColors = false;
+        Terminal.setOutput(new PrintStream(bytes, true));
+        try
+        {
+            SensorSimulation sim = new SensorSimulation();
+            sim.process(o, new String[] { TINYOS + "CntToRfm.elf",
+                    TINYOS + "RfmToLeds.elf" });
+            sim.start();
+            sim.join();
+        }
+        finally
+        {
+            Terminal.setOutput(System.out);
+            Terminal.useColors = colors;
+        }
+
+        List<String> trace = new ArrayList<String>();
+        for (String line : bytes.toString().split("\n"))
+        {
+            if (line.matches("\\s*\\d+\\s+\\d+\\s+(---->|<====).*"))
+                trace.add(line.trim());
+        }
+        Collections.sort(trace, new Comparator<String>()
+        {
+            @Override
+            public int compare(String a, String b)
+            {
+                return node(a) - node(b);
+            }
+        });
+        return trace;
+    }
+
+
+    private static int node(String line)
+    {
+        return Integer.parseInt(line.split("\\s+")[0]);
+    }
+
+
+    private static int count(List<String> trace, int node, String dir)
+    {
+        int count = 0;
+        for (String line : trace)
+        {
+            String[] f = line.split("\\s+", 4);
+            if (Integer.parseInt(f[0]) == node && f[2].equals(dir))
+                count++;
+        }
+        return count;
+    }
+
+
+    public void testLookaheadMatchesRipple() throws Exception
+    {
+        List<String> ripple = run("synchronizer", "ripple");
+        assertEquals(ripple, run("synchronizer", "lookahead"));
+
+        // the counter reaches the other node over the radio
+        assertTrue(count(ripple, 0, "---->") > 1);
+        assertTrue(count(ripple, 1, "<====") > 0);
+    }
+
+
+    public void testTaskMatchesRipple() throws Exception
+    {
+        List<String> ripple = run("synchronizer", "ripple");
+        assertEquals(ripple, run("synchronizer", "task", "worker-threads",
+                "1"));
+        assertEquals(ripple, run("synchronizer", "task", "worker-threads",
+                "2"));
+    }
+}
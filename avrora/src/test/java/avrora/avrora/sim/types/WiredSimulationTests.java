@@ -0,0 +1,148 @@
+package avrora.avrora.sim.types;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import avrora.cck.text.Terminal;
+import avrora.cck.util.Options;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the task synchronizer of a wired simulation, which runs the
+ * nodes ahead of each other in windows bounded by the wire latency, produces
+ * the same wire transitions as the step synchronizer.
+ */
+public class WiredSimulationTests extends TestCase
+{
+
+    // toggles North Tx (PC0) every 256 iterations and echoes North Rx (PD1)
+    // on East Tx (PC1)
+    private static final String ECHO = "start:\n"
+            + "    ldi r16, 3\n"
+            + "    out 0x14, r16\n"
+            + "    ldi r20, 0\n"
+            + "    ldi r18, 1\n"
+            + "loop:\n"
+            + "    inc r20\n"
+            + "    brne echo\n"
+            + "    in r17, 0x15\n"
+            + "    eor r17, r18\n"
+            + "    out 0x15, r17\n"
+            + "echo:\n"
+            + "    sbis 0x10, 1\n"
+            + "    cbi 0x15, 1\n"
+            + "    sbic 0x10, 1\n"
+            + "    sbi 0x15, 1\n"
+            + "    rjmp loop\n";
+
+    private static final String LATENCY = "40";
+
+    private File program;
+
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        program = File.createTempFile("echo", ".asm");
+        FileWriter w = new FileWriter(program);
+        w.write(ECHO);
+        w.close();
+    }
+
+
+    @Override
+    protected void tearDown()
+    {
+        program.delete();
+    }
+
+
+    /**
+     * Runs two wired echo nodes and returns the transitions of their wires as
+     * printed, ordered by node. The order of the transitions of each node is
+     * kept.
+     */
+    private List<String> run(String... pairs) throws Exception
+    {
+        Options o = new Options();
+        o.setOption("seconds", "0.002");
+        o.setOption("nodecount", "2");
+        o.setOption("stagger-start", "37");
+        o.setOption("wire-latency", LATENCY);
+        for (int cntr = 0; cntr < pairs.length; cntr += 2)
+            o.setOption(pairs[cntr], pairs[cntr + 1]);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        boolean colors = Terminal.useColors;
+        Terminal.useColors = false;
+        Terminal.setOutput(new PrintStream(bytes, true));
+        try
+        {
+            WiredSimulation sim = new WiredSimulation();
+            sim.process(o, new String[] { program.getPath() });
+            sim.start();
+            sim.join();
+        }
+        finally
+        {
+            Terminal.setOutput(System.out);
+            Terminal.useColors = colors;
+        }
+
+        List<String> trace = new ArrayList<String>();
+        for (String line : bytes.toString().split("\n"))
+        {
+            if (line.matches("\\s*\\d+\\s+\\d+\\s+.*"))
+                trace.add(line.trim());
+        }
+        Collections.sort(trace, new Comparator<String>()
+        {
+            @Override
+            public int compare(String a, String b)
+            {
+                return node(a) - node(b);
+            }
+        });
+        return trace;
+    }
+
+
+    private static int node(String line)
+    {
+        return Integer.parseInt(line.split("\\s+")[0]);
+    }
+
+
+    private static long time(List<String> trace, int node, String event)
+    {
+        for (String line : trace)
+        {
+            String[] f = line.split("\\s+", 3);
+            if (Integer.parseInt(f[0]) == node && f[2].equals(event))
+                return Long.parseLong(f[1]);
+        }
+        fail("no event " + event + " on node " + node);
+        return -1;
+    }
+
+
+    public void testTaskMatchesStep() throws Exception
+    {
+        List<String> step = run("synchronizer", "step");
+        assertEquals(step, run("synchronizer", "task", "worker-threads", "1"));
+        assertEquals(step, run("synchronizer", "task", "worker-threads", "2"));
+
+        // the echo of node 0 arrives at node 1 after the latency of the wire
+        long sent = time(step, 0, "North Tx: high");
+        assertEquals(sent + Long.parseLong(LATENCY), time(step, 1,
+                "North Rx: high"));
+        // and comes back from node 1 on its East wire
+        assertTrue(time(step, 0, "East Rx: high") > sent);
+    }
+}
@@ -0,0 +1,160 @@
+package avrora.avrora.stack;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import avrora.avrora.Defaults;
+import avrora.avrora.core.Program;
+import avrora.cck.text.Printer;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the stack analyzer builds the same state space and finds the same
+ * maximal path with several worker threads as with a single thread, and with
+ * the states stored in compact mode as on the heap, also when the analyzer
+ * uses procedure summaries.
+ */
+public class AnalyzerTests extends TestCase
+{
+
+    private static final String DIR = "src/main/java/avrora/test/";
+
+
+    private static List<String> analyze(String file, int workers,
+            boolean compact, boolean isea) throws Exception
+    {
+        Program p = Defaults.getProgramReader("auto")
+                .read(new String[] { DIR + file });
+        int saved = Analyzer.WORKERS;
+        Analyzer.WORKERS = workers;
+        Analyzer.COMPACT_STATES = compact;
+        Analyzer.USE_ISEA = isea;
+        try
+        {
+            Analyzer a = new Analyzer(p);
+            a.run();
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            a.graph.dump(new Printer(new PrintStream(bytes)));
+            return canonicalize(bytes.toString().split("\n"), a);
+        }
+        finally
+        {
+            Analyzer.WORKERS = saved;
+            Analyzer.COMPACT_STATES = false;
+            Analyzer.USE_ISEA = false;
+        }
+    }
+
+
+    /**
+     * The state numbers depend on the order in which the states are created,
+     * which is not fixed with several threads, or when the return states
+     * depend on the caller as they do with procedure summaries. Name each state
+     * by its position among the sorted contents of all states instead.
+     */
+    private static List<String> canonicalize(String[] dump, Analyzer a)
+    {
+        List<String> states = new ArrayList<String>();
+        List<String> edges = new ArrayList<String>();
+        for (String line : dump)
+        {
+            if (line.contains("--("))
+                edges.add(line);
+            else
+                states.add(line);
+        }
+        List<String> contents = new ArrayList<String>();
+        for (String state : states)
+            contents.add(state.substring(state.indexOf(':')));
+        Collections.sort(contents);
+        HashMap<String, String> names = new HashMap<String, String>();
+        for (String state : states)
+        {
+            String uid = state.substring(1, state.indexOf(':'));
+            int index = Collections.binarySearch(contents,
+                    state.substring(state.indexOf(':')));
+            names.put(uid, Integer.toString(index));
+        }
+
+        List<String> list = new ArrayList<String>(contents);
+        for (String edge : edges)
+        {
+            int end = edge.indexOf(']');
+            int start = edge.lastIndexOf('[');
+            list.add(names.get(edge.substring(1, end))
+                    + edge.substring(end + 1, start)
+                    + names.get(edge.substring(start + 1, edge.length() - 1)));
+        }
+        Collections.sort(list);
+        list.add("unbounded " + a.unbounded);
+        list.add("depth " + a.maximalPath.depth);
+        // for an unbounded stack, the path is just one of the cycles found
+        StateTransitionGraph g = a.graph;
+        for (Analyzer.Path path = a.maximalPath; !a.unbounded && path != null
+                && path.edge != StateTransitionGraph.NO_EDGE; path = path.tail)
+        {
+            list.add(names.get(g.getSource(path.edge).getUniqueName()) + " "
+                    + g.getType(path.edge) + " "
+                    + names.get(g.getTarget(path.edge).getUniqueName()));
+        }
+        return list;
+    }
+
+
+    private static void assertSameList(List<String> expected,
+            List<String> list)
+    {
+        // the lists are too long to be printed when they differ
+        assertEquals(expected.size(), list.size());
+        for (int cntr = 0; cntr < expected.size(); cntr++)
+            assertEquals(expected.get(cntr), list.get(cntr));
+    }
+
+
+    private static void assertSameAnalysis(String file) throws Exception
+    {
+        List<String> expected = analyze(file, 1, false, false);
+        assertSameList(expected, analyze(file, 4, false, false));
+        assertSameList(expected, analyze(file, 1, true, false));
+        assertSameList(expected, analyze(file, 4, true, false));
+    }
+
+
+    private static void assertSameISEAnalysis(String file) throws Exception
+    {
+        List<String> expected = analyze(file, 1, false, true);
+        assertSameList(expected, analyze(file, 4, false, true));
+        assertSameList(expected, analyze(file, 4, true, true));
+    }
+
+
+    public void testCntToRfm() throws Exception
+    {
+        assertSameAnalysis("tinyos/CntToRfm.elf");
+    }
+
+
+    public void testOscilloscopeRF() throws Exception
+    {
+        assertSameAnalysis("tinyos/OscilloscopeRF.elf");
+    }
+
+
+    public void testSurge() throws Exception
+    {
+        assertSameAnalysis("tinyos/Surge.elf");
+    }
+
+
+    public void testInterruptsWithISEA() throws Exception
+    {
+        // the procedures called from the interrupt handlers are only
+        // summarized when the worker threads reach their calls
+        assertSameISEAnalysis("stack/int02.asm");
+    }
+}
@@ -0,0 +1,161 @@
+package avrora.avrora.stack.isea;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+
+import avrora.avrora.Defaults;
+import avrora.avrora.core.Program;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the ISE analyzer computes the same summaries with several threads
+ * and with a summary file as without, and that a run with a summary file only
+ * analyzes the procedures whose code or callees' summaries have changed.
+ */
+public class ISEAnalyzerTests extends TestCase
+{
+
+    private static final String PROGRAM = "main:\n" + "%s" + "    call a\n"
+            + "    call b\n" + "    break\n" + "a:\n" + "    call c\n"
+            + "    ret\n" + "b:\n" + "    ldi r20, 1\n" + "    ret\n" + "c:\n"
+            + "    %s\n" + "    ret\n";
+
+    private File summaries;
+
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        summaries = File.createTempFile("isea", ".sum");
+        summaries.delete();
+    }
+
+
+    @Override
+    protected void tearDown()
+    {
+        summaries.delete();
+    }
+
+
+    private static Program read(String file) throws Exception
+    {
+        return Defaults.getProgramReader("auto").read(new String[] { file });
+    }
+
+
+    private static Program assemble(String c) throws Exception
+    {
+        return assemble("", c);
+    }
+
+
+    private static Program assemble(String main, String c) throws Exception
+    {
+        File f = File.createTempFile("isea", ".asm");
+        try
+        {
+            FileWriter w = new FileWriter(f);
+            w.write(String.format(PROGRAM, main, c));
+            w.close();
+            return read(f.getPath());
+        }
+        finally
+        {
+            f.delete();
+        }
+    }
+
+
+    private ISEAnalyzer analyze(Program p, int workers)
+    {
+        ISEAnalyzer a = new ISEAnalyzer(p, workers, summaries.getPath());
+        a.analyze();
+        return a;
+    }
+
+
+    private static void assertSameSummaries(ISEAnalyzer expected,
+            ISEAnalyzer a)
+    {
+        assertEquals(expected.procedureSummaries, a.procedureSummaries);
+        assertEquals(expected.returnSummaries, a.returnSummaries);
+    }
+
+
+    public void testSurge() throws Exception
+    {
+        Program p = read("src/main/java/avrora/test/tinyos/Surge.elf");
+        ISEAnalyzer expected = new ISEAnalyzer(p);
+        expected.analyze();
+
+        ISEAnalyzer first = analyze(p, 4);
+        assertSameSummaries(expected, first);
+        assertEquals(expected.procedureSummaries.size(), first
+                .getAnalyzedCount());
+
+        ISEAnalyzer second = analyze(p, 4);
+        assertSameSummaries(expected, second);
+        assertEquals(0, second.getAnalyzedCount());
+        assertEquals(first.getAnalyzedCount(), second.getReusedCount());
+    }
+
+
+    public void testChangedCallee() throws Exception
+    {
+        ISEAnalyzer a = analyze(assemble("ldi r21, 2"), 1);
+        assertEquals(3, a.getAnalyzedCount());
+
+        a = analyze(assemble("ldi r21, 2"), 1);
+        assertEquals(0, a.getAnalyzedCount());
+
+        // the code of c changes, but not its summary
+        a = analyze(assemble("ldi r21, 3"), 1);
+        assertEquals(1, a.getAnalyzedCount());
+        assertEquals(2, a.getReusedCount());
+
+        // the summary of c changes, so its caller a is analyzed again
+        Program p = assemble("mov r21, r22");
+        a = analyze(p, 1);
+        assertEquals(2, a.getAnalyzedCount());
+        assertEquals(1, a.getReusedCount());
+        ISEAnalyzer expected = new ISEAnalyzer(p);
+        expected.analyze();
+        assertSameSummaries(expected, a);
+    }
+
+
+    public void testMovedProcedures() throws Exception
+    {
+        ISEAnalyzer a = analyze(assemble("ldi r21, 2"), 1);
+        assertEquals(3, a.getAnalyzedCount());
+
+        // the procedures move, but their code and callees stay the same
+        Program p = assemble("    nop\n", "ldi r21, 2");
+        a = analyze(p, 1);
+        assertEquals(0, a.getAnalyzedCount());
+        assertEquals(3, a.getReusedCount());
+        ISEAnalyzer expected = new ISEAnalyzer(p);
+        expected.analyze();
+        assertSameSummaries(expected, a);
+    }
+
+
+    public void testCorruptKeyLength() throws Exception
+    {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(
+                summaries));
+        out.writeInt(ISESummaryStore.MAGIC);
+        out.writeInt(ISESummaryStore.VERSION);
+        out.writeInt(1);
+        out.writeInt(Integer.MAX_VALUE);
+        out.close();
+        assertTrue(ISESummaryStore.read(summaries).isEmpty());
+
+        // the file is ignored, so every procedure is analyzed
+        ISEAnalyzer a = analyze(assemble("ldi r21, 2"), 1);
+        assertEquals(3, a.getAnalyzedCount());
+    }
+}
@@ -0,0 +1,84 @@
+package avrora.avrora.syntax.elf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+
+import avrora.avrora.core.SourceMapping;
+import avrora.cck.util.Util;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the ELF loader reports a truncated file as a user error, wherever
+ * the file ends, and that it tells data objects apart from functions.
+ */
+public class ELFParserTests extends TestCase
+{
+
+    private static final String TINYOS = "src/main/java/avrora/test/tinyos/";
+    private static final String SURGE = TINYOS + "Surge.elf";
+
+
+    private static void assertTruncated(int length) throws Exception
+    {
+        byte[] bytes = new byte[length];
+        RandomAccessFile in = new RandomAccessFile(SURGE, "r");
+        try
+        {
+            in.readFully(bytes);
+        }
+        finally
+        {
+            in.close();
+        }
+
+        File file = File.createTempFile("truncated", ".elf");
+        try
+        {
+            FileOutputStream out = new FileOutputStream(file);
+            try
+            {
+                out.write(bytes);
+            }
+            finally
+            {
+                out.close();
+            }
+            new ELFParser().read(new String[] { file.getPath() });
+            fail("truncated file of " + length + " bytes was loaded");
+        }
+        catch (Util.Error e)
+        {
+            assertEquals("truncated ELF file", e.getParam());
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+
+    public void testTruncatedHeader() throws Exception
+    {
+        assertTruncated(20);
+    }
+
+
+    public void testTruncatedSections() throws Exception
+    {
+        assertTruncated(2000);
+    }
+
+
+    public void testDataObjects() throws Exception
+    {
+        SourceMapping map = new ELFParser().read(
+                new String[] { TINYOS + "CntToRfm.elf" }).getSourceMapping();
+
+        // the table is stored in flash next to the code
+        SourceMapping.Location table = map.getLocation("crcTable");
+        assertEquals(".text", table.section);
+        assertTrue(table.object);
+        assertFalse(map.getLocation("TOS_post").object);
+    }
+}
@@ -66,4 +66,24 @@ public final class TestUtil
     {
         return (ATMega128) createMicaZ().getMicrocontroller();
     }
+
+
+    /**
+     * The second words that are combined with every first word when all bit
+     * patterns of an instruction are decoded.
+     */
+    public static final int[] SECOND_WORDS = { 0x0000, 0xFFFF, 0x1234,
+            0x8001 };
+
+
+    /**
+     * Creates the machine code of an instruction from its two words.
+     * 
+     * @return the four bytes of the two words, low byte first
+     */
+    public static byte[] code(int word0, int word1)
+    {
+        return new byte[] { (byte) word0, (byte) (word0 >> 8), (byte) word1,
+                (byte) (word1 >> 8) };
+    }
 }